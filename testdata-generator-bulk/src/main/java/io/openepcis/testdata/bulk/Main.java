@@ -21,17 +21,43 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.openepcis.constants.EPCISVersion;
+import io.openepcis.model.epcis.EPCISEvent;
 import io.openepcis.testdata.generator.EPCISEventGenerator;
+import io.openepcis.testdata.generator.model.EventGraph;
+import io.openepcis.testdata.generator.reactivestreams.CaptureLoadDriver;
+import io.openepcis.testdata.generator.reactivestreams.CaptureOutput;
+import io.openepcis.testdata.generator.reactivestreams.Compression;
+import io.openepcis.testdata.generator.reactivestreams.EPCISDocumentFormat;
+import io.openepcis.testdata.generator.reactivestreams.EPCISEventPublisherOptions;
+import io.openepcis.testdata.generator.reactivestreams.EventSink;
+import io.openepcis.testdata.generator.reactivestreams.EventSinkOutput;
+import io.openepcis.testdata.generator.reactivestreams.EventSinks;
+import io.openepcis.testdata.generator.reactivestreams.JdbcEventOutput;
+import io.openepcis.testdata.generator.reactivestreams.LoadReport;
 import io.openepcis.testdata.generator.reactivestreams.StreamingEPCISDocument;
+import io.openepcis.testdata.generator.reactivestreams.StreamingEPCISDocumentOutput;
+import io.openepcis.testdata.generator.reactivestreams.TeeEventSink;
 import io.openepcis.testdata.generator.template.InputTemplate;
+import io.smallrye.mutiny.Multi;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class Main {
 
+  private static final int BATCH_SIZE = 256;
+
+  private static final int MAX_REQUEST_WINDOW = 1024;
+
+  private static final int RING_SIZE = 4096;
 
   private static final ObjectMapper MAPPER = new ObjectMapper()
           .setSerializationInclusion(JsonInclude.Include.NON_NULL)
@@ -86,35 +112,208 @@ public class Main {
 
   public static void main(String[] args) throws JsonProcessingException, IOException {
     InputTemplate template = MAPPER.readValue(TEMPLATE, InputTemplate.class);
+    if (args[0].startsWith("jdbc:")) {
+      // insert into a database instead: jdbc url, event count and number of writers
+      insert(template, args[0], args.length > 1 ? Integer.parseInt(args[1]) : 1000,
+              args.length > 2 ? Integer.parseInt(args[2]) : 4);
+      return;
+    }
+    if (args[0].equals("sink")) {
+      // one generation run written to all sinks, e.g. file:path=events.jsonld capture:uri=http://...
+      sink(template, Integer.parseInt(args[1]), Arrays.asList(args).subList(2, args.length));
+      return;
+    }
+    if (args[0].equals("load")) {
+      // measure a capture interface: capture url, users (closed loop) or rate like 500/s (open loop),
+      // seconds, batch size and an optional file for the json report
+      load(template, URI.create(args[1]), args.length > 2 ? args[2] : "4",
+              args.length > 3 ? Integer.parseInt(args[3]) : 60,
+              args.length > 4 ? Integer.parseInt(args[4]) : CaptureOutput.DEFAULT_BATCH_SIZE,
+              args.length > 5 ? Path.of(args[5]) : null);
+      return;
+    }
+    if (args[0].startsWith("http://") || args[0].startsWith("https://")) {
+      // post to a capture interface instead: capture url, event count, batch size and concurrency
+      capture(template, URI.create(args[0]), args.length > 1 ? Integer.parseInt(args[1]) : 1000,
+              args.length > 2 ? Integer.parseInt(args[2]) : CaptureOutput.DEFAULT_BATCH_SIZE,
+              args.length > 3 ? Integer.parseInt(args[3]) : CaptureOutput.DEFAULT_CONCURRENCY);
+      return;
+    }
     String baseBath = args[0];
+    // optional output format, e.g. json_ld, ndjson, xml, cbor, smile, protobuf or avro
+    EPCISDocumentFormat format = args.length > 1
+            ? EPCISDocumentFormat.valueOf(args[1].toUpperCase().replace('-', '_'))
+            : EPCISDocumentFormat.JSON_LD;
+    // optional EPCIS version of XML output
+    EPCISVersion epcisVersion = args.length > 2 && args[2].startsWith("1.2")
+            ? EPCISVersion.VERSION_1_2_0
+            : EPCISVersion.VERSION_2_0_0;
+    // optional compression (none, gzip or zstd) and its level, block compression for avro
+    Compression compression = args.length > 3
+            ? Compression.valueOf(args[3].toUpperCase())
+            : Compression.NONE;
+    int compressionLevel = args.length > 4 ? Integer.parseInt(args[4]) : Compression.DEFAULT_LEVEL;
     int[] step = new int[] {1, 10, 100, 1000};
     for (int eventCount : step) {
       for (int documentCount : step) {
-        create(template,baseBath+"/"+documentCount+"-"+eventCount, documentCount, eventCount);
+        create(template,baseBath+"/"+documentCount+"-"+eventCount, documentCount, eventCount, format, epcisVersion, compression, compressionLevel);
       }
     }
   }
 
-  private static void create(final InputTemplate template, final String dir, final int count, final int size) throws IOException {
+  private static void insert(final InputTemplate template, final String url, final int eventCount, final int writers) throws IOException {
+    template.getEvents().get(0).setEventCount(eventCount);
+    final StreamingEPCISDocument streamingEPCISDocument = new StreamingEPCISDocument();
+    StreamingEPCISDocument.storeContextInfo(template.getEvents());
+    streamingEPCISDocument.setEpcisEvents(generate(template));
+    final JdbcEventOutput.Result result = JdbcEventOutput.builder()
+            .output(StreamingEPCISDocumentOutput.outputStreamBuilder()
+                    .objectMapper(MAPPER)
+                    .requestWindow(BATCH_SIZE)
+                    .maxRequestWindow(MAX_REQUEST_WINDOW)
+                    .ringSize(RING_SIZE)
+                    .virtualThreads(true)
+                    .build())
+            .url(url, null, null)
+            .writers(writers)
+            .build()
+            .write(streamingEPCISDocument);
+    System.out.printf("%d events, %d rows in %d ms, %.0f rows/s%n", result.events(), result.rows(),
+            result.elapsed().toMillis(), result.rowsPerSecond());
+  }
+
+  private static void capture(final InputTemplate template, final URI uri, final int eventCount, final int batchSize,
+                              final int concurrency) throws IOException {
+    template.getEvents().get(0).setEventCount(eventCount);
+    final StreamingEPCISDocument streamingEPCISDocument = new StreamingEPCISDocument();
+    StreamingEPCISDocument.storeContextInfo(template.getEvents());
+    streamingEPCISDocument.setEpcisEvents(generate(template));
+    final CaptureOutput.Result result = CaptureOutput.builder()
+            .output(StreamingEPCISDocumentOutput.outputStreamBuilder()
+                    .objectMapper(MAPPER)
+                    .requestWindow(BATCH_SIZE)
+                    .maxRequestWindow(MAX_REQUEST_WINDOW)
+                    .ringSize(RING_SIZE)
+                    .virtualThreads(true)
+                    .directJson(true)
+                    .build())
+            .uri(uri)
+            .batchSize(batchSize)
+            .concurrency(concurrency)
+            .build()
+            .write(streamingEPCISDocument);
+    System.out.printf("%d events in %d batches (%d retries) in %d ms, %.0f events/s,"
+                    + " batch latency p50 %d ms, p99 %d ms, max %d ms%n",
+            result.events(), result.batches(), result.retries(), result.elapsed().toMillis(),
+            result.eventsPerSecond(), result.latencyP50().toMillis(), result.latencyP99().toMillis(),
+            result.latencyMax().toMillis());
+  }
+
+  private static void sink(final InputTemplate template, final int eventCount, final List<String> specs) throws IOException {
+    template.getEvents().get(0).setEventCount(eventCount);
+    final StreamingEPCISDocument streamingEPCISDocument = new StreamingEPCISDocument();
+    StreamingEPCISDocument.storeContextInfo(template.getEvents());
+    streamingEPCISDocument.setEpcisEvents(generate(template));
+    final StreamingEPCISDocumentOutput output = StreamingEPCISDocumentOutput.outputStreamBuilder()
+            .objectMapper(MAPPER)
+            .requestWindow(BATCH_SIZE)
+            .maxRequestWindow(MAX_REQUEST_WINDOW)
+            .ringSize(RING_SIZE)
+            .virtualThreads(true)
+            .directJson(true)
+            .build();
+    final List<EventSink> sinks = new ArrayList<>();
+    for (String spec : specs) {
+      sinks.add(EventSinks.create(spec, output));
+    }
+    final long start = System.nanoTime();
+    EventSinkOutput.builder()
+            .output(output)
+            .sink(sinks.size() == 1
+                    ? sinks.get(0)
+                    : new TeeEventSink(sinks, TeeEventSink.DEFAULT_BUFFERED_BATCHES, true))
+            .batchSize(BATCH_SIZE)
+            .build()
+            .write(streamingEPCISDocument);
+    System.out.printf("%d events written to %d sinks in %d ms%n", eventCount, sinks.size(),
+            (System.nanoTime() - start) / 1_000_000);
+  }
+
+  private static void load(final InputTemplate template, final URI uri, final String load, final int seconds,
+                           final int batchSize, final Path report) throws IOException {
+    StreamingEPCISDocument.storeContextInfo(template.getEvents());
+    final CaptureLoadDriver.Builder builder = CaptureLoadDriver.builder()
+            .output(StreamingEPCISDocumentOutput.outputStreamBuilder()
+                    .objectMapper(MAPPER)
+                    .virtualThreads(true)
+                    .directJson(true)
+                    .build())
+            .uri(uri)
+            .events(() -> EPCISEventGenerator.generate(template, BATCH_SIZE))
+            .batchSize(batchSize)
+            .generators(Runtime.getRuntime().availableProcessors(), 256)
+            .warmup(Duration.ofSeconds(Math.min(10, Math.max(1, seconds / 10))))
+            .duration(Duration.ofSeconds(seconds));
+    if (load.endsWith("/s")) {
+      builder.openLoop(Double.parseDouble(load.substring(0, load.length() - 2)));
+    } else {
+      builder.closedLoop(Integer.parseInt(load));
+    }
+    final LoadReport result = builder.build().run();
+    System.out.print(result.toText());
+    if (report != null) {
+      Files.writeString(report, result.toJson());
+    }
+  }
+
+  private static void create(final InputTemplate template, final String dir, final int count, final int size, final EPCISDocumentFormat format, final EPCISVersion epcisVersion,
+                             final Compression compression, final int compressionLevel) throws IOException {
     template.getEvents().get(0).setEventCount(size);
     Path d = Path.of(dir);
     if (!Files.exists(d)) {
       Files.createDirectory(d);
     }
+    Duration compileTime = Duration.ZERO;
     for (int i = 0; i < count; i++) {
-      Path f = d.resolve("ObjectEvent_"+i+".jsonld");
+      Path f = d.resolve("ObjectEvent_"+i+format.fileExtension(compression));
       if (!Files.exists(f)) {
         Files.createFile(f);
       }
       final StreamingEPCISDocument streamingEPCISDocument = new StreamingEPCISDocument();
       StreamingEPCISDocument.storeContextInfo(template.getEvents());
       streamingEPCISDocument.setPrettyPrint(true);
-      streamingEPCISDocument.setEpcisEvents(EPCISEventGenerator.generate(template));
+      streamingEPCISDocument.setEpcisVersion(epcisVersion);
+      streamingEPCISDocument.setCompression(compression);
+      final EventGraph eventGraph = EPCISEventGenerator.compile(template);
+      compileTime = compileTime.plus(eventGraph.getCompileTime());
+      streamingEPCISDocument.setEpcisEvents(EPCISEventGenerator.generate(eventGraph, options()));
       final FileOutputStream out = new FileOutputStream(f.toFile());
       streamingEPCISDocument.writeToOutputStream(b -> {
-        return b.objectMapper(MAPPER).outputStream(out).build();
+        return b.objectMapper(MAPPER)
+                .requestWindow(BATCH_SIZE)
+                .maxRequestWindow(MAX_REQUEST_WINDOW)
+                .ringSize(RING_SIZE)
+                .virtualThreads(true)
+                .directJson(true)
+                .format(format)
+                .compressionLevel(compressionLevel)
+                .outputStream(out)
+                .build();
       });
     }
+    System.out.printf("%s: %d documents, templates compiled in %.3f ms%n", dir, count,
+            compileTime.toNanos() / 1_000_000d);
+  }
+
+  private static Multi<EPCISEvent> generate(final InputTemplate template) {
+    final EventGraph eventGraph = EPCISEventGenerator.compile(template);
+    System.out.printf("%d event nodes compiled in %.3f ms%n", eventGraph.getModels().size(),
+            eventGraph.getCompileTime().toNanos() / 1_000_000d);
+    return EPCISEventGenerator.generate(eventGraph, options());
+  }
+
+  private static EPCISEventPublisherOptions options() {
+    return EPCISEventPublisherOptions.builder().batchSize(BATCH_SIZE).build();
   }
 
 }
\ No newline at end of file
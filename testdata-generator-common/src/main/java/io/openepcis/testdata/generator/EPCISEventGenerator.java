@@ -18,14 +18,18 @@ package io.openepcis.testdata.generator;
 import io.openepcis.model.epcis.EPCISEvent;
 import io.openepcis.testdata.generator.constants.TestDataGeneratorException;
 import io.openepcis.testdata.generator.model.EventCreationModel;
-import io.openepcis.testdata.generator.model.EventModelUtil;
+import io.openepcis.testdata.generator.model.EventGraph;
 import io.openepcis.testdata.generator.reactivestreams.EPCISEventPublisher;
+import io.openepcis.testdata.generator.reactivestreams.EPCISEventPublisherOptions;
 import io.openepcis.testdata.generator.template.EPCISEventType;
 import io.openepcis.testdata.generator.template.InputTemplate;
 import io.smallrye.mutiny.Multi;
 import java.util.List;
-import java.util.Optional;
 
+/**
+ * Generates EPCIS events from an {@link InputTemplate}. Events of the same node share their
+ * node-level values and must not be modified, see {@link EPCISEventPublisher}.
+ */
 public class EPCISEventGenerator {
 
   private EPCISEventGenerator() {}
@@ -33,16 +37,25 @@ public class EPCISEventGenerator {
   public static List<EventCreationModel<EPCISEventType, EPCISEvent>> createModels(
       final InputTemplate inputTemplate) {
     try {
-      return inputTemplate.getEvents().stream()
-          .map(
-              e ->
-                  EventModelUtil.createModel(
-                      e,
-                      EventModelUtil.usedIdentifiers(e, inputTemplate.getIdentifiers()),
-                      inputTemplate.getRandomGenerators()))
-          .filter(Optional::isPresent)
-          .map(Optional::get)
-          .toList();
+      return EventGraph.createModels(inputTemplate);
+    } catch (Exception e) {
+      throw new TestDataGeneratorException(
+          "Exception occurred during the creation of model for input : " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * compile the template into an indexed graph of event nodes, the compile time is reported by
+   * {@link EventGraph#getCompileTime()}
+   *
+   * @param inputTemplate template describing the events
+   * @return compiled graph
+   */
+  public static EventGraph compile(final InputTemplate inputTemplate) {
+    try {
+      return EventGraph.compile(inputTemplate);
+    } catch (TestDataGeneratorException e) {
+      throw e;
     } catch (Exception e) {
       throw new TestDataGeneratorException(
           "Exception occurred during the creation of model for input : " + e.getMessage(), e);
@@ -50,12 +63,48 @@ public class EPCISEventGenerator {
   }
 
   public static Multi<EPCISEvent> generate(final InputTemplate inputTemplate) {
+    return generate(inputTemplate, EPCISEventPublisher.DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * generate events with batched demand fulfillment
+   *
+   * @param inputTemplate template describing the events
+   * @param batchSize number of events generated at once
+   * @return events as Multi
+   */
+  public static Multi<EPCISEvent> generate(final InputTemplate inputTemplate, final int batchSize) {
+    return generate(
+        inputTemplate, EPCISEventPublisherOptions.builder().batchSize(batchSize).build());
+  }
+
+  /**
+   * generate events using the provided publisher options
+   *
+   * @param inputTemplate template describing the events
+   * @param options batching and parallel generation options
+   * @return events as Multi
+   */
+  public static Multi<EPCISEvent> generate(
+      final InputTemplate inputTemplate, final EPCISEventPublisherOptions options) {
     try {
-      return Multi.createFrom()
-          .publisher(new EPCISEventPublisher(EPCISEventGenerator.createModels(inputTemplate)));
+      return generate(compile(inputTemplate), options);
     } catch (Exception e) {
       throw new TestDataGeneratorException(
           "Exception occurred during the generation of EPCIS events : " + e.getMessage(), e);
     }
   }
+
+  /**
+   * generate events of an already compiled template, a compiled graph can only be used once as
+   * its models keep the generation state
+   *
+   * @param eventGraph compiled template
+   * @param options batching and parallel generation options
+   * @return events as Multi
+   */
+  public static Multi<EPCISEvent> generate(
+      final EventGraph eventGraph, final EPCISEventPublisherOptions options) {
+    return Multi.createFrom().publisher(new EPCISEventPublisher(eventGraph, options));
+  }
 }
@@ -51,10 +51,12 @@ public class ValueTypeSyntax implements Serializable {
             .orElseThrow(
                 () -> new IllegalArgumentException("No generator found for randomID: " + randomID));
 
-    double sample =
-        generatorConfig
-            .getTriangularDistribution()
-            .sample(); // Generate and return the random value
+    // Generate the random value, the distribution is shared by all event nodes which may be
+    // generated concurrently
+    final double sample;
+    synchronized (generatorConfig) {
+      sample = generatorConfig.getTriangularDistribution().sample();
+    }
 
     // If user specified format for RandomGenerator then format based on specific format
     if (!StringUtils.isBlank(generatorConfig.getFormatValue())) {
@@ -20,6 +20,7 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import io.openepcis.testdata.generator.constants.IdentifierVocabularyType;
 import io.openepcis.testdata.generator.identifier.util.RandomSerialNumberGenerator;
 import io.quarkus.runtime.annotations.RegisterForReflection;
+import java.math.BigInteger;
 import java.util.List;
 
 @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.WRAPPER_OBJECT)
@@ -51,4 +52,22 @@ public interface EPCStrategy {
       final Integer count,
       final String dlURL,
       final RandomSerialNumberGenerator randomSerialNumberGenerator);
+
+  /**
+   * @return next serial number of range based generation, null if the strategy has no range
+   */
+  default BigInteger rangeFrom() {
+    return null;
+  }
+
+  /**
+   * Copy the strategy so that the copy generates serial numbers without affecting this strategy.
+   * Strategies without a range of their own keep no state and return themselves.
+   *
+   * @param rangeFrom next serial number of the copy
+   * @return copy continuing range based generation at rangeFrom
+   */
+  default EPCStrategy withRangeFrom(final BigInteger rangeFrom) {
+    return this;
+  }
 }
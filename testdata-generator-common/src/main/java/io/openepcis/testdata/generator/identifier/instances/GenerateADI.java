@@ -37,7 +37,7 @@ import org.eclipse.microprofile.openapi.annotations.media.Schema;
 @JsonTypeName("adi")
 @ToString(callSuper = true)
 @RegisterForReflection
-public class GenerateADI implements EPCStrategy {
+public class GenerateADI implements EPCStrategy, Cloneable {
 
   @Pattern(
       regexp = "^[A-Z0-9]+$",
@@ -97,6 +97,23 @@ public class GenerateADI implements EPCStrategy {
 
   private static final String ADI_URN_PART = "urn:epc:id:adi:";
 
+  @Override
+  public BigInteger rangeFrom() {
+    return rangeFrom;
+  }
+
+  @Override
+  public GenerateADI withRangeFrom(final BigInteger rangeFrom) {
+    try {
+      final GenerateADI copy = (GenerateADI) clone();
+      copy.rangeFrom = rangeFrom;
+      return copy;
+    } catch (CloneNotSupportedException ex) {
+      throw new TestDataGeneratorException(
+          "Exception occurred while copying identifier " + getClass().getSimpleName(), ex);
+    }
+  }
+
   @Override
   public List<String> format(
       final IdentifierVocabularyType syntax,
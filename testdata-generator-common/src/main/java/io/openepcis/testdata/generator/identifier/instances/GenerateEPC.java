@@ -16,6 +16,7 @@
 package io.openepcis.testdata.generator.identifier.instances;
 
 import io.openepcis.testdata.generator.constants.RandomizationType;
+import io.openepcis.testdata.generator.constants.TestDataGeneratorException;
 import io.quarkus.runtime.annotations.RegisterForReflection;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
@@ -31,7 +32,7 @@ import org.eclipse.microprofile.openapi.annotations.media.Schema;
 @NoArgsConstructor
 @ToString
 @RegisterForReflection
-public abstract class GenerateEPC implements EPCStrategy {
+public abstract class GenerateEPC implements EPCStrategy, Cloneable {
   @Min(value = 6, message = "Instance Identifiers GCP Length cannot be less than 6")
   @Max(value = 12, message = "Instance Identifiers GCP Length cannot be more than 12")
   @Schema(
@@ -81,4 +82,22 @@ public abstract class GenerateEPC implements EPCStrategy {
 
   @Schema(type = SchemaType.NUMBER, description = "Max character length for random serial numbers.")
   protected Integer randomMaxLength;
+
+  @Override
+  public BigInteger rangeFrom() {
+    return rangeFrom;
+  }
+
+  @Override
+  public GenerateEPC withRangeFrom(final BigInteger rangeFrom) {
+    try {
+      // all fields are immutable values, a shallow copy is independent of this strategy
+      final GenerateEPC copy = (GenerateEPC) clone();
+      copy.rangeFrom = rangeFrom;
+      return copy;
+    } catch (CloneNotSupportedException ex) {
+      throw new TestDataGeneratorException(
+          "Exception occurred while copying identifier " + getClass().getSimpleName(), ex);
+    }
+  }
 }
@@ -38,7 +38,7 @@ import org.eclipse.microprofile.openapi.annotations.media.Schema;
 @JsonTypeName("gid")
 @ToString(callSuper = true)
 @RegisterForReflection
-public class GenerateGID implements EPCStrategy {
+public class GenerateGID implements EPCStrategy, Cloneable {
 
   @Pattern(regexp = "\\d{1,9}", message = "GID Manager should be of length 1-9")
   @NotNull(message = "GID manager cannot be Null.")
@@ -89,6 +89,23 @@ public class GenerateGID implements EPCStrategy {
 
   private static final String GID_URN_PART = "urn:epc:id:gid:";
 
+  @Override
+  public BigInteger rangeFrom() {
+    return rangeFrom;
+  }
+
+  @Override
+  public GenerateGID withRangeFrom(final BigInteger rangeFrom) {
+    try {
+      final GenerateGID copy = (GenerateGID) clone();
+      copy.rangeFrom = rangeFrom;
+      return copy;
+    } catch (CloneNotSupportedException ex) {
+      throw new TestDataGeneratorException(
+          "Exception occurred while copying identifier " + getClass().getSimpleName(), ex);
+    }
+  }
+
   @Override
   public List<String> format(
       final IdentifierVocabularyType syntax,
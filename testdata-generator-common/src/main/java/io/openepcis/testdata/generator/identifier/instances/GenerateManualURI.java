@@ -22,6 +22,7 @@ import io.openepcis.testdata.generator.identifier.util.NumericUtils;
 import io.openepcis.testdata.generator.identifier.util.RandomSerialNumberGenerator;
 import io.quarkus.runtime.annotations.RegisterForReflection;
 import jakarta.validation.constraints.NotNull;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
 import lombok.Setter;
@@ -33,7 +34,7 @@ import org.eclipse.microprofile.openapi.annotations.media.Schema;
 @JsonTypeName("manualURI")
 @ToString(callSuper = true)
 @RegisterForReflection
-public class GenerateManualURI implements EPCStrategy {
+public class GenerateManualURI implements EPCStrategy, Cloneable {
 
   @NotNull(message = "Manual URI cannot be Null")
   @Schema(
@@ -53,6 +54,23 @@ public class GenerateManualURI implements EPCStrategy {
   private Integer manualUriRangeFrom;
   private Integer manualUriRangeTo;
 
+  @Override
+  public BigInteger rangeFrom() {
+    return manualUriRangeFrom != null ? BigInteger.valueOf(manualUriRangeFrom) : null;
+  }
+
+  @Override
+  public GenerateManualURI withRangeFrom(final BigInteger rangeFrom) {
+    try {
+      final GenerateManualURI copy = (GenerateManualURI) clone();
+      copy.manualUriRangeFrom = rangeFrom != null ? rangeFrom.intValueExact() : null;
+      return copy;
+    } catch (CloneNotSupportedException ex) {
+      throw new TestDataGeneratorException(
+          "Exception occurred while copying identifier " + getClass().getSimpleName(), ex);
+    }
+  }
+
   @Override
   public List<String> format(
       final IdentifierVocabularyType syntax,
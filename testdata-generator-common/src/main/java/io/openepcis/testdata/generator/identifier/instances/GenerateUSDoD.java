@@ -37,7 +37,7 @@ import org.eclipse.microprofile.openapi.annotations.media.Schema;
 @JsonTypeName("usdod")
 @ToString(callSuper = true)
 @RegisterForReflection
-public class GenerateUSDoD implements EPCStrategy {
+public class GenerateUSDoD implements EPCStrategy, Cloneable {
 
   @Pattern(
       regexp = "^[A-Z0-9]{5,6}$",
@@ -87,6 +87,23 @@ public class GenerateUSDoD implements EPCStrategy {
 
   private static final String USDOD_URN_PART = "urn:epc:id:usdod:";
 
+  @Override
+  public BigInteger rangeFrom() {
+    return rangeFrom;
+  }
+
+  @Override
+  public GenerateUSDoD withRangeFrom(final BigInteger rangeFrom) {
+    try {
+      final GenerateUSDoD copy = (GenerateUSDoD) clone();
+      copy.rangeFrom = rangeFrom;
+      return copy;
+    } catch (CloneNotSupportedException ex) {
+      throw new TestDataGeneratorException(
+          "Exception occurred while copying identifier " + getClass().getSimpleName(), ex);
+    }
+  }
+
   @Override
   public List<String> format(
       final IdentifierVocabularyType syntax,
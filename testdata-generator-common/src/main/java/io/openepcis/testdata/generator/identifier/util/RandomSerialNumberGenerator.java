@@ -36,6 +36,23 @@ public class RandomSerialNumberGenerator {
     return new RandomSerialNumberGenerator(seed);
   }
 
+  /**
+   * Derive the seed of an independent random stream, e.g. for one shard of a sharded generation.
+   * The seed and the stream index are mixed with the SplitMix64 finalizer so neighbouring stream
+   * indexes result in unrelated MersenneTwister states, the same inputs always result in the same
+   * seed.
+   *
+   * @param seed seed of the event node
+   * @param stream index of the derived stream
+   * @return seed for the derived stream
+   */
+  public static long deriveSeed(final long seed, final long stream) {
+    long z = seed + (stream + 1) * 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
   // Private constructor to prevent direct instantiation.
   private RandomSerialNumberGenerator(Long seed) {
     seed = seed != null ? seed : System.nanoTime();
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.identifier.util;
+
+import io.openepcis.testdata.generator.identifier.instances.EPCStrategy;
+import io.openepcis.testdata.generator.template.Identifier;
+import java.math.BigInteger;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Utility to copy identifier nodes including the state of range based serial numbers. Instance and
+ * parent identifier strategies advance their rangeFrom value while generating, a copy allows
+ * generating a part of the events independently starting from an arbitrary serial number.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class SerialRangeUtil {
+
+  /**
+   * Copy the identifier node, instance and parent identifier strategies are copied so that the
+   * copy can generate serial numbers without affecting the original. Class identifiers do not keep
+   * state and are shared.
+   *
+   * @param identifier identifier node to copy
+   * @return copy of the identifier node
+   */
+  public static Identifier copy(final Identifier identifier) {
+    return copy(
+        identifier, rangeFrom(identifier.getInstanceData()), rangeFrom(identifier.getParentData()));
+  }
+
+  /**
+   * Copy the identifier node with the ranges of the instance and parent identifiers starting at the
+   * given serial numbers.
+   *
+   * @param identifier identifier node to copy
+   * @param instanceRangeFrom next serial number of the instance identifiers
+   * @param parentRangeFrom next serial number of the parent identifiers
+   * @return copy of the identifier node
+   */
+  public static Identifier copy(
+      final Identifier identifier,
+      final BigInteger instanceRangeFrom,
+      final BigInteger parentRangeFrom) {
+    final Identifier copy = new Identifier();
+    copy.setIdentifierId(identifier.getIdentifierId());
+    copy.setObjectIdentifierSyntax(identifier.getObjectIdentifierSyntax());
+    copy.setDlURL(identifier.getDlURL());
+    copy.setInstanceData(withRangeFrom(identifier.getInstanceData(), instanceRangeFrom));
+    copy.setClassData(identifier.getClassData());
+    copy.setParentData(withRangeFrom(identifier.getParentData(), parentRangeFrom));
+    return copy;
+  }
+
+  /**
+   * @param strategy instance or parent identifier strategy, may be null
+   * @return next serial number of a range based strategy, null if not range based
+   */
+  public static BigInteger rangeFrom(final EPCStrategy strategy) {
+    return strategy != null ? strategy.rangeFrom() : null;
+  }
+
+  private static EPCStrategy withRangeFrom(final EPCStrategy strategy, final BigInteger rangeFrom) {
+    return strategy != null ? strategy.withRangeFrom(rangeFrom) : null;
+  }
+}
@@ -43,6 +43,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
@@ -52,11 +53,14 @@ import org.apache.commons.collections4.CollectionUtils;
 public abstract class AbstractEventCreationModel<T extends EPCISEventType, E extends EPCISEvent>
     implements EventCreationModel<T, E> {
 
-  protected ObjectMapper objectMapper =
+  // configured once and shared by all models, ObjectMapper is thread-safe once configured
+  private static final ObjectMapper OBJECT_MAPPER =
       new ObjectMapper()
           .registerModule(new JavaTimeModule())
           .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
 
+  protected final ObjectMapper objectMapper = OBJECT_MAPPER;
+
   protected final T typeInfo;
 
   protected final List<Identifier> identifiers;
@@ -68,7 +72,25 @@ public abstract class AbstractEventCreationModel<T extends EPCISEventType, E ext
   private final DateTimeFormatter dateFormatter =
       DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssXXX");
 
-  private final RandomSerialNumberGenerator randomSerialNumberGenerator;
+  private RandomSerialNumberGenerator randomSerialNumberGenerator;
+
+  // the where and why of the node are the same for every event, they are built once and shared by
+  // all events of the model so writers can serialize them once per node instead of once per event.
+  // Generated events must not be modified, see EPCISEventPublisher
+  @Getter(AccessLevel.NONE)
+  private final ReadPoint readPoint;
+
+  @Getter(AccessLevel.NONE)
+  private final BizLocation bizLocation;
+
+  @Getter(AccessLevel.NONE)
+  private final String bizStep;
+
+  @Getter(AccessLevel.NONE)
+  private final String disposition;
+
+  @Getter(AccessLevel.NONE)
+  protected final List<BizTransactionList> bizTransactionList;
 
   public AbstractEventCreationModel(
       final T typeInfo,
@@ -84,6 +106,34 @@ public abstract class AbstractEventCreationModel<T extends EPCISEventType, E ext
         randomGenerators); // Generate Random instance for each of the randomGenerators
     // Configures the random number generators that will be used when processing extension/ilmd
     UserExtensionSyntax.setRandomGenerators(randomGenerators);
+
+    final IdentifierVocabularyType syntax = typeInfo.getLocationPartyIdentifierSyntax();
+    this.readPoint = createReadPoint(syntax);
+    this.bizLocation = createBizLocation(syntax);
+    this.bizStep =
+        typeInfo.getBusinessStep() != null
+            ? BusinessStepFormatter.format(
+                typeInfo.getBusinessStep(), typeInfo.getBusinessStepManualURI())
+            : null;
+    this.disposition =
+        typeInfo.getDisposition() != null
+            ? DispositionFormatter.format(
+                typeInfo.getDisposition(), typeInfo.getDispositionManualURI())
+            : null;
+    this.bizTransactionList =
+        CollectionUtils.isNotEmpty(typeInfo.getBizTransactions())
+            ? typeInfo.getBizTransactions().stream().map(BizTransactionsFormatter::format).toList()
+            : null;
+  }
+
+  /**
+   * restart the random stream of this model with the provided seed instead of the template seed,
+   * used to give every shard of a sharded generation its own reproducible stream
+   *
+   * @param seed seed of the new random stream
+   */
+  public void reseed(final long seed) {
+    this.randomSerialNumberGenerator = RandomSerialNumberGenerator.getInstance(seed);
   }
 
   @Override
@@ -102,11 +152,11 @@ public abstract class AbstractEventCreationModel<T extends EPCISEventType, E ext
       // Call the method to add the When dimension information associated with the event
       configureWhenDimension(epcisEvent, parentTracker);
 
-      // Call the method to add the Where dimension information associated with the event
-      configureWhereDimension(epcisEvent, syntax);
-
-      // Call the method to add the Why dimension information associated with the event
-      configureWhyDimension(epcisEvent);
+      // Add the Where and Why dimension information shared by all events of the node
+      epcisEvent.setReadPoint(readPoint);
+      epcisEvent.setBizLocation(bizLocation);
+      epcisEvent.setBizStep(bizStep);
+      epcisEvent.setDisposition(disposition);
 
       // Call the method to add the Error related information
       configureErrorInformation(epcisEvent, syntax);
@@ -216,7 +266,7 @@ public abstract class AbstractEventCreationModel<T extends EPCISEventType, E ext
     // eventTime
     final OffsetDateTime parentEventTime =
         CollectionUtils.isNotEmpty(parentTracker)
-            ? parentTracker.get(0).getEvent().getEventTime()
+            ? parentTracker.get(0).getEventTime()
             : null;
     epcisEvent.setEventTime(
         typeInfo.getEventTime().generate(parentEventTime, randomSerialNumberGenerator));
@@ -229,68 +279,96 @@ public abstract class AbstractEventCreationModel<T extends EPCISEventType, E ext
     }
   }
 
-  // Private method used to add the Where dimension (Readpoint, Business Location) related
-  // information during the creation of event
-  private void configureWhereDimension(final E epcisEvent, final IdentifierVocabularyType syntax) {
-    // Set Read Point
-    if (typeInfo.getReadPoint() != null) {
-      final String formattedReadPoint =
-          ReadpointBusinessLocationFormatter.format(
-              syntax, typeInfo.getReadPoint(), typeInfo.getDlURL());
-      var rp = new ReadPoint();
-
-      try {
-        rp.setId(new URI(formattedReadPoint != null ? formattedReadPoint : ""));
-      } catch (URISyntaxException ex) {
-        throw new TestDataGeneratorException(
-            "Error during the addition of ReadPoint to EPCIS event : "
-                + typeInfo.getEventType()
-                + ex.getMessage(),
-            ex);
-      }
+  // Read point of the node, null if the template has none
+  private ReadPoint createReadPoint(final IdentifierVocabularyType syntax) {
+    if (typeInfo.getReadPoint() == null) {
+      return null;
+    }
+    final String formattedReadPoint =
+        ReadpointBusinessLocationFormatter.format(
+            syntax, typeInfo.getReadPoint(), typeInfo.getDlURL());
+    var rp = new ReadPoint();
+
+    try {
+      rp.setId(new URI(formattedReadPoint != null ? formattedReadPoint : ""));
+    } catch (URISyntaxException ex) {
+      throw new TestDataGeneratorException(
+          "Error during the addition of ReadPoint to EPCIS event : "
+              + typeInfo.getEventType()
+              + ex.getMessage(),
+          ex);
+    }
+    return rp;
+  }
 
-      // Set the ReadPoint for the EPCIS event
-      epcisEvent.setReadPoint(rp);
+  // Business location of the node, null if the template has none
+  private BizLocation createBizLocation(final IdentifierVocabularyType syntax) {
+    if (typeInfo.getBizLocation() == null) {
+      return null;
     }
+    final String formattedBizLocation =
+        ReadpointBusinessLocationFormatter.format(
+            syntax, typeInfo.getBizLocation(), typeInfo.getDlURL());
+    var biz = new BizLocation();
 
-    // Set Biz Location
-    if (typeInfo.getBizLocation() != null) {
-      final String formattedBizLocation =
-          ReadpointBusinessLocationFormatter.format(
-              syntax, typeInfo.getBizLocation(), typeInfo.getDlURL());
-      var biz = new BizLocation();
-
-      try {
-        biz.setId(new URI(formattedBizLocation != null ? formattedBizLocation : ""));
-      } catch (URISyntaxException ex) {
-        throw new TestDataGeneratorException(
-            "Error during the addition of BizLocation to EPCIS event : "
-                + typeInfo.getEventType()
-                + ex.getMessage(),
-            ex);
-      }
+    try {
+      biz.setId(new URI(formattedBizLocation != null ? formattedBizLocation : ""));
+    } catch (URISyntaxException ex) {
+      throw new TestDataGeneratorException(
+          "Error during the addition of BizLocation to EPCIS event : "
+              + typeInfo.getEventType()
+              + ex.getMessage(),
+          ex);
+    }
+    return biz;
+  }
 
-      // Set the BizLocation for the EPCIS event
-      epcisEvent.setBizLocation(biz);
+  /**
+   * @return persistent disposition of the node, null if the template has none
+   */
+  protected PersistentDisposition createPersistentDisposition() {
+    if (typeInfo.getPersistentDisposition() == null) {
+      return null;
+    }
+    var pd = new PersistentDisposition();
+    if (CollectionUtils.isNotEmpty(typeInfo.getPersistentDisposition().getSet())) {
+      pd.setSet(
+          PersistentDispositionFormatter.format(typeInfo.getPersistentDisposition().getSet()));
+    }
+    if (CollectionUtils.isNotEmpty(typeInfo.getPersistentDisposition().getUnset())) {
+      pd.setUnset(
+          PersistentDispositionFormatter.format(typeInfo.getPersistentDisposition().getUnset()));
     }
+    return pd;
   }
 
-  // Private method used to add the Where dimension (Readpoint, Business Location) related
-  // information during the creation of event
-  private void configureWhyDimension(final E epcisEvent) {
-    // Set Business Step
-    if (typeInfo.getBusinessStep() != null) {
-      epcisEvent.setBizStep(
-          BusinessStepFormatter.format(
-              typeInfo.getBusinessStep(), typeInfo.getBusinessStepManualURI()));
+  /**
+   * @param sources sources of the template
+   * @return formatted source list, null if the template has none
+   */
+  protected List<SourceList> createSourceList(final List<SourceDestinationSyntax> sources) {
+    if (CollectionUtils.isEmpty(sources)) {
+      return null;
     }
+    final IdentifierVocabularyType syntax = typeInfo.getLocationPartyIdentifierSyntax();
+    return sources.stream()
+        .map(src -> SourceFormatter.format(syntax, src, typeInfo.getDlURL()))
+        .toList();
+  }
 
-    // Set Disposition
-    if (typeInfo.getDisposition() != null) {
-      epcisEvent.setDisposition(
-          DispositionFormatter.format(
-              typeInfo.getDisposition(), typeInfo.getDispositionManualURI()));
+  /**
+   * @param destinations destinations of the template
+   * @return formatted destination list, null if the template has none
+   */
+  protected List<DestinationList> createDestinationList(
+      final List<SourceDestinationSyntax> destinations) {
+    if (CollectionUtils.isEmpty(destinations)) {
+      return null;
     }
+    final IdentifierVocabularyType syntax = typeInfo.getLocationPartyIdentifierSyntax();
+    return destinations.stream()
+        .map(dst -> DestinationFormatter.format(syntax, dst, typeInfo.getDlURL()))
+        .toList();
   }
 
   // Private method used to add the Error (Error declaration time, corrective Ids, Error extension,
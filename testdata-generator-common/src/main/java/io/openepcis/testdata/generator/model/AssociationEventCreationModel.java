@@ -16,11 +16,9 @@
 package io.openepcis.testdata.generator.model;
 
 import io.openepcis.model.epcis.AssociationEvent;
+import io.openepcis.model.epcis.DestinationList;
 import io.openepcis.model.epcis.QuantityList;
-import io.openepcis.testdata.generator.constants.IdentifierVocabularyType;
-import io.openepcis.testdata.generator.format.BizTransactionsFormatter;
-import io.openepcis.testdata.generator.format.DestinationFormatter;
-import io.openepcis.testdata.generator.format.SourceFormatter;
+import io.openepcis.model.epcis.SourceList;
 import io.openepcis.testdata.generator.reactivestreams.EventIdentifierTracker;
 import io.openepcis.testdata.generator.template.AssociationEventType;
 import io.openepcis.testdata.generator.template.Identifier;
@@ -30,6 +28,11 @@ import java.util.List;
 public class AssociationEventCreationModel
     extends AbstractEventCreationModel<AssociationEventType, AssociationEvent> {
 
+  // vocabulary of the node, shared by all events
+  private final List<SourceList> sourceList;
+
+  private final List<DestinationList> destinationList;
+
   private Identifier matchingParentId = null;
 
   public AssociationEventCreationModel(
@@ -37,6 +40,8 @@ public class AssociationEventCreationModel
       final List<Identifier> identifiers,
       final List<RandomGenerators> randomGenerators) {
     super(typeInfo, identifiers, randomGenerators);
+    this.sourceList = createSourceList(typeInfo.getSources());
+    this.destinationList = createDestinationList(typeInfo.getDestinations());
 
     // Check if user has provided values for the Parent Identifiers
     if (typeInfo.getParentReferencedIdentifier() != null
@@ -70,33 +75,13 @@ public class AssociationEventCreationModel
 
   // Private method which will add the common elements to AssociationEvent
   private void configureCommons(final AssociationEvent e) {
-
-    final IdentifierVocabularyType syntax = typeInfo.getLocationPartyIdentifierSyntax();
-
     // Add action value
     e.setAction(typeInfo.getAction());
 
-    // Add source list
-    if (typeInfo.getSources() != null && !typeInfo.getSources().isEmpty()) {
-      e.setSourceList(
-          typeInfo.getSources().stream()
-              .map(src -> SourceFormatter.format(syntax, src, typeInfo.getDlURL()))
-              .toList());
-    }
-
-    // Add Destination list
-    if (typeInfo.getDestinations() != null && !typeInfo.getDestinations().isEmpty()) {
-      e.setDestinationList(
-          typeInfo.getDestinations().stream()
-              .map(dst -> DestinationFormatter.format(syntax, dst, typeInfo.getDlURL()))
-              .toList());
-    }
-
-    // Add the BizTransaction
-    if (typeInfo.getBizTransactions() != null && !typeInfo.getBizTransactions().isEmpty()) {
-      e.setBizTransactionList(
-          typeInfo.getBizTransactions().stream().map(BizTransactionsFormatter::format).toList());
-    }
+    // Add source and destination list and the BizTransaction, built once for the node
+    e.setSourceList(sourceList);
+    e.setDestinationList(destinationList);
+    e.setBizTransactionList(bizTransactionList);
   }
 
   // Private method which will generate Instance/ChildEPCs & Class/ChildQuantities identifiers if
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.model;
+
+import io.openepcis.model.epcis.EPCISEvent;
+import io.openepcis.testdata.generator.constants.TestDataGeneratorException;
+import io.openepcis.testdata.generator.template.EPCISEventType;
+import io.openepcis.testdata.generator.template.Identifier;
+import io.openepcis.testdata.generator.template.InputTemplate;
+import io.openepcis.testdata.generator.template.ReferencedIdentifier;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.stream.Stream;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.CollectionUtils;
+
+/**
+ * Input template compiled into an indexed graph of event nodes. Event creation models are created
+ * once, nodes and identifiers are indexed by their id and the parent/child relations are resolved
+ * into adjacency arrays with a topological order, so wiring the handler graph is linear in the
+ * size of the template.
+ */
+@Getter
+@Slf4j
+public class EventGraph {
+
+  // templates with at least this many event nodes create their models in parallel
+  private static final int PARALLEL_THRESHOLD = 64;
+
+  /** event creation models in template order */
+  private final List<? extends EventCreationModel<?, ?>> models;
+
+  /** index of the model in {@link #models} by node id */
+  private final Map<Integer, Integer> nodeIndex;
+
+  /** indexes of the child nodes per node index, in template order */
+  private final int[][] downstream;
+
+  /** node indexes ordered so that every parent precedes its children */
+  private final int[] topologicalOrder;
+
+  /** number of event nodes referencing an identifier node, by identifier id */
+  private final Map<Integer, Integer> identifierReferences;
+
+  /** time taken to compile the template */
+  private final Duration compileTime;
+
+  private EventGraph(final List<? extends EventCreationModel<?, ?>> models, final long start) {
+    this.models = models;
+    this.nodeIndex = new HashMap<>(models.size() * 2);
+    for (int i = 0; i < models.size(); i++) {
+      nodeIndex.put(models.get(i).getTypeInfo().getNodeId(), i);
+    }
+
+    final List<List<Integer>> children = new ArrayList<>(models.size());
+    models.forEach(m -> children.add(new ArrayList<>()));
+    final int[] parentCount = new int[models.size()];
+    this.identifierReferences = new HashMap<>();
+    for (int i = 0; i < models.size(); i++) {
+      final EPCISEventType typeInfo = models.get(i).getTypeInfo();
+      final Set<Integer> parents = new LinkedHashSet<>();
+      final Set<Integer> identifiers = new LinkedHashSet<>();
+      references(typeInfo)
+          .forEach(
+              r -> {
+                if (r.getIdentifierId() > 0) {
+                  identifiers.add(r.getIdentifierId());
+                }
+              });
+      Optional.ofNullable(typeInfo.getReferencedIdentifier()).stream()
+          .flatMap(List::stream)
+          .map(r -> nodeIndex.get(r.getParentNodeId()))
+          .filter(Objects::nonNull)
+          .forEach(parents::add);
+      for (int parent : parents) {
+        children.get(parent).add(i);
+        parentCount[i]++;
+      }
+      identifiers.forEach(id -> identifierReferences.merge(id, 1, Integer::sum));
+    }
+    this.downstream =
+        children.stream()
+            .map(c -> c.stream().mapToInt(Integer::intValue).toArray())
+            .toArray(int[][]::new);
+    this.topologicalOrder = topologicalOrder(downstream, parentCount);
+    this.compileTime = Duration.ofNanos(System.nanoTime() - start);
+    log.debug("compiled {} event nodes in {}", models.size(), compileTime);
+  }
+
+  /**
+   * compile the input template, creating the event creation models
+   *
+   * @param inputTemplate template describing the events
+   * @return compiled graph
+   */
+  public static EventGraph compile(final InputTemplate inputTemplate) {
+    final long start = System.nanoTime();
+    return new EventGraph(createModels(inputTemplate), start);
+  }
+
+  /**
+   * compile already created event creation models
+   *
+   * @param models event creation models in template order
+   * @return compiled graph
+   */
+  public static EventGraph of(final List<? extends EventCreationModel<?, ?>> models) {
+    return new EventGraph(models, System.nanoTime());
+  }
+
+  /**
+   * create the event creation models of all event nodes of the template
+   *
+   * @param inputTemplate template describing the events
+   * @return models in template order
+   */
+  public static List<EventCreationModel<EPCISEventType, EPCISEvent>> createModels(
+      final InputTemplate inputTemplate) {
+    final Map<Integer, Identifier> identifiersById = new HashMap<>();
+    Optional.ofNullable(inputTemplate.getIdentifiers())
+        .ifPresent(l -> l.forEach(i -> identifiersById.putIfAbsent(i.getIdentifierId(), i)));
+    final List<EPCISEventType> events = inputTemplate.getEvents();
+    // models (re-)initialize the shared random generators of the template, which is not safe to
+    // do concurrently
+    final boolean parallel =
+        events.size() >= PARALLEL_THRESHOLD
+            && CollectionUtils.isEmpty(inputTemplate.getRandomGenerators());
+    final Stream<EPCISEventType> stream = parallel ? events.parallelStream() : events.stream();
+    return stream
+        .map(
+            e ->
+                EventModelUtil.createModel(
+                    e,
+                    EventModelUtil.usedIdentifiers(e, identifiersById),
+                    inputTemplate.getRandomGenerators()))
+        .flatMap(Optional::stream)
+        .toList();
+  }
+
+  /**
+   * @param typeInfo event node
+   * @return referenced, output referenced and parent referenced identifiers of the node
+   */
+  public static Stream<ReferencedIdentifier> references(final EPCISEventType typeInfo) {
+    return Stream.of(
+            Optional.ofNullable(typeInfo.getReferencedIdentifier()).stream()
+                .flatMap(List::stream),
+            Optional.ofNullable(typeInfo.getOutputReferencedIdentifier()).stream()
+                .flatMap(List::stream),
+            Optional.ofNullable(typeInfo.getParentReferencedIdentifier()).stream())
+        .flatMap(s -> s);
+  }
+
+  // Kahn's algorithm, nodes without dependencies keep their template order
+  private static int[] topologicalOrder(final int[][] downstream, final int[] parentCount) {
+    final int[] remaining = parentCount.clone();
+    final Queue<Integer> ready = new ArrayDeque<>();
+    for (int i = 0; i < remaining.length; i++) {
+      if (remaining[i] == 0) {
+        ready.add(i);
+      }
+    }
+    final int[] order = new int[remaining.length];
+    int count = 0;
+    while (!ready.isEmpty()) {
+      final int node = ready.remove();
+      order[count++] = node;
+      for (int child : downstream[node]) {
+        if (--remaining[child] == 0) {
+          ready.add(child);
+        }
+      }
+    }
+    if (count < order.length) {
+      throw new TestDataGeneratorException(
+          "Event nodes of the template contain a cycle, events can not be generated");
+    }
+    return order;
+  }
+}
@@ -20,9 +20,15 @@ import io.openepcis.testdata.generator.reactivestreams.EPCISEventDownstreamHandl
 import io.openepcis.testdata.generator.reactivestreams.EventIdentifierTracker;
 import io.openepcis.testdata.generator.template.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 public class EventModelUtil {
 
@@ -113,6 +119,38 @@ public class EventModelUtil {
     return eventSpecificIdentifiers;
   }
 
+  // only return identifiers used by this event info, looked up in the identifiers indexed by id
+  public static List<Identifier> usedIdentifiers(
+      final EPCISEventType e, final Map<Integer, Identifier> identifiersById) {
+    final List<Identifier> eventSpecificIdentifiers = new ArrayList<>();
+
+    // Add the identifiers related to Instance/Class identifiers
+    eventSpecificIdentifiers.addAll(lookup(e.getReferencedIdentifier(), identifiersById));
+
+    // Add the identifiers related to parent identifiers
+    Optional.ofNullable(e.getParentReferencedIdentifier())
+        .map(r -> identifiersById.get(r.getIdentifierId()))
+        .ifPresent(eventSpecificIdentifiers::add);
+
+    // Add the identifiers related to OutputEPC and OutputQuantity for TransformationEvent
+    eventSpecificIdentifiers.addAll(lookup(e.getOutputReferencedIdentifier(), identifiersById));
+
+    return eventSpecificIdentifiers;
+  }
+
+  private static Collection<Identifier> lookup(
+      final List<ReferencedIdentifier> references, final Map<Integer, Identifier> identifiersById) {
+    final Set<Identifier> used = new LinkedHashSet<>();
+    Optional.ofNullable(references)
+        .ifPresent(
+            r ->
+                r.stream()
+                    .map(i -> identifiersById.get(i.getIdentifierId()))
+                    .filter(Objects::nonNull)
+                    .forEach(used::add));
+    return used;
+  }
+
   // Public method which will be invoked during the Instance Identifier creation if the Instance
   // Identifiers need to be taken from the Parent event node.
   public static List<String> instanceIdentifiers(
@@ -135,194 +173,85 @@ public class EventModelUtil {
   }
 
   // Method to segregate the parentIDs for subsequent EPCs/ChildEPCs inheritance mainly for
-  // Aggregation/Transaction/TransformationEvent
+  // Aggregation/Transaction/AssociationEvent
   public static List<String> segregateParentToEPC(
       final EventIdentifierTracker parentTracker, final int inheritParentCount) {
     List<String> inheritParentList = new ArrayList<>();
-
-    if (parentTracker.getEvent() instanceof AggregationEvent aggregationEvent
-        && aggregationEvent.getParentID() != null) {
-      // For AggregationEvent add the parentIDs
-      inheritParentList.add(aggregationEvent.getParentID());
-    } else if (parentTracker.getEvent() instanceof TransactionEvent transactionEvent
-        && transactionEvent.getParentID() != null) {
-      // For TransactionEvent add the parentIDs
-      inheritParentList.add(transactionEvent.getParentID());
-    } else if (parentTracker.getEvent() instanceof AssociationEvent associationEvent
-        && associationEvent.getParentID() != null) {
-      // For TransactionEvent add the parentIDs
-      inheritParentList.add(associationEvent.getParentID());
+    if (parentTracker.isParentIdEvent() && parentTracker.getParentID() != null) {
+      inheritParentList.add(parentTracker.getParentID());
     }
     return inheritParentList;
   }
 
-  // Private method which will segregate the Instance identifier from the Parent Event based on the
-  // type of the event
+  // Private method which will segregate the Instance identifier from the Parent Event, the tracker
+  // keeps the EPCs/ChildEPCs/OutputEPCs based on the type of the event
   private static List<String> segregateInstanceIdentifiers(
       final EventIdentifierTracker parentTracker, final int epcCount) {
+    final String[] instanceIdentifiers = parentTracker.getInstanceIdentifiers();
+    final int index = parentTracker.getInstanceIndex();
 
-    // List to store all the instance identifiers from parent
-    List<String> instanceIdentifiersList = new ArrayList<>();
-
-    // Based on the Event Type add the respective Instance Identifiers into the
-    // instanceIdentifiersList
-    if (parentTracker.getEvent() instanceof ObjectEvent objectEvent
-        && objectEvent.getEpcList() != null
-        && !objectEvent.getEpcList().isEmpty()) {
-      // For ObjectEvent add the EPCList
-      instanceIdentifiersList.addAll(objectEvent.getEpcList());
-    } else if (parentTracker.getEvent() instanceof AggregationEvent aggregationEvent
-        && aggregationEvent.getChildEPCs() != null
-        && !aggregationEvent.getChildEPCs().isEmpty()) {
-      // For AggregationEvent add the ChildEPCs
-      instanceIdentifiersList.addAll(aggregationEvent.getChildEPCs());
-
-    } else if (parentTracker.getEvent() instanceof TransactionEvent transactionEvent
-        && transactionEvent.getEpcList() != null
-        && !transactionEvent.getEpcList().isEmpty()) {
-      // For TransactionEvent add the EPCList
-      instanceIdentifiersList.addAll(transactionEvent.getEpcList());
-
-    } else if (parentTracker.getEvent() instanceof TransformationEvent transformationEvent
-        && transformationEvent.getOutputEPCList() != null
-        && !transformationEvent.getOutputEPCList().isEmpty()) {
-      // For TransformationEvent add the OutputEPCList
-      instanceIdentifiersList.addAll(transformationEvent.getOutputEPCList());
-
-    } else if (parentTracker.getEvent() instanceof AssociationEvent associationEvent
-        && associationEvent.getChildEPCs() != null
-        && !associationEvent.getChildEPCs().isEmpty()) {
-      // For AssociationEvent add the ChildEPCs
-      instanceIdentifiersList.addAll(associationEvent.getChildEPCs());
-    }
-
-    if (!instanceIdentifiersList.isEmpty()
-        && instanceIdentifiersList.size() >= (parentTracker.getInstanceIndex() + epcCount)) {
-      // If the instanceIdentifiersList has the values required by the child event then add the
+    if (instanceIdentifiers.length > 0 && instanceIdentifiers.length >= (index + epcCount)) {
+      // If the instance identifiers have the values required by the child event then add the
       // values and keep track of the count
-      instanceIdentifiersList =
-          instanceIdentifiersList.subList(
-              parentTracker.getInstanceIndex(), parentTracker.getInstanceIndex() + epcCount);
-      parentTracker.setInstanceIndex(parentTracker.getInstanceIndex() + epcCount);
-    } else if (!instanceIdentifiersList.isEmpty() && instanceIdentifiersList.size() >= epcCount) {
-      // If the instanceIdentifiersList does not have the values required by the child event add all
+      parentTracker.setInstanceIndex(index + epcCount);
+      return Arrays.asList(instanceIdentifiers).subList(index, index + epcCount);
+    }
+    parentTracker.setInstanceIndex(0);
+    if (instanceIdentifiers.length > 0 && instanceIdentifiers.length >= epcCount) {
+      // If the instance identifiers do not have the values required by the child event add all
       // the values
-      instanceIdentifiersList = instanceIdentifiersList.subList(0, epcCount);
-      parentTracker.setInstanceIndex(0);
-    } else {
-      parentTracker.setInstanceIndex(0);
+      return Arrays.asList(instanceIdentifiers).subList(0, epcCount);
     }
-    return instanceIdentifiersList;
+    return Arrays.asList(instanceIdentifiers);
   }
 
   // Private method which will segregate the Parent identifier from the Parent Event based on the
   // type of the event
   private static List<String> segregateParentIdentifiers(
       final EventIdentifierTracker parentTracker, final int inheritParentCount) {
-    // List to store all the Parent identifiers from parent
-    List<String> parentIdentifiersList = new ArrayList<>();
-
-    // Check the type of event based on which obtain relative Parent Identifiers
-    if (parentTracker.getEvent() instanceof AggregationEvent aggregationEvent) {
-      // For AggregationEvent add the Parent-Ids/Child EPCs if value exists
-      parentIdentifiersList.add(
-          aggregationEvent.getParentID() != null && !aggregationEvent.getParentID().isEmpty()
-              ? aggregationEvent.getParentID()
-              : null); // add parent id
-    } else if (parentTracker.getEvent() instanceof TransactionEvent transactionEvent) {
-      // For TransactionEvent add the Parent-Ids/EPC list if value exists
-      parentIdentifiersList.add(
-          transactionEvent.getParentID() != null && !transactionEvent.getParentID().isEmpty()
-              ? transactionEvent.getParentID()
-              : null); // add parent id
-    } else if (parentTracker.getEvent() instanceof AssociationEvent associationEvent) {
-      // For AssociationEvent add the Parent-Ids
-      parentIdentifiersList.add(
-          associationEvent.getParentID() != null && !associationEvent.getParentID().isEmpty()
-              ? associationEvent.getParentID()
-              : null); // add parent id
-    } else if (parentTracker.getEvent() instanceof ObjectEvent objectEvent
-        && objectEvent.getEpcList() != null
-        && !objectEvent.getEpcList().isEmpty()) {
-      // For objectEvent inherit from EPCS
-      parentIdentifiersList.addAll(objectEvent.getEpcList());
-    } else if (parentTracker.getEvent() instanceof TransformationEvent transformationEvent
-        && transformationEvent.getOutputEPCList() != null
-        && !transformationEvent.getOutputEPCList().isEmpty()) {
-      // For TransformationEvent inherit from InputEPCs
-      parentIdentifiersList.addAll(transformationEvent.getOutputEPCList());
+    // Aggregation/Transaction/AssociationEvent provide their Parent-Id, Object/TransformationEvent
+    // their EPCs/OutputEPCs
+    final List<String> parentIdentifiersList;
+    if (parentTracker.isParentIdEvent()) {
+      parentIdentifiersList =
+          Collections.singletonList(
+              parentTracker.getParentID() != null && !parentTracker.getParentID().isEmpty()
+                  ? parentTracker.getParentID()
+                  : null);
+    } else {
+      parentIdentifiersList = Arrays.asList(parentTracker.getInstanceIdentifiers());
     }
+    final int index = parentTracker.getParentIndex();
 
     if (!parentIdentifiersList.isEmpty()
-        && parentIdentifiersList.size() >= (parentTracker.getParentIndex() + inheritParentCount)) {
+        && parentIdentifiersList.size() >= (index + inheritParentCount)) {
       // If the parentIdentifiersList has the values required by the child event
-      parentIdentifiersList =
-          parentIdentifiersList.subList(
-              parentTracker.getParentIndex(), parentTracker.getParentIndex() + inheritParentCount);
-      parentTracker.setParentIndex(parentTracker.getParentIndex() + inheritParentCount);
-    } else if (!parentIdentifiersList.isEmpty()
-        && parentIdentifiersList.size() >= inheritParentCount) {
-      // If the instanceIdentifiersList does not have the values required by the child event add all
-      parentIdentifiersList = parentIdentifiersList.subList(0, inheritParentCount);
-      parentTracker.setParentIndex(0);
-    } else {
-      parentTracker.setParentIndex(0);
+      parentTracker.setParentIndex(index + inheritParentCount);
+      return parentIdentifiersList.subList(index, index + inheritParentCount);
+    }
+    parentTracker.setParentIndex(0);
+    if (!parentIdentifiersList.isEmpty() && parentIdentifiersList.size() >= inheritParentCount) {
+      // If the parentIdentifiersList does not have the values required by the child event add all
+      return parentIdentifiersList.subList(0, inheritParentCount);
     }
-
     return parentIdentifiersList;
   }
 
-  // Private method which will segregate the Class Identifiers from the Parent Event based on type
-  // of the event
+  // Private method which will segregate the Class Identifiers from the Parent Event, the tracker
+  // keeps the QuantityList/ChildQuantityList/OutputQuantityList based on type of the event
   private static List<QuantityList> segregateClassIdentifiers(
       final EventIdentifierTracker parentTracker, final int quantityCount, final Float quantity) {
+    final QuantityList[] classIdentifiers = parentTracker.getClassIdentifiers();
+    final int index = parentTracker.getQuantityIndex();
 
-    // List to store all the Class Identifiers from parent
-    List<QuantityList> classIdentifiersList = new ArrayList<>();
-
-    // Check the type of the event based on which obtain the respective Class Identifiers and add it
-    // to the List
-    if (parentTracker.getEvent() instanceof ObjectEvent objectEvent
-        && objectEvent.getQuantityList() != null
-        && !objectEvent.getQuantityList().isEmpty()) {
-      // For ObjectEvent add the QuantityList
-      classIdentifiersList.addAll(objectEvent.getQuantityList());
-
-    } else if (parentTracker.getEvent() instanceof AggregationEvent aggregationEvent
-        && aggregationEvent.getChildQuantityList() != null
-        && !aggregationEvent.getChildQuantityList().isEmpty()) {
-      // For AggregationEvent add the Child Quantity List
-      classIdentifiersList.addAll(aggregationEvent.getChildQuantityList());
-
-    } else if (parentTracker.getEvent() instanceof TransactionEvent transactionEvent
-        && transactionEvent.getQuantityList() != null
-        && !transactionEvent.getQuantityList().isEmpty()) {
-      // For TransactionEvent add the Quantity List
-      classIdentifiersList.addAll(transactionEvent.getQuantityList());
-
-    } else if (parentTracker.getEvent() instanceof TransformationEvent transformationEvent
-        && transformationEvent.getOutputQuantityList() != null
-        && !transformationEvent.getOutputQuantityList().isEmpty()) {
-      // For TransformationEvent add the Output Quantity List
-      classIdentifiersList.addAll(transformationEvent.getOutputQuantityList());
-
-    } else if (parentTracker.getEvent() instanceof AssociationEvent associationEvent
-        && associationEvent.getChildQuantityList() != null
-        && !associationEvent.getChildQuantityList().isEmpty()) {
-      // For AssociationEvent add the Child Quantity List
-      classIdentifiersList.addAll(associationEvent.getChildQuantityList());
-    }
-
-    if (!classIdentifiersList.isEmpty()
-        && classIdentifiersList.size() >= (parentTracker.getQuantityIndex() + quantityCount)) {
-      // If the classIdentifiersList has the values required by the child event then add the values
+    List<QuantityList> classIdentifiersList = Arrays.asList(classIdentifiers);
+    if (classIdentifiers.length > 0 && classIdentifiers.length >= (index + quantityCount)) {
+      // If the class identifiers have the values required by the child event then add the values
       // and keep track of the count
-      classIdentifiersList =
-          classIdentifiersList.subList(
-              parentTracker.getQuantityIndex(), parentTracker.getQuantityIndex() + quantityCount);
-      parentTracker.setQuantityIndex(parentTracker.getQuantityIndex() + quantityCount);
-    } else if (!classIdentifiersList.isEmpty() && classIdentifiersList.size() >= quantityCount) {
-      // If the classIdentifiersList does not have the values required by the child event add all
+      classIdentifiersList = classIdentifiersList.subList(index, index + quantityCount);
+      parentTracker.setQuantityIndex(index + quantityCount);
+    } else if (classIdentifiers.length > 0 && classIdentifiers.length >= quantityCount) {
+      // If the class identifiers do not have the values required by the child event add all
       // the values
       classIdentifiersList = classIdentifiersList.subList(0, quantityCount);
       parentTracker.setQuantityIndex(0);
@@ -15,14 +15,11 @@
  */
 package io.openepcis.testdata.generator.model;
 
+import io.openepcis.model.epcis.DestinationList;
 import io.openepcis.model.epcis.ObjectEvent;
 import io.openepcis.model.epcis.PersistentDisposition;
 import io.openepcis.model.epcis.QuantityList;
-import io.openepcis.testdata.generator.constants.IdentifierVocabularyType;
-import io.openepcis.testdata.generator.format.BizTransactionsFormatter;
-import io.openepcis.testdata.generator.format.DestinationFormatter;
-import io.openepcis.testdata.generator.format.PersistentDispositionFormatter;
-import io.openepcis.testdata.generator.format.SourceFormatter;
+import io.openepcis.model.epcis.SourceList;
 import io.openepcis.testdata.generator.reactivestreams.EventIdentifierTracker;
 import io.openepcis.testdata.generator.template.Identifier;
 import io.openepcis.testdata.generator.template.ObjectEventType;
@@ -36,11 +33,21 @@ import org.apache.commons.collections4.CollectionUtils;
 public class ObjectEventCreationModel
     extends AbstractEventCreationModel<ObjectEventType, ObjectEvent> {
 
+  // vocabulary of the node, shared by all events
+  private final List<SourceList> sourceList;
+
+  private final List<DestinationList> destinationList;
+
+  private final PersistentDisposition persistentDisposition;
+
   public ObjectEventCreationModel(
       final ObjectEventType typeInfo,
       final List<Identifier> identifiers,
       final List<RandomGenerators> randomGenerators) {
     super(typeInfo, identifiers, randomGenerators);
+    this.sourceList = createSourceList(typeInfo.getSources());
+    this.destinationList = createDestinationList(typeInfo.getDestinations());
+    this.persistentDisposition = createPersistentDisposition();
   }
 
   @Override
@@ -57,50 +64,16 @@ public class ObjectEventCreationModel
 
   // Private method which will add the common elements to Object event
   private void configureCommons(final ObjectEvent e) {
-
-    final IdentifierVocabularyType syntax = typeInfo.getLocationPartyIdentifierSyntax();
-
     // Add action
     e.setAction(typeInfo.getAction());
 
     // Set Persistent Disposition for ObjectEvent
-    if (typeInfo.getPersistentDisposition() != null) {
-      var pd = new PersistentDisposition();
-      if (typeInfo.getPersistentDisposition().getSet() != null
-          && !typeInfo.getPersistentDisposition().getSet().isEmpty()) {
-        pd.setSet(
-            PersistentDispositionFormatter.format(typeInfo.getPersistentDisposition().getSet()));
-      }
-
-      if (typeInfo.getPersistentDisposition().getUnset() != null
-          && !typeInfo.getPersistentDisposition().getUnset().isEmpty()) {
-        pd.setUnset(
-            PersistentDispositionFormatter.format(typeInfo.getPersistentDisposition().getUnset()));
-      }
-      e.setPersistentDisposition(pd);
-    }
-
-    // Add source list
-    if (typeInfo.getSources() != null && !typeInfo.getSources().isEmpty()) {
-      e.setSourceList(
-          typeInfo.getSources().stream()
-              .map(src -> SourceFormatter.format(syntax, src, typeInfo.getDlURL()))
-              .toList());
-    }
+    e.setPersistentDisposition(persistentDisposition);
 
-    // Add Destination list
-    if (typeInfo.getDestinations() != null && !typeInfo.getDestinations().isEmpty()) {
-      e.setDestinationList(
-          typeInfo.getDestinations().stream()
-              .map(dst -> DestinationFormatter.format(syntax, dst, typeInfo.getDlURL()))
-              .toList());
-    }
-
-    // Add the BizTransaction
-    if (typeInfo.getBizTransactions() != null && !typeInfo.getBizTransactions().isEmpty()) {
-      e.setBizTransactionList(
-          typeInfo.getBizTransactions().stream().map(BizTransactionsFormatter::format).toList());
-    }
+    // Add source and destination list and the BizTransaction, built once for the node
+    e.setSourceList(sourceList);
+    e.setDestinationList(destinationList);
+    e.setBizTransactionList(bizTransactionList);
 
     // Add the ILMD
     if (typeInfo.getIlmd() != null && !typeInfo.getIlmd().isEmpty()) {
@@ -18,7 +18,6 @@ package io.openepcis.testdata.generator.model;
 import io.openepcis.model.epcis.PersistentDisposition;
 import io.openepcis.model.epcis.QuantityList;
 import io.openepcis.model.epcis.TransformationEvent;
-import io.openepcis.testdata.generator.format.PersistentDispositionFormatter;
 import io.openepcis.testdata.generator.reactivestreams.EventIdentifierTracker;
 import io.openepcis.testdata.generator.template.Identifier;
 import io.openepcis.testdata.generator.template.RandomGenerators;
@@ -35,11 +34,15 @@ import org.apache.commons.collections4.CollectionUtils;
 public class TransformationEventCreationModel
     extends AbstractEventCreationModel<TransformationEventType, TransformationEvent> {
 
+  // shared by all events of the node
+  private final PersistentDisposition persistentDisposition;
+
   public TransformationEventCreationModel(
       final TransformationEventType typeInfo,
       final List<Identifier> identifiers,
       final List<RandomGenerators> randomGenerators) {
     super(typeInfo, identifiers, randomGenerators);
+    this.persistentDisposition = createPersistentDisposition();
   }
 
   @Override
@@ -59,21 +62,7 @@ public class TransformationEventCreationModel
   private void configureCommons(final TransformationEvent e) {
 
     // Set Persistent Disposition for TransformationEvent
-    if (typeInfo.getPersistentDisposition() != null) {
-      var pd = new PersistentDisposition();
-      if (typeInfo.getPersistentDisposition().getSet() != null
-          && !typeInfo.getPersistentDisposition().getSet().isEmpty()) {
-        pd.setSet(
-            PersistentDispositionFormatter.format(typeInfo.getPersistentDisposition().getSet()));
-      }
-
-      if (typeInfo.getPersistentDisposition().getUnset() != null
-          && !typeInfo.getPersistentDisposition().getUnset().isEmpty()) {
-        pd.setUnset(
-            PersistentDispositionFormatter.format(typeInfo.getPersistentDisposition().getUnset()));
-      }
-      e.setPersistentDisposition(pd);
-    }
+    e.setPersistentDisposition(persistentDisposition);
 
     // If TransformationID is populated then add the value
     if (typeInfo.getTransformationID() != null) {
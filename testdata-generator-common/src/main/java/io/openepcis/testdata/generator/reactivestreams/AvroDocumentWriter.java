@@ -0,0 +1,199 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.openepcis.model.epcis.EPCISEvent;
+import io.openepcis.model.rest.ProblemResponseBody;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.apache.avro.Schema;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.jboss.resteasy.reactive.RestResponse;
+
+/**
+ * Writes the events as Avro object container file following the union schema in {@code
+ * avro/epcis-event.avsc}: every event is a record of its event type. The compression of the
+ * document is applied to the blocks of the container file instead of the stream (gzip as deflate
+ * codec), so the file stays splittable for analytics engines. An error ends the file with a
+ * problem response record.
+ *
+ * <p>Records are filled from the JSON tree of the event, values are therefore the same as in the
+ * JSON-LD output. Fields without a typed counterpart in the schema are kept as JSON in the
+ * extensions map.
+ */
+class AvroDocumentWriter implements EPCISDocumentWriter {
+
+  private static final String SCHEMA_RESOURCE = "/avro/epcis-event.avsc";
+
+  private static final Schema SCHEMA = loadSchema();
+
+  private static final String EXTENSIONS = "extensions";
+
+  private static final String PROBLEM_RESPONSE = "ProblemResponse";
+
+  // record schema of each event type of the union
+  private static final Map<String, Schema> RECORDS = new HashMap<>();
+
+  static {
+    SCHEMA.getTypes().forEach(s -> RECORDS.put(s.getName(), s));
+  }
+
+  private final OutputStream outputStream;
+
+  private final ObjectMapper objectMapper;
+
+  private final DataFileWriter<GenericRecord> dataFileWriter;
+
+  AvroDocumentWriter(
+      final OutputStream outputStream,
+      final ObjectMapper objectMapper,
+      final Compression compression,
+      final int level) {
+    this.outputStream = outputStream;
+    this.objectMapper = objectMapper;
+    this.dataFileWriter = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(SCHEMA));
+    this.dataFileWriter.setCodec(codec(compression, level));
+    // blocks are flushed by the output stream, not one by one
+    this.dataFileWriter.setFlushOnEveryBlock(false);
+  }
+
+  private static Schema loadSchema() {
+    try (InputStream in = AvroDocumentWriter.class.getResourceAsStream(SCHEMA_RESOURCE)) {
+      return new Schema.Parser().parse(in);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Avro schema " + SCHEMA_RESOURCE + " could not be read", e);
+    }
+  }
+
+  private static CodecFactory codec(final Compression compression, final int level) {
+    return switch (compression) {
+      case NONE -> CodecFactory.nullCodec();
+      case GZIP ->
+          CodecFactory.deflateCodec(
+              level != Compression.DEFAULT_LEVEL ? level : CodecFactory.DEFAULT_DEFLATE_LEVEL);
+      case ZSTD ->
+          CodecFactory.zstandardCodec(
+              level != Compression.DEFAULT_LEVEL ? level : CodecFactory.DEFAULT_ZSTANDARD_LEVEL);
+    };
+  }
+
+  @Override
+  public void writeHeader() throws IOException {
+    dataFileWriter.create(SCHEMA, outputStream);
+  }
+
+  @Override
+  public void writeEvent(final EPCISEvent epcisEvent) throws IOException {
+    final EPCISEvent processed =
+        StreamingEPCISDocumentOutput.isShouldRunJinjaTemplate()
+            ? JsonDocumentWriter.render(objectMapper, epcisEvent)
+            : epcisEvent;
+    final ObjectNode tree = objectMapper.valueToTree(processed);
+    final String type = tree.path("type").asText();
+    final Schema schema = PROBLEM_RESPONSE.equals(type) ? null : RECORDS.get(type);
+    if (schema == null) {
+      throw new IOException("Unsupported event type for Avro output: " + tree.get("type"));
+    }
+
+    final GenericRecord record = record(schema, tree);
+    Map<String, String> extensions = null;
+    for (Iterator<Map.Entry<String, JsonNode>> it = tree.fields(); it.hasNext(); ) {
+      final Map.Entry<String, JsonNode> entry = it.next();
+      final String name = entry.getKey();
+      if ("type".equals(name) || entry.getValue().isNull() || schema.getField(name) != null) {
+        continue;
+      }
+      if (extensions == null) {
+        extensions = new HashMap<>();
+      }
+      extensions.put(name, objectMapper.writeValueAsString(entry.getValue()));
+    }
+    record.put(EXTENSIONS, extensions);
+    dataFileWriter.append(record);
+  }
+
+  private static GenericRecord record(final Schema schema, final JsonNode node) {
+    final GenericRecord record = new GenericData.Record(schema);
+    for (Schema.Field field : schema.getFields()) {
+      record.put(field.pos(), value(field.schema(), node.get(field.name())));
+    }
+    return record;
+  }
+
+  private static Object value(final Schema schema, final JsonNode node) {
+    if (node == null || node.isNull()) {
+      return null;
+    }
+    return switch (schema.getType()) {
+      // all fields are optional, [null, type]
+      case UNION -> value(schema.getTypes().get(1), node);
+      case STRING -> {
+        if (node.isObject() && node.hasNonNull("id")) {
+          // read point and business location
+          yield node.get("id").asText();
+        }
+        yield node.isValueNode() ? node.asText() : node.toString();
+      }
+      case DOUBLE -> node.asDouble();
+      case ARRAY -> {
+        final List<Object> values = new ArrayList<>(node.size());
+        for (JsonNode v : node) {
+          values.add(value(schema.getElementType(), v));
+        }
+        yield values;
+      }
+      case RECORD -> record(schema, node);
+      // filled from the fields without typed counterpart
+      default -> null;
+    };
+  }
+
+  @Override
+  public void writeFooter() throws IOException {
+    // flushes the last block and closes the output stream
+    dataFileWriter.close();
+  }
+
+  @Override
+  public void writeError(final Throwable t) throws IOException {
+    final ProblemResponseBody pb =
+        ProblemResponseBody.fromException(t, RestResponse.Status.BAD_REQUEST);
+    final GenericRecord record = new GenericData.Record(RECORDS.get(PROBLEM_RESPONSE));
+    record.put("json", objectMapper.writeValueAsString(pb));
+    dataFileWriter.append(record);
+    writeFooter();
+  }
+
+  @Override
+  public long buffered() {
+    // the pending block is not exposed, the byte budget only counts written blocks
+    return 0;
+  }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import io.openepcis.model.epcis.EPCISEvent;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Posts the events in documents of batch size events to an EPCIS capture interface. Requests are
+ * sent asynchronously, at most concurrency requests are in flight: once all permits are taken the
+ * writing thread waits, which holds back generation. Failed requests are retried on connection
+ * errors, 408, 429 and 5xx responses with exponential backoff and jitter, all other responses fail
+ * the capture. The latency of every batch is recorded from the first attempt to the accepted
+ * response.
+ */
+class CaptureDocumentWriter implements EPCISDocumentWriter {
+
+  private static final DocumentBudget UNLIMITED = new DocumentBudget(0, 0, null);
+
+  private final StreamingEPCISDocumentOutput output;
+
+  // settings of the posted documents
+  private final StreamingEPCISDocument batchDocument;
+
+  private final HttpClient httpClient;
+
+  private final URI uri;
+
+  private final Map<String, String> headers;
+
+  private final int batchSize;
+
+  private final int concurrency;
+
+  private final int maxRetries;
+
+  private final Duration retryDelay;
+
+  private final Duration maxRetryDelay;
+
+  private final Duration requestTimeout;
+
+  private final Semaphore inFlight;
+
+  private final AtomicLong retries = new AtomicLong();
+
+  private volatile IOException failure;
+
+  // batch currently written
+  private ByteArrayOutputStream batch;
+
+  private EPCISDocumentWriter batchWriter;
+
+  private int batchEvents;
+
+  private long events;
+
+  private long batches;
+
+  // latencies of the accepted batches in microseconds
+  private final Histogram latency = new ConcurrentHistogram(3);
+
+  private long started;
+
+  private long elapsed;
+
+  CaptureDocumentWriter(
+      final StreamingEPCISDocumentOutput output,
+      final StreamingEPCISDocument batchDocument,
+      final HttpClient httpClient,
+      final URI uri,
+      final Map<String, String> headers,
+      final int batchSize,
+      final int concurrency,
+      final int maxRetries,
+      final Duration retryDelay,
+      final Duration maxRetryDelay,
+      final Duration requestTimeout) {
+    this.output = output;
+    this.batchDocument = batchDocument;
+    this.httpClient = httpClient;
+    this.uri = uri;
+    this.headers = headers;
+    this.batchSize = Math.max(1, batchSize);
+    this.concurrency = Math.max(1, concurrency);
+    this.maxRetries = maxRetries;
+    this.retryDelay = retryDelay;
+    this.maxRetryDelay = maxRetryDelay;
+    this.requestTimeout = requestTimeout;
+    this.inFlight = new Semaphore(this.concurrency);
+  }
+
+  @Override
+  public void writeHeader() {
+    started = System.nanoTime();
+  }
+
+  @Override
+  public void writeEvent(final EPCISEvent epcisEvent) throws IOException {
+    checkFailure();
+    if (batchWriter == null) {
+      batch = new ByteArrayOutputStream(batchSize * 1024);
+      batchWriter = output.createDocumentWriter(batchDocument, UNLIMITED, batch, null);
+      batchWriter.writeHeader();
+    }
+    batchWriter.writeEvent(epcisEvent);
+    events++;
+    if (++batchEvents == batchSize) {
+      send();
+    }
+  }
+
+  private void send() throws IOException {
+    batchWriter.writeFooter();
+    final byte[] body = batch.toByteArray();
+    batchWriter = null;
+    batch = null;
+    batchEvents = 0;
+    batches++;
+    try {
+      inFlight.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for capture requests");
+    }
+    post(body, 0, System.nanoTime());
+  }
+
+  private void post(final byte[] body, final int attempt, final long start) {
+    final HttpRequest.Builder request =
+        HttpRequest.newBuilder(uri)
+            .timeout(requestTimeout)
+            .header("Content-Type", output.getFormat().getMediaType())
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+    headers.forEach(request::header);
+    httpClient
+        .sendAsync(request.build(), HttpResponse.BodyHandlers.discarding())
+        .whenComplete(
+            (response, t) -> {
+              final int status = response != null ? response.statusCode() : 0;
+              if (t == null && status >= 200 && status < 300) {
+                latency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                inFlight.release();
+              } else if (attempt < maxRetries && (t != null || retryable(status))) {
+                retries.incrementAndGet();
+                CompletableFuture.delayedExecutor(
+                        backoff(attempt, response), TimeUnit.NANOSECONDS)
+                    .execute(() -> post(body, attempt + 1, start));
+              } else {
+                fail(
+                    t != null
+                        ? new IOException("Capture request failed: " + t.getMessage(), t)
+                        : new IOException("Capture request failed with status " + status));
+                inFlight.release();
+              }
+            });
+  }
+
+  private static boolean retryable(final int status) {
+    return status == 408 || status == 429 || status >= 500;
+  }
+
+  // exponential backoff with equal jitter, at least as long as the server asked for but never
+  // longer than the longest backoff
+  private long backoff(final int attempt, final HttpResponse<?> response) {
+    final long cap =
+        Math.min(maxRetryDelay.toNanos(), retryDelay.toNanos() << Math.min(attempt, 30));
+    long delay = cap / 2 + ThreadLocalRandom.current().nextLong(cap / 2 + 1);
+    if (response != null) {
+      final long retryAfter =
+          response
+              .headers()
+              .firstValue("Retry-After")
+              .map(CaptureDocumentWriter::seconds)
+              .orElse(0L);
+      delay =
+          Math.max(
+              delay, Math.min(maxRetryDelay.toNanos(), TimeUnit.SECONDS.toNanos(retryAfter)));
+    }
+    return delay;
+  }
+
+  private static long seconds(final String value) {
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      // HTTP date, not worth waiting for
+      return 0;
+    }
+  }
+
+  private synchronized void fail(final IOException e) {
+    if (failure == null) {
+      failure = e;
+    }
+  }
+
+  private void checkFailure() throws IOException {
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  // wait until all requests in flight completed
+  private void drain() throws IOException {
+    try {
+      inFlight.acquire(concurrency);
+      inFlight.release(concurrency);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for capture requests");
+    } finally {
+      elapsed = System.nanoTime() - started;
+    }
+  }
+
+  @Override
+  public void writeFooter() throws IOException {
+    if (batchWriter != null && failure == null) {
+      send();
+    }
+    drain();
+    checkFailure();
+  }
+
+  @Override
+  public void writeError(final Throwable t) throws IOException {
+    // the incomplete batch is not sent
+    drain();
+    throw new IOException("Event generation failed: " + t.getMessage(), t);
+  }
+
+  @Override
+  public long buffered() {
+    return 0;
+  }
+
+  /**
+   * @return sent events and batches with the latency percentiles of the accepted batches
+   */
+  CaptureOutput.Result result() {
+    return new CaptureOutput.Result(
+        events,
+        batches,
+        retries.get(),
+        Duration.ofNanos(elapsed),
+        micros(latency.getValueAtPercentile(50)),
+        micros(latency.getValueAtPercentile(99)),
+        micros(latency.getMaxValue()));
+  }
+
+  private static Duration micros(final long value) {
+    return Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(value));
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * {@code capture} sink posting the events to an EPCIS capture interface, options: {@code uri}
+ * (required), {@code format} (json_ld or xml, defaults to json_ld), {@code batchSize}, {@code
+ * concurrency}, {@code maxRetries} and {@code authorization}.
+ */
+public class CaptureEventSinkProvider implements EventSinkProvider {
+
+  @Override
+  public String getName() {
+    return "capture";
+  }
+
+  @Override
+  public EventSink create(
+      final StreamingEPCISDocumentOutput output, final Map<String, String> options) {
+    final CaptureOutput.Builder builder =
+        CaptureOutput.builder()
+            .output(
+                output.withFormat(
+                    EventSinks.enumOption(
+                        options, "format", EPCISDocumentFormat.class, EPCISDocumentFormat.JSON_LD)))
+            .uri(URI.create(EventSinks.required(options, "uri")))
+            .batchSize(
+                EventSinks.intOption(options, "batchSize", CaptureOutput.DEFAULT_BATCH_SIZE))
+            .concurrency(
+                EventSinks.intOption(options, "concurrency", CaptureOutput.DEFAULT_CONCURRENCY))
+            .maxRetries(
+                EventSinks.intOption(options, "maxRetries", CaptureOutput.DEFAULT_MAX_RETRIES));
+    if (options.containsKey("authorization")) {
+      builder.header("Authorization", options.get("authorization"));
+    }
+    final CaptureOutput captureOutput = builder.build();
+    return new DocumentWriterEventSink(captureOutput::createDocumentWriter);
+  }
+}
@@ -0,0 +1,648 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import io.openepcis.model.epcis.EPCISEvent;
+import io.smallrye.mutiny.Multi;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Measures an EPCIS capture interface with generated documents. Documents of batch size events are
+ * prepared ahead by generator threads, so generation is not part of the measured response time.
+ *
+ * <p>In closed loop mode each virtual user sends the next request once the previous completed,
+ * optionally paced to one request per interval. In open loop mode requests are started at the
+ * target rate regardless of the response time. Response times are recorded in HdrHistograms with
+ * microsecond resolution, corrected for coordinated omission: open loop latency is measured from
+ * the intended start of a request, closed loop latency is completed with the requests a paced user
+ * could not start in time.
+ */
+public class CaptureLoadDriver {
+
+  private static final DocumentBudget UNLIMITED = new DocumentBudget(0, 0, null);
+
+  private static final double[] PERCENTILES = {50, 75, 90, 95, 99, 99.9, 99.99, 100};
+
+  private final StreamingEPCISDocumentOutput output;
+
+  private final URI uri;
+
+  private final Map<String, String> headers;
+
+  private final Supplier<Multi<EPCISEvent>> events;
+
+  private final LoadReport.Mode mode;
+
+  private final int users;
+
+  private final Duration pacing;
+
+  private final double rate;
+
+  private final Duration warmup;
+
+  private final Duration duration;
+
+  private final int batchSize;
+
+  private final int generators;
+
+  private final int preparedDocuments;
+
+  private final int maxInFlight;
+
+  private final Duration requestTimeout;
+
+  private final Duration bucket;
+
+  private final HttpClient httpClient;
+
+  // corrected and uncorrected response times in microseconds
+  private final Histogram latency = new ConcurrentHistogram(3);
+
+  private final Histogram serviceTime = new ConcurrentHistogram(3);
+
+  private final AtomicLong errors = new AtomicLong();
+
+  private AtomicLongArray bucketRequests;
+
+  private AtomicLongArray bucketErrors;
+
+  private long started;
+
+  // end of the warmup, requests sent before are not recorded
+  private long measured;
+
+  private CaptureLoadDriver(final Builder builder) {
+    this.output = builder.output;
+    this.uri = builder.uri;
+    this.headers = Map.copyOf(builder.headers);
+    this.events = builder.events;
+    this.mode = builder.mode;
+    this.users = builder.users;
+    this.pacing = builder.pacing;
+    this.rate = builder.rate;
+    this.warmup = builder.warmup;
+    this.duration = builder.duration;
+    this.batchSize = builder.batchSize;
+    this.generators = builder.generators;
+    this.preparedDocuments = builder.preparedDocuments;
+    this.maxInFlight = builder.maxInFlight;
+    this.requestTimeout = builder.requestTimeout;
+    this.bucket = builder.bucket;
+    final HttpClient.Builder client =
+        HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).connectTimeout(requestTimeout);
+    if (output.isVirtualThreads()) {
+      client.executor(VirtualThreads.executor());
+    }
+    this.httpClient = client.build();
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * prepare documents, send requests for the warmup and the configured duration and wait for the
+   * outstanding responses
+   *
+   * @return percentiles and throughput of the run
+   * @throws IOException if the generator failed or the run was interrupted
+   */
+  public LoadReport run() throws IOException {
+    final DocumentBodies bodies = new DocumentBodies();
+    bodies.start();
+    try {
+      bodies.prefill();
+      final int buckets =
+          (int) ((duration.toNanos() + requestTimeout.toNanos()) / bucket.toNanos()) + 2;
+      bucketRequests = new AtomicLongArray(buckets);
+      bucketErrors = new AtomicLongArray(buckets);
+      started = System.nanoTime();
+      measured = started + warmup.toNanos();
+      if (mode == LoadReport.Mode.CLOSED_LOOP) {
+        runClosedLoop(bodies);
+      } else {
+        runOpenLoop(bodies);
+      }
+      return report(System.nanoTime() - measured, bodies.stalls.get());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted during load run");
+    } finally {
+      bodies.stop();
+    }
+  }
+
+  private void runClosedLoop(final DocumentBodies bodies)
+      throws IOException, InterruptedException {
+    final long end = measured + duration.toNanos();
+    final long interval = pacing != null ? pacing.toNanos() : 0;
+    final List<Thread> threads = new ArrayList<>(users);
+    for (int u = 0; u < users; u++) {
+      final Runnable user =
+          () -> {
+            long intended = started;
+            try {
+              while (true) {
+                if (interval > 0) {
+                  parkUntil(intended);
+                }
+                if (System.nanoTime() - end >= 0) {
+                  return;
+                }
+                final byte[] body = bodies.take();
+                final long sent = System.nanoTime();
+                try {
+                  final HttpResponse<Void> response =
+                      httpClient.send(request(body), HttpResponse.BodyHandlers.discarding());
+                  completed(response.statusCode(), sent, sent, interval);
+                } catch (IOException e) {
+                  completed(0, sent, sent, interval);
+                }
+                // a late user starts the next request immediately, the requests it missed are
+                // added by the histogram instead of being sent in a burst
+                intended = Math.max(intended + interval, System.nanoTime());
+              }
+            } catch (InterruptedException | IOException e) {
+              // generator failure, reported once all users stopped
+            }
+          };
+      final Thread thread;
+      if (output.isVirtualThreads()) {
+        thread = VirtualThreads.newThread(user, "capture-load-user-" + u);
+      } else {
+        thread = new Thread(user, "capture-load-user-" + u);
+        thread.setDaemon(true);
+      }
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    bodies.checkFailure();
+  }
+
+  private void runOpenLoop(final DocumentBodies bodies) throws IOException, InterruptedException {
+    final Semaphore inFlight = new Semaphore(maxInFlight);
+    final double interval = 1_000_000_000d / rate;
+    for (long i = 0; ; i++) {
+      final long intended = started + (long) (i * interval);
+      if (intended - measured >= duration.toNanos()) {
+        break;
+      }
+      parkUntil(intended);
+      // waiting for the generator or a free request slot delays the request, which is part of the
+      // latency measured from the intended start
+      final byte[] body = bodies.take();
+      inFlight.acquire();
+      final long sent = System.nanoTime();
+      httpClient
+          .sendAsync(request(body), HttpResponse.BodyHandlers.discarding())
+          .whenComplete(
+              (response, t) -> {
+                completed(t == null ? response.statusCode() : 0, intended, sent, 0);
+                inFlight.release();
+              });
+    }
+    inFlight.acquire(maxInFlight);
+    inFlight.release(maxInFlight);
+  }
+
+  private HttpRequest request(final byte[] body) {
+    final HttpRequest.Builder request =
+        HttpRequest.newBuilder(uri)
+            .timeout(requestTimeout)
+            .header("Content-Type", output.getFormat().getMediaType())
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+    headers.forEach(request::header);
+    return request.build();
+  }
+
+  private void completed(
+      final int status, final long intended, final long sent, final long expectedInterval) {
+    final long now = System.nanoTime();
+    if (sent - measured < 0) {
+      return;
+    }
+    final int index =
+        (int) Math.min(bucketRequests.length() - 1, (now - measured) / bucket.toNanos());
+    if (status >= 200 && status < 300) {
+      latency.recordValueWithExpectedInterval(
+          TimeUnit.NANOSECONDS.toMicros(now - intended),
+          TimeUnit.NANOSECONDS.toMicros(expectedInterval));
+      serviceTime.recordValue(TimeUnit.NANOSECONDS.toMicros(now - sent));
+      bucketRequests.incrementAndGet(index);
+    } else {
+      errors.incrementAndGet();
+      bucketErrors.incrementAndGet(index);
+    }
+  }
+
+  private static void parkUntil(final long deadline) throws InterruptedException {
+    long remaining;
+    while ((remaining = deadline - System.nanoTime()) > 0) {
+      LockSupport.parkNanos(remaining);
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+    }
+  }
+
+  private LoadReport report(final long elapsed, final long generatorStalls) {
+    final long requests = serviceTime.getTotalCount();
+    final long events = requests * batchSize;
+    final double seconds = elapsed / 1_000_000_000d;
+    int last = 0;
+    for (int i = 0; i < bucketRequests.length(); i++) {
+      if (bucketRequests.get(i) > 0 || bucketErrors.get(i) > 0) {
+        last = i;
+      }
+    }
+    final List<LoadReport.Bucket> throughput = new ArrayList<>(last + 1);
+    for (int i = 0; i <= last; i++) {
+      throughput.add(
+          new LoadReport.Bucket(
+              i * bucket.toNanos() / 1_000_000_000d,
+              bucketRequests.get(i),
+              bucketRequests.get(i) * batchSize,
+              bucketErrors.get(i)));
+    }
+    return new LoadReport(
+        mode,
+        mode == LoadReport.Mode.CLOSED_LOOP ? users : 0,
+        mode == LoadReport.Mode.OPEN_LOOP ? rate : 0,
+        seconds,
+        requests,
+        errors.get(),
+        events,
+        generatorStalls,
+        seconds > 0 ? requests / seconds : 0,
+        seconds > 0 ? events / seconds : 0,
+        percentiles(latency),
+        percentiles(serviceTime),
+        throughput);
+  }
+
+  private static List<LoadReport.Percentile> percentiles(final Histogram histogram) {
+    final List<LoadReport.Percentile> percentiles = new ArrayList<>(PERCENTILES.length);
+    for (double percentile : PERCENTILES) {
+      final long micros =
+          percentile == 100 ? histogram.getMaxValue() : histogram.getValueAtPercentile(percentile);
+      percentiles.add(new LoadReport.Percentile(percentile, micros / 1000d));
+    }
+    return percentiles;
+  }
+
+  /** documents prepared by the generator threads, generation restarts once the events run out */
+  private final class DocumentBodies {
+
+    private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(preparedDocuments);
+
+    private final List<Thread> threads = new ArrayList<>(generators);
+
+    private final AtomicLong stalls = new AtomicLong();
+
+    private volatile boolean stopped;
+
+    private volatile IOException failure;
+
+    void start() {
+      for (int g = 0; g < generators; g++) {
+        final Thread thread;
+        if (output.isVirtualThreads()) {
+          thread = VirtualThreads.newThread(this::generate, "capture-load-generator-" + g);
+        } else {
+          thread = new Thread(this::generate, "capture-load-generator-" + g);
+          thread.setDaemon(true);
+        }
+        threads.add(thread);
+        thread.start();
+      }
+    }
+
+    // wait until the first documents are ready, the run starts with a full queue
+    void prefill() throws IOException, InterruptedException {
+      while (queue.remainingCapacity() > 0) {
+        checkFailure();
+        Thread.sleep(10);
+      }
+    }
+
+    byte[] take() throws IOException, InterruptedException {
+      byte[] body = queue.poll();
+      if (body == null) {
+        stalls.incrementAndGet();
+        while ((body = queue.poll(100, TimeUnit.MILLISECONDS)) == null) {
+          checkFailure();
+        }
+      }
+      return body;
+    }
+
+    void checkFailure() throws IOException {
+      if (failure != null) {
+        throw failure;
+      }
+    }
+
+    void stop() {
+      stopped = true;
+      threads.forEach(Thread::interrupt);
+    }
+
+    private void generate() {
+      final StreamingEPCISDocument batchDocument = new StreamingEPCISDocument();
+      try {
+        ByteArrayOutputStream batch = null;
+        EPCISDocumentWriter writer = null;
+        int batchEvents = 0;
+        while (!stopped) {
+          long generated = 0;
+          try (Stream<EPCISEvent> stream = events.get().subscribe().asStream()) {
+            final Iterator<EPCISEvent> iterator = stream.iterator();
+            while (!stopped && iterator.hasNext()) {
+              if (writer == null) {
+                batch = new ByteArrayOutputStream(batchSize * 1024);
+                writer = output.createDocumentWriter(batchDocument, UNLIMITED, batch, null);
+                writer.writeHeader();
+              }
+              writer.writeEvent(iterator.next());
+              generated++;
+              if (++batchEvents == batchSize) {
+                writer.writeFooter();
+                queue.put(batch.toByteArray());
+                writer = null;
+                batchEvents = 0;
+              }
+            }
+          }
+          if (generated == 0) {
+            throw new IOException("The InputTemplate did not generate any events");
+          }
+        }
+      } catch (InterruptedException e) {
+        // stopped
+      } catch (IOException e) {
+        failure = e;
+      } catch (RuntimeException e) {
+        if (!stopped) {
+          failure = new IOException("Event generation failed: " + e.getMessage(), e);
+        }
+      }
+    }
+  }
+
+  public static class Builder {
+    private StreamingEPCISDocumentOutput output;
+    private URI uri;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private Supplier<Multi<EPCISEvent>> events;
+    private LoadReport.Mode mode;
+    private int users;
+    private Duration pacing;
+    private double rate;
+    private Duration warmup = Duration.ZERO;
+    private Duration duration = Duration.ofSeconds(10);
+    private int batchSize = CaptureOutput.DEFAULT_BATCH_SIZE;
+    private int generators = 1;
+    private int preparedDocuments = 64;
+    private int maxInFlight = 1024;
+    private Duration requestTimeout = Duration.ofSeconds(30);
+    private Duration bucket = Duration.ofSeconds(1);
+
+    Builder() {}
+
+    /**
+     * format and threading settings, built without an outputStream or writer
+     *
+     * @param output output settings, JSON-LD or XML format
+     * @return builder
+     */
+    public Builder output(StreamingEPCISDocumentOutput output) {
+      this.output = output;
+      return this;
+    }
+
+    /**
+     * @param uri capture endpoint, e.g. {@code http://localhost:8080/capture}
+     * @return builder
+     */
+    public Builder uri(URI uri) {
+      this.uri = uri;
+      return this;
+    }
+
+    /**
+     * @param name header sent with every request
+     * @param value header value
+     * @return builder
+     */
+    public Builder header(String name, String value) {
+      this.headers.put(name, value);
+      return this;
+    }
+
+    /**
+     * source of the posted events, subscribed again whenever the events run out
+     *
+     * @param events e.g. {@code () -> EPCISEventGenerator.generate(inputTemplate)}
+     * @return builder
+     */
+    public Builder events(Supplier<Multi<EPCISEvent>> events) {
+      this.events = events;
+      return this;
+    }
+
+    /**
+     * each user sends the next request once the previous completed
+     *
+     * @param users virtual users
+     * @return builder
+     */
+    public Builder closedLoop(int users) {
+      return closedLoop(users, null);
+    }
+
+    /**
+     * each user starts one request per pacing interval, or immediately after the previous one if it
+     * took longer; the requests missed this way are added to the latency histogram
+     *
+     * @param users virtual users
+     * @param pacing interval between the requests of a user, null for no pacing
+     * @return builder
+     */
+    public Builder closedLoop(int users, Duration pacing) {
+      this.mode = LoadReport.Mode.CLOSED_LOOP;
+      this.users = users;
+      this.pacing = pacing;
+      return this;
+    }
+
+    /**
+     * start requests at a fixed rate regardless of the response time
+     *
+     * @param requestsPerSecond target arrival rate
+     * @return builder
+     */
+    public Builder openLoop(double requestsPerSecond) {
+      this.mode = LoadReport.Mode.OPEN_LOOP;
+      this.rate = requestsPerSecond;
+      return this;
+    }
+
+    /**
+     * requests are sent at the configured load but not recorded during the warmup, so connection
+     * setup and JIT compilation do not distort the measurement
+     *
+     * @param warmup time before the measurement starts, defaults to none
+     * @return builder
+     */
+    public Builder warmup(Duration warmup) {
+      this.warmup = warmup;
+      return this;
+    }
+
+    /**
+     * @param duration time requests are started and recorded after the warmup, defaults to 10s
+     * @return builder
+     */
+    public Builder duration(Duration duration) {
+      this.duration = duration;
+      return this;
+    }
+
+    /**
+     * @param batchSize events per posted document, defaults to {@link
+     *     CaptureOutput#DEFAULT_BATCH_SIZE}
+     * @return builder
+     */
+    public Builder batchSize(int batchSize) {
+      this.batchSize = batchSize;
+      return this;
+    }
+
+    /**
+     * @param generators threads preparing documents, defaults to 1
+     * @param preparedDocuments documents prepared ahead, defaults to 64
+     * @return builder
+     */
+    public Builder generators(int generators, int preparedDocuments) {
+      this.generators = generators;
+      this.preparedDocuments = preparedDocuments;
+      return this;
+    }
+
+    /**
+     * @param maxInFlight open loop requests in flight before starting requests is delayed, defaults
+     *     to 1024
+     * @return builder
+     */
+    public Builder maxInFlight(int maxInFlight) {
+      this.maxInFlight = maxInFlight;
+      return this;
+    }
+
+    /**
+     * @param requestTimeout timeout of connecting and of every request, defaults to 30s
+     * @return builder
+     */
+    public Builder requestTimeout(Duration requestTimeout) {
+      this.requestTimeout = requestTimeout;
+      return this;
+    }
+
+    /**
+     * @param bucket length of the throughput buckets, defaults to 1s
+     * @return builder
+     */
+    public Builder bucket(Duration bucket) {
+      this.bucket = bucket;
+      return this;
+    }
+
+    public CaptureLoadDriver build() {
+      if (output == null || uri == null || events == null || mode == null) {
+        throw new IllegalArgumentException(
+            "output, uri, events and closed or open loop mode are required");
+      }
+      if (output.getFormat() != EPCISDocumentFormat.JSON_LD
+          && output.getFormat() != EPCISDocumentFormat.XML) {
+        throw new IllegalArgumentException(
+            "capture accepts JSON-LD or XML documents, not " + output.getFormat());
+      }
+      if ((mode == LoadReport.Mode.CLOSED_LOOP && users < 1)
+          || (mode == LoadReport.Mode.OPEN_LOOP && !(rate > 0))) {
+        throw new IllegalArgumentException("at least one user or a positive rate is required");
+      }
+      batchSize = Math.max(1, batchSize);
+      generators = Math.max(1, generators);
+      preparedDocuments = Math.max(1, preparedDocuments);
+      maxInFlight = Math.max(1, maxInFlight);
+      return new CaptureLoadDriver(this);
+    }
+
+    public String toString() {
+      return "CaptureLoadDriver.Builder(output="
+          + this.output
+          + ", uri="
+          + this.uri
+          + ", mode="
+          + this.mode
+          + ", users="
+          + this.users
+          + ", pacing="
+          + this.pacing
+          + ", rate="
+          + this.rate
+          + ", warmup="
+          + this.warmup
+          + ", duration="
+          + this.duration
+          + ", batchSize="
+          + this.batchSize
+          + ", generators="
+          + this.generators
+          + ", maxInFlight="
+          + this.maxInFlight
+          + ")";
+    }
+  }
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import io.smallrye.mutiny.Uni;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Posts the events of one generation run to an EPCIS 2.0 capture interface while they are
+ * generated, in documents of batch size events. Requests share one HTTP/2 client, the number of
+ * requests in flight is bounded and holds back generation once reached. Only JSON-LD and XML
+ * documents can be captured.
+ */
+public class CaptureOutput {
+
+  public static final int DEFAULT_BATCH_SIZE = 100;
+
+  public static final int DEFAULT_CONCURRENCY = 4;
+
+  public static final int DEFAULT_MAX_RETRIES = 3;
+
+  /**
+   * sent events and batches
+   *
+   * @param events number of sent events
+   * @param batches number of posted documents
+   * @param retries number of repeated requests
+   * @param elapsed time from the first event to the last accepted batch
+   * @param latencyP50 median latency of a batch, from the first attempt to the accepted response
+   * @param latencyP99 99th percentile of the batch latency
+   * @param latencyMax highest batch latency
+   */
+  public record Result(
+      long events,
+      long batches,
+      long retries,
+      Duration elapsed,
+      Duration latencyP50,
+      Duration latencyP99,
+      Duration latencyMax) {
+
+    /**
+     * @return sent events per second
+     */
+    public double eventsPerSecond() {
+      final long nanos = elapsed.toNanos();
+      return nanos > 0 ? events * 1_000_000_000d / nanos : 0;
+    }
+  }
+
+  private final StreamingEPCISDocumentOutput output;
+
+  private final URI uri;
+
+  private final Map<String, String> headers;
+
+  private final int batchSize;
+
+  private final int concurrency;
+
+  private final int maxRetries;
+
+  private final Duration retryDelay;
+
+  private final Duration maxRetryDelay;
+
+  private final Duration requestTimeout;
+
+  private final HttpClient httpClient;
+
+  private CaptureOutput(final Builder builder) {
+    this.output = builder.output;
+    this.uri = builder.uri;
+    this.headers = Map.copyOf(builder.headers);
+    this.batchSize = builder.batchSize;
+    this.concurrency = builder.concurrency;
+    this.maxRetries = builder.maxRetries;
+    this.retryDelay = builder.retryDelay;
+    this.maxRetryDelay = builder.maxRetryDelay;
+    this.requestTimeout = builder.requestTimeout;
+    final HttpClient.Builder client =
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(builder.requestTimeout);
+    if (output.isVirtualThreads()) {
+      client.executor(VirtualThreads.executor());
+    }
+    this.httpClient = client.build();
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * post all events of the document
+   *
+   * @param streamingEPCISDocument events and settings of the posted documents, the event limit and
+   *     timeout are applied
+   * @return sent events and batch latencies
+   * @throws IOException if a batch could not be captured
+   */
+  public Result write(final StreamingEPCISDocument streamingEPCISDocument) throws IOException {
+    return StreamingEPCISDocumentOutput.await(writeStage(streamingEPCISDocument));
+  }
+
+  /**
+   * post all events of the document without blocking the subscribing thread
+   *
+   * @param streamingEPCISDocument events and settings of the posted documents, the event limit and
+   *     timeout are applied
+   * @return sent events and batch latencies, once the last batch has been accepted, cancelling
+   *     the subscription stops generating events
+   */
+  public Uni<Result> writeAsync(final StreamingEPCISDocument streamingEPCISDocument) {
+    return Uni.createFrom()
+        .deferred(
+            () -> {
+              final CompletableFuture<Result> stage =
+                  writeStage(streamingEPCISDocument).toCompletableFuture();
+              return Uni.createFrom()
+                  .completionStage(stage)
+                  .onCancellation()
+                  .invoke(() -> stage.cancel(false));
+            });
+  }
+
+  /**
+   * @param streamingEPCISDocument settings of the posted documents
+   * @return writer posting the events of one run
+   */
+  CaptureDocumentWriter createDocumentWriter(final StreamingEPCISDocument streamingEPCISDocument) {
+    // posted documents are not compressed, capture interfaces rarely accept a Content-Encoding
+    final StreamingEPCISDocument batchDocument = new StreamingEPCISDocument();
+    batchDocument.setPrettyPrint(streamingEPCISDocument.isPrettyPrint());
+    batchDocument.setEpcisVersion(streamingEPCISDocument.getEpcisVersion());
+    return new CaptureDocumentWriter(
+        output,
+        batchDocument,
+        httpClient,
+        uri,
+        headers,
+        batchSize,
+        concurrency,
+        maxRetries,
+        retryDelay,
+        maxRetryDelay,
+        requestTimeout);
+  }
+
+  private CompletionStage<Result> writeStage(final StreamingEPCISDocument streamingEPCISDocument) {
+    final CaptureDocumentWriter captureWriter = createDocumentWriter(streamingEPCISDocument);
+    final DocumentBudget budget =
+        new DocumentBudget(
+            streamingEPCISDocument.getMaxEvents(), 0, streamingEPCISDocument.getTimeout());
+    final CompletableFuture<Void> written =
+        output
+            .writeAsync(
+                streamingEPCISDocument.getEpcisEvents(),
+                DocumentSource.single(captureWriter, budget))
+            .toCompletableFuture();
+    final CompletableFuture<Result> result = written.thenApply(v -> captureWriter.result());
+    // cancelling the result stops generating further events
+    result.whenComplete(
+        (r, t) -> {
+          if (result.isCancelled()) {
+            written.cancel(false);
+          }
+        });
+    return result;
+  }
+
+  public static class Builder {
+    private StreamingEPCISDocumentOutput output;
+    private URI uri;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int concurrency = DEFAULT_CONCURRENCY;
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+    private Duration retryDelay = Duration.ofMillis(100);
+    private Duration maxRetryDelay = Duration.ofSeconds(5);
+    private Duration requestTimeout = Duration.ofSeconds(30);
+
+    Builder() {}
+
+    /**
+     * format and threading settings, built without an outputStream or writer
+     *
+     * @param output output settings, JSON-LD or XML format
+     * @return builder
+     */
+    public Builder output(StreamingEPCISDocumentOutput output) {
+      this.output = output;
+      return this;
+    }
+
+    /**
+     * @param uri capture endpoint, e.g. {@code http://localhost:8080/capture}
+     * @return builder
+     */
+    public Builder uri(URI uri) {
+      this.uri = uri;
+      return this;
+    }
+
+    /**
+     * header sent with every request, e.g. Authorization or GS1-Capture-Error-Behaviour
+     *
+     * @param name header name
+     * @param value header value
+     * @return builder
+     */
+    public Builder header(String name, String value) {
+      this.headers.put(name, value);
+      return this;
+    }
+
+    /**
+     * @param batchSize events per posted document, defaults to {@link
+     *     CaptureOutput#DEFAULT_BATCH_SIZE}
+     * @return builder
+     */
+    public Builder batchSize(int batchSize) {
+      this.batchSize = batchSize;
+      return this;
+    }
+
+    /**
+     * @param concurrency requests in flight, defaults to {@link CaptureOutput#DEFAULT_CONCURRENCY}
+     * @return builder
+     */
+    public Builder concurrency(int concurrency) {
+      this.concurrency = concurrency;
+      return this;
+    }
+
+    /**
+     * @param maxRetries repeated attempts of a failed request, defaults to {@link
+     *     CaptureOutput#DEFAULT_MAX_RETRIES}
+     * @return builder
+     */
+    public Builder maxRetries(int maxRetries) {
+      this.maxRetries = maxRetries;
+      return this;
+    }
+
+    /**
+     * backoff before the first retry, doubled for every further retry up to the maximum
+     *
+     * @param retryDelay first backoff, defaults to 100ms
+     * @param maxRetryDelay longest backoff, also caps the Retry-After of the server, defaults to 5s
+     * @return builder
+     */
+    public Builder retryDelay(Duration retryDelay, Duration maxRetryDelay) {
+      this.retryDelay = retryDelay;
+      this.maxRetryDelay = maxRetryDelay;
+      return this;
+    }
+
+    /**
+     * @param requestTimeout timeout of connecting and of every request, defaults to 30s
+     * @return builder
+     */
+    public Builder requestTimeout(Duration requestTimeout) {
+      this.requestTimeout = requestTimeout;
+      return this;
+    }
+
+    public CaptureOutput build() {
+      if (output == null || uri == null) {
+        throw new IllegalArgumentException("output and uri are required");
+      }
+      if (output.getFormat() != EPCISDocumentFormat.JSON_LD
+          && output.getFormat() != EPCISDocumentFormat.XML) {
+        throw new IllegalArgumentException(
+            "capture accepts JSON-LD or XML documents, not " + output.getFormat());
+      }
+      return new CaptureOutput(this);
+    }
+
+    public String toString() {
+      return "CaptureOutput.Builder(output="
+          + this.output
+          + ", uri="
+          + this.uri
+          + ", batchSize="
+          + this.batchSize
+          + ", concurrency="
+          + this.concurrency
+          + ", maxRetries="
+          + this.maxRetries
+          + ", retryDelay="
+          + this.retryDelay
+          + ", maxRetryDelay="
+          + this.maxRetryDelay
+          + ", requestTimeout="
+          + this.requestTimeout
+          + ")";
+    }
+  }
+}
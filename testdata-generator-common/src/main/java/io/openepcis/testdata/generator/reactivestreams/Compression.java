@@ -0,0 +1,141 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+import lombok.Getter;
+
+/** streaming compression of written documents */
+@Getter
+public enum Compression {
+  NONE("identity", ""),
+
+  GZIP("gzip", ".gz"),
+
+  ZSTD("zstd", ".zst");
+
+  /** use the default level of the codec */
+  public static final int DEFAULT_LEVEL = -1;
+
+  private static final int GZIP_BUFFER_SIZE = 8192;
+
+  /** value of the Content-Encoding header */
+  private final String contentEncoding;
+
+  /** appended to the file extension of the document format */
+  private final String fileExtension;
+
+  Compression(final String contentEncoding, final String fileExtension) {
+    this.contentEncoding = contentEncoding;
+    this.fileExtension = fileExtension;
+  }
+
+  /**
+   * @param outputStream stream receiving the compressed bytes, closed with the returned stream
+   * @param level compression level of the codec (gzip 1-9, zstd 1-22) or {@link #DEFAULT_LEVEL}
+   * @return stream compressing the written bytes
+   * @throws IOException if the compressor could not be created
+   */
+  public OutputStream compress(final OutputStream outputStream, final int level)
+      throws IOException {
+    return switch (this) {
+      case NONE -> outputStream;
+      case GZIP ->
+          new GZIPOutputStream(outputStream, GZIP_BUFFER_SIZE, true) {
+            {
+              if (level != DEFAULT_LEVEL) {
+                def.setLevel(level);
+              }
+            }
+          };
+      case ZSTD ->
+          level != DEFAULT_LEVEL
+              ? new ZstdOutputStream(outputStream, level)
+              : new ZstdOutputStream(outputStream);
+    };
+  }
+
+  /**
+   * negotiate the compression from an Accept-Encoding header, zstd is preferred over gzip if both
+   * are accepted with the same quality. Codings refused with {@code q=0} are never selected, not
+   * even through the wildcard
+   *
+   * @param acceptEncoding header value, may be null
+   * @return accepted compression, {@link #NONE} if neither gzip nor zstd is accepted
+   */
+  public static Compression forAcceptEncoding(final String acceptEncoding) {
+    if (acceptEncoding == null || acceptEncoding.isBlank()) {
+      return NONE;
+    }
+    Compression selected = NONE;
+    double selectedQuality = 0;
+    double wildcardQuality = -1;
+    boolean gzipRefused = false;
+    boolean zstdRefused = false;
+    for (String coding : acceptEncoding.split(",")) {
+      final String[] parts = coding.split(";");
+      final String name = parts[0].trim().toLowerCase(Locale.ROOT);
+      final double quality = quality(parts);
+      final Compression compression =
+          switch (name) {
+            case "zstd" -> ZSTD;
+            case "gzip", "x-gzip" -> GZIP;
+            case "*" -> {
+              wildcardQuality = quality;
+              yield null;
+            }
+            default -> null;
+          };
+      if (compression != null && quality <= 0) {
+        gzipRefused |= compression == GZIP;
+        zstdRefused |= compression == ZSTD;
+      } else if (compression != null
+          && (quality > selectedQuality
+              || (quality == selectedQuality && compression == ZSTD))) {
+        selected = compression;
+        selectedQuality = quality;
+      }
+    }
+    if (selected == NONE && wildcardQuality > 0) {
+      // any coding which has not been refused, gzip is understood by every client
+      if (!gzipRefused) {
+        return GZIP;
+      }
+      if (!zstdRefused) {
+        return ZSTD;
+      }
+    }
+    return selected;
+  }
+
+  private static double quality(final String[] parts) {
+    for (int i = 1; i < parts.length; i++) {
+      final String parameter = parts[i].trim();
+      if (parameter.startsWith("q=")) {
+        try {
+          return Double.parseDouble(parameter.substring(2));
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+    return 1;
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands the written bytes in chunks to a worker thread which writes them into the compressor, so
+ * compression runs in parallel to generating and serializing the events. At most {@link #DEPTH}
+ * chunks are pending, the writing thread blocks once the compressor falls behind. Flushing hands
+ * over the pending bytes without waiting for the compressor, closing waits until all bytes have
+ * been compressed and the compressor has been closed. The compressor is closed even if the worker
+ * fails or is interrupted, so the target is not left open. Worker threads are taken from a shared
+ * pool, or the virtual thread executor.
+ */
+final class CompressorOutputStream extends OutputStream {
+
+  static final int CHUNK_SIZE = 64 * 1024;
+
+  static final int DEPTH = 4;
+
+  private static final long POLL_MILLIS = 100;
+
+  private static final AtomicInteger COUNTER = new AtomicInteger();
+
+  // platform worker threads are reused by the following documents
+  private static final ExecutorService COMPRESSORS =
+      Executors.newCachedThreadPool(
+          task -> {
+            final Thread thread =
+                new Thread(task, "epcis-document-compressor-" + COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private record Chunk(byte[] bytes, int length) {}
+
+  private static final Chunk FLUSH = new Chunk(new byte[0], 0);
+
+  private static final Chunk CLOSE = new Chunk(new byte[0], 0);
+
+  private final OutputStream compressor;
+
+  private final BlockingQueue<Chunk> pending = new ArrayBlockingQueue<>(DEPTH);
+
+  // chunks written by the worker, reused by the writing thread
+  private final BlockingQueue<byte[]> free = new ArrayBlockingQueue<>(DEPTH + 1);
+
+  private final CountDownLatch terminated = new CountDownLatch(1);
+
+  private volatile IOException failure;
+
+  private byte[] buffer = new byte[CHUNK_SIZE];
+
+  private int count;
+
+  private boolean closed;
+
+  CompressorOutputStream(final OutputStream compressor, final boolean virtualThreads) {
+    this.compressor = compressor;
+    (virtualThreads ? VirtualThreads.executor() : COMPRESSORS).execute(this::compress);
+  }
+
+  private void compress() {
+    boolean compressorClosed = false;
+    try {
+      while (true) {
+        final Chunk chunk = pending.take();
+        if (chunk == CLOSE) {
+          compressorClosed = true;
+          compressor.close();
+          return;
+        }
+        if (chunk == FLUSH) {
+          compressor.flush();
+        } else {
+          compressor.write(chunk.bytes(), 0, chunk.length());
+          free.offer(chunk.bytes());
+        }
+      }
+    } catch (IOException e) {
+      failure = e;
+    } catch (InterruptedException e) {
+      failure = new InterruptedIOException("Interrupted while compressing EPCIS document");
+      Thread.currentThread().interrupt();
+    } finally {
+      if (!compressorClosed) {
+        closeCompressor();
+      }
+      terminated.countDown();
+    }
+  }
+
+  // release the compressor after a failure, the first failure is reported
+  private void closeCompressor() {
+    try {
+      compressor.close();
+    } catch (IOException e) {
+      if (failure != null) {
+        failure.addSuppressed(e);
+      } else {
+        failure = e;
+      }
+    }
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    if (count == buffer.length) {
+      handOver();
+    }
+    buffer[count++] = (byte) b;
+  }
+
+  @Override
+  public void write(final byte[] b, int off, int len) throws IOException {
+    while (len > 0) {
+      if (count == buffer.length) {
+        handOver();
+      }
+      final int n = Math.min(len, buffer.length - count);
+      System.arraycopy(b, off, buffer, count, n);
+      count += n;
+      off += n;
+      len -= n;
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    checkOpen();
+    handOver();
+    put(FLUSH);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    boolean handedOver = false;
+    try {
+      handOver();
+      put(CLOSE);
+      handedOver = true;
+    } finally {
+      if (!handedOver && failure == null) {
+        // the worker would wait for the close forever, the pending bytes of the failed document
+        // are dropped to make room for it
+        pending.clear();
+        pending.offer(CLOSE);
+      }
+      // a failed worker may still be closing the compressor
+      awaitTermination();
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private void awaitTermination() throws IOException {
+    try {
+      terminated.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while compressing EPCIS document");
+    }
+  }
+
+  private void handOver() throws IOException {
+    if (count == 0) {
+      return;
+    }
+    put(new Chunk(buffer, count));
+    final byte[] next = free.poll();
+    buffer = next != null ? next : new byte[CHUNK_SIZE];
+    count = 0;
+  }
+
+  private void put(final Chunk chunk) throws IOException {
+    try {
+      // the worker stops taking chunks once it failed
+      while (!pending.offer(chunk, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+        if (failure != null) {
+          throw failure;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while compressing EPCIS document");
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private void checkOpen() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+  }
+}
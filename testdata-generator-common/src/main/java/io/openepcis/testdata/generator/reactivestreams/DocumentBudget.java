@@ -0,0 +1,118 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import java.io.FilterOutputStream;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.time.Duration;
+
+/**
+ * Limits of a single document: maximum number of events, maximum number of bytes (characters for a
+ * Writer) and a deadline. Once a limit is reached the writer cancels generation and closes the
+ * document, so the output stays well-formed, or continues with the next document when rolling. A
+ * limit of 0 means unlimited.
+ */
+final class DocumentBudget {
+
+  private final long maxEvents;
+
+  private final long maxBytes;
+
+  private final long deadline;
+
+  private final boolean hasDeadline;
+
+  // bytes passed on to the output, without the bytes still buffered by the generator
+  private long written;
+
+  private long events;
+
+  DocumentBudget(final long maxEvents, final long maxBytes, final Duration timeout) {
+    this.maxEvents = maxEvents;
+    this.maxBytes = maxBytes;
+    this.hasDeadline = timeout != null && !timeout.isZero() && !timeout.isNegative();
+    this.deadline = hasDeadline ? System.nanoTime() + timeout.toNanos() : 0;
+  }
+
+  static DocumentBudget of(final StreamingEPCISDocument document) {
+    return new DocumentBudget(
+        document.getMaxEvents(), document.getMaxBytes(), document.getTimeout());
+  }
+
+  boolean isLimited() {
+    return maxEvents > 0 || maxBytes > 0 || hasDeadline;
+  }
+
+  /**
+   * account for one more written event
+   *
+   * @param buffered bytes written by the generator but not yet passed on to the output
+   * @return true if a limit has been reached and the document should be closed
+   */
+  boolean next(final long buffered) {
+    events++;
+    return (maxEvents > 0 && events >= maxEvents)
+        || (maxBytes > 0 && written + Math.max(0, buffered) >= maxBytes)
+        || (hasDeadline && System.nanoTime() - deadline >= 0);
+  }
+
+  OutputStream count(final OutputStream outputStream) {
+    if (maxBytes <= 0) {
+      return outputStream;
+    }
+    return new FilterOutputStream(outputStream) {
+      @Override
+      public void write(final int b) throws IOException {
+        out.write(b);
+        written++;
+      }
+
+      @Override
+      public void write(final byte[] b, final int off, final int len) throws IOException {
+        out.write(b, off, len);
+        written += len;
+      }
+    };
+  }
+
+  Writer count(final Writer writer) {
+    if (maxBytes <= 0) {
+      return writer;
+    }
+    return new FilterWriter(writer) {
+      @Override
+      public void write(final int c) throws IOException {
+        out.write(c);
+        written++;
+      }
+
+      @Override
+      public void write(final char[] cbuf, final int off, final int len) throws IOException {
+        out.write(cbuf, off, len);
+        written += len;
+      }
+
+      @Override
+      public void write(final String str, final int off, final int len) throws IOException {
+        out.write(str, off, len);
+        written += len;
+      }
+    };
+  }
+}
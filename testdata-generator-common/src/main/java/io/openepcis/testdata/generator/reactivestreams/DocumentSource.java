@@ -0,0 +1,65 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import java.io.IOException;
+
+/**
+ * Documents written by the subscriber of {@link StreamingEPCISDocumentOutput}. A single document
+ * stops generation once its budget has been reached, a rolling source closes the document and
+ * continues with the next one.
+ */
+interface DocumentSource {
+
+  /**
+   * open the next document, the subscriber writes its header
+   *
+   * @return writer of the document
+   * @throws IOException if the output could not be opened
+   */
+  EPCISDocumentWriter open() throws IOException;
+
+  /**
+   * @return budget of the document opened last
+   */
+  DocumentBudget budget();
+
+  /**
+   * @return true to continue with another document once the budget of the current one has been
+   *     reached, false to stop generation
+   */
+  boolean rolls();
+
+  static DocumentSource single(
+      final EPCISDocumentWriter documentWriter, final DocumentBudget budget) {
+    return new DocumentSource() {
+      @Override
+      public EPCISDocumentWriter open() {
+        return documentWriter;
+      }
+
+      @Override
+      public DocumentBudget budget() {
+        return budget;
+      }
+
+      @Override
+      public boolean rolls() {
+        return false;
+      }
+    };
+  }
+}
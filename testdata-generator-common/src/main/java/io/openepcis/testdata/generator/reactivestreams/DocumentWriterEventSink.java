@@ -0,0 +1,63 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import io.openepcis.model.epcis.EPCISEvent;
+import java.io.IOException;
+import java.util.List;
+
+/** Event sink writing through a document writer, which is created once the sink is opened. */
+final class DocumentWriterEventSink implements EventSink {
+
+  static final DocumentBudget UNLIMITED = new DocumentBudget(0, 0, null);
+
+  interface Opener {
+    EPCISDocumentWriter open(StreamingEPCISDocument streamingEPCISDocument) throws IOException;
+  }
+
+  private final Opener opener;
+
+  private EPCISDocumentWriter documentWriter;
+
+  DocumentWriterEventSink(final Opener opener) {
+    this.opener = opener;
+  }
+
+  @Override
+  public void open(final StreamingEPCISDocument streamingEPCISDocument) throws IOException {
+    documentWriter = opener.open(streamingEPCISDocument);
+    documentWriter.writeHeader();
+  }
+
+  @Override
+  public void accept(final List<EPCISEvent> batch) throws IOException {
+    for (EPCISEvent epcisEvent : batch) {
+      documentWriter.writeEvent(epcisEvent);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    documentWriter.writeFooter();
+  }
+
+  @Override
+  public void fail(final Throwable t) throws IOException {
+    if (documentWriter != null) {
+      documentWriter.writeError(t);
+    }
+  }
+}
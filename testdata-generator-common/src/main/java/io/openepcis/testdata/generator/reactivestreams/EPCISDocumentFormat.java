@@ -0,0 +1,104 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import lombok.Getter;
+
+/** output formats of a streamed EPCIS document */
+@Getter
+public enum EPCISDocumentFormat {
+  /** single EPCISDocument with all events in its eventList */
+  JSON_LD("application/json", ".jsonld", true, false),
+
+  /** one compact event per line, optionally preceded by a line carrying the @context */
+  NDJSON(EPCISDocumentFormat.APPLICATION_NDJSON, ".ndjson", false, false),
+
+  /** EPCISDocument in XML, EPCIS 2.0 unless the document requests EPCIS 1.2 */
+  XML("application/xml", ".xml", false, false),
+
+  /** JSON-LD document structure encoded as CBOR */
+  CBOR(EPCISDocumentFormat.APPLICATION_CBOR, ".cbor", false, true),
+
+  /** JSON-LD document structure encoded as Smile */
+  SMILE(EPCISDocumentFormat.APPLICATION_SMILE, ".smile", false, true),
+
+  /** length-delimited protobuf messages, see {@code proto/epcis-event.proto} */
+  PROTOBUF(EPCISDocumentFormat.APPLICATION_PROTOBUF, ".pb", false, true),
+
+  /** Avro object container file with block compression, see {@code avro/epcis-event.avsc} */
+  AVRO(EPCISDocumentFormat.APPLICATION_AVRO, ".avro", false, true);
+
+  public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+  public static final String APPLICATION_CBOR = "application/cbor";
+
+  public static final String APPLICATION_SMILE = "application/x-jackson-smile";
+
+  public static final String APPLICATION_PROTOBUF = "application/x-protobuf";
+
+  public static final String APPLICATION_AVRO = "application/avro";
+
+  private final String mediaType;
+
+  private final String fileExtension;
+
+  /** true if the format is indented for pretty printed documents */
+  private final boolean indentable;
+
+  /** true if the format can only be written to an OutputStream */
+  private final boolean binary;
+
+  EPCISDocumentFormat(
+      final String mediaType,
+      final String fileExtension,
+      final boolean indentable,
+      final boolean binary) {
+    this.mediaType = mediaType;
+    this.fileExtension = fileExtension;
+    this.indentable = indentable;
+    this.binary = binary;
+  }
+
+  /**
+   * @return true if the format compresses its blocks itself instead of being compressed as stream
+   */
+  public boolean isBlockCompressed() {
+    return this == AVRO;
+  }
+
+  /**
+   * @param compression compression of the document
+   * @return file extension of the format followed by the extension of a stream compression
+   */
+  public String fileExtension(final Compression compression) {
+    return compression == null || isBlockCompressed()
+        ? fileExtension
+        : fileExtension + compression.getFileExtension();
+  }
+
+  /**
+   * @param mediaType negotiated media type without parameters
+   * @return format producing the media type, {@link #JSON_LD} for all other media types
+   */
+  public static EPCISDocumentFormat forMediaType(final String mediaType) {
+    for (EPCISDocumentFormat format : values()) {
+      if (format.mediaType.equalsIgnoreCase(mediaType)) {
+        return format;
+      }
+    }
+    return JSON_LD;
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import io.openepcis.model.epcis.EPCISEvent;
+import java.io.IOException;
+
+/**
+ * Writes the envelope and the events of a single document in one {@link EPCISDocumentFormat}. The
+ * subscriber of {@link StreamingEPCISDocumentOutput} calls the header once, then every event and
+ * finally either the footer or the error, both of which close the output.
+ */
+interface EPCISDocumentWriter {
+
+  void writeHeader() throws IOException;
+
+  void writeEvent(EPCISEvent epcisEvent) throws IOException;
+
+  void writeFooter() throws IOException;
+
+  void writeError(Throwable t) throws IOException;
+
+  /**
+   * @return bytes written but not yet passed on to the output
+   */
+  long buffered();
+}
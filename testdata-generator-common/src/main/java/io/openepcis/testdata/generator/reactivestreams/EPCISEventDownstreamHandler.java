@@ -30,6 +30,10 @@ public class EPCISEventDownstreamHandler {
 
   protected List<EPCISEventUpstreamHandler> upstreamHandlers = new ArrayList<>();
 
+  // upstream handlers without repetitions, one entry is added per parent node to upstreamHandlers
+  // but every created event must only be published once
+  protected List<EPCISEventUpstreamHandler> distinctUpstreamHandlers = new ArrayList<>();
+
   protected List<EventIdentifierTracker> upstreamTrackers = new ArrayList<>();
 
   protected Map<Integer, List<EventIdentifierTracker>> inheritParentTrackers = new HashMap<>();
@@ -47,36 +51,62 @@ public class EPCISEventDownstreamHandler {
     }
   }
 
+  /**
+   * create the next root event followed by all events of its downstream nodes. Publishers use an
+   * {@link EPCISEventScheduler} to create the downstream events as demand arrives instead.
+   */
   public void next() {
     if (!rootHandler) {
       throw new UnsupportedOperationException("can only be called on root handler");
     }
-    if (rootEventCount.get() < model.getTypeInfo().getEventCount()) {
-      rootEventCount.incrementAndGet();
-      final EPCISEvent event = model.create(upstreamTrackers);
-      final var nextTracker = new EventIdentifierTracker(model.getTypeInfo(), event);
-      upstreamHandlers.forEach(u -> u.next(event));
-      if (!downstreamHandlers.isEmpty()) {
-        downstreamHandlers.forEach(h -> h.next(nextTracker));
-      }
+    if (hasNext()) {
+      final EPCISEventScheduler scheduler = new EPCISEventScheduler(List.of(this));
+      scheduler.pushRoot(this);
+      scheduler.drain();
     }
   }
 
+  // check if root handler has not yet created all of its events
+  public boolean hasNext() {
+    return rootHandler && rootEventCount.get() < model.getTypeInfo().getEventCount();
+  }
+
+  /**
+   * hand over the tracker of a parent event, once all upstream nodes provided a tracker all events
+   * of this node and their downstream events are created
+   *
+   * @param parentTracker tracker of the parent event
+   */
   public void next(EventIdentifierTracker parentTracker) {
-    upstreamTrackers.add(parentTracker);
+    final EPCISEventScheduler scheduler = new EPCISEventScheduler(List.of());
+    scheduler.deliver(this, parentTracker);
+    scheduler.drain();
+  }
+
+  void acquireRootEvent() {
+    rootEventCount.incrementAndGet();
+  }
 
-    // run only if all upstream nodes have provided a tracker
-    if (upstreamTrackers.size() == upstreamHandlers.size()) {
-      for (var i = 0; i < model.getTypeInfo().getEventCount(); i++) {
-        final EPCISEvent event = model.create(upstreamTrackers);
-        final var nextTracker = new EventIdentifierTracker(model.getTypeInfo(), event);
-        upstreamHandlers.forEach(u -> u.next(event));
-        if (!downstreamHandlers.isEmpty()) {
-          downstreamHandlers.forEach(h -> h.next(nextTracker));
-        }
-      }
-      upstreamTrackers.clear();
+  int eventCount() {
+    return model.getTypeInfo().getEventCount();
+  }
+
+  // collect the parent tracker, returns the trackers of all upstream nodes once complete
+  List<EventIdentifierTracker> offer(final EventIdentifierTracker parentTracker) {
+    upstreamTrackers.add(parentTracker);
+    if (upstreamTrackers.size() < upstreamHandlers.size()) {
+      return null;
     }
+    final List<EventIdentifierTracker> trackers = new ArrayList<>(upstreamTrackers);
+    upstreamTrackers.clear();
+    return trackers;
+  }
+
+  // create and publish one event, returns its tracker for the downstream handlers
+  EventIdentifierTracker create(final List<EventIdentifierTracker> parentTrackers) {
+    final EPCISEvent event = model.create(parentTrackers);
+    distinctUpstreamHandlers.forEach(u -> u.next(event));
+    return new EventIdentifierTracker(model.getTypeInfo(), event);
   }
 
   public void addDownstreamHandler(final EPCISEventDownstreamHandler handler) {
@@ -90,6 +120,9 @@ public class EPCISEventDownstreamHandler {
 
   public void addUpstream(final EPCISEventUpstreamHandler upstream) {
     upstreamHandlers.add(upstream);
+    if (distinctUpstreamHandlers.stream().noneMatch(u -> u == upstream)) {
+      distinctUpstreamHandlers.add(upstream);
+    }
   }
 
   public void addUpstream(final List<EPCISEventUpstreamHandler> upstream) {
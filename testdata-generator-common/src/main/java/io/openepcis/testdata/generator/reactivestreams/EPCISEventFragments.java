@@ -0,0 +1,81 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Pre-serialized JSON of the fields which are the same for every event of a node, like action,
+ * bizStep, disposition, locations and the vocabulary lists. The event creation models build these
+ * values once when the model is created and share the instances between all events of the node,
+ * so fragments are keyed by the identity of the value: the first event of a node serializes them,
+ * all following events get the fragment spliced in as raw JSON without hashing or comparing the
+ * values. One instance is used per document by a single writer thread. Values which are not shared,
+ * like the ones of events which have not been created by a model, are serialized for every event;
+ * the fragments are dropped once there are too many of them.
+ */
+final class EPCISEventFragments {
+
+  private static final int MAX_FRAGMENTS = 1024;
+
+  private final ObjectMapper objectMapper;
+
+  private final Map<Object, String> fragments = new IdentityHashMap<>();
+
+  EPCISEventFragments(final ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * @param value field value shared by the events of a node
+   * @return value serialized as JSON
+   * @throws JsonProcessingException if serialization fails
+   */
+  String value(final Object value) throws JsonProcessingException {
+    String fragment = fragments.get(value);
+    if (fragment == null) {
+      fragment = put(value, objectMapper.writeValueAsString(value));
+    }
+    return fragment;
+  }
+
+  /**
+   * @param location readPoint or bizLocation shared by the events of a node
+   * @param id id of the location
+   * @return location object with the id serialized as JSON
+   * @throws JsonProcessingException if serialization fails
+   */
+  String location(final Object location, final String id) throws JsonProcessingException {
+    String fragment = fragments.get(location);
+    if (fragment == null) {
+      fragment =
+          put(location, objectMapper.writeValueAsString(Collections.singletonMap("id", id)));
+    }
+    return fragment;
+  }
+
+  private String put(final Object value, final String fragment) {
+    if (fragments.size() >= MAX_FRAGMENTS) {
+      fragments.clear();
+    }
+    fragments.put(value, fragment);
+    return fragment;
+  }
+}
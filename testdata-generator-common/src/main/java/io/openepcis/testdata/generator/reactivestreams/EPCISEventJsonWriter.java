@@ -0,0 +1,342 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import io.openepcis.model.epcis.AggregationEvent;
+import io.openepcis.model.epcis.AssociationEvent;
+import io.openepcis.model.epcis.EPCISEvent;
+import io.openepcis.model.epcis.ObjectEvent;
+import io.openepcis.model.epcis.QuantityList;
+import io.openepcis.model.epcis.TransactionEvent;
+import io.openepcis.model.epcis.TransformationEvent;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes generated events into a {@link JsonGenerator} without serializing them through databind.
+ * The events are still created as POJOs with their identifier lists, they are passed on by the
+ * publisher and needed for hash IDs, Jinja templates and the other sinks. Only the databind walk
+ * over the event is replaced, allocations of the event itself are the same.
+ *
+ * <p>Strings, identifier lists, quantities and locations are written field by field; only scalar
+ * values with their own serializers (times, enums) and nested vocabulary objects (sources,
+ * destinations, business transactions, persistent disposition) are handed to the codec of the
+ * generator. The written fields and values are the same as for {@code writeObject(event)}.
+ *
+ * <p>Field names and event types are pre-encoded. With {@link EPCISEventFragments} the fields which
+ * are usually the same for all events of a node are spliced in as raw JSON.
+ *
+ * <p>Events carrying ILMD, sensor data, error declarations, certification info or user extensions
+ * are not supported, see {@link #supports(EPCISEvent)}, and must be written as POJO.
+ */
+public final class EPCISEventJsonWriter {
+
+  private static final SerializedString TYPE = new SerializedString("type");
+  private static final SerializedString EVENT_ID = new SerializedString("eventID");
+  private static final SerializedString EVENT_TIME = new SerializedString("eventTime");
+  private static final SerializedString RECORD_TIME = new SerializedString("recordTime");
+  private static final SerializedString EVENT_TIME_ZONE_OFFSET =
+      new SerializedString("eventTimeZoneOffset");
+  private static final SerializedString EPC_LIST = new SerializedString("epcList");
+  private static final SerializedString PARENT_ID = new SerializedString("parentID");
+  private static final SerializedString CHILD_EPCS = new SerializedString("childEPCs");
+  private static final SerializedString INPUT_EPC_LIST = new SerializedString("inputEPCList");
+  private static final SerializedString OUTPUT_EPC_LIST = new SerializedString("outputEPCList");
+  private static final SerializedString QUANTITY_LIST = new SerializedString("quantityList");
+  private static final SerializedString CHILD_QUANTITY_LIST =
+      new SerializedString("childQuantityList");
+  private static final SerializedString INPUT_QUANTITY_LIST =
+      new SerializedString("inputQuantityList");
+  private static final SerializedString OUTPUT_QUANTITY_LIST =
+      new SerializedString("outputQuantityList");
+  private static final SerializedString TRANSFORMATION_ID =
+      new SerializedString("transformationID");
+  private static final SerializedString ACTION = new SerializedString("action");
+  private static final SerializedString BIZ_STEP = new SerializedString("bizStep");
+  private static final SerializedString DISPOSITION = new SerializedString("disposition");
+  private static final SerializedString PERSISTENT_DISPOSITION =
+      new SerializedString("persistentDisposition");
+  private static final SerializedString READ_POINT = new SerializedString("readPoint");
+  private static final SerializedString BIZ_LOCATION = new SerializedString("bizLocation");
+  private static final SerializedString BIZ_TRANSACTION_LIST =
+      new SerializedString("bizTransactionList");
+  private static final SerializedString SOURCE_LIST = new SerializedString("sourceList");
+  private static final SerializedString DESTINATION_LIST = new SerializedString("destinationList");
+  private static final SerializedString ID = new SerializedString("id");
+  private static final SerializedString EPC_CLASS = new SerializedString("epcClass");
+  private static final SerializedString QUANTITY = new SerializedString("quantity");
+  private static final SerializedString UOM = new SerializedString("uom");
+
+  private static final SerializedString OBJECT_EVENT = new SerializedString("ObjectEvent");
+  private static final SerializedString AGGREGATION_EVENT =
+      new SerializedString("AggregationEvent");
+  private static final SerializedString TRANSACTION_EVENT =
+      new SerializedString("TransactionEvent");
+  private static final SerializedString TRANSFORMATION_EVENT =
+      new SerializedString("TransformationEvent");
+  private static final SerializedString ASSOCIATION_EVENT =
+      new SerializedString("AssociationEvent");
+
+  private EPCISEventJsonWriter() {}
+
+  /**
+   * @param event generated event
+   * @return true if the event can be written by {@link #write(JsonGenerator, EPCISEvent)}
+   */
+  public static boolean supports(final EPCISEvent event) {
+    if (event.getErrorDeclaration() != null
+        || event.getCertificationInfo() != null
+        || isNotEmpty(event.getSensorElementList())
+        || isNotEmpty(event.getUserExtensions())) {
+      return false;
+    }
+    if (event instanceof ObjectEvent e) {
+      return !isNotEmpty(e.getIlmdXml());
+    }
+    if (event instanceof TransformationEvent e) {
+      return !isNotEmpty(e.getIlmdXml());
+    }
+    return event instanceof AggregationEvent
+        || event instanceof TransactionEvent
+        || event instanceof AssociationEvent;
+  }
+
+  /**
+   * write the event as JSON object, the caller must check {@link #supports(EPCISEvent)} first
+   *
+   * @param gen generator with an ObjectMapper as codec
+   * @param event generated event
+   * @throws IOException if writing fails
+   */
+  public static void write(final JsonGenerator gen, final EPCISEvent event) throws IOException {
+    write(gen, event, null);
+  }
+
+  /**
+   * write the event as JSON object, splicing in the pre-serialized constant fields
+   *
+   * @param gen generator with an ObjectMapper as codec, raw fragments are only used if the
+   *     generator has no pretty printer
+   * @param event generated event
+   * @param fragments pre-serialized fields, null to serialize all fields
+   * @throws IOException if writing fails
+   */
+  static void write(
+      final JsonGenerator gen, final EPCISEvent event, final EPCISEventFragments fragments)
+      throws IOException {
+    final EPCISEventFragments f = gen.getPrettyPrinter() == null ? fragments : null;
+    gen.writeStartObject();
+    if (event instanceof ObjectEvent e) {
+      writeWhen(gen, OBJECT_EVENT, event);
+      writeStrings(gen, EPC_LIST, e.getEpcList());
+      writeConstant(gen, f, ACTION, e.getAction());
+      writeWhy(gen, f, event);
+      writeConstant(gen, f, PERSISTENT_DISPOSITION, e.getPersistentDisposition());
+      writeWhere(gen, f, event);
+      writeConstant(gen, f, BIZ_TRANSACTION_LIST, e.getBizTransactionList());
+      writeQuantities(gen, QUANTITY_LIST, e.getQuantityList());
+      writeConstant(gen, f, SOURCE_LIST, e.getSourceList());
+      writeConstant(gen, f, DESTINATION_LIST, e.getDestinationList());
+    } else if (event instanceof AggregationEvent e) {
+      writeWhen(gen, AGGREGATION_EVENT, event);
+      writeScalar(gen, PARENT_ID, e.getParentID());
+      writeStrings(gen, CHILD_EPCS, e.getChildEPCs());
+      writeConstant(gen, f, ACTION, e.getAction());
+      writeWhy(gen, f, event);
+      writeConstant(gen, f, PERSISTENT_DISPOSITION, e.getPersistentDisposition());
+      writeWhere(gen, f, event);
+      writeConstant(gen, f, BIZ_TRANSACTION_LIST, e.getBizTransactionList());
+      writeQuantities(gen, CHILD_QUANTITY_LIST, e.getChildQuantityList());
+      writeConstant(gen, f, SOURCE_LIST, e.getSourceList());
+      writeConstant(gen, f, DESTINATION_LIST, e.getDestinationList());
+    } else if (event instanceof TransactionEvent e) {
+      writeWhen(gen, TRANSACTION_EVENT, event);
+      writeConstant(gen, f, BIZ_TRANSACTION_LIST, e.getBizTransactionList());
+      writeScalar(gen, PARENT_ID, e.getParentID());
+      writeStrings(gen, EPC_LIST, e.getEpcList());
+      writeConstant(gen, f, ACTION, e.getAction());
+      writeWhy(gen, f, event);
+      writeConstant(gen, f, PERSISTENT_DISPOSITION, e.getPersistentDisposition());
+      writeWhere(gen, f, event);
+      writeQuantities(gen, QUANTITY_LIST, e.getQuantityList());
+      writeConstant(gen, f, SOURCE_LIST, e.getSourceList());
+      writeConstant(gen, f, DESTINATION_LIST, e.getDestinationList());
+    } else if (event instanceof TransformationEvent e) {
+      writeWhen(gen, TRANSFORMATION_EVENT, event);
+      writeStrings(gen, INPUT_EPC_LIST, e.getInputEPCList());
+      writeQuantities(gen, INPUT_QUANTITY_LIST, e.getInputQuantityList());
+      writeStrings(gen, OUTPUT_EPC_LIST, e.getOutputEPCList());
+      writeQuantities(gen, OUTPUT_QUANTITY_LIST, e.getOutputQuantityList());
+      writeScalar(gen, TRANSFORMATION_ID, e.getTransformationID());
+      writeWhy(gen, f, event);
+      writeConstant(gen, f, PERSISTENT_DISPOSITION, e.getPersistentDisposition());
+      writeWhere(gen, f, event);
+      writeConstant(gen, f, BIZ_TRANSACTION_LIST, e.getBizTransactionList());
+      writeConstant(gen, f, SOURCE_LIST, e.getSourceList());
+      writeConstant(gen, f, DESTINATION_LIST, e.getDestinationList());
+    } else if (event instanceof AssociationEvent e) {
+      writeWhen(gen, ASSOCIATION_EVENT, event);
+      writeScalar(gen, PARENT_ID, e.getParentID());
+      writeStrings(gen, CHILD_EPCS, e.getChildEPCs());
+      writeQuantities(gen, CHILD_QUANTITY_LIST, e.getChildQuantityList());
+      writeConstant(gen, f, ACTION, e.getAction());
+      writeWhy(gen, f, event);
+      writeConstant(gen, f, PERSISTENT_DISPOSITION, e.getPersistentDisposition());
+      writeWhere(gen, f, event);
+      writeConstant(gen, f, BIZ_TRANSACTION_LIST, e.getBizTransactionList());
+      writeConstant(gen, f, SOURCE_LIST, e.getSourceList());
+      writeConstant(gen, f, DESTINATION_LIST, e.getDestinationList());
+    }
+    gen.writeEndObject();
+  }
+
+  // type, eventID and the when dimension
+  private static void writeWhen(
+      final JsonGenerator gen, final SerializableString type, final EPCISEvent e)
+      throws IOException {
+    gen.writeFieldName(TYPE);
+    gen.writeString(type);
+    writeScalar(gen, EVENT_ID, e.getEventID());
+    writeScalar(gen, EVENT_TIME, e.getEventTime());
+    writeScalar(gen, RECORD_TIME, e.getRecordTime());
+    writeScalar(gen, EVENT_TIME_ZONE_OFFSET, e.getEventTimeZoneOffset());
+  }
+
+  private static void writeWhy(
+      final JsonGenerator gen, final EPCISEventFragments f, final EPCISEvent e)
+      throws IOException {
+    writeConstant(gen, f, BIZ_STEP, e.getBizStep());
+    writeConstant(gen, f, DISPOSITION, e.getDisposition());
+  }
+
+  private static void writeWhere(
+      final JsonGenerator gen, final EPCISEventFragments f, final EPCISEvent e)
+      throws IOException {
+    if (e.getReadPoint() != null && e.getReadPoint().getId() != null) {
+      writeLocation(gen, f, READ_POINT, e.getReadPoint(), e.getReadPoint().getId().toString());
+    }
+    if (e.getBizLocation() != null && e.getBizLocation().getId() != null) {
+      writeLocation(
+          gen, f, BIZ_LOCATION, e.getBizLocation(), e.getBizLocation().getId().toString());
+    }
+  }
+
+  private static void writeLocation(
+      final JsonGenerator gen,
+      final EPCISEventFragments f,
+      final SerializableString name,
+      final Object location,
+      final String id)
+      throws IOException {
+    gen.writeFieldName(name);
+    if (f != null) {
+      gen.writeRawValue(f.location(location, id));
+      return;
+    }
+    gen.writeStartObject();
+    gen.writeFieldName(ID);
+    gen.writeString(id);
+    gen.writeEndObject();
+  }
+
+  // strings are written directly, other scalars (times, enums) use the serializer of the codec
+  private static void writeScalar(
+      final JsonGenerator gen, final SerializableString name, final Object value)
+      throws IOException {
+    if (value instanceof String s) {
+      gen.writeFieldName(name);
+      gen.writeString(s);
+    } else if (value != null) {
+      gen.writeFieldName(name);
+      gen.writeObject(value);
+    }
+  }
+
+  // fields which are usually the same for all events of a node, written as raw fragment if
+  // available
+  private static void writeConstant(
+      final JsonGenerator gen,
+      final EPCISEventFragments f,
+      final SerializableString name,
+      final Object value)
+      throws IOException {
+    if (!isNotEmpty(value)) {
+      return;
+    }
+    gen.writeFieldName(name);
+    if (f != null) {
+      gen.writeRawValue(f.value(value));
+    } else if (value instanceof String s) {
+      gen.writeString(s);
+    } else if (value instanceof List<?> values) {
+      gen.writeStartArray();
+      for (Object v : values) {
+        gen.writeObject(v);
+      }
+      gen.writeEndArray();
+    } else {
+      gen.writeObject(value);
+    }
+  }
+
+  private static void writeStrings(
+      final JsonGenerator gen, final SerializableString name, final List<String> values)
+      throws IOException {
+    if (isNotEmpty(values)) {
+      gen.writeFieldName(name);
+      gen.writeStartArray();
+      for (String value : values) {
+        gen.writeString(value);
+      }
+      gen.writeEndArray();
+    }
+  }
+
+  private static void writeQuantities(
+      final JsonGenerator gen, final SerializableString name, final List<QuantityList> values)
+      throws IOException {
+    if (isNotEmpty(values)) {
+      gen.writeFieldName(name);
+      gen.writeStartArray();
+      for (QuantityList value : values) {
+        gen.writeStartObject();
+        writeScalar(gen, EPC_CLASS, value.getEpcClass());
+        if (value.getQuantity() != null) {
+          gen.writeFieldName(QUANTITY);
+          gen.writeNumber(value.getQuantity());
+        }
+        writeScalar(gen, UOM, value.getUom());
+        gen.writeEndObject();
+      }
+      gen.writeEndArray();
+    }
+  }
+
+  static boolean isNotEmpty(final Object value) {
+    if (value instanceof Collection<?> c) {
+      return !c.isEmpty();
+    }
+    if (value instanceof Map<?, ?> m) {
+      return !m.isEmpty();
+    }
+    return value != null;
+  }
+}
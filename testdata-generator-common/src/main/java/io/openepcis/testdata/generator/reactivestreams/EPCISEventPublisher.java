@@ -16,23 +16,75 @@
 package io.openepcis.testdata.generator.reactivestreams;
 
 import io.openepcis.model.epcis.EPCISEvent;
+import io.openepcis.testdata.generator.model.AbstractEventCreationModel;
 import io.openepcis.testdata.generator.model.EventCreationModel;
+import io.openepcis.testdata.generator.model.EventGraph;
 import io.openepcis.testdata.generator.model.EventModelUtil;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.Flow.Publisher;
 import java.util.concurrent.Flow.Subscriber;
 import java.util.concurrent.Flow.Subscription;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Publishes the events generated by the creation models of a template. Values which are the same
+ * for all events of a node (readPoint, bizLocation, source and destination lists, business
+ * transactions and persistent disposition) are built once per node and shared by its events, the
+ * lists are unmodifiable. Published events must therefore not be modified by subscribers, copy an
+ * event before changing it.
+ */
 public class EPCISEventPublisher implements Publisher<EPCISEvent>, EPCISEventUpstreamHandler {
 
+  /** number of events generated per lock acquisition */
+  public static final int DEFAULT_BATCH_SIZE = 1;
+
   private final List<EPCISEventDownstreamHandler> downstreamRootHandlers;
 
-  private final List<EPCISEventSubscription> subscriptions = new ArrayList<>();
+  // root handlers generating their events one by one, all root handlers which are not sharded
+  private final List<EPCISEventDownstreamHandler> sequentialRootHandlers;
+
+  // root nodes generated in shards, only used if a shard size has been configured
+  private final List<EPCISEventShards> shards;
+
+  // walks the handler graph of the sequential root handlers
+  private final EPCISEventScheduler scheduler;
+
+  private final EPCISEventPublisherOptions options;
+
+  // independent subgraphs, only used if generating in parallel
+  private final List<EPCISEventSubgraph> subgraphs;
+
+  private final List<EPCISEventSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+  // shared buffer of all broadcast subscriptions, null if every subscriber has its own queue
+  private final EPCISEventRingBuffer ringBuffer;
+
+  private final List<EPCISEventBroadcastSubscription> broadcastSubscriptions =
+      new CopyOnWriteArrayList<>();
+
+  // events generated but not yet published to the ring buffer, guarded by downstreamRootHandlers
+  private final Queue<EPCISEvent> pendingEvents = new ArrayDeque<>();
+
+  private volatile boolean exhausted = false;
+
+  // set once the expected number of broadcast subscribers arrived, guarded by
+  // downstreamRootHandlers
+  private boolean broadcasting = false;
+
+  private volatile Throwable failure;
 
   private class EPCISEventSubscription implements Subscription {
 
@@ -87,6 +139,7 @@ public class EPCISEventPublisher implements Publisher<EPCISEvent>, EPCISEventUps
     @Override
     public void cancel() {
       terminate();
+      subscriptions.remove(this);
       eventQueue.clear();
       subscriber.set(null);
     }
@@ -99,29 +152,318 @@ public class EPCISEventPublisher implements Publisher<EPCISEvent>, EPCISEventUps
       return !isTerminated.get();
     }
 
+    // downstream handlers publish every event exactly once, no need to check for duplicates
     void addEvent(EPCISEvent event) {
-      if (!eventQueue.contains(event)) {
-        eventQueue.add(event);
-      }
+      eventQueue.add(event);
     }
 
     private void nextEvents() {
       synchronized (downstreamRootHandlers) {
-        downstreamRootHandlers.forEach(EPCISEventDownstreamHandler::next);
+        generateNextEvents();
+      }
+    }
+  }
+
+  /**
+   * Subscription of a broadcasting publisher. All broadcast subscriptions read from the same
+   * {@link EPCISEventRingBuffer} using their own cursor, events are only generated once all
+   * subscribers consumed enough of the buffer, so the slowest subscriber throttles generation.
+   */
+  private class EPCISEventBroadcastSubscription implements Subscription {
+
+    private final Subscriber<? super EPCISEvent> subscriber;
+
+    private final AtomicLong demand = new AtomicLong();
+
+    // sequence of the next event to emit
+    private final AtomicLong cursor = new AtomicLong();
+
+    // serializes signals to the subscriber, drain() may be called from any thread
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private volatile boolean terminated = false;
+
+    private EPCISEventBroadcastSubscription(
+        final Subscriber<? super EPCISEvent> subscriber, final long cursor) {
+      this.subscriber = subscriber;
+      this.cursor.set(cursor);
+    }
+
+    @Override
+    public void request(long l) {
+      if (terminated) {
+        return;
+      }
+      if (l <= 0) {
+        terminate();
+        subscriber.onError(new IllegalArgumentException("negative subscription request"));
+        return;
       }
+      demand.getAndUpdate(d -> d + l < 0 ? Long.MAX_VALUE : d + l);
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      terminate();
+      // a cancelled subscriber must not hold back the remaining ones
+      drainOthers(this);
+    }
+
+    private void terminate() {
+      terminated = true;
+      broadcastSubscriptions.remove(this);
+    }
+
+    private void drain() {
+      if (wip.getAndIncrement() != 0) {
+        return;
+      }
+      int missed = 1;
+      do {
+        boolean emitted = false;
+        try {
+          while (!terminated) {
+            final long sequence = cursor.get();
+            if (sequence < ringBuffer.head()) {
+              if (demand.get() == 0) {
+                break;
+              }
+              final EPCISEvent event = ringBuffer.get(sequence);
+              cursor.set(sequence + 1);
+              demand.decrementAndGet();
+              emitted = true;
+              subscriber.onNext(event);
+              continue;
+            }
+            if (demand.get() > 0) {
+              fillRingBuffer();
+              if (sequence < ringBuffer.head()) {
+                continue;
+              }
+            }
+            // exhausted is set after the last event has been published
+            if (exhausted && sequence == ringBuffer.head()) {
+              terminate();
+              if (failure != null) {
+                subscriber.onError(failure);
+              } else {
+                subscriber.onComplete();
+              }
+            }
+            break;
+          }
+        } catch (Exception ex) {
+          if (!terminated) {
+            terminate();
+            subscriber.onError(ex);
+          }
+        }
+        if (emitted) {
+          // moving the cursor may have freed capacity other subscribers are waiting for
+          drainOthers(this);
+        }
+        missed = wip.addAndGet(-missed);
+      } while (missed != 0);
+    }
+  }
+
+  // publish pending events to the ring buffer as long as the slowest subscriber leaves room,
+  // generating the next block of events once all pending events are published. Nothing is
+  // published before the expected number of subscribers arrived.
+  private void fillRingBuffer() {
+    synchronized (downstreamRootHandlers) {
+      if (!broadcasting) {
+        if (broadcastSubscriptions.size() < options.getBroadcastSubscribers()) {
+          return;
+        }
+        broadcasting = true;
+      }
+      final long minCursor =
+          broadcastSubscriptions.stream()
+              .mapToLong(s -> s.cursor.get())
+              .min()
+              .orElse(ringBuffer.head());
+      while (!exhausted && ringBuffer.hasCapacity(minCursor)) {
+        if (pendingEvents.isEmpty()) {
+          try {
+            generateNextEvents();
+          } catch (Exception ex) {
+            // subscribers receive the error once they consumed the events already published
+            failure = ex;
+            pendingEvents.clear();
+          }
+          if (pendingEvents.isEmpty()) {
+            exhausted = true;
+            return;
+          }
+        }
+        ringBuffer.publish(pendingEvents.poll());
+      }
+    }
+  }
+
+  private void drainOthers(final EPCISEventBroadcastSubscription subscription) {
+    broadcastSubscriptions.forEach(
+        s -> {
+          if (s != subscription) {
+            s.drain();
+          }
+        });
+  }
+
+  // generation stops as soon as all subscribers cancelled, the handler graph keeps its state so a
+  // later subscriber continues where generation stopped
+  private boolean isCancelled() {
+    return subscriptions.isEmpty() && broadcastSubscriptions.isEmpty();
+  }
+
+  // generate the next batchSize events, descendants of a root event are only created as demand
+  // arrives. Sharded root nodes contribute one shard each.
+  // Must be called holding the downstreamRootHandlers lock.
+  private void generateNextEvents() {
+    if (!subgraphs.isEmpty()) {
+      nextEventsParallel();
+      return;
+    }
+    shards.forEach(
+        s -> {
+          if (s.hasNext() && !isCancelled()) {
+            s.next().forEach(this::next);
+          }
+        });
+    scheduler.generate(options.getBatchSize());
+  }
+
+  // generate the next block of every independent subgraph concurrently and merge the results
+  private void nextEventsParallel() {
+    final List<ForkJoinTask<List<EPCISEvent>>> tasks =
+        subgraphs.stream()
+            .filter(EPCISEventSubgraph::hasNext)
+            .map(g -> options.getForkJoinPool().submit(() -> g.generate(options.getBatchSize())))
+            .toList();
+    final List<List<EPCISEvent>> generated = tasks.stream().map(ForkJoinTask::join).toList();
+    if (options.getMergeMode() == EPCISEventPublisherOptions.MergeMode.GROUPED) {
+      generated.forEach(events -> events.forEach(this::next));
+      return;
+    }
+    final List<Iterator<EPCISEvent>> iterators =
+        new ArrayList<>(generated.stream().map(List::iterator).toList());
+    while (!iterators.isEmpty()) {
+      iterators.removeIf(
+          it -> {
+            if (!it.hasNext()) {
+              return true;
+            }
+            next(it.next());
+            return false;
+          });
     }
   }
 
   public EPCISEventPublisher(final List<? extends EventCreationModel<?, ?>> models) {
-    var handlers = models.stream().map(EventCreationModel::toEPCISDownstreamHandler).toList();
+    this(models, EPCISEventPublisherOptions.DEFAULT);
+  }
+
+  /**
+   * create publisher generating events in blocks
+   *
+   * @param models event creation models of the InputTemplate
+   * @param batchSize number of events generated per demand round-trip, values below 1 fall
+   *     back to {@link #DEFAULT_BATCH_SIZE}
+   */
+  public EPCISEventPublisher(
+      final List<? extends EventCreationModel<?, ?>> models, final int batchSize) {
+    this(models, EPCISEventPublisherOptions.builder().batchSize(batchSize).build());
+  }
+
+  /**
+   * create publisher with the provided generation options
+   *
+   * @param models event creation models of the InputTemplate
+   * @param options batching and parallel generation options
+   */
+  public EPCISEventPublisher(
+      final List<? extends EventCreationModel<?, ?>> models,
+      final EPCISEventPublisherOptions options) {
+    this(EventGraph.of(models), options);
+  }
+
+  /**
+   * create publisher for a compiled template
+   *
+   * @param eventGraph compiled InputTemplate
+   * @param options batching and parallel generation options
+   */
+  public EPCISEventPublisher(
+      final EventGraph eventGraph, final EPCISEventPublisherOptions options) {
+    this.options =
+        options.getBatchSize() > 0
+            ? options
+            : options.toBuilder().batchSize(DEFAULT_BATCH_SIZE).build();
+    final List<? extends EventCreationModel<?, ?>> models = eventGraph.getModels();
+    final List<EPCISEventDownstreamHandler> handlers =
+        models.stream().map(EventCreationModel::toEPCISDownstreamHandler).toList();
     this.downstreamRootHandlers =
         handlers.stream().filter(h -> EventModelUtil.isRootEvent(h.model.getTypeInfo())).toList();
-    this.downstreamRootHandlers.forEach(h -> h.addUpstream(this));
-    new ArrayList<>(models).forEach(e -> attach(e, models));
+
+    // sharded root nodes are generated apart from the handler graph, their events are published
+    // shard by shard in shard order
+    final Set<EPCISEventDownstreamHandler> sharded =
+        Collections.newSetFromMap(new IdentityHashMap<>());
+    if (this.options.getShardSize() > 0) {
+      downstreamRootHandlers.stream()
+          .filter(h -> EPCISEventShards.isShardable(h, eventGraph))
+          .forEach(sharded::add);
+    }
+    this.shards =
+        downstreamRootHandlers.stream()
+            .filter(sharded::contains)
+            .map(
+                h ->
+                    new EPCISEventShards(
+                        (AbstractEventCreationModel<?, ?>) h.model,
+                        this.options.getShardSize(),
+                        this.options.getShardWorkers(),
+                        this.options.getForkJoinPool(),
+                        this::isCancelled))
+            .toList();
+    this.sequentialRootHandlers =
+        downstreamRootHandlers.stream().filter(h -> !sharded.contains(h)).toList();
+    this.scheduler = new EPCISEventScheduler(sequentialRootHandlers, this::isCancelled);
+
+    // parallel generation only pays off with more than one independent subgraph, events of a
+    // subgraph are collected by the subgraph and published once merged
+    final List<EPCISEventSubgraph> independent =
+        options.isParallel() && shards.isEmpty()
+            ? EPCISEventSubgraph.split(models, downstreamRootHandlers, this::isCancelled)
+            : List.of();
+    this.subgraphs = independent.size() > 1 ? independent : List.of();
+    if (subgraphs.isEmpty()) {
+      this.sequentialRootHandlers.forEach(h -> h.addUpstream(this));
+    } else {
+      subgraphs.forEach(g -> g.getRootHandlers().forEach(h -> h.addUpstream(g)));
+    }
+
+    // parents are wired before their children, children inherit the upstream handlers of their
+    // parents when attached
+    for (int parent : eventGraph.getTopologicalOrder()) {
+      for (int child : eventGraph.getDownstream()[parent]) {
+        handlers.get(parent).addDownstreamHandler(handlers.get(child));
+      }
+    }
+    this.ringBuffer =
+        this.options.getBroadcastBufferSize() > 0
+            ? new EPCISEventRingBuffer(this.options.getBroadcastBufferSize())
+            : null;
   }
 
   @Override
   public void subscribe(final Subscriber<? super EPCISEvent> subscriber) {
+    if (ringBuffer != null) {
+      subscribeBroadcast(subscriber);
+      return;
+    }
     final var subscription = new EPCISEventSubscription(subscriber);
     subscriptions.add(subscription);
     subscriber.onSubscribe(subscription);
@@ -130,19 +472,32 @@ public class EPCISEventPublisher implements Publisher<EPCISEvent>, EPCISEventUps
     }
   }
 
+  // late subscribers start with the next event published, not with the beginning of the stream
+  private void subscribeBroadcast(final Subscriber<? super EPCISEvent> subscriber) {
+    if (subscriber == null) {
+      throw new NullPointerException("subscriber must not be null");
+    }
+    final EPCISEventBroadcastSubscription subscription;
+    synchronized (downstreamRootHandlers) {
+      subscription = new EPCISEventBroadcastSubscription(subscriber, ringBuffer.head());
+      broadcastSubscriptions.add(subscription);
+    }
+    subscriber.onSubscribe(subscription);
+    if (downstreamRootHandlers.isEmpty()) {
+      subscription.terminate();
+      subscriber.onError(new IllegalArgumentException("downstream handlers must not be empty"));
+      return;
+    }
+    // subscribers waiting for this one may start now
+    drainOthers(subscription);
+  }
+
   @Override
   public void next(final EPCISEvent epcisEvent) {
+    if (ringBuffer != null) {
+      pendingEvents.add(epcisEvent);
+      return;
+    }
     subscriptions.forEach(s -> s.addEvent(epcisEvent));
   }
-
-  private void attach(
-      final EventCreationModel<?, ?> e, final List<? extends EventCreationModel<?, ?>> models) {
-    models.forEach(
-        m -> {
-          if (m.getTypeInfo().getReferencedIdentifier().stream()
-              .anyMatch(i -> i.getParentNodeId() == e.getTypeInfo().getNodeId())) {
-            e.toEPCISDownstreamHandler().addDownstreamHandler(m.toEPCISDownstreamHandler());
-          }
-        });
-  }
 }
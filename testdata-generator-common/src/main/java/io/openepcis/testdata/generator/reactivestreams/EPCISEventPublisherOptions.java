@@ -0,0 +1,83 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import java.util.concurrent.ForkJoinPool;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/** Options controlling how the {@link EPCISEventPublisher} generates events. */
+@Getter
+@Builder(toBuilder = true)
+@ToString
+public class EPCISEventPublisherOptions {
+
+  /** Order in which events of independently generated subgraphs are published. */
+  public enum MergeMode {
+    /** one event of every subgraph after the other */
+    INTERLEAVED,
+    /** all events generated for a subgraph in one batch before the next subgraph */
+    GROUPED
+  }
+
+  public static final EPCISEventPublisherOptions DEFAULT =
+      EPCISEventPublisherOptions.builder().build();
+
+  /** number of events generated per lock acquisition */
+  @Builder.Default private final int batchSize = EPCISEventPublisher.DEFAULT_BATCH_SIZE;
+
+  /**
+   * generate root nodes which share neither parent nodes nor identifiers concurrently, has no
+   * effect if all root nodes belong to the same subgraph
+   */
+  @Builder.Default private final boolean parallel = false;
+
+  /** order of the merged events if generated in parallel */
+  @Builder.Default private final MergeMode mergeMode = MergeMode.INTERLEAVED;
+
+  /**
+   * number of events per shard for sharded generation of root nodes which are independent of all
+   * other nodes, 0 disables sharding. Every shard uses its own random stream derived from the node
+   * seed and the shard index, the output therefore depends on the shard size but is identical for
+   * any number of workers. Takes precedence over {@link #parallel}.
+   */
+  @Builder.Default private final int shardSize = 0;
+
+  /** number of shards generated concurrently per sharded root node */
+  @Builder.Default private final int shardWorkers = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * size of the ring buffer shared by all subscribers (rounded up to a power of two). If set, every
+   * generated event is broadcast to all subscribers and the slowest subscriber throttles
+   * generation. 0 keeps an unbounded queue per subscriber.
+   */
+  @Builder.Default private final int broadcastBufferSize = 0;
+
+  /**
+   * number of subscribers a broadcasting publisher waits for before generating the first event.
+   * Subscribers arriving once generation started begin with the next published event and miss the
+   * events published before.
+   */
+  @Builder.Default private final int broadcastSubscribers = 1;
+
+  /** pool used for parallel generation, the common pool is used if not set */
+  private final ForkJoinPool forkJoinPool;
+
+  public ForkJoinPool getForkJoinPool() {
+    return forkJoinPool != null ? forkJoinPool : ForkJoinPool.commonPool();
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import io.openepcis.model.epcis.EPCISEvent;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded buffer shared by all subscribers of a broadcasting {@link EPCISEventPublisher}. Events
+ * are addressed by their sequence number, subscribers keep their own cursor. A slot is only reused
+ * once every subscriber has moved past it, so the producer must check {@link #hasCapacity(long)}
+ * against the slowest cursor before publishing. Publishing must be serialized, reading is safe from
+ * any thread for sequences below {@link #head()}.
+ */
+class EPCISEventRingBuffer {
+
+  private final AtomicReferenceArray<EPCISEvent> buffer;
+
+  private final int mask;
+
+  // sequence of the next event to publish
+  private final AtomicLong head = new AtomicLong();
+
+  EPCISEventRingBuffer(final int capacity) {
+    final int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    this.buffer = new AtomicReferenceArray<>(size);
+    this.mask = size - 1;
+  }
+
+  int capacity() {
+    return mask + 1;
+  }
+
+  /**
+   * @return sequence of the next event to be published
+   */
+  long head() {
+    return head.get();
+  }
+
+  /**
+   * @param minCursor cursor of the slowest subscriber
+   * @return true if one more event can be published without overwriting unread events
+   */
+  boolean hasCapacity(final long minCursor) {
+    return head() - minCursor < capacity();
+  }
+
+  void publish(final EPCISEvent event) {
+    final long sequence = head();
+    buffer.lazySet((int) (sequence & mask), event);
+    head.set(sequence + 1);
+  }
+
+  EPCISEvent get(final long sequence) {
+    return buffer.get((int) (sequence & mask));
+  }
+}
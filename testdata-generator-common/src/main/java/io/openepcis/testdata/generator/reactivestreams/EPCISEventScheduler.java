@@ -0,0 +1,183 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Iterative, pull-based scheduler walking the event handler graph. Instead of recursively creating
+ * the whole subtree of a root event, the scheduler keeps an explicit stack of frames and creates
+ * one event per step, so callers only create as many events as they have demand for. The order of
+ * the created events is the same depth-first order as before: every event is directly followed by
+ * the events of its downstream nodes. The stack holds at most two frames per graph level, memory is
+ * therefore bounded by the depth of the graph and not by the size of a subtree.
+ */
+class EPCISEventScheduler {
+
+  private final List<EPCISEventDownstreamHandler> rootHandlers;
+
+  // checked before every step, generation stops once nobody is interested in the events anymore
+  private final BooleanSupplier cancelled;
+
+  private final Deque<Frame> stack = new ArrayDeque<>();
+
+  private int nextRoot;
+
+  private interface Frame {}
+
+  // create the remaining events of a handler for the same parent trackers
+  private static final class GenerateFrame implements Frame {
+    private final EPCISEventDownstreamHandler handler;
+    private final List<EventIdentifierTracker> trackers;
+    private int remaining;
+
+    private GenerateFrame(
+        final EPCISEventDownstreamHandler handler,
+        final List<EventIdentifierTracker> trackers,
+        final int remaining) {
+      this.handler = handler;
+      this.trackers = trackers;
+      this.remaining = remaining;
+    }
+  }
+
+  // hand the tracker of a created event to the downstream handlers one after the other
+  private static final class DeliverFrame implements Frame {
+    private final EventIdentifierTracker tracker;
+    private final List<EPCISEventDownstreamHandler> handlers;
+    private int index;
+
+    private DeliverFrame(
+        final EventIdentifierTracker tracker, final List<EPCISEventDownstreamHandler> handlers) {
+      this.tracker = tracker;
+      this.handlers = handlers;
+    }
+  }
+
+  /**
+   * @param rootHandlers root handlers to take root events from, round-robin in list order
+   */
+  EPCISEventScheduler(final List<EPCISEventDownstreamHandler> rootHandlers) {
+    this(rootHandlers, () -> false);
+  }
+
+  /**
+   * @param rootHandlers root handlers to take root events from, round-robin in list order
+   * @param cancelled true if {@link #generate(int)} should stop, the remaining events are created
+   *     by the next call
+   */
+  EPCISEventScheduler(
+      final List<EPCISEventDownstreamHandler> rootHandlers, final BooleanSupplier cancelled) {
+    this.rootHandlers = rootHandlers;
+    this.cancelled = cancelled;
+  }
+
+  boolean hasNext() {
+    return !stack.isEmpty()
+        || rootHandlers.stream().anyMatch(EPCISEventDownstreamHandler::hasNext);
+  }
+
+  /**
+   * create up to count events, continuing with the subtree of the last root event first
+   *
+   * @param count number of events to create
+   * @return number of events created, less than count only if all events have been created or
+   *     generation has been cancelled
+   */
+  int generate(final int count) {
+    int created = 0;
+    while (created < count
+        && !cancelled.getAsBoolean()
+        && (!stack.isEmpty() || pushNextRoot())) {
+      if (step()) {
+        created++;
+      }
+    }
+    return created;
+  }
+
+  /** create all remaining events of the current subtrees */
+  void drain() {
+    while (!stack.isEmpty()) {
+      step();
+    }
+  }
+
+  /**
+   * schedule the next root event of the handler
+   *
+   * @param handler root handler
+   */
+  void pushRoot(final EPCISEventDownstreamHandler handler) {
+    handler.acquireRootEvent();
+    stack.push(new GenerateFrame(handler, List.of(), 1));
+  }
+
+  /**
+   * hand a parent tracker to a handler, its events are scheduled once all parents delivered
+   *
+   * @param handler downstream handler
+   * @param tracker tracker of the parent event
+   */
+  void deliver(final EPCISEventDownstreamHandler handler, final EventIdentifierTracker tracker) {
+    final List<EventIdentifierTracker> trackers = handler.offer(tracker);
+    if (trackers != null) {
+      stack.push(new GenerateFrame(handler, trackers, handler.eventCount()));
+    }
+  }
+
+  private boolean pushNextRoot() {
+    for (int i = 0; i < rootHandlers.size(); i++) {
+      final int index = (nextRoot + i) % rootHandlers.size();
+      if (rootHandlers.get(index).hasNext()) {
+        nextRoot = (index + 1) % rootHandlers.size();
+        pushRoot(rootHandlers.get(index));
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // advance the top frame by one step, frames are popped as soon as they are exhausted to keep the
+  // stack small. Returns true if an event has been created.
+  private boolean step() {
+    final Frame top = stack.peek();
+    if (top instanceof GenerateFrame frame) {
+      if (frame.remaining <= 0) {
+        stack.pop();
+        return false;
+      }
+      if (--frame.remaining == 0) {
+        stack.pop();
+      }
+      final EventIdentifierTracker tracker = frame.handler.create(frame.trackers);
+      if (!frame.handler.downstreamHandlers.isEmpty()) {
+        stack.push(new DeliverFrame(tracker, frame.handler.downstreamHandlers));
+      }
+      return true;
+    }
+    final DeliverFrame frame = (DeliverFrame) top;
+    final EPCISEventDownstreamHandler handler = frame.handlers.get(frame.index++);
+    if (frame.index == frame.handlers.size()) {
+      stack.pop();
+    }
+    deliver(handler, frame.tracker);
+    return false;
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import io.openepcis.model.epcis.EPCISEvent;
+import io.openepcis.testdata.generator.constants.TestDataGeneratorException;
+import io.openepcis.testdata.generator.identifier.instances.EPCStrategy;
+import io.openepcis.testdata.generator.identifier.util.RandomSerialNumberGenerator;
+import io.openepcis.testdata.generator.identifier.util.SerialRangeUtil;
+import io.openepcis.testdata.generator.model.AbstractEventCreationModel;
+import io.openepcis.testdata.generator.model.EventCreationModel;
+import io.openepcis.testdata.generator.model.EventGraph;
+import io.openepcis.testdata.generator.model.EventModelUtil;
+import io.openepcis.testdata.generator.template.Identifier;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BooleanSupplier;
+import org.apache.commons.collections4.CollectionUtils;
+
+/**
+ * Sharded generation of a single root event node. The events of the node are split into shards of
+ * a fixed size, every shard is generated by its own copy of the model using a random stream
+ * derived from the node seed and the shard index, and range serial numbers starting where the
+ * previous shards end. Shards are computed ahead by up to {@code workers} threads but always
+ * returned in shard order, so the generated events only depend on the shard size and never on the
+ * number of workers.
+ */
+class EPCISEventShards {
+
+  private final AbstractEventCreationModel<?, ?> model;
+
+  private final int shardSize;
+
+  private final int shardCount;
+
+  private final int workers;
+
+  private final ForkJoinPool pool;
+
+  // no shards are computed ahead once nobody is interested in the events anymore
+  private final BooleanSupplier cancelled;
+
+  private final long seed;
+
+  // serial numbers consumed per event by the instance and parent data of every used identifier
+  private final List<BigInteger> instanceRangePerEvent = new ArrayList<>();
+
+  private final List<BigInteger> parentRangePerEvent = new ArrayList<>();
+
+  private final Queue<ForkJoinTask<List<EPCISEvent>>> inflight = new ArrayDeque<>();
+
+  private int nextShard;
+
+  EPCISEventShards(
+      final AbstractEventCreationModel<?, ?> model,
+      final int shardSize,
+      final int workers,
+      final ForkJoinPool pool,
+      final BooleanSupplier cancelled) {
+    this.model = model;
+    this.shardSize = shardSize;
+    this.workers = Math.max(1, workers);
+    this.pool = pool;
+    this.cancelled = cancelled;
+    final int eventCount = model.getTypeInfo().getEventCount();
+    this.shardCount = (eventCount + shardSize - 1) / shardSize;
+    this.seed = Optional.ofNullable(model.getTypeInfo().getSeed()).orElseGet(System::nanoTime);
+    if (eventCount > 0) {
+      measureRanges();
+    }
+  }
+
+  boolean hasNext() {
+    return nextShard < shardCount || !inflight.isEmpty();
+  }
+
+  /**
+   * @return events of the next shard in generation order
+   */
+  List<EPCISEvent> next() {
+    while ((inflight.isEmpty() || inflight.size() < workers && !cancelled.getAsBoolean())
+        && nextShard < shardCount) {
+      final int shard = nextShard++;
+      inflight.add(pool.submit(() -> generate(shard)));
+    }
+    return inflight.remove().join();
+  }
+
+  private List<EPCISEvent> generate(final int shard) {
+    final long first = (long) shard * shardSize;
+    final EventCreationModel<?, ?> shardModel = createModel(shard, first);
+    final int last = (int) Math.min(first + shardSize, model.getTypeInfo().getEventCount());
+    final List<EPCISEvent> events = new ArrayList<>(last - (int) first);
+    for (long i = first; i < last; i++) {
+      events.add(shardModel.create(List.of()));
+    }
+    return events;
+  }
+
+  // model with its own random stream and identifiers continuing the ranges of the previous shards
+  private EventCreationModel<?, ?> createModel(final int shard, final long firstEvent) {
+    final List<Identifier> identifiers = new ArrayList<>();
+    for (int i = 0; i < model.getIdentifiers().size(); i++) {
+      final Identifier original = model.getIdentifiers().get(i);
+      identifiers.add(
+          SerialRangeUtil.copy(
+              original,
+              advance(original.getInstanceData(), instanceRangePerEvent.get(i), firstEvent),
+              advance(original.getParentData(), parentRangePerEvent.get(i), firstEvent)));
+    }
+    final AbstractEventCreationModel<?, ?> shardModel = newModel(identifiers);
+    shardModel.reseed(RandomSerialNumberGenerator.deriveSeed(seed, shard));
+    return shardModel;
+  }
+
+  private static BigInteger advance(
+      final EPCStrategy original, final BigInteger rangePerEvent, final long events) {
+    final BigInteger rangeFrom = SerialRangeUtil.rangeFrom(original);
+    return rangeFrom != null && rangePerEvent.signum() > 0
+        ? rangeFrom.add(rangePerEvent.multiply(BigInteger.valueOf(events)))
+        : rangeFrom;
+  }
+
+  // the serial numbers used per event are fixed by the template, generate one event with a probe
+  // model to find out how far every shard has to advance the ranges
+  private void measureRanges() {
+    final List<Identifier> probe =
+        model.getIdentifiers().stream().map(SerialRangeUtil::copy).toList();
+    newModel(probe).create(List.of());
+    for (int i = 0; i < probe.size(); i++) {
+      final Identifier original = model.getIdentifiers().get(i);
+      instanceRangePerEvent.add(
+          consumed(original.getInstanceData(), probe.get(i).getInstanceData()));
+      parentRangePerEvent.add(consumed(original.getParentData(), probe.get(i).getParentData()));
+    }
+  }
+
+  private static BigInteger consumed(final EPCStrategy original, final EPCStrategy probe) {
+    final BigInteger before = SerialRangeUtil.rangeFrom(original);
+    final BigInteger after = SerialRangeUtil.rangeFrom(probe);
+    return before != null && after != null ? after.subtract(before) : BigInteger.ZERO;
+  }
+
+  private AbstractEventCreationModel<?, ?> newModel(final List<Identifier> identifiers) {
+    return EventModelUtil.createModel(
+            model.getTypeInfo(), identifiers, model.getRandomGenerators())
+        .map(m -> (AbstractEventCreationModel<?, ?>) m.toEPCISDownstreamHandler().model)
+        .orElseThrow(
+            () ->
+                new TestDataGeneratorException(
+                    "Sharded generation is not supported for "
+                        + model.getTypeInfo().getEventType()));
+  }
+
+  /**
+   * A root node can be sharded if its events are independent of all other nodes: it has no
+   * downstream nodes, shares no identifier node with other event nodes and the template does not
+   * use random generators, which are shared by all nodes.
+   *
+   * @param handler root handler
+   * @param eventGraph compiled template
+   * @return true if the events of the root node can be generated in shards
+   */
+  static boolean isShardable(
+      final EPCISEventDownstreamHandler handler, final EventGraph eventGraph) {
+    if (!(handler.model instanceof AbstractEventCreationModel<?, ?> m)
+        || CollectionUtils.isNotEmpty(m.getRandomGenerators())) {
+      return false;
+    }
+    final Integer index = eventGraph.getNodeIndex().get(m.getTypeInfo().getNodeId());
+    return index != null
+        && eventGraph.getDownstream()[index].length == 0
+        && EventGraph.references(m.getTypeInfo())
+            .filter(r -> r.getIdentifierId() > 0)
+            .allMatch(r -> eventGraph.getIdentifierReferences().get(r.getIdentifierId()) == 1);
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import io.openepcis.model.epcis.EPCISEvent;
+import io.openepcis.testdata.generator.model.EventCreationModel;
+import io.openepcis.testdata.generator.template.EPCISEventType;
+import io.openepcis.testdata.generator.template.ReferencedIdentifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Root handlers of the event graph which neither share parent nodes nor identifiers with the root
+ * handlers of any other subgraph. Subgraphs can therefore be generated concurrently, the created
+ * events are collected per subgraph and merged by the publisher.
+ */
+class EPCISEventSubgraph implements EPCISEventUpstreamHandler {
+
+  private final List<EPCISEventDownstreamHandler> rootHandlers = new ArrayList<>();
+
+  private final EPCISEventScheduler scheduler;
+
+  private List<EPCISEvent> events = new ArrayList<>();
+
+  /**
+   * @param cancelled true if generation should stop, the remaining events are created by the next
+   *     call of {@link #generate(int)}
+   */
+  private EPCISEventSubgraph(final BooleanSupplier cancelled) {
+    this.scheduler = new EPCISEventScheduler(rootHandlers, cancelled);
+  }
+
+  List<EPCISEventDownstreamHandler> getRootHandlers() {
+    return rootHandlers;
+  }
+
+  @Override
+  public void next(final EPCISEvent epcisEvent) {
+    events.add(epcisEvent);
+  }
+
+  boolean hasNext() {
+    return scheduler.hasNext();
+  }
+
+  /**
+   * generate the next events of this subgraph
+   *
+   * @param batchSize number of events
+   * @return events created by this subgraph in generation order
+   */
+  List<EPCISEvent> generate(final int batchSize) {
+    scheduler.generate(batchSize);
+    final List<EPCISEvent> generated = events;
+    events = new ArrayList<>();
+    return generated;
+  }
+
+  /**
+   * split the root handlers into independent subgraphs. Event nodes are connected if one is the
+   * parent of the other or if both reference the same identifier node, since identifiers keep
+   * range serial state while generating.
+   *
+   * @param models all event creation models of the template
+   * @param rootHandlers root handlers in template order
+   * @param cancelled true if the subgraphs should stop generating
+   * @return subgraphs in order of their first root handler
+   */
+  static List<EPCISEventSubgraph> split(
+      final Collection<? extends EventCreationModel<?, ?>> models,
+      final List<EPCISEventDownstreamHandler> rootHandlers,
+      final BooleanSupplier cancelled) {
+    final Map<Integer, Integer> parents = new HashMap<>();
+    models.forEach(
+        m -> {
+          final EPCISEventType typeInfo = m.getTypeInfo();
+          final int nodeId = typeInfo.getNodeId();
+          find(parents, nodeId);
+          Optional.ofNullable(typeInfo.getReferencedIdentifier())
+              .ifPresent(r -> r.forEach(i -> union(parents, nodeId, i)));
+          Optional.ofNullable(typeInfo.getOutputReferencedIdentifier())
+              .ifPresent(r -> r.forEach(i -> union(parents, nodeId, i)));
+          Optional.ofNullable(typeInfo.getParentReferencedIdentifier())
+              .ifPresent(i -> union(parents, nodeId, i));
+        });
+
+    final Map<Integer, EPCISEventSubgraph> subgraphs = new LinkedHashMap<>();
+    rootHandlers.forEach(
+        h ->
+            subgraphs
+                .computeIfAbsent(
+                    find(parents, h.model.getTypeInfo().getNodeId()),
+                    k -> new EPCISEventSubgraph(cancelled))
+                .rootHandlers
+                .add(h));
+    return new ArrayList<>(subgraphs.values());
+  }
+
+  // identifier nodes are keyed with their negated id to keep them apart from event node ids
+  private static void union(
+      final Map<Integer, Integer> parents, final int nodeId, final ReferencedIdentifier ref) {
+    if (ref.getParentNodeId() > 0) {
+      union(parents, nodeId, ref.getParentNodeId());
+    }
+    if (ref.getIdentifierId() > 0) {
+      union(parents, nodeId, -ref.getIdentifierId());
+    }
+  }
+
+  private static void union(final Map<Integer, Integer> parents, final int a, final int b) {
+    final int rootA = find(parents, a);
+    final int rootB = find(parents, b);
+    if (rootA != rootB) {
+      parents.put(rootB, rootA);
+    }
+  }
+
+  private static int find(final Map<Integer, Integer> parents, final int key) {
+    int root = parents.computeIfAbsent(key, k -> k);
+    while (parents.get(root) != root) {
+      root = parents.get(root);
+    }
+    // path compression
+    int current = key;
+    while (current != root) {
+      final int next = parents.get(current);
+      parents.put(current, root);
+      current = next;
+    }
+    return root;
+  }
+}
@@ -15,19 +15,97 @@
  */
 package io.openepcis.testdata.generator.reactivestreams;
 
+import io.openepcis.model.epcis.AggregationEvent;
+import io.openepcis.model.epcis.AssociationEvent;
 import io.openepcis.model.epcis.EPCISEvent;
+import io.openepcis.model.epcis.ObjectEvent;
+import io.openepcis.model.epcis.QuantityList;
+import io.openepcis.model.epcis.TransactionEvent;
+import io.openepcis.model.epcis.TransformationEvent;
 import io.openepcis.testdata.generator.template.EPCISEventType;
-import lombok.Data;
-import lombok.RequiredArgsConstructor;
+import java.time.OffsetDateTime;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.ToString;
 
-@Data
-@RequiredArgsConstructor
+/**
+ * Identifiers of a parent event which can be inherited by its child events. Only the instance
+ * identifiers, parentID, class identifiers and event time are kept, so the parent event itself can
+ * be released as soon as it has been written.
+ *
+ * <p>The tracker no longer references the parent event, {@code getEvent()} has been removed. Read
+ * the inheritable fields through {@link #getInstanceIdentifiers()}, {@link #getClassIdentifiers()},
+ * {@link #getParentID()} and {@link #getEventTime()} instead.
+ */
+@Getter
 @ToString
 public class EventIdentifierTracker {
+  private static final String[] NO_EPCS = new String[0];
+  private static final QuantityList[] NO_QUANTITIES = new QuantityList[0];
+
   private final EPCISEventType eventTypeInfo;
-  private final EPCISEvent event;
-  private int instanceIndex = 0;
-  private int quantityIndex = 0;
-  private int parentIndex = 0;
+
+  /** EPCs, childEPCs or outputEPCs of the parent event */
+  private final String[] instanceIdentifiers;
+
+  /** quantityList, childQuantityList or outputQuantityList of the parent event */
+  private final QuantityList[] classIdentifiers;
+
+  /** true for events with a parentID field: Aggregation, Transaction and Association */
+  private final boolean parentIdEvent;
+
+  private final String parentID;
+
+  private final OffsetDateTime eventTime;
+
+  @Setter private int instanceIndex = 0;
+  @Setter private int quantityIndex = 0;
+  @Setter private int parentIndex = 0;
+
+  public EventIdentifierTracker(final EPCISEventType eventTypeInfo, final EPCISEvent event) {
+    this.eventTypeInfo = eventTypeInfo;
+    this.eventTime = event.getEventTime();
+    if (event instanceof ObjectEvent e) {
+      this.instanceIdentifiers = epcs(e.getEpcList());
+      this.classIdentifiers = quantities(e.getQuantityList());
+      this.parentIdEvent = false;
+      this.parentID = null;
+    } else if (event instanceof AggregationEvent e) {
+      this.instanceIdentifiers = epcs(e.getChildEPCs());
+      this.classIdentifiers = quantities(e.getChildQuantityList());
+      this.parentIdEvent = true;
+      this.parentID = e.getParentID();
+    } else if (event instanceof TransactionEvent e) {
+      this.instanceIdentifiers = epcs(e.getEpcList());
+      this.classIdentifiers = quantities(e.getQuantityList());
+      this.parentIdEvent = true;
+      this.parentID = e.getParentID();
+    } else if (event instanceof TransformationEvent e) {
+      this.instanceIdentifiers = epcs(e.getOutputEPCList());
+      this.classIdentifiers = quantities(e.getOutputQuantityList());
+      this.parentIdEvent = false;
+      this.parentID = null;
+    } else if (event instanceof AssociationEvent e) {
+      this.instanceIdentifiers = epcs(e.getChildEPCs());
+      this.classIdentifiers = quantities(e.getChildQuantityList());
+      this.parentIdEvent = true;
+      this.parentID = e.getParentID();
+    } else {
+      this.instanceIdentifiers = NO_EPCS;
+      this.classIdentifiers = NO_QUANTITIES;
+      this.parentIdEvent = false;
+      this.parentID = null;
+    }
+  }
+
+  private static String[] epcs(final List<String> epcs) {
+    return epcs == null || epcs.isEmpty() ? NO_EPCS : epcs.toArray(NO_EPCS);
+  }
+
+  private static QuantityList[] quantities(final List<QuantityList> quantities) {
+    return quantities == null || quantities.isEmpty()
+        ? NO_QUANTITIES
+        : quantities.toArray(NO_QUANTITIES);
+  }
 }
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.openepcis.model.epcis.EPCISEvent;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Flattens an event into the rows of the {@link EventTable}s. Rows are filled from the JSON tree
+ * of the event, values are therefore the same as in the JSON-LD output. Fields without a column
+ * are kept as JSON in the extensions table.
+ */
+final class EventRows {
+
+  /** receives the rows of an event, values in column order */
+  interface Sink<E extends Exception> {
+    void row(EventTable table, String... values) throws E;
+  }
+
+  // columns of the events table after event_id and event_type
+  private static final String[] EVENT_FIELDS = {
+    "eventTime",
+    "eventTimeZoneOffset",
+    "recordTime",
+    "action",
+    "bizStep",
+    "disposition",
+    "readPoint",
+    "bizLocation",
+    "parentID",
+    "transformationID"
+  };
+
+  private static final Set<String> EPC_LISTS =
+      Set.of("epcList", "childEPCs", "inputEPCList", "outputEPCList");
+
+  private static final Set<String> QUANTITY_LISTS =
+      Set.of("quantityList", "childQuantityList", "inputQuantityList", "outputQuantityList");
+
+  private static final Set<String> FLATTENED =
+      Set.of(
+          "type",
+          "eventID",
+          "eventTime",
+          "eventTimeZoneOffset",
+          "recordTime",
+          "action",
+          "bizStep",
+          "disposition",
+          "readPoint",
+          "bizLocation",
+          "parentID",
+          "transformationID",
+          "sourceList",
+          "destinationList",
+          "bizTransactionList");
+
+  private final ObjectMapper objectMapper;
+
+  // extension values stay on one line regardless of pretty printing
+  private final ObjectWriter valueWriter;
+
+  EventRows(final ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+    this.valueWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+  }
+
+  /**
+   * @param epcisEvent generated event
+   * @return eventID of the event, a generated {@code urn:uuid} for events without eventID so the
+   *     foreign keys stay unique
+   */
+  static String eventId(final EPCISEvent epcisEvent) {
+    return epcisEvent.getEventID() != null
+        ? epcisEvent.getEventID()
+        : "urn:uuid:" + UUID.randomUUID();
+  }
+
+  /**
+   * pass all rows of the event to the sink, the row of the events table first
+   *
+   * @param eventId key of the event, see {@link #eventId(EPCISEvent)}
+   * @param epcisEvent generated event
+   * @param sink receiver of the rows
+   */
+  <E extends Exception> void flatten(
+      final String eventId, final EPCISEvent epcisEvent, final Sink<E> sink)
+      throws E, IOException {
+    final EPCISEvent processed =
+        StreamingEPCISDocumentOutput.isShouldRunJinjaTemplate()
+            ? JsonDocumentWriter.render(objectMapper, epcisEvent)
+            : epcisEvent;
+    final ObjectNode tree = objectMapper.valueToTree(processed);
+
+    final String[] event = new String[EVENT_FIELDS.length + 2];
+    event[0] = eventId;
+    event[1] = text(tree.get("type"));
+    for (int i = 0; i < EVENT_FIELDS.length; i++) {
+      event[i + 2] = text(tree.get(EVENT_FIELDS[i]));
+    }
+    sink.row(EventTable.EVENTS, event);
+
+    for (JsonNode v : tree.path("sourceList")) {
+      sink.row(
+          EventTable.SOURCES_DESTINATIONS,
+          eventId,
+          "source",
+          text(v.get("type")),
+          text(v.get("source")));
+    }
+    for (JsonNode v : tree.path("destinationList")) {
+      sink.row(
+          EventTable.SOURCES_DESTINATIONS,
+          eventId,
+          "destination",
+          text(v.get("type")),
+          text(v.get("destination")));
+    }
+    for (JsonNode v : tree.path("bizTransactionList")) {
+      sink.row(
+          EventTable.BIZ_TRANSACTIONS,
+          eventId,
+          text(v.get("type")),
+          text(v.get("bizTransaction")));
+    }
+
+    for (Iterator<Map.Entry<String, JsonNode>> it = tree.fields(); it.hasNext(); ) {
+      final Map.Entry<String, JsonNode> entry = it.next();
+      final String name = entry.getKey();
+      final JsonNode value = entry.getValue();
+      if (FLATTENED.contains(name) || value.isNull()) {
+        continue;
+      }
+      if (EPC_LISTS.contains(name)) {
+        for (JsonNode epc : value) {
+          sink.row(EventTable.EPCS, eventId, name, text(epc));
+        }
+      } else if (QUANTITY_LISTS.contains(name)) {
+        for (JsonNode q : value) {
+          sink.row(
+              EventTable.QUANTITIES,
+              eventId,
+              name,
+              text(q.get("epcClass")),
+              text(q.get("quantity")),
+              text(q.get("uom")));
+        }
+      } else {
+        sink.row(EventTable.EXTENSIONS, eventId, name, valueWriter.writeValueAsString(value));
+      }
+    }
+  }
+
+  private static String text(final JsonNode node) {
+    if (node == null || node.isNull()) {
+      return null;
+    }
+    if (node.isObject() && node.hasNonNull("id")) {
+      // read point and business location
+      return node.get("id").asText();
+    }
+    return node.isValueNode() ? node.asText() : node.toString();
+  }
+}
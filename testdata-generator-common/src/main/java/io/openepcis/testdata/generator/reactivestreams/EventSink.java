@@ -0,0 +1,62 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import io.openepcis.model.epcis.EPCISEvent;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Receives the events of one generation run in batches, written by {@link EventSinkOutput}. A sink
+ * is opened once, receives the batches in generation order and is closed or failed once, all calls
+ * are made from the same thread. Events may be shared with other sinks of a {@link TeeEventSink}
+ * and must not be modified. Sinks are created by name through {@link EventSinks}, implementations
+ * are discovered as {@link EventSinkProvider} services.
+ */
+public interface EventSink {
+
+  /**
+   * start the output, e.g. open the target and write the document header
+   *
+   * @param streamingEPCISDocument settings of the run, e.g. pretty print and EPCIS version
+   * @throws IOException if the output could not be opened
+   */
+  void open(StreamingEPCISDocument streamingEPCISDocument) throws IOException;
+
+  /**
+   * @param batch next events, the list must not be kept or modified
+   * @throws IOException if the events could not be written
+   */
+  void accept(List<EPCISEvent> batch) throws IOException;
+
+  /**
+   * complete the output after the last batch, e.g. write the document trailer and release the
+   * target
+   *
+   * @throws IOException if the output could not be completed
+   */
+  void close() throws IOException;
+
+  /**
+   * generation or another sink failed, release the target, closes the sink unless overridden
+   *
+   * @param t cause of the failure
+   * @throws IOException if the output could not be released
+   */
+  default void fail(final Throwable t) throws IOException {
+    close();
+  }
+}
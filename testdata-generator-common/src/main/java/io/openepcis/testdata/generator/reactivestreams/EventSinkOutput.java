@@ -0,0 +1,132 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import io.smallrye.mutiny.Uni;
+import java.io.IOException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Writes the events of one generation run to an {@link EventSink} in batches, e.g. a {@link
+ * TeeEventSink} feeding several outputs from a single run.
+ */
+public class EventSinkOutput {
+
+  public static final int DEFAULT_BATCH_SIZE = 256;
+
+  private final StreamingEPCISDocumentOutput output;
+
+  private final EventSink sink;
+
+  private final int batchSize;
+
+  private EventSinkOutput(
+      final StreamingEPCISDocumentOutput output, final EventSink sink, final int batchSize) {
+    this.output = output;
+    this.sink = sink;
+    this.batchSize = batchSize;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * write all events of the document to the sink
+   *
+   * @param streamingEPCISDocument events, the event limit and timeout are applied
+   * @throws IOException if the sink failed
+   */
+  public void write(final StreamingEPCISDocument streamingEPCISDocument) throws IOException {
+    StreamingEPCISDocumentOutput.await(writeStage(streamingEPCISDocument));
+  }
+
+  /**
+   * write all events of the document to the sink without blocking the subscribing thread
+   *
+   * @param streamingEPCISDocument events, the event limit and timeout are applied
+   * @return completes once the sink has been closed
+   */
+  public Uni<Void> writeAsync(final StreamingEPCISDocument streamingEPCISDocument) {
+    return Uni.createFrom().completionStage(() -> writeStage(streamingEPCISDocument));
+  }
+
+  private CompletionStage<Void> writeStage(final StreamingEPCISDocument streamingEPCISDocument) {
+    final SinkDocumentWriter sinkWriter =
+        new SinkDocumentWriter(sink, streamingEPCISDocument, batchSize);
+    // sinks count their own bytes
+    final DocumentBudget budget =
+        new DocumentBudget(
+            streamingEPCISDocument.getMaxEvents(), 0, streamingEPCISDocument.getTimeout());
+    return output.writeAsync(
+        streamingEPCISDocument.getEpcisEvents(), DocumentSource.single(sinkWriter, budget));
+  }
+
+  public static class Builder {
+    private StreamingEPCISDocumentOutput output;
+    private EventSink sink;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    Builder() {}
+
+    /**
+     * threading and demand settings, built without an outputStream or writer
+     *
+     * @param output output settings
+     * @return builder
+     */
+    public Builder output(StreamingEPCISDocumentOutput output) {
+      this.output = output;
+      return this;
+    }
+
+    /**
+     * @param sink sink receiving the events, opened and closed by the output
+     * @return builder
+     */
+    public Builder sink(EventSink sink) {
+      this.sink = sink;
+      return this;
+    }
+
+    /**
+     * @param batchSize events passed to the sink at once, defaults to {@link
+     *     EventSinkOutput#DEFAULT_BATCH_SIZE}
+     * @return builder
+     */
+    public Builder batchSize(int batchSize) {
+      this.batchSize = batchSize;
+      return this;
+    }
+
+    public EventSinkOutput build() {
+      if (output == null || sink == null) {
+        throw new IllegalArgumentException("output and sink are required");
+      }
+      return new EventSinkOutput(output, sink, batchSize);
+    }
+
+    public String toString() {
+      return "EventSinkOutput.Builder(output="
+          + this.output
+          + ", sink="
+          + this.sink
+          + ", batchSize="
+          + this.batchSize
+          + ")";
+    }
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Creates {@link EventSink}s by name, registered in {@code
+ * META-INF/services/io.openepcis.testdata.generator.reactivestreams.EventSinkProvider} and looked
+ * up by {@link EventSinks#create(String, StreamingEPCISDocumentOutput, Map)}.
+ */
+public interface EventSinkProvider {
+
+  /**
+   * @return name selecting the sink, e.g. {@code file}
+   */
+  String getName();
+
+  /**
+   * @param output format, object mapper and threading settings of the run
+   * @param options options of the sink, e.g. {@code path} of a file sink
+   * @return new sink, not yet opened
+   * @throws IOException if the sink could not be created
+   * @throws IllegalArgumentException if a required option is missing or invalid
+   */
+  EventSink create(StreamingEPCISDocumentOutput output, Map<String, String> options)
+      throws IOException;
+}
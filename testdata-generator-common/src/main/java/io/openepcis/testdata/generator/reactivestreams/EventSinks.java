@@ -0,0 +1,122 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Creates {@link EventSink}s of the {@link EventSinkProvider} services on the classpath. Built-in
+ * sinks are {@code file} (a document in any format), {@code table} (CSV or COPY files), {@code
+ * jdbc} (database tables) and {@code capture} (an EPCIS capture interface).
+ */
+public final class EventSinks {
+
+  private EventSinks() {}
+
+  /**
+   * @return names of the available sinks
+   */
+  public static Set<String> names() {
+    final Set<String> names = new TreeSet<>();
+    for (EventSinkProvider provider : ServiceLoader.load(EventSinkProvider.class)) {
+      names.add(provider.getName());
+    }
+    return names;
+  }
+
+  /**
+   * @param name name of the sink, e.g. {@code file}
+   * @param output format, object mapper and threading settings of the run
+   * @param options options of the sink, e.g. {@code path} of a file sink
+   * @return new sink, not yet opened
+   * @throws IOException if the sink could not be created
+   * @throws IllegalArgumentException if there is no sink of the name or an option is invalid
+   */
+  public static EventSink create(
+      final String name,
+      final StreamingEPCISDocumentOutput output,
+      final Map<String, String> options)
+      throws IOException {
+    for (EventSinkProvider provider : ServiceLoader.load(EventSinkProvider.class)) {
+      if (provider.getName().equalsIgnoreCase(name)) {
+        return provider.create(output, options);
+      }
+    }
+    throw new IllegalArgumentException("unknown event sink " + name + ", available: " + names());
+  }
+
+  /**
+   * create a sink from a specification like {@code file:path=events.jsonld,pretty=true} or {@code
+   * capture:uri=http://localhost:8080/capture,batchSize=500}
+   *
+   * @param spec name of the sink, optionally followed by a colon and comma separated options
+   * @param output format, object mapper and threading settings of the run
+   * @return new sink, not yet opened
+   * @throws IOException if the sink could not be created
+   * @throws IllegalArgumentException if there is no sink of the name or an option is invalid
+   */
+  public static EventSink create(final String spec, final StreamingEPCISDocumentOutput output)
+      throws IOException {
+    final int colon = spec.indexOf(':');
+    final Map<String, String> options = new LinkedHashMap<>();
+    if (colon >= 0) {
+      for (String option : spec.substring(colon + 1).split(",")) {
+        final int equals = option.indexOf('=');
+        if (equals <= 0) {
+          throw new IllegalArgumentException("option " + option + " of " + spec + " has no value");
+        }
+        options.put(option.substring(0, equals).trim(), option.substring(equals + 1).trim());
+      }
+    }
+    return create(colon >= 0 ? spec.substring(0, colon) : spec, output, options);
+  }
+
+  static String required(final Map<String, String> options, final String name) {
+    final String value = options.get(name);
+    if (value == null || value.isBlank()) {
+      throw new IllegalArgumentException("option " + name + " is required");
+    }
+    return value;
+  }
+
+  static int intOption(final Map<String, String> options, final String name, final int value) {
+    try {
+      return options.containsKey(name) ? Integer.parseInt(options.get(name)) : value;
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("option " + name + " must be a number", e);
+    }
+  }
+
+  static <E extends Enum<E>> E enumOption(
+      final Map<String, String> options, final String name, final Class<E> type, final E value) {
+    if (!options.containsKey(name)) {
+      return value;
+    }
+    try {
+      return Enum.valueOf(type, options.get(name).toUpperCase(Locale.ROOT).replace('-', '_'));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(
+          "option " + name + " must be one of " + Arrays.toString(type.getEnumConstants()), e);
+    }
+  }
+}
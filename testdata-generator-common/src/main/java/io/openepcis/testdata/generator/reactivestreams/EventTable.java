@@ -0,0 +1,61 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import java.util.List;
+
+/**
+ * Tables of the flattened events, see {@code sql/event-tables.sql}. Child tables reference the
+ * event by its event_id.
+ */
+enum EventTable {
+  EVENTS(
+      "events",
+      "event_id",
+      "event_type",
+      "event_time",
+      "event_time_zone_offset",
+      "record_time",
+      "action",
+      "biz_step",
+      "disposition",
+      "read_point",
+      "biz_location",
+      "parent_id",
+      "transformation_id"),
+  EPCS("event_epcs", "event_id", "list_name", "epc"),
+  QUANTITIES("event_quantities", "event_id", "list_name", "epc_class", "quantity", "uom"),
+  SOURCES_DESTINATIONS("event_sources_destinations", "event_id", "kind", "type", "identifier"),
+  BIZ_TRANSACTIONS("event_biz_transactions", "event_id", "type", "biz_transaction"),
+  EXTENSIONS("event_extensions", "event_id", "name", "json");
+
+  private final String tableName;
+
+  private final List<String> columns;
+
+  EventTable(final String tableName, final String... columns) {
+    this.tableName = tableName;
+    this.columns = List.of(columns);
+  }
+
+  String getTableName() {
+    return tableName;
+  }
+
+  List<String> getColumns() {
+    return columns;
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import io.smallrye.mutiny.Uni;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Writes the events of one generation run as flattened tables into a directory, one file per
+ * table in CSV or PostgreSQL COPY text format, ready to be bulk loaded without parsing JSON. The
+ * table definitions are in {@code sql/event-tables.sql}.
+ */
+public class EventTableOutput {
+
+  private final StreamingEPCISDocumentOutput output;
+
+  private final Path directory;
+
+  private final TableFormat format;
+
+  private EventTableOutput(
+      final StreamingEPCISDocumentOutput output, final Path directory, final TableFormat format) {
+    this.output = output;
+    this.directory = directory;
+    this.format = format;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * write all events of the document into the tables
+   *
+   * @param streamingEPCISDocument events, the event limit and timeout are applied
+   * @return files of all tables
+   * @throws IOException if a table could not be written
+   */
+  public List<Path> write(final StreamingEPCISDocument streamingEPCISDocument)
+      throws IOException {
+    return StreamingEPCISDocumentOutput.await(writeStage(streamingEPCISDocument));
+  }
+
+  /**
+   * write all events of the document into the tables without blocking the subscribing thread
+   *
+   * @param streamingEPCISDocument events, the event limit and timeout are applied
+   * @return files of all tables, once all have been closed
+   */
+  public Uni<List<Path>> writeAsync(final StreamingEPCISDocument streamingEPCISDocument) {
+    return Uni.createFrom().completionStage(() -> writeStage(streamingEPCISDocument));
+  }
+
+  /**
+   * @return writer of the table files, the directory is created if missing
+   * @throws IOException if the directory could not be created
+   */
+  TableDocumentWriter createDocumentWriter() throws IOException {
+    Files.createDirectories(directory);
+    return new TableDocumentWriter(directory, format, output.getObjectMapper());
+  }
+
+  private CompletionStage<List<Path>> writeStage(
+      final StreamingEPCISDocument streamingEPCISDocument) {
+    final TableDocumentWriter tableWriter;
+    try {
+      tableWriter = createDocumentWriter();
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    // there is no single output to count bytes on
+    final DocumentBudget budget =
+        new DocumentBudget(
+            streamingEPCISDocument.getMaxEvents(), 0, streamingEPCISDocument.getTimeout());
+    return output
+        .writeAsync(
+            streamingEPCISDocument.getEpcisEvents(), DocumentSource.single(tableWriter, budget))
+        .thenApply(v -> tableWriter.paths());
+  }
+
+  public static class Builder {
+    private StreamingEPCISDocumentOutput output;
+    private Path directory;
+    private TableFormat format = TableFormat.CSV;
+
+    Builder() {}
+
+    /**
+     * threading and demand settings, built without an outputStream or writer
+     *
+     * @param output output settings
+     * @return builder
+     */
+    public Builder output(StreamingEPCISDocumentOutput output) {
+      this.output = output;
+      return this;
+    }
+
+    public Builder directory(Path directory) {
+      this.directory = directory;
+      return this;
+    }
+
+    /**
+     * @param format row format, defaults to {@link TableFormat#CSV}
+     * @return builder
+     */
+    public Builder format(TableFormat format) {
+      this.format = format;
+      return this;
+    }
+
+    public EventTableOutput build() {
+      if (output == null || directory == null) {
+        throw new IllegalArgumentException("output and directory are required");
+      }
+      return new EventTableOutput(output, directory, format);
+    }
+
+    public String toString() {
+      return "EventTableOutput.Builder(output="
+          + this.output
+          + ", directory="
+          + this.directory
+          + ", format="
+          + this.format
+          + ")";
+    }
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * {@code file} sink writing one document, options: {@code path} (required), {@code format}
+ * (defaults to the format of the output), {@code compression} (none, gzip or zstd) and {@code
+ * pretty} (defaults to the pretty print setting of the run).
+ */
+public class FileEventSinkProvider implements EventSinkProvider {
+
+  @Override
+  public String getName() {
+    return "file";
+  }
+
+  @Override
+  public EventSink create(
+      final StreamingEPCISDocumentOutput output, final Map<String, String> options) {
+    final Path path = Path.of(EventSinks.required(options, "path"));
+    final EPCISDocumentFormat format =
+        EventSinks.enumOption(options, "format", EPCISDocumentFormat.class, output.getFormat());
+    final StreamingEPCISDocumentOutput fileOutput = output.withFormat(format);
+    final Compression compression =
+        EventSinks.enumOption(options, "compression", Compression.class, Compression.NONE);
+    final String pretty = options.get("pretty");
+    return new DocumentWriterEventSink(
+        streamingEPCISDocument -> {
+          final StreamingEPCISDocument fileDocument = new StreamingEPCISDocument();
+          fileDocument.setPrettyPrint(
+              pretty != null
+                  ? Boolean.parseBoolean(pretty)
+                  : streamingEPCISDocument.isPrettyPrint());
+          fileDocument.setEpcisVersion(streamingEPCISDocument.getEpcisVersion());
+          fileDocument.setCompression(compression);
+          final OutputStream outputStream = Files.newOutputStream(path);
+          try {
+            return fileOutput.createDocumentWriter(
+                fileDocument, DocumentWriterEventSink.UNLIMITED, outputStream, null);
+          } catch (IOException e) {
+            outputStream.close();
+            throw e;
+          }
+        });
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import io.openepcis.model.epcis.EPCISEvent;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Decouples event generation from document writing. Events received on the generating thread are
+ * handed over through a {@link SpscRingBuffer} to a writer thread which forwards all signals to
+ * the delegate subscriber, so generation and serialization overlap. Demand is managed here: the
+ * ring size is requested upfront and replenished once the writer drained events from the ring, so
+ * requested but unwritten events never exceed the ring. The writer waits according to the {@link
+ * WaitStrategy} while the ring is empty. Writer threads are taken from a shared pool, or the
+ * virtual thread executor.
+ */
+class HandoffSubscriber implements Flow.Subscriber<EPCISEvent> {
+
+  private static final AtomicInteger COUNTER = new AtomicInteger();
+
+  // platform writer threads are reused by the following documents
+  private static final ExecutorService WRITERS =
+      Executors.newCachedThreadPool(
+          task -> {
+            final Thread thread =
+                new Thread(task, "epcis-document-writer-" + COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private final Flow.Subscriber<EPCISEvent> delegate;
+
+  private final SpscRingBuffer<EPCISEvent> ring;
+
+  private final WaitStrategy waitStrategy;
+
+  private final int replenish;
+
+  private final boolean virtualThreads;
+
+  private final AtomicReference<Flow.Subscription> upstream = new AtomicReference<>();
+
+  // demand not yet passed upstream, requests of the generating and the writer thread are
+  // serialized through requesting
+  private final AtomicLong requested = new AtomicLong();
+
+  private final AtomicInteger requesting = new AtomicInteger();
+
+  // events drained by the writer thread since the last request
+  private int drained;
+
+  // terminal signal, only read by the writer thread once the ring has been drained
+  private volatile boolean done = false;
+
+  private volatile Throwable error;
+
+  // set by the writer thread if the delegate cancelled or failed
+  private volatile boolean cancelled = false;
+
+  HandoffSubscriber(
+      final Flow.Subscriber<EPCISEvent> delegate,
+      final int ringSize,
+      final WaitStrategy waitStrategy,
+      final boolean virtualThreads) {
+    this.delegate = delegate;
+    this.virtualThreads = virtualThreads;
+    this.ring = new SpscRingBuffer<>(ringSize);
+    this.waitStrategy = waitStrategy;
+    this.replenish = Math.max(1, ring.capacity() >> 1);
+  }
+
+  @Override
+  public void onSubscribe(final Flow.Subscription subscription) {
+    upstream.set(subscription);
+    (virtualThreads ? VirtualThreads.executor() : WRITERS).execute(this::drain);
+    request(ring.capacity());
+  }
+
+  @Override
+  public void onNext(final EPCISEvent epcisEvent) {
+    // never more events are requested than the ring holds, waiting only guards a misbehaving
+    // upstream
+    while (!ring.offer(epcisEvent)) {
+      if (cancelled) {
+        return;
+      }
+      waitStrategy.idle();
+    }
+  }
+
+  private void request(final long n) {
+    requested.addAndGet(n);
+    if (requesting.getAndIncrement() != 0) {
+      return;
+    }
+    int missed = 1;
+    do {
+      final long r = requested.getAndSet(0);
+      if (r > 0 && !cancelled) {
+        upstream.get().request(r);
+      }
+      missed = requesting.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  // writer thread: free slots of the ring are requested in blocks of replenish events
+  private void drained() {
+    if (++drained == replenish) {
+      drained = 0;
+      request(replenish);
+    }
+  }
+
+  @Override
+  public void onError(final Throwable throwable) {
+    error = throwable;
+    done = true;
+  }
+
+  @Override
+  public void onComplete() {
+    done = true;
+  }
+
+  // writer thread: forward all signals to the delegate in order
+  private void drain() {
+    try {
+      delegate.onSubscribe(
+          new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+              // demand is managed by the handoff
+            }
+
+            @Override
+            public void cancel() {
+              cancelled = true;
+              upstream.get().cancel();
+            }
+          });
+      while (!cancelled) {
+        final EPCISEvent event = ring.poll();
+        if (event != null) {
+          delegate.onNext(event);
+          drained();
+        } else if (done) {
+          // events offered before the terminal signal may have arrived in the meantime
+          final EPCISEvent last = ring.poll();
+          if (last != null) {
+            delegate.onNext(last);
+            continue;
+          }
+          if (error != null) {
+            delegate.onError(error);
+          } else {
+            delegate.onComplete();
+          }
+          return;
+        } else {
+          waitStrategy.idle();
+        }
+      }
+    } catch (Throwable t) {
+      // stop the generating thread, the delegate either reported the failure already and ignores
+      // the error signal, or an error escaped the writer and the document is failed here
+      cancelled = true;
+      upstream.get().cancel();
+      try {
+        delegate.onError(t);
+      } catch (Throwable suppressed) {
+        // the delegate failed the document itself
+      }
+    }
+  }
+}
@@ -0,0 +1,393 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.openepcis.model.epcis.EPCISEvent;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Inserts the rows of the flattened events into the {@link EventTable}s through batched prepared
+ * statements. Events are partitioned by the hash of their event id over the writers, every writer
+ * has its own connection and, if there is more than one writer, its own thread. A batch is
+ * executed and committed once at least batch size rows are pending, the rows of an event are
+ * always committed together.
+ */
+class JdbcDocumentWriter implements EPCISDocumentWriter {
+
+  /** opens the connection of a writer */
+  interface ConnectionFactory {
+    Connection open() throws SQLException;
+  }
+
+  private record Item(String eventId, EPCISEvent epcisEvent) {}
+
+  private static final Item END = new Item(null, null);
+
+  // events pending per writer thread
+  private static final int QUEUE_DEPTH = 1024;
+
+  private static final long POLL_MILLIS = 100;
+
+  // quantity is the only numeric column
+  private static final int QUANTITY_COLUMN = 3;
+
+  private final ConnectionFactory connectionFactory;
+
+  private final EventRows eventRows;
+
+  private final int writers;
+
+  private final int batchSize;
+
+  private final boolean createTables;
+
+  private final boolean virtualThreads;
+
+  private final List<Partition> partitions = new ArrayList<>();
+
+  private long started;
+
+  private long elapsed;
+
+  JdbcDocumentWriter(
+      final ConnectionFactory connectionFactory,
+      final ObjectMapper objectMapper,
+      final int writers,
+      final int batchSize,
+      final boolean createTables,
+      final boolean virtualThreads) {
+    this.connectionFactory = connectionFactory;
+    this.eventRows = new EventRows(objectMapper);
+    this.writers = Math.max(1, writers);
+    this.batchSize = Math.max(1, batchSize);
+    this.createTables = createTables;
+    this.virtualThreads = virtualThreads;
+  }
+
+  /**
+   * @param table table to create
+   * @return portable DDL of the table, all columns are text except the quantity
+   */
+  static String createTableSql(final EventTable table) {
+    final List<String> columns = table.getColumns();
+    final StringBuilder sql =
+        new StringBuilder("CREATE TABLE IF NOT EXISTS ").append(table.getTableName()).append(" (");
+    for (int i = 0; i < columns.size(); i++) {
+      if (i > 0) {
+        sql.append(", ");
+      }
+      sql.append(columns.get(i));
+      if (table == EventTable.QUANTITIES && i == QUANTITY_COLUMN) {
+        sql.append(" DOUBLE PRECISION");
+      } else {
+        sql.append(" VARCHAR");
+      }
+      if (i == 0) {
+        sql.append(table == EventTable.EVENTS ? " PRIMARY KEY" : " NOT NULL");
+      }
+    }
+    return sql.append(')').toString();
+  }
+
+  static String insertSql(final EventTable table) {
+    return "INSERT INTO "
+        + table.getTableName()
+        + " ("
+        + String.join(", ", table.getColumns())
+        + ") VALUES ("
+        + table.getColumns().stream().map(c -> "?").collect(Collectors.joining(", "))
+        + ")";
+  }
+
+  @Override
+  public void writeHeader() throws IOException {
+    started = System.nanoTime();
+    try {
+      if (createTables) {
+        try (Connection connection = connectionFactory.open();
+            Statement statement = connection.createStatement()) {
+          for (EventTable table : EventTable.values()) {
+            statement.execute(createTableSql(table));
+          }
+          if (!connection.getAutoCommit()) {
+            connection.commit();
+          }
+        }
+      }
+      for (int i = 0; i < writers; i++) {
+        partitions.add(new Partition(i));
+      }
+    } catch (SQLException e) {
+      closeAll();
+      throw new IOException("Opening the JDBC writers failed: " + e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public void writeEvent(final EPCISEvent epcisEvent) throws IOException {
+    final String eventId = EventRows.eventId(epcisEvent);
+    final Partition partition = partitions.get(Math.floorMod(eventId.hashCode(), writers));
+    try {
+      if (partition.worker == null) {
+        partition.insert(eventId, epcisEvent);
+      } else {
+        partition.put(new Item(eventId, epcisEvent));
+      }
+    } catch (IOException e) {
+      // generation stops without closing the document, release the other writers
+      closeAll();
+      throw e;
+    }
+  }
+
+  @Override
+  public void writeFooter() throws IOException {
+    IOException failure = null;
+    for (Partition partition : partitions) {
+      try {
+        partition.finish();
+      } catch (IOException e) {
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+    elapsed = System.nanoTime() - started;
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  @Override
+  public void writeError(final Throwable t) throws IOException {
+    // keep the rows committed so far and fail the export
+    writeFooter();
+    throw new IOException("Event generation failed: " + t.getMessage(), t);
+  }
+
+  @Override
+  public long buffered() {
+    return 0;
+  }
+
+  private void closeAll() {
+    for (Partition partition : partitions) {
+      if (partition.worker == null) {
+        partition.close();
+      } else if (!partition.queue.offer(END)) {
+        // the worker is busy with a full queue, stop it instead of waiting
+        partition.worker.interrupt();
+      }
+    }
+  }
+
+  /**
+   * @return number of inserted events, rows and the time from opening to closing the writers
+   */
+  JdbcEventOutput.Result result() {
+    long events = 0;
+    long rows = 0;
+    for (Partition partition : partitions) {
+      events += partition.events;
+      rows += partition.rows;
+    }
+    return new JdbcEventOutput.Result(events, rows, Duration.ofNanos(elapsed));
+  }
+
+  /** connection and statements of one writer */
+  private final class Partition {
+    private final Connection connection;
+
+    private final Map<EventTable, PreparedStatement> statements = new EnumMap<>(EventTable.class);
+
+    private final BlockingQueue<Item> queue;
+
+    private final CountDownLatch terminated = new CountDownLatch(1);
+
+    private final Thread worker;
+
+    private volatile Exception failure;
+
+    // only updated by the writing thread, read once it terminated
+    private long events;
+
+    private long rows;
+
+    private int pending;
+
+    Partition(final int index) throws SQLException {
+      this.connection = connectionFactory.open();
+      try {
+        connection.setAutoCommit(false);
+        for (EventTable table : EventTable.values()) {
+          statements.put(table, connection.prepareStatement(insertSql(table)));
+        }
+      } catch (SQLException e) {
+        close();
+        throw e;
+      }
+      if (writers > 1) {
+        queue = new ArrayBlockingQueue<>(QUEUE_DEPTH);
+        final String name = "epcis-jdbc-writer-" + index;
+        if (virtualThreads) {
+          worker = VirtualThreads.newThread(this::drain, name);
+        } else {
+          worker = new Thread(this::drain, name);
+          worker.setDaemon(true);
+        }
+        worker.start();
+      } else {
+        queue = null;
+        worker = null;
+      }
+    }
+
+    void insert(final String eventId, final EPCISEvent epcisEvent) throws IOException {
+      try {
+        eventRows.flatten(eventId, epcisEvent, this::addRow);
+        events++;
+        if (pending >= batchSize) {
+          flush();
+        }
+      } catch (SQLException e) {
+        throw new IOException("Inserting event " + eventId + " failed: " + e.getMessage(), e);
+      }
+    }
+
+    private void addRow(final EventTable table, final String... values) throws SQLException {
+      final PreparedStatement statement = statements.get(table);
+      for (int i = 0; i < values.length; i++) {
+        if (values[i] == null) {
+          statement.setNull(
+              i + 1,
+              table == EventTable.QUANTITIES && i == QUANTITY_COLUMN
+                  ? Types.DOUBLE
+                  : Types.VARCHAR);
+        } else if (table == EventTable.QUANTITIES && i == QUANTITY_COLUMN) {
+          statement.setDouble(i + 1, Double.parseDouble(values[i]));
+        } else {
+          statement.setString(i + 1, values[i]);
+        }
+      }
+      statement.addBatch();
+      rows++;
+      pending++;
+    }
+
+    private void flush() throws SQLException {
+      for (PreparedStatement statement : statements.values()) {
+        statement.executeBatch();
+      }
+      connection.commit();
+      pending = 0;
+    }
+
+    // writer thread: insert the events of this partition until the end marker
+    private void drain() {
+      try {
+        while (true) {
+          final Item item = queue.take();
+          if (item == END) {
+            break;
+          }
+          insert(item.eventId(), item.epcisEvent());
+        }
+        flush();
+      } catch (InterruptedException e) {
+        failure = new InterruptedIOException("Interrupted while inserting events");
+        Thread.currentThread().interrupt();
+      } catch (Exception e) {
+        failure = e;
+      } finally {
+        close();
+        terminated.countDown();
+      }
+    }
+
+    void put(final Item item) throws IOException {
+      try {
+        // the worker stops taking events once it failed
+        while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+          checkFailure();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while inserting events");
+      }
+      checkFailure();
+    }
+
+    void finish() throws IOException {
+      if (worker == null) {
+        try {
+          flush();
+        } catch (SQLException e) {
+          throw new IOException("Committing the events failed: " + e.getMessage(), e);
+        } finally {
+          close();
+        }
+        return;
+      }
+      if (failure == null) {
+        put(END);
+      }
+      try {
+        terminated.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while inserting events");
+      }
+      checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+      final Exception e = failure;
+      if (e instanceof IOException ioException) {
+        throw ioException;
+      }
+      if (e != null) {
+        throw new IOException("Inserting events failed: " + e.getMessage(), e);
+      }
+    }
+
+    void close() {
+      try {
+        connection.close();
+      } catch (SQLException e) {
+        // closing after commit or failure, nothing left to report
+      }
+    }
+  }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import io.smallrye.mutiny.Uni;
+import java.io.IOException;
+import java.sql.DriverManager;
+import java.time.Duration;
+import java.util.concurrent.CompletionStage;
+import javax.sql.DataSource;
+
+/**
+ * Inserts the events of one generation run directly into a database, flattened into the tables
+ * of {@code sql/event-tables.sql}. Inserts are batched and spread over parallel writer
+ * connections partitioned by event id. Works with embedded databases like H2 or SQLite as well as
+ * with database servers, the tables are created unless disabled.
+ */
+public class JdbcEventOutput {
+
+  public static final int DEFAULT_BATCH_SIZE = 1000;
+
+  /**
+   * inserted events and rows
+   *
+   * @param events number of inserted events
+   * @param rows number of inserted rows over all tables
+   * @param elapsed time from opening to closing the writer connections
+   */
+  public record Result(long events, long rows, Duration elapsed) {
+
+    /**
+     * @return inserted rows per second
+     */
+    public double rowsPerSecond() {
+      final long nanos = elapsed.toNanos();
+      return nanos > 0 ? rows * 1_000_000_000d / nanos : 0;
+    }
+  }
+
+  private final StreamingEPCISDocumentOutput output;
+
+  private final JdbcDocumentWriter.ConnectionFactory connectionFactory;
+
+  private final int writers;
+
+  private final int batchSize;
+
+  private final boolean createTables;
+
+  private JdbcEventOutput(
+      final StreamingEPCISDocumentOutput output,
+      final JdbcDocumentWriter.ConnectionFactory connectionFactory,
+      final int writers,
+      final int batchSize,
+      final boolean createTables) {
+    this.output = output;
+    this.connectionFactory = connectionFactory;
+    this.writers = writers;
+    this.batchSize = batchSize;
+    this.createTables = createTables;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * insert all events of the document
+   *
+   * @param streamingEPCISDocument events, the event limit and timeout are applied
+   * @return inserted events and rows
+   * @throws IOException if inserting failed
+   */
+  public Result write(final StreamingEPCISDocument streamingEPCISDocument) throws IOException {
+    return StreamingEPCISDocumentOutput.await(writeStage(streamingEPCISDocument));
+  }
+
+  /**
+   * insert all events of the document without blocking the subscribing thread
+   *
+   * @param streamingEPCISDocument events, the event limit and timeout are applied
+   * @return inserted events and rows, once all writers committed
+   */
+  public Uni<Result> writeAsync(final StreamingEPCISDocument streamingEPCISDocument) {
+    return Uni.createFrom().completionStage(() -> writeStage(streamingEPCISDocument));
+  }
+
+  /**
+   * @return writer inserting the events of one run
+   */
+  JdbcDocumentWriter createDocumentWriter() {
+    return new JdbcDocumentWriter(
+        connectionFactory,
+        output.getObjectMapper(),
+        writers,
+        batchSize,
+        createTables,
+        output.isVirtualThreads());
+  }
+
+  private CompletionStage<Result> writeStage(final StreamingEPCISDocument streamingEPCISDocument) {
+    final JdbcDocumentWriter jdbcWriter = createDocumentWriter();
+    // there is no output to count bytes on
+    final DocumentBudget budget =
+        new DocumentBudget(
+            streamingEPCISDocument.getMaxEvents(), 0, streamingEPCISDocument.getTimeout());
+    return output
+        .writeAsync(
+            streamingEPCISDocument.getEpcisEvents(), DocumentSource.single(jdbcWriter, budget))
+        .thenApply(v -> jdbcWriter.result());
+  }
+
+  public static class Builder {
+    private StreamingEPCISDocumentOutput output;
+    private JdbcDocumentWriter.ConnectionFactory connectionFactory;
+    private int writers = 1;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private boolean createTables = true;
+
+    Builder() {}
+
+    /**
+     * threading and demand settings, built without an outputStream or writer
+     *
+     * @param output output settings
+     * @return builder
+     */
+    public Builder output(StreamingEPCISDocumentOutput output) {
+      this.output = output;
+      return this;
+    }
+
+    public Builder dataSource(DataSource dataSource) {
+      this.connectionFactory = dataSource::getConnection;
+      return this;
+    }
+
+    /**
+     * connect through the {@link DriverManager}, e.g. {@code jdbc:h2:mem:epcis} or {@code
+     * jdbc:sqlite:epcis.db}
+     *
+     * @param url JDBC url
+     * @param user user, may be null
+     * @param password password, may be null
+     * @return builder
+     */
+    public Builder url(String url, String user, String password) {
+      this.connectionFactory = () -> DriverManager.getConnection(url, user, password);
+      return this;
+    }
+
+    /**
+     * number of parallel writer connections, events are partitioned by event id
+     *
+     * @param writers writer connections, defaults to 1 which inserts on the generating thread
+     * @return builder
+     */
+    public Builder writers(int writers) {
+      this.writers = writers;
+      return this;
+    }
+
+    /**
+     * rows collected per writer before the batch is executed and committed
+     *
+     * @param batchSize rows per batch, defaults to {@link JdbcEventOutput#DEFAULT_BATCH_SIZE}
+     * @return builder
+     */
+    public Builder batchSize(int batchSize) {
+      this.batchSize = batchSize;
+      return this;
+    }
+
+    /**
+     * @param createTables false if the tables already exist, defaults to true
+     * @return builder
+     */
+    public Builder createTables(boolean createTables) {
+      this.createTables = createTables;
+      return this;
+    }
+
+    public JdbcEventOutput build() {
+      if (output == null || connectionFactory == null) {
+        throw new IllegalArgumentException("output and dataSource or url are required");
+      }
+      return new JdbcEventOutput(output, connectionFactory, writers, batchSize, createTables);
+    }
+
+    public String toString() {
+      return "JdbcEventOutput.Builder(output="
+          + this.output
+          + ", writers="
+          + this.writers
+          + ", batchSize="
+          + this.batchSize
+          + ", createTables="
+          + this.createTables
+          + ")";
+    }
+  }
+}
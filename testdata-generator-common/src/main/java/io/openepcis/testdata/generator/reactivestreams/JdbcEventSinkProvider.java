@@ -0,0 +1,49 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import java.util.Map;
+
+/**
+ * {@code jdbc} sink inserting the events into database tables, options: {@code url} (required),
+ * {@code user}, {@code password}, {@code writers}, {@code batchSize} and {@code createTables}
+ * (defaults to true).
+ */
+public class JdbcEventSinkProvider implements EventSinkProvider {
+
+  @Override
+  public String getName() {
+    return "jdbc";
+  }
+
+  @Override
+  public EventSink create(
+      final StreamingEPCISDocumentOutput output, final Map<String, String> options) {
+    final JdbcEventOutput jdbcOutput =
+        JdbcEventOutput.builder()
+            .output(output)
+            .url(
+                EventSinks.required(options, "url"),
+                options.get("user"),
+                options.get("password"))
+            .writers(EventSinks.intOption(options, "writers", 1))
+            .batchSize(
+                EventSinks.intOption(options, "batchSize", JdbcEventOutput.DEFAULT_BATCH_SIZE))
+            .createTables(!"false".equalsIgnoreCase(options.get("createTables")))
+            .build();
+    return new DocumentWriterEventSink(streamingEPCISDocument -> jdbcOutput.createDocumentWriter());
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hubspot.jinjava.Jinjava;
+import io.openepcis.constants.EPCIS;
+import io.openepcis.constants.EPCISVersion;
+import io.openepcis.model.epcis.EPCISEvent;
+import io.openepcis.testdata.generator.constants.TestDataGeneratorException;
+import java.io.IOException;
+import java.util.Map;
+import org.apache.commons.collections4.CollectionUtils;
+
+/** Base of the JSON based document writers, writes events and the @context array. */
+abstract class JsonDocumentWriter implements EPCISDocumentWriter {
+
+  private static final Jinjava jinjava = new Jinjava();
+
+  protected final JsonGenerator jsonGenerator;
+
+  protected final ObjectMapper objectMapper;
+
+  private final boolean directJson;
+
+  // decided per writer, the ObjectMapper is shared by all documents and sinks of an output
+  private final boolean prettyPrint;
+
+  // constant fields of the events, only used for compact textual output
+  private final EPCISEventFragments fragments;
+
+  protected JsonDocumentWriter(
+      final JsonGenerator jsonGenerator,
+      final ObjectMapper objectMapper,
+      final boolean directJson,
+      final boolean prettyPrint) {
+    this.jsonGenerator = jsonGenerator;
+    this.objectMapper = objectMapper;
+    this.directJson = directJson;
+    this.prettyPrint = prettyPrint;
+    // raw JSON can not be spliced into binary encodings
+    this.fragments =
+        directJson && !prettyPrint && !jsonGenerator.canWriteBinaryNatively()
+            ? new EPCISEventFragments(objectMapper)
+            : null;
+  }
+
+  @Override
+  public void writeEvent(final EPCISEvent epcisEvent) throws IOException {
+    // the header stays compact, events are indented from the first one on
+    if (prettyPrint && jsonGenerator.getPrettyPrinter() == null) {
+      jsonGenerator.setPrettyPrinter(
+          objectMapper.getSerializationConfig().constructDefaultPrettyPrinter());
+    }
+    // Detect if the event needs to be run through Jinja render to convert expression to value
+    if (!StreamingEPCISDocumentOutput.isShouldRunJinjaTemplate()
+        && directJson
+        && EPCISEventJsonWriter.supports(epcisEvent)) {
+      EPCISEventJsonWriter.write(jsonGenerator, epcisEvent, fragments);
+    } else if (!StreamingEPCISDocumentOutput.isShouldRunJinjaTemplate()) {
+      // If no need to run via Jinja template then directly add
+      jsonGenerator.writeObject(epcisEvent);
+    } else {
+      // Write processed event
+      jsonGenerator.writeObject(render(objectMapper, epcisEvent));
+    }
+  }
+
+  /**
+   * run the event through the Jinja template to convert expressions of user extensions to values
+   *
+   * @param objectMapper mapper used to convert the event from and to its JSON representation
+   * @param epcisEvent event containing expressions
+   * @return processed event
+   * @throws IOException if the processed event could not be read
+   */
+  static EPCISEvent render(final ObjectMapper objectMapper, final EPCISEvent epcisEvent)
+      throws IOException {
+    // Extract context directly from the EPCISEvent object
+    final Map<String, Object> context = objectMapper.convertValue(epcisEvent, Map.class);
+
+    // Apply Jinja processing directly on JSON representation
+    final String processedJsonString =
+        jinjava.render(objectMapper.writeValueAsString(context), context);
+
+    // Reset flag to prevent reprocessing
+    StreamingEPCISDocumentOutput.setShouldRunJinjaTemplate(false);
+
+    // Convert back to EPCISEvent
+    return objectMapper.readValue(processedJsonString, EPCISEvent.class);
+  }
+
+  @Override
+  public long buffered() {
+    return jsonGenerator.getOutputBuffered();
+  }
+
+  // write the @context array with the selected context URLs, the namespaces of user extensions and
+  // the default EPCIS context
+  protected void writeContext() throws IOException {
+    jsonGenerator.writeFieldName(EPCIS.CONTEXT);
+    jsonGenerator.writeStartArray();
+
+    // Adds all selected context URLs to the EPCIS document's @context array.
+    if (CollectionUtils.isNotEmpty(StreamingEPCISDocument.getSelectedContextUrls())) {
+      for (String url : StreamingEPCISDocument.getSelectedContextUrls()) {
+        jsonGenerator.writeString(url);
+      }
+    }
+
+    // If context contains any values then add them to context array
+    if (StreamingEPCISDocument.getContext() != null
+        && !StreamingEPCISDocument.getContext().isEmpty()) {
+      StreamingEPCISDocument.getContext()
+          .forEach(
+              (key, value) -> {
+                try {
+                  jsonGenerator.writeStartObject();
+                  jsonGenerator.writeStringField(key, value);
+                  jsonGenerator.writeEndObject();
+                } catch (IOException ex) {
+                  throw new TestDataGeneratorException(
+                      "Exception occurred during EPCIS document creation: Error occurred during the addition of Namespaces: "
+                          + ex.getMessage(),
+                      ex);
+                }
+              });
+    }
+
+    jsonGenerator.writeString(EPCISVersion.getDefaultJSONContext());
+
+    jsonGenerator.writeEndArray(); // end context array
+  }
+}
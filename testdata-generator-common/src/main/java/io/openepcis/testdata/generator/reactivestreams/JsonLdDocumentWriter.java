@@ -0,0 +1,88 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.openepcis.model.rest.ProblemResponseBody;
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import org.jboss.resteasy.reactive.RestResponse;
+
+/** Writes all events into the eventList of a single JSON-LD EPCISDocument. */
+class JsonLdDocumentWriter extends JsonDocumentWriter {
+
+  private static final DateTimeFormatter DATE_TIME_FORMATTER =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SS'Z'");
+
+  JsonLdDocumentWriter(
+      final JsonGenerator jsonGenerator,
+      final ObjectMapper objectMapper,
+      final boolean directJson,
+      final boolean prettyPrint) {
+    super(jsonGenerator, objectMapper, directJson, prettyPrint);
+  }
+
+  @Override
+  public void writeHeader() throws IOException {
+    // create Outermost JsonObject
+    jsonGenerator.writeStartObject();
+
+    // Write the info related to Context element in JSON
+    writeContext();
+
+    // Write Other header fields of JSON
+    jsonGenerator.writeStringField("type", "EPCISDocument");
+    jsonGenerator.writeStringField("schemaVersion", "2.0");
+    jsonGenerator.writeStringField(
+        "creationDate", DATE_TIME_FORMATTER.format(ZonedDateTime.now()));
+
+    // Start epcisBody object
+    jsonGenerator.writeFieldName("epcisBody");
+    jsonGenerator.writeStartObject();
+
+    // Start eventList
+    jsonGenerator.writeFieldName("eventList");
+    jsonGenerator.writeStartArray();
+  }
+
+  @Override
+  public void writeFooter() throws IOException {
+    jsonGenerator.writeEndArray(); // End the eventList array
+    jsonGenerator.writeEndObject(); // End epcisBody
+    jsonGenerator.writeEndObject(); // End whole json file
+
+    jsonGenerator.flush();
+    jsonGenerator.close();
+  }
+
+  @Override
+  public void writeError(final Throwable t) throws IOException {
+    jsonGenerator.writeEndArray(); // End the eventList array
+    jsonGenerator.writeEndObject(); // End epcisBody
+
+    // If there is error then add the error message to JSON
+    final ProblemResponseBody pb =
+        ProblemResponseBody.fromException(t, RestResponse.Status.BAD_REQUEST);
+    jsonGenerator.writeObjectField("problemResponse", pb);
+
+    jsonGenerator.writeEndObject(); // End whole json file
+
+    jsonGenerator.flush(); // flush
+    jsonGenerator.close();
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * result of a {@link CaptureLoadDriver} run
+ *
+ * @param mode closed or open loop
+ * @param users virtual users of a closed loop run, 0 for open loop
+ * @param targetRate requests per second of an open loop run, 0 for closed loop
+ * @param elapsedSeconds time from the start of the measurement to the last response
+ * @param requests accepted requests
+ * @param errors failed requests, connection errors and non 2xx responses
+ * @param events events of the accepted requests
+ * @param generatorStalls number of times a request waited for the generator to prepare a document
+ * @param requestsPerSecond accepted requests per second
+ * @param eventsPerSecond accepted events per second
+ * @param latency response time in milliseconds corrected for coordinated omission: measured from
+ *     the intended start of the request for open loop, completed with the requests a paced user
+ *     could not send for closed loop
+ * @param serviceTime response time in milliseconds measured from sending the request
+ * @param throughput completed requests per time bucket
+ */
+public record LoadReport(
+    Mode mode,
+    int users,
+    double targetRate,
+    double elapsedSeconds,
+    long requests,
+    long errors,
+    long events,
+    long generatorStalls,
+    double requestsPerSecond,
+    double eventsPerSecond,
+    List<Percentile> latency,
+    List<Percentile> serviceTime,
+    List<Bucket> throughput) {
+
+  private static final ObjectMapper JSON =
+      new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+  public enum Mode {
+    /** a fixed number of users, each sending the next request once the previous completed */
+    CLOSED_LOOP,
+
+    /** requests are started at a fixed rate regardless of the response time */
+    OPEN_LOOP
+  }
+
+  /**
+   * @param percentile percentile, 100 for the maximum
+   * @param millis response time in milliseconds
+   */
+  public record Percentile(double percentile, double millis) {}
+
+  /**
+   * @param startSeconds start of the bucket, relative to the start of the measurement
+   * @param requests requests accepted in the bucket
+   * @param events events accepted in the bucket
+   * @param errors requests failed in the bucket
+   */
+  public record Bucket(double startSeconds, long requests, long events, long errors) {}
+
+  /**
+   * @return report as indented JSON
+   */
+  public String toJson() {
+    try {
+      return JSON.writeValueAsString(this);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * @return report as text with a percentile table and the throughput per bucket
+   */
+  public String toText() {
+    final StringBuilder text = new StringBuilder();
+    if (mode == Mode.CLOSED_LOOP) {
+      text.append(String.format(Locale.ROOT, "closed loop, %d users%n", users));
+    } else {
+      text.append(String.format(Locale.ROOT, "open loop, %.1f requests/s%n", targetRate));
+    }
+    text.append(
+        String.format(
+            Locale.ROOT,
+            "%d requests, %d errors, %d events in %.3f s: %.1f requests/s, %.1f events/s%n",
+            requests,
+            errors,
+            events,
+            elapsedSeconds,
+            requestsPerSecond,
+            eventsPerSecond));
+    if (generatorStalls > 0) {
+      text.append(
+          String.format(Locale.ROOT, "%d requests waited for the generator%n", generatorStalls));
+    }
+    text.append(
+        String.format(Locale.ROOT, "%n%10s %12s %12s%n", "percentile", "latency", "service"));
+    for (int i = 0; i < latency.size(); i++) {
+      final Percentile percentile = latency.get(i);
+      text.append(
+          String.format(
+              Locale.ROOT,
+              "%10s %9.3f ms %9.3f ms%n",
+              percentile.percentile() == 100
+                  ? "max"
+                  : String.format(Locale.ROOT, "%.3f%%", percentile.percentile()),
+              percentile.millis(),
+              serviceTime.get(i).millis()));
+    }
+    text.append(
+        String.format(
+            Locale.ROOT, "%n%10s %10s %10s %10s%n", "second", "requests", "events", "errors"));
+    for (Bucket bucket : throughput) {
+      text.append(
+          String.format(
+              Locale.ROOT,
+              "%10.1f %10d %10d %10d%n",
+              bucket.startSeconds(),
+              bucket.requests(),
+              bucket.events(),
+              bucket.errors()));
+    }
+    return text.toString();
+  }
+}
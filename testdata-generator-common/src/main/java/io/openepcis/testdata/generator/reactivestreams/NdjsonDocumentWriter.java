@@ -0,0 +1,87 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.openepcis.model.epcis.EPCISEvent;
+import io.openepcis.model.rest.ProblemResponseBody;
+import java.io.IOException;
+import org.jboss.resteasy.reactive.RestResponse;
+
+/**
+ * Writes one compact event per line (JSON Lines). The first line optionally carries the @context
+ * of the document, an error ends the output with a line holding the problemResponse.
+ */
+class NdjsonDocumentWriter extends JsonDocumentWriter {
+
+  private static final SerializedString LINE_SEPARATOR = new SerializedString("\n");
+
+  private final boolean header;
+
+  private boolean empty = true;
+
+  NdjsonDocumentWriter(
+      final JsonGenerator jsonGenerator,
+      final ObjectMapper objectMapper,
+      final boolean directJson,
+      final boolean header) {
+    // lines are always compact
+    super(jsonGenerator, objectMapper, directJson, false);
+    this.header = header;
+    // lines are root values, Jackson writes the separator in front of every root value but the
+    // first one
+    jsonGenerator.setRootValueSeparator(LINE_SEPARATOR);
+  }
+
+  @Override
+  public void writeHeader() throws IOException {
+    if (header) {
+      jsonGenerator.writeStartObject();
+      writeContext();
+      jsonGenerator.writeEndObject();
+      empty = false;
+    }
+  }
+
+  @Override
+  public void writeEvent(final EPCISEvent epcisEvent) throws IOException {
+    super.writeEvent(epcisEvent);
+    empty = false;
+  }
+
+  @Override
+  public void writeFooter() throws IOException {
+    if (!empty) {
+      jsonGenerator.writeRaw('\n');
+    }
+    jsonGenerator.flush();
+    jsonGenerator.close();
+  }
+
+  @Override
+  public void writeError(final Throwable t) throws IOException {
+    final ProblemResponseBody pb =
+        ProblemResponseBody.fromException(t, RestResponse.Status.BAD_REQUEST);
+    jsonGenerator.writeStartObject();
+    jsonGenerator.writeObjectField("problemResponse", pb);
+    jsonGenerator.writeEndObject();
+    jsonGenerator.writeRaw('\n');
+    jsonGenerator.flush();
+    jsonGenerator.close();
+  }
+}
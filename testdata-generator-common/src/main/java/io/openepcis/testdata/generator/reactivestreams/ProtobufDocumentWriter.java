@@ -0,0 +1,345 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.openepcis.model.epcis.EPCISEvent;
+import io.openepcis.model.rest.ProblemResponseBody;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import org.jboss.resteasy.reactive.RestResponse;
+
+/**
+ * Writes the events as length-delimited protobuf messages following the schema in {@code
+ * proto/epcis-event.proto}: every event is an {@code EPCISEventMessage} preceded by its size as
+ * varint, so the stream can be read with {@code parseDelimitedFrom}. There is no envelope, an
+ * error ends the stream with a message carrying the problem response.
+ *
+ * <p>The wire format is encoded directly from the JSON tree of the event, values are therefore the
+ * same as in the JSON-LD output. Fields without a typed counterpart in the schema are kept as JSON
+ * object in the extensions field.
+ */
+class ProtobufDocumentWriter implements EPCISDocumentWriter {
+
+  private static final int WIRE_TYPE_FIXED64 = 1;
+
+  private static final int WIRE_TYPE_LENGTH_DELIMITED = 2;
+
+  // field of the problem response in EPCISEventMessage
+  private static final int PROBLEM_RESPONSE = 15;
+
+  private static final int EXTENSIONS = 14;
+
+  // pending messages are passed on to the output once the buffer exceeds this size
+  private static final int FLUSH_THRESHOLD = 8192;
+
+  private enum Kind {
+    STRING,
+    STRINGS,
+    LOCATION,
+    QUANTITIES,
+    BIZ_TRANSACTIONS,
+    SOURCES,
+    DESTINATIONS,
+    PERSISTENT_DISPOSITION
+  }
+
+  private record Field(int number, Kind kind) {}
+
+  private record EventMessage(int number, Map<String, Field> fields) {}
+
+  private static final Map<String, Field> COMMON_FIELDS =
+      Map.ofEntries(
+          Map.entry("eventID", new Field(1, Kind.STRING)),
+          Map.entry("eventTime", new Field(2, Kind.STRING)),
+          Map.entry("recordTime", new Field(3, Kind.STRING)),
+          Map.entry("eventTimeZoneOffset", new Field(4, Kind.STRING)),
+          Map.entry("action", new Field(5, Kind.STRING)),
+          Map.entry("bizStep", new Field(6, Kind.STRING)),
+          Map.entry("disposition", new Field(7, Kind.STRING)),
+          Map.entry("readPoint", new Field(8, Kind.LOCATION)),
+          Map.entry("bizLocation", new Field(9, Kind.LOCATION)),
+          Map.entry("bizTransactionList", new Field(10, Kind.BIZ_TRANSACTIONS)),
+          Map.entry("sourceList", new Field(11, Kind.SOURCES)),
+          Map.entry("destinationList", new Field(12, Kind.DESTINATIONS)),
+          Map.entry("persistentDisposition", new Field(13, Kind.PERSISTENT_DISPOSITION)));
+
+  private static final Map<String, EventMessage> EVENT_MESSAGES =
+      Map.of(
+          "ObjectEvent",
+          new EventMessage(
+              1,
+              Map.of(
+                  "epcList", new Field(16, Kind.STRINGS),
+                  "quantityList", new Field(17, Kind.QUANTITIES))),
+          "AggregationEvent",
+          new EventMessage(
+              2,
+              Map.of(
+                  "parentID", new Field(16, Kind.STRING),
+                  "childEPCs", new Field(17, Kind.STRINGS),
+                  "childQuantityList", new Field(18, Kind.QUANTITIES))),
+          "TransactionEvent",
+          new EventMessage(
+              3,
+              Map.of(
+                  "parentID", new Field(16, Kind.STRING),
+                  "epcList", new Field(17, Kind.STRINGS),
+                  "quantityList", new Field(18, Kind.QUANTITIES))),
+          "TransformationEvent",
+          new EventMessage(
+              4,
+              Map.of(
+                  "inputEPCList", new Field(16, Kind.STRINGS),
+                  "inputQuantityList", new Field(17, Kind.QUANTITIES),
+                  "outputEPCList", new Field(18, Kind.STRINGS),
+                  "outputQuantityList", new Field(19, Kind.QUANTITIES),
+                  "transformationID", new Field(20, Kind.STRING))),
+          "AssociationEvent",
+          new EventMessage(
+              5,
+              Map.of(
+                  "parentID", new Field(16, Kind.STRING),
+                  "childEPCs", new Field(17, Kind.STRINGS),
+                  "childQuantityList", new Field(18, Kind.QUANTITIES))));
+
+  private final OutputStream outputStream;
+
+  private final ObjectMapper objectMapper;
+
+  // pending delimited messages
+  private final Buffer out = new Buffer();
+
+  // event message and the nested element currently encoded
+  private final Buffer event = new Buffer();
+
+  private final Buffer element = new Buffer();
+
+  ProtobufDocumentWriter(final OutputStream outputStream, final ObjectMapper objectMapper) {
+    this.outputStream = outputStream;
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  public void writeHeader() {
+    // a delimited stream has no header
+  }
+
+  @Override
+  public void writeEvent(final EPCISEvent epcisEvent) throws IOException {
+    final EPCISEvent processed =
+        StreamingEPCISDocumentOutput.isShouldRunJinjaTemplate()
+            ? JsonDocumentWriter.render(objectMapper, epcisEvent)
+            : epcisEvent;
+    final ObjectNode tree = objectMapper.valueToTree(processed);
+    final EventMessage message = EVENT_MESSAGES.get(tree.path("type").asText());
+    if (message == null) {
+      throw new IOException("Unsupported event type for protobuf output: " + tree.get("type"));
+    }
+
+    event.reset();
+    ObjectNode extensions = null;
+    for (Iterator<Map.Entry<String, JsonNode>> it = tree.fields(); it.hasNext(); ) {
+      final Map.Entry<String, JsonNode> entry = it.next();
+      final String name = entry.getKey();
+      if ("type".equals(name) || entry.getValue().isNull()) {
+        continue;
+      }
+      final Field field = COMMON_FIELDS.getOrDefault(name, message.fields().get(name));
+      if (field != null) {
+        writeField(field, entry.getValue());
+      } else {
+        if (extensions == null) {
+          extensions = objectMapper.createObjectNode();
+        }
+        extensions.set(name, entry.getValue());
+      }
+    }
+    if (extensions != null) {
+      event.string(EXTENSIONS, objectMapper.writeValueAsString(extensions));
+    }
+
+    writeDelimited(message.number(), event);
+  }
+
+  private void writeField(final Field field, final JsonNode value) {
+    switch (field.kind()) {
+      case STRING -> event.string(field.number(), value.asText());
+      case STRINGS -> {
+        for (JsonNode v : value) {
+          event.string(field.number(), v.asText());
+        }
+      }
+      case LOCATION -> {
+        if (value.hasNonNull("id")) {
+          event.string(field.number(), value.get("id").asText());
+        }
+      }
+      case QUANTITIES -> {
+        for (JsonNode v : value) {
+          element.reset();
+          stringIfPresent(v, "epcClass", 1);
+          if (v.hasNonNull("quantity")) {
+            element.fixed64(2, Double.doubleToRawLongBits(v.get("quantity").asDouble()));
+          }
+          stringIfPresent(v, "uom", 3);
+          event.message(field.number(), element);
+        }
+      }
+      case BIZ_TRANSACTIONS -> writePairs(field.number(), value, "bizTransaction");
+      case SOURCES -> writePairs(field.number(), value, "source");
+      case DESTINATIONS -> writePairs(field.number(), value, "destination");
+      case PERSISTENT_DISPOSITION -> {
+        element.reset();
+        for (JsonNode v : value.path("set")) {
+          element.string(1, v.asText());
+        }
+        for (JsonNode v : value.path("unset")) {
+          element.string(2, v.asText());
+        }
+        event.message(field.number(), element);
+      }
+    }
+  }
+
+  // typed vocabulary elements: type and value
+  private void writePairs(final int number, final JsonNode values, final String valueName) {
+    for (JsonNode v : values) {
+      element.reset();
+      stringIfPresent(v, "type", 1);
+      stringIfPresent(v, valueName, 2);
+      event.message(number, element);
+    }
+  }
+
+  private void stringIfPresent(final JsonNode node, final String name, final int number) {
+    if (node.hasNonNull(name)) {
+      element.string(number, node.get(name).asText());
+    }
+  }
+
+  // write the EPCISEventMessage with its size in front
+  private void writeDelimited(final int number, final Buffer message) throws IOException {
+    final int start = out.size;
+    out.message(number, message);
+    final int length = out.size - start;
+    // the size of the wrapper goes in front of it, shift the wrapper by the varint size
+    final int prefix = Buffer.varintSize(length);
+    out.ensure(prefix);
+    System.arraycopy(out.bytes, start, out.bytes, start + prefix, length);
+    out.size = start;
+    out.varint(length);
+    out.size = start + prefix + length;
+    if (out.size >= FLUSH_THRESHOLD) {
+      flushBuffer();
+    }
+  }
+
+  private void flushBuffer() throws IOException {
+    outputStream.write(out.bytes, 0, out.size);
+    out.reset();
+  }
+
+  @Override
+  public void writeFooter() throws IOException {
+    flushBuffer();
+    outputStream.flush();
+    outputStream.close();
+  }
+
+  @Override
+  public void writeError(final Throwable t) throws IOException {
+    final ProblemResponseBody pb =
+        ProblemResponseBody.fromException(t, RestResponse.Status.BAD_REQUEST);
+    // strings and messages share the wire type, the JSON is written as nested message
+    event.reset();
+    final byte[] json = objectMapper.writeValueAsBytes(pb);
+    event.write(json, 0, json.length);
+    writeDelimited(PROBLEM_RESPONSE, event);
+    writeFooter();
+  }
+
+  @Override
+  public long buffered() {
+    return out.size;
+  }
+
+  /** growable buffer with the protobuf wire encoding of the written fields */
+  static final class Buffer {
+    byte[] bytes = new byte[256];
+    int size;
+
+    void reset() {
+      size = 0;
+    }
+
+    void ensure(final int n) {
+      if (size + n > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, size + n));
+      }
+    }
+
+    void write(final byte[] b, final int off, final int len) {
+      ensure(len);
+      System.arraycopy(b, off, bytes, size, len);
+      size += len;
+    }
+
+    void varint(long value) {
+      ensure(10);
+      while ((value & ~0x7FL) != 0) {
+        bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      bytes[size++] = (byte) value;
+    }
+
+    void tag(final int number, final int wireType) {
+      varint(((long) number << 3) | wireType);
+    }
+
+    void string(final int number, final String value) {
+      final byte[] b = value.getBytes(StandardCharsets.UTF_8);
+      tag(number, WIRE_TYPE_LENGTH_DELIMITED);
+      varint(b.length);
+      write(b, 0, b.length);
+    }
+
+    void fixed64(final int number, final long value) {
+      tag(number, WIRE_TYPE_FIXED64);
+      ensure(8);
+      for (int i = 0; i < 8; i++) {
+        bytes[size++] = (byte) (value >>> (i << 3));
+      }
+    }
+
+    void message(final int number, final Buffer message) {
+      tag(number, WIRE_TYPE_LENGTH_DELIMITED);
+      varint(message.size);
+      write(message.bytes, 0, message.size);
+    }
+
+    static int varintSize(final long value) {
+      return value == 0 ? 1 : (63 - Long.numberOfLeadingZeros(value)) / 7 + 1;
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Demand window used by subscribers instead of requesting events one by one. Events are requested
+ * in windows which are replenished once three quarters of the current window have been consumed.
+ * If the maximum size is larger than the initial size the window adapts to the consumer: it
+ * doubles while a window is drained faster than 10ms and halves when draining takes longer than
+ * 100ms. Not thread-safe, must only be used from the serialized onSubscribe/onNext signals.
+ */
+class RequestWindow {
+
+  private static final long GROW_BELOW_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private static final long SHRINK_ABOVE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final int minSize;
+
+  private final int maxSize;
+
+  private final LongSupplier nanoTime;
+
+  private int size;
+
+  private int consumed;
+
+  private long windowStart;
+
+  RequestWindow(final int initialSize, final int maxSize) {
+    this(initialSize, maxSize, System::nanoTime);
+  }
+
+  /**
+   * @param initialSize initial and minimum window size
+   * @param maxSize maximum window size
+   * @param nanoTime clock measuring how long draining a window takes
+   */
+  RequestWindow(final int initialSize, final int maxSize, final LongSupplier nanoTime) {
+    this.nanoTime = nanoTime;
+    this.minSize = Math.max(1, initialSize);
+    this.maxSize = Math.max(this.minSize, maxSize);
+    this.size = this.minSize;
+  }
+
+  /**
+   * @return number of events to request when the subscription starts
+   */
+  long initial() {
+    consumed = 0;
+    windowStart = nanoTime.getAsLong();
+    return size;
+  }
+
+  /**
+   * account for one received event
+   *
+   * @return number of events to request now, 0 if the window does not need to be replenished
+   */
+  long next() {
+    consumed++;
+    if (consumed < size - (size >> 2)) {
+      return 0;
+    }
+    final int outstanding = size - consumed;
+    if (maxSize > minSize) {
+      final long elapsed = nanoTime.getAsLong() - windowStart;
+      if (elapsed < GROW_BELOW_NANOS) {
+        size = Math.min(maxSize, size << 1);
+      } else if (elapsed > SHRINK_ABOVE_NANOS) {
+        size = Math.max(minSize, size >> 1);
+      }
+    }
+    consumed = 0;
+    windowStart = nanoTime.getAsLong();
+    return Math.max(1, size - outstanding);
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import io.openepcis.model.epcis.EPCISEvent;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Splits the events of one generation run into consecutive documents of a directory. The current
+ * document is closed once it holds the configured number of events or bytes and the next one is
+ * opened with the same header, so every file is a complete document of its own. Files are named
+ * {@code prefix-00001.jsonld}, {@code prefix-00002.jsonld} and so on, with the extension of the
+ * format and compression.
+ */
+public class RollingEPCISDocumentOutput {
+
+  public static final String DEFAULT_PREFIX = "epcis";
+
+  private final StreamingEPCISDocumentOutput output;
+
+  private final Path directory;
+
+  private final String prefix;
+
+  private final long maxEvents;
+
+  private final long maxBytes;
+
+  private RollingEPCISDocumentOutput(
+      final StreamingEPCISDocumentOutput output,
+      final Path directory,
+      final String prefix,
+      final long maxEvents,
+      final long maxBytes) {
+    this.output = output;
+    this.directory = directory;
+    this.prefix = prefix;
+    this.maxEvents = maxEvents;
+    this.maxBytes = maxBytes;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * write all events of the document into as many files as needed
+   *
+   * @param streamingEPCISDocument events and document settings
+   * @return written files in order
+   * @throws IOException if a file could not be written
+   */
+  public List<Path> write(final StreamingEPCISDocument streamingEPCISDocument)
+      throws IOException {
+    return StreamingEPCISDocumentOutput.await(writeStage(streamingEPCISDocument));
+  }
+
+  /**
+   * write all events of the document into as many files as needed without blocking the
+   * subscribing thread
+   *
+   * @param streamingEPCISDocument events and document settings
+   * @return written files in order, once the last file has been closed
+   */
+  public Uni<List<Path>> writeAsync(final StreamingEPCISDocument streamingEPCISDocument) {
+    return Uni.createFrom().completionStage(() -> writeStage(streamingEPCISDocument));
+  }
+
+  private CompletionStage<List<Path>> writeStage(
+      final StreamingEPCISDocument streamingEPCISDocument) {
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+
+    // the event limit and timeout of the document apply to the whole run, its byte limit is
+    // replaced by the limits of each file
+    Multi<EPCISEvent> epcisEvents = streamingEPCISDocument.getEpcisEvents();
+    if (streamingEPCISDocument.getMaxEvents() > 0) {
+      epcisEvents = epcisEvents.select().first(streamingEPCISDocument.getMaxEvents());
+    }
+    if (streamingEPCISDocument.getTimeout() != null
+        && !streamingEPCISDocument.getTimeout().isZero()
+        && !streamingEPCISDocument.getTimeout().isNegative()) {
+      epcisEvents = epcisEvents.select().first(streamingEPCISDocument.getTimeout());
+    }
+
+    // only accessed by the writing thread, published through the completion
+    final List<Path> paths = new ArrayList<>();
+    final String extension =
+        output.getFormat().fileExtension(streamingEPCISDocument.getCompression());
+    final DocumentSource source =
+        new DocumentSource() {
+          DocumentBudget budget;
+
+          @Override
+          public EPCISDocumentWriter open() throws IOException {
+            final Path path =
+                directory.resolve(String.format("%s-%05d%s", prefix, paths.size() + 1, extension));
+            budget = new DocumentBudget(maxEvents, maxBytes, null);
+            final OutputStream outputStream = Files.newOutputStream(path);
+            paths.add(path);
+            try {
+              return output.createDocumentWriter(
+                  streamingEPCISDocument, budget, outputStream, null);
+            } catch (IOException e) {
+              outputStream.close();
+              throw e;
+            }
+          }
+
+          @Override
+          public DocumentBudget budget() {
+            return budget;
+          }
+
+          @Override
+          public boolean rolls() {
+            return true;
+          }
+        };
+    return output
+        .writeAsync(epcisEvents, source)
+        .thenApply(v -> Collections.unmodifiableList(paths));
+  }
+
+  public static class Builder {
+    private StreamingEPCISDocumentOutput output;
+    private Path directory;
+    private String prefix = DEFAULT_PREFIX;
+    private long maxEvents;
+    private long maxBytes;
+
+    Builder() {}
+
+    /**
+     * output settings of each file, built without an outputStream or writer
+     *
+     * @param output format, threading and compression settings
+     * @return builder
+     */
+    public Builder output(StreamingEPCISDocumentOutput output) {
+      this.output = output;
+      return this;
+    }
+
+    public Builder directory(Path directory) {
+      this.directory = directory;
+      return this;
+    }
+
+    public Builder prefix(String prefix) {
+      this.prefix = prefix;
+      return this;
+    }
+
+    /**
+     * number of events after which the next file is started, 0 for no limit
+     *
+     * @param maxEvents events per file
+     * @return builder
+     */
+    public Builder maxEvents(long maxEvents) {
+      this.maxEvents = maxEvents;
+      return this;
+    }
+
+    /**
+     * bytes (before compression) after which the next file is started, 0 for no limit. The file
+     * is closed after the event crossing the limit, so files are slightly larger.
+     *
+     * @param maxBytes bytes per file
+     * @return builder
+     */
+    public Builder maxBytes(long maxBytes) {
+      this.maxBytes = maxBytes;
+      return this;
+    }
+
+    public RollingEPCISDocumentOutput build() {
+      if (output == null || directory == null) {
+        throw new IllegalArgumentException("output and directory are required");
+      }
+      return new RollingEPCISDocumentOutput(output, directory, prefix, maxEvents, maxBytes);
+    }
+
+    public String toString() {
+      return "RollingEPCISDocumentOutput.Builder(output="
+          + this.output
+          + ", directory="
+          + this.directory
+          + ", prefix="
+          + this.prefix
+          + ", maxEvents="
+          + this.maxEvents
+          + ", maxBytes="
+          + this.maxBytes
+          + ")";
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import io.openepcis.model.epcis.EPCISEvent;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Collects the written events in batches and passes them on to an {@link EventSink}. */
+final class SinkDocumentWriter implements EPCISDocumentWriter {
+
+  private final EventSink sink;
+
+  private final StreamingEPCISDocument streamingEPCISDocument;
+
+  private final int batchSize;
+
+  private final List<EPCISEvent> batch;
+
+  SinkDocumentWriter(
+      final EventSink sink,
+      final StreamingEPCISDocument streamingEPCISDocument,
+      final int batchSize) {
+    this.sink = sink;
+    this.streamingEPCISDocument = streamingEPCISDocument;
+    this.batchSize = Math.max(1, batchSize);
+    this.batch = new ArrayList<>(this.batchSize);
+  }
+
+  @Override
+  public void writeHeader() throws IOException {
+    sink.open(streamingEPCISDocument);
+  }
+
+  @Override
+  public void writeEvent(final EPCISEvent epcisEvent) throws IOException {
+    batch.add(epcisEvent);
+    if (batch.size() == batchSize) {
+      flush();
+    }
+  }
+
+  private void flush() throws IOException {
+    try {
+      sink.accept(batch);
+    } catch (IOException | RuntimeException e) {
+      // generation is cancelled without an error signal, release the sink here
+      try {
+        sink.fail(e);
+      } catch (IOException | RuntimeException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw e;
+    }
+    batch.clear();
+  }
+
+  @Override
+  public void writeFooter() throws IOException {
+    if (!batch.isEmpty()) {
+      flush();
+    }
+    sink.close();
+  }
+
+  @Override
+  public void writeError(final Throwable t) throws IOException {
+    // the incomplete batch is dropped
+    batch.clear();
+    sink.fail(t);
+    throw new IOException("Event generation failed: " + t.getMessage(), t);
+  }
+
+  @Override
+  public long buffered() {
+    return 0;
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free bounded ring for exactly one producer and one consumer thread. The producer only
+ * writes the tail, the consumer only writes the head, both publish their position with ordered
+ * writes so no locks or CAS operations are needed.
+ *
+ * @param <E> element type
+ */
+class SpscRingBuffer<E> {
+
+  private final AtomicReferenceArray<E> buffer;
+
+  private final int mask;
+
+  // next position to read, only written by the consumer
+  private final AtomicLong head = new AtomicLong();
+
+  // next position to write, only written by the producer
+  private final AtomicLong tail = new AtomicLong();
+
+  SpscRingBuffer(final int capacity) {
+    final int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    this.buffer = new AtomicReferenceArray<>(size);
+    this.mask = size - 1;
+  }
+
+  int capacity() {
+    return mask + 1;
+  }
+
+  /**
+   * add an element, must only be called by the producer thread
+   *
+   * @param element element to add, must not be null
+   * @return false if the ring is full
+   */
+  boolean offer(final E element) {
+    final long t = tail.get();
+    if (t - head.get() > mask) {
+      return false;
+    }
+    buffer.lazySet((int) (t & mask), element);
+    tail.lazySet(t + 1);
+    return true;
+  }
+
+  /**
+   * remove the oldest element, must only be called by the consumer thread
+   *
+   * @return element or null if the ring is empty
+   */
+  E poll() {
+    final long h = head.get();
+    if (h >= tail.get()) {
+      return null;
+    }
+    final int index = (int) (h & mask);
+    final E element = buffer.get(index);
+    buffer.lazySet(index, null);
+    head.lazySet(h + 1);
+    return element;
+  }
+}
@@ -15,6 +15,7 @@
  */
 package io.openepcis.testdata.generator.reactivestreams;
 
+import io.openepcis.constants.EPCISVersion;
 import io.openepcis.model.epcis.EPCISEvent;
 import io.openepcis.testdata.generator.format.UserExtensionSyntax;
 import io.openepcis.testdata.generator.template.CustomContextUrl;
@@ -22,7 +23,9 @@ import io.openepcis.testdata.generator.template.EPCISEventType;
 import io.openepcis.testdata.generator.template.ObjectEventType;
 import io.openepcis.testdata.generator.template.TransformationEventType;
 import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -47,6 +50,24 @@ public class StreamingEPCISDocument {
   private Multi<EPCISEvent> epcisEvents;
   private boolean prettyPrint;
 
+  /** stop after this many events, 0 for no limit */
+  private long maxEvents;
+
+  /** stop once this many bytes (characters for a Writer) have been written, 0 for no limit */
+  private long maxBytes;
+
+  /** stop once writing took longer, null for no limit */
+  private Duration timeout;
+
+  /** schema version of XML output, EPCIS 2.0 unless set to EPCIS 1.2 */
+  private EPCISVersion epcisVersion = EPCISVersion.VERSION_2_0_0;
+
+  /** compression of the written bytes, only for OutputStream targets */
+  private Compression compression = Compression.NONE;
+
+  /** time taken to compile the input template of the events, null if not known */
+  private Duration compileTime;
+
   public static void storeContextInfo(final List<EPCISEventType> events) {
     // Empty the context list for the next event to store the namespaces corresponding to the event
     context = new HashMap<>();
@@ -121,4 +142,30 @@ public class StreamingEPCISDocument {
       throws IOException {
     fn.apply(StreamingEPCISDocumentOutput.writerBuilder()).write(this);
   }
+
+  /**
+   * write to OutputStream without blocking the subscribing thread
+   *
+   * @param fn builder reference
+   * @return completes once the document has been written
+   */
+  public Uni<Void> writeToOutputStreamAsync(
+      Function<StreamingEPCISDocumentOutput.OutputStreamBuilder, StreamingEPCISDocumentOutput> fn) {
+    return Uni.createFrom()
+        .completionStage(
+            () -> fn.apply(StreamingEPCISDocumentOutput.outputStreamBuilder()).writeAsync(this));
+  }
+
+  /**
+   * write to Writer without blocking the subscribing thread
+   *
+   * @param fn builder reference
+   * @return completes once the document has been written
+   */
+  public Uni<Void> writeToWriterAsync(
+      Function<StreamingEPCISDocumentOutput.WriterBuilder, StreamingEPCISDocumentOutput> fn) {
+    return Uni.createFrom()
+        .completionStage(
+            () -> fn.apply(StreamingEPCISDocumentOutput.writerBuilder()).writeAsync(this));
+  }
 }
@@ -19,32 +19,57 @@ import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
-import com.hubspot.jinjava.Jinjava;
-import io.openepcis.constants.EPCIS;
-import io.openepcis.constants.EPCISVersion;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import io.openepcis.model.epcis.EPCISEvent;
-import io.openepcis.model.rest.ProblemResponseBody;
 import io.openepcis.testdata.generator.constants.TestDataGeneratorException;
 import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.Writer;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Flow;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import lombok.Getter;
 import lombok.Setter;
-import org.apache.commons.collections4.CollectionUtils;
-import org.jboss.resteasy.reactive.RestResponse;
 
 public class StreamingEPCISDocumentOutput {
 
+  /** request events one by one unless a larger window has been configured */
+  public static final int DEFAULT_REQUEST_WINDOW = 1;
+
+  /** generation and writing run in lock-step on the same thread unless a ring size is set */
+  public static final int DEFAULT_RING_SIZE = 0;
+
   private final Executor executor;
 
+  private final int requestWindow;
+
+  private final int maxRequestWindow;
+
+  private final int ringSize;
+
+  private final WaitStrategy waitStrategy;
+
+  private final boolean virtualThreads;
+
+  private final boolean directJson;
+
+  private final EPCISDocumentFormat format;
+
+  private final boolean ndjsonHeader;
+
+  private final int compressionLevel;
+
+  private final boolean compressionWorker;
+
   private final ObjectMapper objectMapper;
 
   private final OutputStream outputStream;
@@ -53,9 +78,9 @@ public class StreamingEPCISDocumentOutput {
 
   private static final JsonFactory JSON_FACTORY = new JsonFactory();
 
-  private static final DateTimeFormatter DATE_TIME_FORMATTER =
-      DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SS'Z'");
-  private static final Jinjava jinjava = new Jinjava();
+  private static final JsonFactory CBOR_FACTORY = new CBORFactory();
+
+  private static final JsonFactory SMILE_FACTORY = new SmileFactory();
 
   @Getter @Setter private static boolean shouldRunJinjaTemplate = false;
 
@@ -63,21 +88,132 @@ public class StreamingEPCISDocumentOutput {
       final Executor executor,
       final ObjectMapper objectMapper,
       final OutputStream outputStream,
-      final Writer writer) {
-    this.executor = executor;
-    this.objectMapper = objectMapper.copy();
+      final Writer writer,
+      final int requestWindow,
+      final int maxRequestWindow,
+      final int ringSize,
+      final WaitStrategy waitStrategy,
+      final boolean virtualThreads,
+      final boolean directJson,
+      final EPCISDocumentFormat format,
+      final boolean ndjsonHeader,
+      final int compressionLevel,
+      final boolean compressionWorker) {
+    this.directJson = directJson;
+    this.format = format != null ? format : EPCISDocumentFormat.JSON_LD;
+    this.ndjsonHeader = ndjsonHeader;
+    this.compressionLevel = compressionLevel;
+    this.compressionWorker = compressionWorker;
+    // generation never runs on the thread subscribing to the document
+    this.executor =
+        executor != null
+            ? executor
+            : virtualThreads ? VirtualThreads.executor() : Infrastructure.getDefaultWorkerPool();
+    this.virtualThreads = virtualThreads;
+    // pretty printing is decided per document writer, never on the mapper shared by them
+    this.objectMapper = objectMapper.copy().disable(SerializationFeature.INDENT_OUTPUT);
     this.outputStream = outputStream;
     this.writer = writer;
+    this.requestWindow = requestWindow;
+    this.maxRequestWindow = maxRequestWindow;
+    this.ringSize = ringSize;
+    this.waitStrategy = waitStrategy != null ? waitStrategy : WaitStrategy.PARK;
   }
 
   StreamingEPCISDocumentOutput(
-      final Executor executor, final ObjectMapper objectMapper, final OutputStream outputStream) {
-    this(executor, objectMapper, outputStream, null);
+      final Executor executor,
+      final ObjectMapper objectMapper,
+      final OutputStream outputStream,
+      final int requestWindow,
+      final int maxRequestWindow,
+      final int ringSize,
+      final WaitStrategy waitStrategy,
+      final boolean virtualThreads,
+      final boolean directJson,
+      final EPCISDocumentFormat format,
+      final boolean ndjsonHeader,
+      final int compressionLevel,
+      final boolean compressionWorker) {
+    this(
+        executor,
+        objectMapper,
+        outputStream,
+        null,
+        requestWindow,
+        maxRequestWindow,
+        ringSize,
+        waitStrategy,
+        virtualThreads,
+        directJson,
+        format,
+        ndjsonHeader,
+        compressionLevel,
+        compressionWorker);
   }
 
   StreamingEPCISDocumentOutput(
-      final Executor executor, final ObjectMapper objectMapper, final Writer writer) {
-    this(executor, objectMapper, null, writer);
+      final Executor executor,
+      final ObjectMapper objectMapper,
+      final Writer writer,
+      final int requestWindow,
+      final int maxRequestWindow,
+      final int ringSize,
+      final WaitStrategy waitStrategy,
+      final boolean virtualThreads,
+      final boolean directJson,
+      final EPCISDocumentFormat format,
+      final boolean ndjsonHeader,
+      final int compressionLevel,
+      final boolean compressionWorker) {
+    this(
+        executor,
+        objectMapper,
+        null,
+        writer,
+        requestWindow,
+        maxRequestWindow,
+        ringSize,
+        waitStrategy,
+        virtualThreads,
+        directJson,
+        format,
+        ndjsonHeader,
+        compressionLevel,
+        compressionWorker);
+  }
+
+  EPCISDocumentFormat getFormat() {
+    return format;
+  }
+
+  ObjectMapper getObjectMapper() {
+    return objectMapper;
+  }
+
+  boolean isVirtualThreads() {
+    return virtualThreads;
+  }
+
+  /**
+   * @param format format of the copy
+   * @return copy writing the given format with the same settings, without outputStream or writer
+   */
+  StreamingEPCISDocumentOutput withFormat(final EPCISDocumentFormat format) {
+    return new StreamingEPCISDocumentOutput(
+        executor,
+        objectMapper,
+        null,
+        null,
+        requestWindow,
+        maxRequestWindow,
+        ringSize,
+        waitStrategy,
+        virtualThreads,
+        directJson,
+        format,
+        ndjsonHeader,
+        compressionLevel,
+        compressionWorker);
   }
 
   public static OutputStreamBuilder outputStreamBuilder() {
@@ -88,192 +224,327 @@ public class StreamingEPCISDocumentOutput {
     return new WriterBuilder();
   }
 
-  private JsonGenerator createJsonGenerator() throws IOException {
+  private JsonGenerator createJsonGenerator(
+      final JsonFactory jsonFactory, final OutputStream out, final Writer w) throws IOException {
     final JsonGenerator jsonGenerator =
-        outputStream != null
-            ? JSON_FACTORY.createGenerator(outputStream)
-            : JSON_FACTORY.createGenerator(writer);
+        out != null ? jsonFactory.createGenerator(out) : jsonFactory.createGenerator(w);
     jsonGenerator.setCodec(objectMapper);
     return jsonGenerator;
   }
 
-  void write(final StreamingEPCISDocument streamingEPCISDocument) throws IOException {
-    // If user requested for pretty print of EPCIS document then add the pretty print
-    if (streamingEPCISDocument.isPrettyPrint()) {
-      objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
-    } else {
-      objectMapper.disable(SerializationFeature.INDENT_OUTPUT);
+  // the budget counts the bytes before compression
+  private OutputStream createOutputStream(
+      final OutputStream target, final Compression compression, final DocumentBudget budget)
+      throws IOException {
+    if (compression == Compression.NONE) {
+      return budget.count(target);
+    }
+    final OutputStream compressor = compression.compress(target, compressionLevel);
+    return budget.count(
+        compressionWorker ? new CompressorOutputStream(compressor, virtualThreads) : compressor);
+  }
+
+  /**
+   * create the writer of one document
+   *
+   * @param streamingEPCISDocument document settings
+   * @param budget limits of the document, counts the written bytes
+   * @param outputStream target of the document, null if written to writer
+   * @param writer target of the document, null if written to outputStream
+   * @return writer of the document
+   * @throws IOException if the format can not be written to the target
+   */
+  EPCISDocumentWriter createDocumentWriter(
+      final StreamingEPCISDocument streamingEPCISDocument,
+      final DocumentBudget budget,
+      final OutputStream outputStream,
+      final Writer writer)
+      throws IOException {
+    final Compression compression =
+        streamingEPCISDocument.getCompression() != null
+            ? streamingEPCISDocument.getCompression()
+            : Compression.NONE;
+    if ((format.isBinary() || compression != Compression.NONE) && outputStream == null) {
+      throw new IOException(
+          format + " output with " + compression + " compression requires an OutputStream");
     }
+    final OutputStream out =
+        outputStream != null
+            ? createOutputStream(
+                outputStream, format.isBlockCompressed() ? Compression.NONE : compression, budget)
+            : null;
+    final Writer w = writer != null ? budget.count(writer) : null;
+    // JSON Lines and binary formats are always compact
+    final boolean prettyPrint = streamingEPCISDocument.isPrettyPrint() && format.isIndentable();
+    return switch (format) {
+      case JSON_LD ->
+          new JsonLdDocumentWriter(
+              createJsonGenerator(JSON_FACTORY, out, w), objectMapper, directJson, prettyPrint);
+      case NDJSON ->
+          new NdjsonDocumentWriter(
+              createJsonGenerator(JSON_FACTORY, out, w), objectMapper, directJson, ndjsonHeader);
+      case XML ->
+          out != null
+              ? new XmlDocumentWriter(out, objectMapper, streamingEPCISDocument.getEpcisVersion())
+              : new XmlDocumentWriter(w, objectMapper, streamingEPCISDocument.getEpcisVersion());
+      case CBOR ->
+          new JsonLdDocumentWriter(
+              createJsonGenerator(CBOR_FACTORY, out, w), objectMapper, directJson, false);
+      case SMILE ->
+          new JsonLdDocumentWriter(
+              createJsonGenerator(SMILE_FACTORY, out, w), objectMapper, directJson, false);
+      case PROTOBUF -> new ProtobufDocumentWriter(out, objectMapper);
+      case AVRO -> new AvroDocumentWriter(out, objectMapper, compression, compressionLevel);
+    };
+  }
 
-    final AtomicBoolean running = new AtomicBoolean(true);
+  void write(final StreamingEPCISDocument streamingEPCISDocument) throws IOException {
+    await(writeAsync(streamingEPCISDocument));
+  }
 
-    Multi<EPCISEvent> epcisEventMulti = streamingEPCISDocument.getEpcisEvents();
-    if (executor != null) {
-      epcisEventMulti = epcisEventMulti.runSubscriptionOn(executor);
+  // wait for the written document, IO and runtime failures are rethrown unwrapped
+  static <T> T await(final CompletionStage<T> completionStage) throws IOException {
+    try {
+      return completionStage.toCompletableFuture().get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while writing EPCIS document");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException ioException) {
+        throw ioException;
+      }
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new TestDataGeneratorException(
+          "Exception occurred during EPCIS document creation: " + e.getCause().getMessage(),
+          e.getCause());
     }
-    epcisEventMulti.subscribe().withSubscriber(createSubscriber(createJsonGenerator(), running));
+  }
 
-    while (running.get()) {
-      Thread.yield();
+  /**
+   * write the document without blocking the calling thread, events are generated on the
+   * configured executor
+   *
+   * @param streamingEPCISDocument document to write
+   * @return completes once the document has been written and the output closed
+   */
+  CompletionStage<Void> writeAsync(final StreamingEPCISDocument streamingEPCISDocument) {
+    final DocumentSource source;
+    try {
+      final DocumentBudget budget = DocumentBudget.of(streamingEPCISDocument);
+      source =
+          DocumentSource.single(
+              createDocumentWriter(streamingEPCISDocument, budget, outputStream, writer), budget);
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(e);
     }
+    return writeAsync(streamingEPCISDocument.getEpcisEvents(), source);
+  }
+
+  /**
+   * write the events into the documents of the source without blocking the calling thread
+   *
+   * @param epcisEvents events to write
+   * @param source documents receiving the events
+   * @return completes once the last document has been written and its output closed, cancelling
+   *     it stops generating events
+   */
+  CompletionStage<Void> writeAsync(
+      final Multi<EPCISEvent> epcisEvents, final DocumentSource source) {
+    final CompletableFuture<Void> completion = new CompletableFuture<>();
+    final Flow.Subscriber<EPCISEvent> subscriber = createSubscriber(source, completion);
+
+    // hand events over to a dedicated writer thread so generation and serialization overlap
+    epcisEvents
+        .runSubscriptionOn(executor)
+        .subscribe()
+        .withSubscriber(
+            ringSize > 0
+                ? new HandoffSubscriber(subscriber, ringSize, waitStrategy, virtualThreads)
+                : subscriber);
+    return completion;
   }
 
   public Flow.Subscriber<EPCISEvent> createSubscriber(
       final JsonGenerator jsonGenerator, final AtomicBoolean running) {
+    final CompletableFuture<Void> completion = new CompletableFuture<>();
+    completion.whenComplete((v, t) -> running.set(false));
+    return createSubscriber(jsonGenerator, completion);
+  }
+
+  /**
+   * create the subscriber writing the EPCIS document
+   *
+   * @param jsonGenerator generator of the document, the document is pretty printed if a pretty
+   *     printer has been set on the generator
+   * @param completion completed once the document has been written, exceptionally if writing
+   *     failed
+   * @return subscriber
+   */
+  public Flow.Subscriber<EPCISEvent> createSubscriber(
+      final JsonGenerator jsonGenerator, final CompletableFuture<Void> completion) {
+    return createSubscriber(
+        DocumentSource.single(
+            new JsonLdDocumentWriter(jsonGenerator, objectMapper, directJson, false),
+            new DocumentBudget(0, 0, null)),
+        completion);
+  }
+
+  private Flow.Subscriber<EPCISEvent> createSubscriber(
+      final DocumentSource source, final CompletableFuture<Void> completion) {
     return new Flow.Subscriber<>() {
       final AtomicReference<Flow.Subscription> refSubscription = new AtomicReference<>();
 
-      @Override
-      public void onSubscribe(Flow.Subscription s) {
-        refSubscription.set(s);
-
-        try {
+      // set once the document has been closed, late signals after a cancel are ignored
+      boolean done = false;
 
-          // create Outermost JsonObject
-          jsonGenerator.writeStartObject();
-
-          // Write the info related to Context element in JSON
-          jsonGenerator.writeFieldName(EPCIS.CONTEXT);
-          jsonGenerator.writeStartArray();
-
-          // Adds all selected context URLs to the EPCIS document's @context array.
-          if (CollectionUtils.isNotEmpty(StreamingEPCISDocument.getSelectedContextUrls())) {
-            StreamingEPCISDocument.getSelectedContextUrls()
-                .forEach(
-                    url -> {
-                      try {
-                        jsonGenerator.writeString(url);
-                      } catch (IOException e) {
-                        throw new TestDataGeneratorException(
-                            "Failed to write context URL: " + url, e);
-                      }
-                    });
-          }
+      // current document, null between two documents of a rolling source
+      EPCISDocumentWriter documentWriter;
 
-          // If context contains any values then add them to context array
-          if (StreamingEPCISDocument.getContext() != null
-              && !StreamingEPCISDocument.getContext().isEmpty()) {
-            StreamingEPCISDocument.getContext()
-                .forEach(
-                    (key, value) -> {
-                      try {
-                        jsonGenerator.writeStartObject();
-                        jsonGenerator.writeStringField(key, value);
-                        jsonGenerator.writeEndObject();
-                      } catch (IOException ex) {
-                        throw new TestDataGeneratorException(
-                            "Exception occurred during EPCIS document creation: Error occurred during the addition of Namespaces: "
-                                + ex.getMessage(),
-                            ex);
-                      }
-                    });
-          }
+      DocumentBudget budget;
 
-          jsonGenerator.writeString(EPCISVersion.getDefaultJSONContext());
+      final RequestWindow window = new RequestWindow(requestWindow, maxRequestWindow);
 
-          jsonGenerator.writeEndArray(); // end context array
+      void open() throws IOException {
+        documentWriter = source.open();
+        budget = source.budget();
+        documentWriter.writeHeader();
+      }
 
-          // Write Other header fields of JSON
-          jsonGenerator.writeStringField("type", "EPCISDocument");
-          jsonGenerator.writeStringField("schemaVersion", "2.0");
-          jsonGenerator.writeStringField(
-              "creationDate", DATE_TIME_FORMATTER.format(ZonedDateTime.now()));
+      // signals are serialized with the cancellation of the caller, which may arrive on any thread
+      synchronized void cancelled() {
+        if (done) {
+          return;
+        }
+        done = true;
+        refSubscription.get().cancel();
+        if (documentWriter != null) {
+          // release the threads, connections and streams of the writer, the document stays
+          // unfinished
+          try {
+            documentWriter.writeError(new CancellationException("EPCIS document cancelled"));
+          } catch (Exception ex) {
+            // the caller is no longer interested in the document
+          }
+          documentWriter = null;
+        }
+      }
 
-          // Start epcisBody object
-          jsonGenerator.writeFieldName("epcisBody");
-          jsonGenerator.writeStartObject();
+      @Override
+      public synchronized void onSubscribe(Flow.Subscription s) {
+        refSubscription.set(s);
 
-          // Start eventList
-          jsonGenerator.writeFieldName("eventList");
-          jsonGenerator.writeStartArray();
-          refSubscription.get().request(1L);
+        try {
+          open();
+          refSubscription.get().request(window.initial());
+          // an idle generator never signals again, the cancellation is observed directly
+          completion.whenComplete(
+              (v, t) -> {
+                if (completion.isCancelled()) {
+                  cancelled();
+                }
+              });
         } catch (Exception ex) {
           refSubscription.get().cancel();
-          running.set(false);
-          throw new TestDataGeneratorException(
-              "Exception occurred during EPCIS document creation: adding the header for EPCIS document failed "
-                  + ex.getMessage(),
-              ex);
+          final TestDataGeneratorException failure =
+              new TestDataGeneratorException(
+                  "Exception occurred during EPCIS document creation: adding the header for EPCIS document failed "
+                      + ex.getMessage(),
+                  ex);
+          completion.completeExceptionally(failure);
+          throw failure;
         }
       }
 
       @Override
-      public void onNext(EPCISEvent epcisEvent) {
+      public synchronized void onNext(EPCISEvent epcisEvent) {
+        if (done) {
+          return;
+        }
+        if (completion.isCancelled()) {
+          // cancelled by the caller, stop generating and leave the document unfinished
+          cancelled();
+          return;
+        }
         try {
-          // Detect if the event needs to be run through Jinja render to convert expression to value
-          if (!shouldRunJinjaTemplate) {
-            // If no need to run via Jinja template then directly add
-            jsonGenerator.writeObject(epcisEvent);
-          } else {
-            // Extract context directly from the EPCISEvent object
-            final Map<String, Object> context = objectMapper.convertValue(epcisEvent, Map.class);
-
-            // Apply Jinja processing directly on JSON representation
-            final String processedJsonString =
-                jinjava.render(objectMapper.writeValueAsString(context), context);
-
-            // Convert back to EPCISEvent
-            final EPCISEvent processedEvent =
-                objectMapper.readValue(processedJsonString, EPCISEvent.class);
-
-            // Write processed event
-            jsonGenerator.writeObject(processedEvent);
-
-            // Reset flag to prevent reprocessing
-            shouldRunJinjaTemplate = false;
+          // the next document is opened with its first event, so no empty document is written
+          // when the events end with a full document
+          if (documentWriter == null) {
+            open();
+          }
+          documentWriter.writeEvent(epcisEvent);
+          if (budget.isLimited() && budget.next(documentWriter.buffered())) {
+            if (!source.rolls()) {
+              // limit reached, stop generating and close the document as if it was complete
+              refSubscription.get().cancel();
+              onComplete();
+              return;
+            }
+            // close the document and continue with the next one
+            documentWriter.writeFooter();
+            documentWriter = null;
+          }
+          final long n = window.next();
+          if (n > 0) {
+            refSubscription.get().request(n);
           }
-          refSubscription.get().request(1L);
         } catch (IOException ex) {
+          // most likely the client went away, stop generating
+          done = true;
           refSubscription.get().cancel();
-          running.set(false);
-          throw new TestDataGeneratorException(
-              "Exception occurred during EPCIS document wrapper creation: addition of EPCIS event to eventsList failed "
-                  + ex.getMessage(),
-              ex);
+          final TestDataGeneratorException failure =
+              new TestDataGeneratorException(
+                  "Exception occurred during EPCIS document wrapper creation: addition of EPCIS event to eventsList failed "
+                      + ex.getMessage(),
+                  ex);
+          completion.completeExceptionally(failure);
+          throw failure;
         }
       }
 
       @Override
-      public void onError(Throwable t) {
+      public synchronized void onError(Throwable t) {
+        if (done) {
+          return;
+        }
+        done = true;
         try {
-          jsonGenerator.writeEndArray(); // End the eventList array
-          jsonGenerator.writeEndObject(); // End epcisBody
-
-          // If there is error then add the error message to JSON
-          final ProblemResponseBody pb =
-              ProblemResponseBody.fromException(t, RestResponse.Status.BAD_REQUEST);
-          jsonGenerator.writeObjectField("problemResponse", pb);
-
-          jsonGenerator.writeEndObject(); // End whole json file
-
-          jsonGenerator.flush(); // flush
-          jsonGenerator.close();
+          if (documentWriter == null) {
+            open();
+          }
+          documentWriter.writeError(t);
+          completion.complete(null);
         } catch (IOException ex) {
-          throw new TestDataGeneratorException(
-              "Exception occurred during EPCIS document wrapper creation : creation of EPCIS document failed "
-                  + ex.getMessage(),
-              ex);
-        } finally {
-          running.set(false);
+          final TestDataGeneratorException failure =
+              new TestDataGeneratorException(
+                  "Exception occurred during EPCIS document wrapper creation : creation of EPCIS document failed "
+                      + ex.getMessage(),
+                  ex);
+          completion.completeExceptionally(failure);
+          throw failure;
         }
       }
 
       @Override
-      public void onComplete() {
+      public synchronized void onComplete() {
+        if (done) {
+          return;
+        }
+        done = true;
         try {
-          jsonGenerator.writeEndArray(); // End the eventList array
-          jsonGenerator.writeEndObject(); // End epcisBody
-          jsonGenerator.writeEndObject(); // End whole json file
-
-          jsonGenerator.flush();
-          jsonGenerator.close();
+          if (documentWriter != null) {
+            documentWriter.writeFooter();
+          }
+          completion.complete(null);
         } catch (IOException ex) {
-          throw new TestDataGeneratorException(
-              "Exception occurred during EPCIS document creation: completion of document failed  "
-                  + ex.getMessage(),
-              ex);
-        } finally {
-          running.set(false);
+          final TestDataGeneratorException failure =
+              new TestDataGeneratorException(
+                  "Exception occurred during EPCIS document creation: completion of document failed  "
+                      + ex.getMessage(),
+                  ex);
+          completion.completeExceptionally(failure);
+          throw failure;
         }
       }
     };
@@ -282,10 +553,28 @@ public class StreamingEPCISDocumentOutput {
   public static class OutputStreamBuilder {
     private Executor executor;
     private ObjectMapper objectMapper;
+    private int requestWindow = DEFAULT_REQUEST_WINDOW;
+    private int maxRequestWindow = DEFAULT_REQUEST_WINDOW;
+    private int ringSize = DEFAULT_RING_SIZE;
+    private WaitStrategy waitStrategy = WaitStrategy.PARK;
+    private boolean virtualThreads;
+    private boolean directJson;
+    private EPCISDocumentFormat format = EPCISDocumentFormat.JSON_LD;
+    private boolean ndjsonHeader = true;
+    private int compressionLevel = Compression.DEFAULT_LEVEL;
+    private boolean compressionWorker = true;
     private OutputStream outputStream;
 
     OutputStreamBuilder() {}
 
+    /**
+     * executor generating the events, asynchronous writes never generate on the subscribing
+     * thread. Defaults to the virtual thread executor if {@link #virtualThreads(boolean)} is set,
+     * to the Mutiny worker pool otherwise.
+     *
+     * @param executor executor generating the events
+     * @return builder
+     */
     public OutputStreamBuilder executor(Executor executor) {
       this.executor = executor;
       return this;
@@ -296,13 +585,148 @@ public class StreamingEPCISDocumentOutput {
       return this;
     }
 
+    /**
+     * number of events requested at once from the event publisher
+     *
+     * @param requestWindow initial demand window, defaults to {@link
+     *     StreamingEPCISDocumentOutput#DEFAULT_REQUEST_WINDOW}
+     * @return builder
+     */
+    public OutputStreamBuilder requestWindow(int requestWindow) {
+      this.requestWindow = requestWindow;
+      return this;
+    }
+
+    /**
+     * upper bound for an adaptive demand window, the window grows towards this size while the
+     * consumer keeps up and shrinks again for slow consumers
+     *
+     * @param maxRequestWindow maximum demand window, fixed window if not larger than requestWindow
+     * @return builder
+     */
+    public OutputStreamBuilder maxRequestWindow(int maxRequestWindow) {
+      this.maxRequestWindow = maxRequestWindow;
+      return this;
+    }
+
+    /**
+     * size of the lock-free ring between the generating thread and a dedicated writer thread
+     *
+     * @param ringSize number of events buffered (rounded up to a power of two), defaults to {@link
+     *     StreamingEPCISDocumentOutput#DEFAULT_RING_SIZE} which writes on the generating thread
+     * @return builder
+     */
+    public OutputStreamBuilder ringSize(int ringSize) {
+      this.ringSize = ringSize;
+      return this;
+    }
+
+    /**
+     * how the writer thread waits on an empty ring, the generating thread never waits since no
+     * more events are requested than the ring holds
+     *
+     * @param waitStrategy wait strategy, defaults to {@link WaitStrategy#PARK}
+     * @return builder
+     */
+    public OutputStreamBuilder waitStrategy(WaitStrategy waitStrategy) {
+      this.waitStrategy = waitStrategy;
+      return this;
+    }
+
+    /**
+     * generate and write on virtual threads, blocking writes to slow sockets or files then do not
+     * hold a platform thread. Virtual threads need Java 21 or later, on Java 17 this falls back to
+     * daemon platform threads. An explicitly configured executor takes precedence for generation.
+     *
+     * @param virtualThreads true to run generation and the writer thread on virtual threads
+     * @return builder
+     */
+    public OutputStreamBuilder virtualThreads(boolean virtualThreads) {
+      this.virtualThreads = virtualThreads;
+      return this;
+    }
+
+    /**
+     * write the generated events field by field instead of serializing them through databind,
+     * events which are not supported by {@link EPCISEventJsonWriter} are serialized as before. The
+     * events are created the same way in both cases. Without pretty printing, fields which are the
+     * same for all events of a node are written as pre-serialized fragments
+     *
+     * @param directJson true to write events directly
+     * @return builder
+     */
+    public OutputStreamBuilder directJson(boolean directJson) {
+      this.directJson = directJson;
+      return this;
+    }
+
+    /**
+     * format of the written documents
+     *
+     * @param format document format, defaults to {@link EPCISDocumentFormat#JSON_LD}
+     * @return builder
+     */
+    public OutputStreamBuilder format(EPCISDocumentFormat format) {
+      this.format = format;
+      return this;
+    }
+
+    /**
+     * start {@link EPCISDocumentFormat#NDJSON} output with a line holding the @context of the
+     * document, the other formats always carry it
+     *
+     * @param ndjsonHeader false to write event lines only, defaults to true
+     * @return builder
+     */
+    public OutputStreamBuilder ndjsonHeader(boolean ndjsonHeader) {
+      this.ndjsonHeader = ndjsonHeader;
+      return this;
+    }
+
+    /**
+     * compression level used for the {@link Compression} requested by the document
+     *
+     * @param compressionLevel level of the codec (gzip 1-9, zstd 1-22), defaults to {@link
+     *     Compression#DEFAULT_LEVEL}
+     * @return builder
+     */
+    public OutputStreamBuilder compressionLevel(int compressionLevel) {
+      this.compressionLevel = compressionLevel;
+      return this;
+    }
+
+    /**
+     * compress on a worker thread in parallel to generating and serializing the events instead of
+     * on the writing thread
+     *
+     * @param compressionWorker false to compress on the writing thread, defaults to true
+     * @return builder
+     */
+    public OutputStreamBuilder compressionWorker(boolean compressionWorker) {
+      this.compressionWorker = compressionWorker;
+      return this;
+    }
+
     public OutputStreamBuilder outputStream(OutputStream outputStream) {
       this.outputStream = outputStream;
       return this;
     }
 
     public StreamingEPCISDocumentOutput build() {
-      return new StreamingEPCISDocumentOutput(executor, objectMapper, outputStream);
+      return new StreamingEPCISDocumentOutput(
+          executor,
+          objectMapper,
+          outputStream,
+          requestWindow,
+          maxRequestWindow,
+          ringSize,
+          waitStrategy,
+          virtualThreads,
+          directJson,
+          format,
+          ndjsonHeader,
+          compressionLevel,
+          compressionWorker);
     }
 
     public String toString() {
@@ -310,6 +734,26 @@ public class StreamingEPCISDocumentOutput {
           + this.executor
           + ", objectMapper="
           + this.objectMapper
+          + ", requestWindow="
+          + this.requestWindow
+          + ", maxRequestWindow="
+          + this.maxRequestWindow
+          + ", ringSize="
+          + this.ringSize
+          + ", waitStrategy="
+          + this.waitStrategy
+          + ", virtualThreads="
+          + this.virtualThreads
+          + ", directJson="
+          + this.directJson
+          + ", format="
+          + this.format
+          + ", ndjsonHeader="
+          + this.ndjsonHeader
+          + ", compressionLevel="
+          + this.compressionLevel
+          + ", compressionWorker="
+          + this.compressionWorker
           + ", outputStream="
           + this.outputStream
           + ")";
@@ -319,10 +763,26 @@ public class StreamingEPCISDocumentOutput {
   public static class WriterBuilder {
     private Executor executor;
     private ObjectMapper objectMapper;
+    private int requestWindow = DEFAULT_REQUEST_WINDOW;
+    private int maxRequestWindow = DEFAULT_REQUEST_WINDOW;
+    private int ringSize = DEFAULT_RING_SIZE;
+    private WaitStrategy waitStrategy = WaitStrategy.PARK;
+    private boolean virtualThreads;
+    private boolean directJson;
+    private EPCISDocumentFormat format = EPCISDocumentFormat.JSON_LD;
+    private boolean ndjsonHeader = true;
     private Writer writer;
 
     WriterBuilder() {}
 
+    /**
+     * executor generating the events, asynchronous writes never generate on the subscribing
+     * thread. Defaults to the virtual thread executor if {@link #virtualThreads(boolean)} is set,
+     * to the Mutiny worker pool otherwise.
+     *
+     * @param executor executor generating the events
+     * @return builder
+     */
     public WriterBuilder executor(Executor executor) {
       this.executor = executor;
       return this;
@@ -333,13 +793,125 @@ public class StreamingEPCISDocumentOutput {
       return this;
     }
 
+    /**
+     * number of events requested at once from the event publisher
+     *
+     * @param requestWindow initial demand window, defaults to {@link
+     *     StreamingEPCISDocumentOutput#DEFAULT_REQUEST_WINDOW}
+     * @return builder
+     */
+    public WriterBuilder requestWindow(int requestWindow) {
+      this.requestWindow = requestWindow;
+      return this;
+    }
+
+    /**
+     * upper bound for an adaptive demand window, the window grows towards this size while the
+     * consumer keeps up and shrinks again for slow consumers
+     *
+     * @param maxRequestWindow maximum demand window, fixed window if not larger than requestWindow
+     * @return builder
+     */
+    public WriterBuilder maxRequestWindow(int maxRequestWindow) {
+      this.maxRequestWindow = maxRequestWindow;
+      return this;
+    }
+
+    /**
+     * size of the lock-free ring between the generating thread and a dedicated writer thread
+     *
+     * @param ringSize number of events buffered (rounded up to a power of two), defaults to {@link
+     *     StreamingEPCISDocumentOutput#DEFAULT_RING_SIZE} which writes on the generating thread
+     * @return builder
+     */
+    public WriterBuilder ringSize(int ringSize) {
+      this.ringSize = ringSize;
+      return this;
+    }
+
+    /**
+     * how the writer thread waits on an empty ring, the generating thread never waits since no
+     * more events are requested than the ring holds
+     *
+     * @param waitStrategy wait strategy, defaults to {@link WaitStrategy#PARK}
+     * @return builder
+     */
+    public WriterBuilder waitStrategy(WaitStrategy waitStrategy) {
+      this.waitStrategy = waitStrategy;
+      return this;
+    }
+
+    /**
+     * generate and write on virtual threads, blocking writes to slow sockets or files then do not
+     * hold a platform thread. Virtual threads need Java 21 or later, on Java 17 this falls back to
+     * daemon platform threads. An explicitly configured executor takes precedence for generation.
+     *
+     * @param virtualThreads true to run generation and the writer thread on virtual threads
+     * @return builder
+     */
+    public WriterBuilder virtualThreads(boolean virtualThreads) {
+      this.virtualThreads = virtualThreads;
+      return this;
+    }
+
+    /**
+     * write the generated events field by field instead of serializing them through databind,
+     * events which are not supported by {@link EPCISEventJsonWriter} are serialized as before. The
+     * events are created the same way in both cases. Without pretty printing, fields which are the
+     * same for all events of a node are written as pre-serialized fragments
+     *
+     * @param directJson true to write events directly
+     * @return builder
+     */
+    public WriterBuilder directJson(boolean directJson) {
+      this.directJson = directJson;
+      return this;
+    }
+
+    /**
+     * format of the written documents
+     *
+     * @param format document format, defaults to {@link EPCISDocumentFormat#JSON_LD}
+     * @return builder
+     */
+    public WriterBuilder format(EPCISDocumentFormat format) {
+      this.format = format;
+      return this;
+    }
+
+    /**
+     * start {@link EPCISDocumentFormat#NDJSON} output with a line holding the @context of the
+     * document, the other formats always carry it
+     *
+     * @param ndjsonHeader false to write event lines only, defaults to true
+     * @return builder
+     */
+    public WriterBuilder ndjsonHeader(boolean ndjsonHeader) {
+      this.ndjsonHeader = ndjsonHeader;
+      return this;
+    }
+
     public WriterBuilder writer(Writer writer) {
       this.writer = writer;
       return this;
     }
 
     public StreamingEPCISDocumentOutput build() {
-      return new StreamingEPCISDocumentOutput(executor, objectMapper, writer);
+      return new StreamingEPCISDocumentOutput(
+          executor,
+          objectMapper,
+          writer,
+          requestWindow,
+          maxRequestWindow,
+          ringSize,
+          waitStrategy,
+          virtualThreads,
+          directJson,
+          format,
+          ndjsonHeader,
+          // writers receive characters, compression only applies to output streams
+          Compression.DEFAULT_LEVEL,
+          true);
     }
 
     public String toString() {
@@ -347,6 +919,22 @@ public class StreamingEPCISDocumentOutput {
           + this.executor
           + ", objectMapper="
           + this.objectMapper
+          + ", requestWindow="
+          + this.requestWindow
+          + ", maxRequestWindow="
+          + this.maxRequestWindow
+          + ", ringSize="
+          + this.ringSize
+          + ", waitStrategy="
+          + this.waitStrategy
+          + ", virtualThreads="
+          + this.virtualThreads
+          + ", directJson="
+          + this.directJson
+          + ", format="
+          + this.format
+          + ", ndjsonHeader="
+          + this.ndjsonHeader
           + ", writer="
           + this.writer
           + ")";
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.openepcis.model.epcis.EPCISEvent;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the rows of the flattened events into one file per {@link EventTable}, every table
+ * through its own buffered file channel.
+ */
+class TableDocumentWriter implements EPCISDocumentWriter {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final Path directory;
+
+  private final TableFormat format;
+
+  private final EventRows eventRows;
+
+  private final Map<EventTable, TableChannel> channels = new EnumMap<>(EventTable.class);
+
+  private final StringBuilder row = new StringBuilder(256);
+
+  TableDocumentWriter(
+      final Path directory, final TableFormat format, final ObjectMapper objectMapper) {
+    this.directory = directory;
+    this.format = format;
+    this.eventRows = new EventRows(objectMapper);
+  }
+
+  /**
+   * @return files of all tables in table order
+   */
+  List<Path> paths() {
+    final List<Path> paths = new ArrayList<>();
+    for (EventTable table : EventTable.values()) {
+      paths.add(path(table));
+    }
+    return paths;
+  }
+
+  private Path path(final EventTable table) {
+    return directory.resolve(table.getTableName() + format.getFileExtension());
+  }
+
+  @Override
+  public void writeHeader() throws IOException {
+    for (EventTable table : EventTable.values()) {
+      final TableChannel channel = new TableChannel(path(table));
+      channels.put(table, channel);
+      if (format.isHeader()) {
+        writeRow(table, table.getColumns().toArray(String[]::new));
+      }
+    }
+  }
+
+  @Override
+  public void writeEvent(final EPCISEvent epcisEvent) throws IOException {
+    eventRows.flatten(EventRows.eventId(epcisEvent), epcisEvent, this::writeRow);
+  }
+
+  private void writeRow(final EventTable table, final String... values) throws IOException {
+    row.setLength(0);
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0) {
+        row.append(format.getDelimiter());
+      }
+      format.append(row, values[i]);
+    }
+    channels.get(table).write(row.append('\n'));
+  }
+
+  @Override
+  public void writeFooter() throws IOException {
+    IOException failure = null;
+    for (TableChannel channel : channels.values()) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  @Override
+  public void writeError(final Throwable t) throws IOException {
+    // tables have no place for an error, keep the rows written so far and fail the export
+    writeFooter();
+    throw new IOException("Event generation failed: " + t.getMessage(), t);
+  }
+
+  @Override
+  public long buffered() {
+    long buffered = 0;
+    for (TableChannel channel : channels.values()) {
+      buffered += channel.buffer.position();
+    }
+    return buffered;
+  }
+
+  /** file channel of one table, rows are collected in a direct buffer */
+  private static final class TableChannel {
+    private final FileChannel channel;
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    TableChannel(final Path path) throws IOException {
+      this.channel =
+          FileChannel.open(
+              path,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.TRUNCATE_EXISTING,
+              StandardOpenOption.WRITE);
+    }
+
+    void write(final CharSequence row) throws IOException {
+      final byte[] bytes = row.toString().getBytes(StandardCharsets.UTF_8);
+      if (bytes.length > buffer.remaining()) {
+        flush();
+        if (bytes.length > buffer.capacity()) {
+          final ByteBuffer large = ByteBuffer.wrap(bytes);
+          while (large.hasRemaining()) {
+            channel.write(large);
+          }
+          return;
+        }
+      }
+      buffer.put(bytes);
+    }
+
+    private void flush() throws IOException {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      buffer.clear();
+    }
+
+    void close() throws IOException {
+      try {
+        flush();
+      } finally {
+        channel.close();
+      }
+    }
+  }
+}
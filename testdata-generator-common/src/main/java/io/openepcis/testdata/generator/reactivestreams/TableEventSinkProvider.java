@@ -0,0 +1,44 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * {@code table} sink writing flattened table files, options: {@code directory} (required) and
+ * {@code format} (csv or copy, defaults to csv).
+ */
+public class TableEventSinkProvider implements EventSinkProvider {
+
+  @Override
+  public String getName() {
+    return "table";
+  }
+
+  @Override
+  public EventSink create(
+      final StreamingEPCISDocumentOutput output, final Map<String, String> options) {
+    final EventTableOutput tableOutput =
+        EventTableOutput.builder()
+            .output(output)
+            .directory(Path.of(EventSinks.required(options, "directory")))
+            .format(EventSinks.enumOption(options, "format", TableFormat.class, TableFormat.CSV))
+            .build();
+    return new DocumentWriterEventSink(
+        streamingEPCISDocument -> tableOutput.createDocumentWriter());
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import lombok.Getter;
+
+/** row formats of the flattened event tables */
+@Getter
+public enum TableFormat {
+  /** RFC 4180 CSV with a header row, empty fields for missing values */
+  CSV(".csv", ",", true),
+
+  /** PostgreSQL COPY text format, tab separated with \N for missing values and no header */
+  COPY(".copy", "\t", false);
+
+  private final String fileExtension;
+
+  private final String delimiter;
+
+  /** true if the first row names the columns */
+  private final boolean header;
+
+  TableFormat(final String fileExtension, final String delimiter, final boolean header) {
+    this.fileExtension = fileExtension;
+    this.delimiter = delimiter;
+    this.header = header;
+  }
+
+  /**
+   * append a field value, escaped as required by the format
+   *
+   * @param row row being built
+   * @param value field value, null if missing
+   */
+  void append(final StringBuilder row, final String value) {
+    if (value == null) {
+      if (this == COPY) {
+        row.append("\\N");
+      }
+      return;
+    }
+    if (this == CSV) {
+      if (value.indexOf(',') < 0
+          && value.indexOf('"') < 0
+          && value.indexOf('\n') < 0
+          && value.indexOf('\r') < 0) {
+        row.append(value);
+        return;
+      }
+      row.append('"');
+      for (int i = 0; i < value.length(); i++) {
+        final char c = value.charAt(i);
+        if (c == '"') {
+          row.append('"');
+        }
+        row.append(c);
+      }
+      row.append('"');
+      return;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      switch (c) {
+        case '\\' -> row.append("\\\\");
+        case '\t' -> row.append("\\t");
+        case '\n' -> row.append("\\n");
+        case '\r' -> row.append("\\r");
+        default -> row.append(c);
+      }
+    }
+  }
+}
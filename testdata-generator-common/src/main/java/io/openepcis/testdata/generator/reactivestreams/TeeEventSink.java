@@ -0,0 +1,217 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import io.openepcis.model.epcis.EPCISEvent;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fans one generation run out to several sinks. Every sink runs on its own thread behind a bounded
+ * queue of batches, so the sinks write in parallel while the generator only hands over the batch.
+ * Once the queue of a sink is full the generator waits, the slowest sink sets the pace. If a sink
+ * fails the run fails, the other sinks are failed as well.
+ */
+public class TeeEventSink implements EventSink {
+
+  public static final int DEFAULT_BUFFERED_BATCHES = 16;
+
+  // markers following the last batch, compared by identity
+  private static final List<EPCISEvent> CLOSE = new ArrayList<>();
+
+  private static final List<EPCISEvent> FAIL = new ArrayList<>();
+
+  private final List<Branch> branches;
+
+  private final boolean virtualThreads;
+
+  private volatile IOException failure;
+
+  private volatile Throwable cause;
+
+  /**
+   * @param sinks sinks receiving all events
+   */
+  public TeeEventSink(final List<EventSink> sinks) {
+    this(sinks, DEFAULT_BUFFERED_BATCHES, false);
+  }
+
+  /**
+   * @param sinks sinks receiving all events
+   * @param bufferedBatches batches queued per sink before the generator waits
+   * @param virtualThreads run the sinks on virtual threads if available
+   */
+  public TeeEventSink(
+      final List<EventSink> sinks, final int bufferedBatches, final boolean virtualThreads) {
+    if (sinks.isEmpty()) {
+      throw new IllegalArgumentException("at least one sink is required");
+    }
+    this.virtualThreads = virtualThreads;
+    this.branches = new ArrayList<>(sinks.size());
+    for (EventSink sink : sinks) {
+      branches.add(new Branch(sink, Math.max(1, bufferedBatches)));
+    }
+  }
+
+  @Override
+  public void open(final StreamingEPCISDocument streamingEPCISDocument) {
+    for (int i = 0; i < branches.size(); i++) {
+      final Branch branch = branches.get(i);
+      final Runnable task = () -> branch.run(streamingEPCISDocument);
+      if (virtualThreads) {
+        branch.thread = VirtualThreads.newThread(task, "event-sink-" + i);
+      } else {
+        branch.thread = new Thread(task, "event-sink-" + i);
+        branch.thread.setDaemon(true);
+      }
+      branch.thread.start();
+    }
+  }
+
+  @Override
+  public void accept(final List<EPCISEvent> batch) throws IOException {
+    checkFailure();
+    // the caller may reuse its list, the sinks share one copy
+    final List<EPCISEvent> events = List.copyOf(batch);
+    for (Branch branch : branches) {
+      put(branch, events);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      checkFailure();
+      for (Branch branch : branches) {
+        put(branch, CLOSE);
+      }
+    } catch (IOException e) {
+      // sinks waiting for the next batch would never complete
+      fail(e);
+      throw e;
+    }
+    join();
+    checkFailure();
+  }
+
+  @Override
+  public void fail(final Throwable t) throws IOException {
+    cause = t;
+    for (Branch branch : branches) {
+      if (!branch.done) {
+        branch.queue.clear();
+        put(branch, FAIL);
+      }
+    }
+    join();
+  }
+
+  private void put(final Branch branch, final List<EPCISEvent> events) throws IOException {
+    try {
+      // a failed sink no longer takes batches, stop waiting once any sink failed
+      while (!branch.queue.offer(events, 10, TimeUnit.MILLISECONDS)) {
+        if (branch.done) {
+          return;
+        }
+        if (events != FAIL) {
+          checkFailure();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while handing over events");
+    }
+  }
+
+  private void join() throws IOException {
+    try {
+      for (Branch branch : branches) {
+        if (branch.thread != null) {
+          branch.thread.join();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the sinks");
+    }
+  }
+
+  private synchronized void failed(final IOException e) {
+    if (failure == null) {
+      failure = e;
+    }
+  }
+
+  private void checkFailure() throws IOException {
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private final class Branch {
+    private final EventSink sink;
+
+    private final BlockingQueue<List<EPCISEvent>> queue;
+
+    private Thread thread;
+
+    private volatile boolean done;
+
+    Branch(final EventSink sink, final int bufferedBatches) {
+      this.sink = sink;
+      this.queue = new ArrayBlockingQueue<>(bufferedBatches);
+    }
+
+    void run(final StreamingEPCISDocument streamingEPCISDocument) {
+      try {
+        sink.open(streamingEPCISDocument);
+        while (true) {
+          final List<EPCISEvent> events = queue.take();
+          if (events == CLOSE) {
+            sink.close();
+            return;
+          }
+          if (events == FAIL) {
+            try {
+              sink.fail(cause);
+            } catch (IOException | RuntimeException e) {
+              // the run failed already
+            }
+            return;
+          }
+          sink.accept(events);
+        }
+      } catch (InterruptedException e) {
+        failed(new InterruptedIOException("Interrupted while writing events"));
+      } catch (Throwable t) {
+        // errors as well, the run would otherwise complete without the events of this sink
+        failed(t instanceof IOException io ? io : new IOException(t.getMessage(), t));
+        try {
+          sink.fail(t);
+        } catch (Throwable suppressed) {
+          t.addSuppressed(suppressed);
+        }
+      } finally {
+        done = true;
+      }
+    }
+  }
+}
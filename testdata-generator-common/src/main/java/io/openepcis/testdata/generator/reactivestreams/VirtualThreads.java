@@ -0,0 +1,121 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Virtual threads for document generation and writing. Generating a document and blocking on a
+ * slow socket or file then costs no platform thread. Virtual threads are looked up reflectively
+ * because the library is built for Java 17, which has none: they are only used when running on
+ * Java 21 or later. On Java 17 {@link #executor()} is a cached pool of daemon platform threads and
+ * {@link #newThread(Runnable, String)} creates daemon platform threads.
+ */
+@Slf4j
+public final class VirtualThreads {
+
+  private static final ThreadFactory THREAD_FACTORY = createThreadFactory();
+
+  private static final boolean AVAILABLE = THREAD_FACTORY != null;
+
+  private static final AtomicInteger COUNTER = new AtomicInteger();
+
+  private VirtualThreads() {}
+
+  /**
+   * @return true if the JVM supports virtual threads
+   */
+  public static boolean isAvailable() {
+    return AVAILABLE;
+  }
+
+  /**
+   * @return shared executor starting one virtual thread per task, or a cached pool of daemon
+   *     threads if virtual threads are not available
+   */
+  public static ExecutorService executor() {
+    return Holder.EXECUTOR;
+  }
+
+  /**
+   * create an unstarted thread, virtual if available
+   *
+   * @param task task to run
+   * @param name thread name
+   * @return thread
+   */
+  static Thread newThread(final Runnable task, final String name) {
+    final Thread thread;
+    if (AVAILABLE) {
+      thread = THREAD_FACTORY.newThread(task);
+      thread.setName(name);
+    } else {
+      thread = new Thread(task, name);
+      thread.setDaemon(true);
+    }
+    return thread;
+  }
+
+  private static ThreadFactory createThreadFactory() {
+    try {
+      // Thread.ofVirtual().factory()
+      final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+      final Class<?> builder = Class.forName("java.lang.Thread$Builder$OfVirtual");
+      final MethodHandle ofVirtual =
+          lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(builder));
+      final MethodHandle factory =
+          lookup.findVirtual(builder, "factory", MethodType.methodType(ThreadFactory.class));
+      return (ThreadFactory) factory.invoke(ofVirtual.invoke());
+    } catch (Throwable e) {
+      log.debug("virtual threads are not available, using platform threads", e);
+      return null;
+    }
+  }
+
+  private static ExecutorService createExecutor() {
+    if (AVAILABLE) {
+      try {
+        // Executors.newThreadPerTaskExecutor(factory)
+        final MethodHandle perTask =
+            MethodHandles.publicLookup()
+                .findStatic(
+                    Executors.class,
+                    "newThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class, ThreadFactory.class));
+        return (ExecutorService) perTask.invoke(THREAD_FACTORY);
+      } catch (Throwable e) {
+        log.debug("virtual thread executor is not available, using platform threads", e);
+      }
+    }
+    return Executors.newCachedThreadPool(
+        task -> {
+          final Thread thread = new Thread(task, "epcis-document-" + COUNTER.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  private static final class Holder {
+    private static final ExecutorService EXECUTOR = createExecutor();
+  }
+}
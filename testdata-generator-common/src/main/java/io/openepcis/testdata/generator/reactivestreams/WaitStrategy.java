@@ -0,0 +1,55 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How the writing thread waits on the lock-free handoff between event generation and document
+ * writing while the ring is empty.
+ */
+public enum WaitStrategy {
+  /** busy spin, lowest latency but keeps a core busy while waiting */
+  SPIN {
+    @Override
+    void idle() {
+      Thread.onSpinWait();
+    }
+  },
+  /** yield to other threads, a compromise between latency and cpu usage */
+  YIELD {
+    @Override
+    void idle() {
+      Thread.yield();
+    }
+  },
+  /**
+   * park the thread for a short time, frees the core at the cost of latency. The default, a writer
+   * waiting on a slow generator does not burn a core.
+   */
+  PARK {
+    @Override
+    void idle() {
+      LockSupport.parkNanos(PARK_NANOS);
+    }
+  };
+
+  private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+  /** wait once before checking the ring again */
+  abstract void idle();
+}
@@ -0,0 +1,495 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.openepcis.constants.EPCISVersion;
+import io.openepcis.model.epcis.EPCISEvent;
+import io.openepcis.model.rest.ProblemResponseBody;
+import io.openepcis.testdata.generator.constants.TestDataGeneratorException;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBElement;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.dom.DOMResult;
+import org.jboss.resteasy.reactive.RestResponse;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Writes the events as EPCIS 2.0 or EPCIS 1.2 XML document with a StAX {@link XMLStreamWriter}.
+ * Events are marshalled one by one through the JAXB mapping of the models, so the document is
+ * written in a single pass without holding more than one event. For EPCIS 1.2 every event is
+ * marshalled to a DOM first and copied in the layout of the 1.2 schema: eventID and
+ * errorDeclaration move into baseExtension, fields added after 1.0 into extension, and
+ * TransformationEvent and AssociationEvent into the extension elements of the EventList. Fields
+ * which only exist in EPCIS 2.0 are kept as extension elements in the EPCIS 2.0 namespace.
+ *
+ * <p>The output is not indented and {@link #buffered()} is not known, byte limits of the document
+ * are therefore checked against the bytes passed on by the StAX writer.
+ */
+class XmlDocumentWriter implements EPCISDocumentWriter {
+
+  private static final String EPCIS_2_0_NAMESPACE = "urn:epcglobal:epcis:xsd:2";
+
+  private static final String EPCIS_1_2_NAMESPACE = "urn:epcglobal:epcis:xsd:1";
+
+  // namespace of the EPCIS 2.0 fields written as extension into EPCIS 1.2 events
+  private static final String EPCIS_2_0_EXTENSION_NAMESPACE = "https://ref.gs1.org/epcis/";
+
+  private static final String EPCIS_2_0_EXTENSION_PREFIX = "epcis2";
+
+  private static final DateTimeFormatter DATE_TIME_FORMATTER =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSXXX");
+
+  private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+
+  private static final Set<String> HEAD = Set.of("eventTime", "recordTime", "eventTimeZoneOffset");
+
+  private static final Set<String> BASE_EXTENSION = Set.of("eventID", "errorDeclaration");
+
+  private static final Set<String> EPCIS_2_0_ONLY =
+      Set.of("certificationInfo", "persistentDisposition", "sensorElementList");
+
+  // EPCIS 1.2 order of the event fields, followed by the fields in the extension element
+  private static final Map<String, Layout> LAYOUTS =
+      Map.of(
+          "ObjectEvent",
+          new Layout(
+              List.of(
+                  "epcList",
+                  "action",
+                  "bizStep",
+                  "disposition",
+                  "readPoint",
+                  "bizLocation",
+                  "bizTransactionList"),
+              List.of("quantityList", "sourceList", "destinationList", "ilmd")),
+          "AggregationEvent",
+          new Layout(
+              List.of(
+                  "parentID",
+                  "childEPCs",
+                  "action",
+                  "bizStep",
+                  "disposition",
+                  "readPoint",
+                  "bizLocation",
+                  "bizTransactionList"),
+              List.of("childQuantityList", "sourceList", "destinationList")),
+          "TransactionEvent",
+          new Layout(
+              List.of(
+                  "bizTransactionList",
+                  "parentID",
+                  "epcList",
+                  "action",
+                  "bizStep",
+                  "disposition",
+                  "readPoint",
+                  "bizLocation"),
+              List.of("quantityList", "sourceList", "destinationList")),
+          "TransformationEvent",
+          new Layout(
+              List.of(
+                  "inputEPCList",
+                  "inputQuantityList",
+                  "outputEPCList",
+                  "outputQuantityList",
+                  "transformationID",
+                  "bizStep",
+                  "disposition",
+                  "readPoint",
+                  "bizLocation",
+                  "bizTransactionList",
+                  "sourceList",
+                  "destinationList",
+                  "ilmd"),
+              List.of()),
+          "AssociationEvent",
+          new Layout(
+              List.of(
+                  "parentID",
+                  "childEPCs",
+                  "childQuantityList",
+                  "action",
+                  "bizStep",
+                  "disposition",
+                  "readPoint",
+                  "bizLocation",
+                  "bizTransactionList",
+                  "sourceList",
+                  "destinationList"),
+              List.of()));
+
+  private record Layout(List<String> fields, List<String> extension) {}
+
+  private final XMLStreamWriter xmlStreamWriter;
+
+  private final Closeable output;
+
+  private final ObjectMapper objectMapper;
+
+  private final Marshaller marshaller;
+
+  private final boolean epcis12;
+
+  XmlDocumentWriter(
+      final OutputStream outputStream,
+      final ObjectMapper objectMapper,
+      final EPCISVersion epcisVersion)
+      throws IOException {
+    this(createXMLStreamWriter(outputStream), outputStream, objectMapper, epcisVersion);
+  }
+
+  XmlDocumentWriter(
+      final Writer writer, final ObjectMapper objectMapper, final EPCISVersion epcisVersion)
+      throws IOException {
+    this(createXMLStreamWriter(writer), writer, objectMapper, epcisVersion);
+  }
+
+  private XmlDocumentWriter(
+      final XMLStreamWriter xmlStreamWriter,
+      final Closeable output,
+      final ObjectMapper objectMapper,
+      final EPCISVersion epcisVersion)
+      throws IOException {
+    this.xmlStreamWriter = xmlStreamWriter;
+    this.output = output;
+    this.objectMapper = objectMapper;
+    this.epcis12 = epcisVersion == EPCISVersion.VERSION_1_2_0;
+    try {
+      this.marshaller = JaxbContextHolder.JAXB_CONTEXT.createMarshaller();
+      this.marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+    } catch (JAXBException e) {
+      throw new IOException("Unable to create XML marshaller: " + e.getMessage(), e);
+    }
+  }
+
+  private static XMLStreamWriter createXMLStreamWriter(final OutputStream outputStream)
+      throws IOException {
+    try {
+      return XML_OUTPUT_FACTORY.createXMLStreamWriter(
+          outputStream, StandardCharsets.UTF_8.name());
+    } catch (XMLStreamException e) {
+      throw new IOException(e.getMessage(), e);
+    }
+  }
+
+  private static XMLStreamWriter createXMLStreamWriter(final Writer writer) throws IOException {
+    try {
+      return XML_OUTPUT_FACTORY.createXMLStreamWriter(writer);
+    } catch (XMLStreamException e) {
+      throw new IOException(e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public void writeHeader() throws IOException {
+    final String namespace = epcis12 ? EPCIS_1_2_NAMESPACE : EPCIS_2_0_NAMESPACE;
+    try {
+      xmlStreamWriter.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+      xmlStreamWriter.writeStartElement("epcis", "EPCISDocument", namespace);
+      xmlStreamWriter.writeNamespace("epcis", namespace);
+
+      // namespaces of user extensions, ILMD and error declaration extensions
+      if (StreamingEPCISDocument.getContext() != null) {
+        for (Map.Entry<String, String> entry : StreamingEPCISDocument.getContext().entrySet()) {
+          xmlStreamWriter.writeNamespace(entry.getKey(), entry.getValue());
+        }
+      }
+      if (epcis12) {
+        xmlStreamWriter.writeNamespace(EPCIS_2_0_EXTENSION_PREFIX, EPCIS_2_0_EXTENSION_NAMESPACE);
+      }
+
+      xmlStreamWriter.writeAttribute("schemaVersion", epcis12 ? "1.2" : "2.0");
+      xmlStreamWriter.writeAttribute(
+          "creationDate", DATE_TIME_FORMATTER.format(ZonedDateTime.now()));
+      xmlStreamWriter.writeStartElement("EPCISBody");
+      xmlStreamWriter.writeStartElement("EventList");
+    } catch (XMLStreamException e) {
+      throw new IOException(e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public void writeEvent(final EPCISEvent epcisEvent) throws IOException {
+    final EPCISEvent event =
+        StreamingEPCISDocumentOutput.isShouldRunJinjaTemplate()
+            ? JsonDocumentWriter.render(objectMapper, epcisEvent)
+            : epcisEvent;
+    final JAXBElement<EPCISEvent> element = element(event);
+    try {
+      if (!epcis12) {
+        marshaller.marshal(element, xmlStreamWriter);
+        return;
+      }
+      final DOMResult result = new DOMResult();
+      marshaller.marshal(element, result);
+      writeEpcis12(((Document) result.getNode()).getDocumentElement());
+    } catch (JAXBException e) {
+      throw new TestDataGeneratorException(
+          "Exception occurred during EPCIS document creation: marshalling of "
+              + element.getName().getLocalPart()
+              + " failed "
+              + e.getMessage(),
+          e);
+    } catch (XMLStreamException e) {
+      throw new IOException(e.getMessage(), e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static JAXBElement<EPCISEvent> element(final EPCISEvent event) {
+    return new JAXBElement<>(
+        new QName(event.getClass().getSimpleName()),
+        (Class<EPCISEvent>) event.getClass(),
+        event);
+  }
+
+  @Override
+  public void writeFooter() throws IOException {
+    try {
+      xmlStreamWriter.writeEndElement(); // End EventList
+      xmlStreamWriter.writeEndElement(); // End EPCISBody
+      xmlStreamWriter.writeEndElement(); // End EPCISDocument
+      xmlStreamWriter.writeEndDocument();
+      close();
+    } catch (XMLStreamException e) {
+      throw new IOException(e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public void writeError(final Throwable t) throws IOException {
+    try {
+      xmlStreamWriter.writeEndElement(); // End EventList
+      xmlStreamWriter.writeEndElement(); // End EPCISBody
+
+      // If there is error then add the error message as extension of the document
+      final ProblemResponseBody pb =
+          ProblemResponseBody.fromException(t, RestResponse.Status.BAD_REQUEST);
+      xmlStreamWriter.writeStartElement("problemResponse");
+      for (Map.Entry<?, ?> entry : objectMapper.convertValue(pb, Map.class).entrySet()) {
+        if (entry.getValue() != null) {
+          xmlStreamWriter.writeStartElement(String.valueOf(entry.getKey()));
+          xmlStreamWriter.writeCharacters(String.valueOf(entry.getValue()));
+          xmlStreamWriter.writeEndElement();
+        }
+      }
+      xmlStreamWriter.writeEndElement();
+
+      xmlStreamWriter.writeEndElement(); // End EPCISDocument
+      xmlStreamWriter.writeEndDocument();
+      close();
+    } catch (XMLStreamException e) {
+      throw new IOException(e.getMessage(), e);
+    }
+  }
+
+  private void close() throws XMLStreamException, IOException {
+    xmlStreamWriter.flush();
+    xmlStreamWriter.close();
+    // the StAX writer does not close the underlying output
+    output.close();
+  }
+
+  @Override
+  public long buffered() {
+    return 0;
+  }
+
+  // copy the EPCIS 2.0 event in the layout of EPCIS 1.2
+  private void writeEpcis12(final Element event) throws XMLStreamException {
+    final String name = localName(event);
+    final Layout layout = LAYOUTS.get(name);
+    if (layout == null) {
+      copy(event);
+      return;
+    }
+
+    final List<Element> head = new ArrayList<>();
+    final List<Element> baseExtension = new ArrayList<>();
+    final Element[] fields = new Element[layout.fields().size()];
+    final Element[] extension = new Element[layout.extension().size()];
+    final List<Element> epcis20 = new ArrayList<>();
+    final List<Element> userExtensions = new ArrayList<>();
+    for (Node n = event.getFirstChild(); n != null; n = n.getNextSibling()) {
+      if (n instanceof Element child) {
+        final String field = localName(child);
+        if (!isEpcisElement(child)) {
+          userExtensions.add(child);
+        } else if (HEAD.contains(field)) {
+          head.add(child);
+        } else if (BASE_EXTENSION.contains(field)) {
+          baseExtension.add(child);
+        } else if (layout.fields().contains(field)) {
+          fields[layout.fields().indexOf(field)] = child;
+        } else if (layout.extension().contains(field)) {
+          extension[layout.extension().indexOf(field)] = child;
+        } else if (EPCIS_2_0_ONLY.contains(field)) {
+          epcis20.add(child);
+        } else {
+          userExtensions.add(child);
+        }
+      }
+    }
+
+    // TransformationEvent is an extension of the 1.2 EventList, AssociationEvent an extension of
+    // that extension
+    final int wrappers =
+        "TransformationEvent".equals(name) ? 1 : "AssociationEvent".equals(name) ? 2 : 0;
+    for (int i = 0; i < wrappers; i++) {
+      xmlStreamWriter.writeStartElement("extension");
+    }
+    xmlStreamWriter.writeStartElement(name);
+    writeAttributes(event);
+    for (Element e : head) {
+      copy(e);
+    }
+    if (!baseExtension.isEmpty()) {
+      xmlStreamWriter.writeStartElement("baseExtension");
+      for (Element e : baseExtension) {
+        copy(e);
+      }
+      xmlStreamWriter.writeEndElement();
+    }
+    for (Element e : fields) {
+      if (e != null) {
+        copy(e);
+      }
+    }
+    boolean hasExtension = false;
+    for (Element e : extension) {
+      if (e != null) {
+        if (!hasExtension) {
+          xmlStreamWriter.writeStartElement("extension");
+          hasExtension = true;
+        }
+        copy(e);
+      }
+    }
+    if (hasExtension) {
+      xmlStreamWriter.writeEndElement();
+    }
+    for (Element e : epcis20) {
+      xmlStreamWriter.writeStartElement(
+          EPCIS_2_0_EXTENSION_PREFIX, localName(e), EPCIS_2_0_EXTENSION_NAMESPACE);
+      writeAttributes(e);
+      copyChildren(e);
+      xmlStreamWriter.writeEndElement();
+    }
+    for (Element e : userExtensions) {
+      copy(e);
+    }
+    xmlStreamWriter.writeEndElement();
+    for (int i = 0; i < wrappers; i++) {
+      xmlStreamWriter.writeEndElement();
+    }
+  }
+
+  private void copy(final Element element) throws XMLStreamException {
+    final String namespace = element.getNamespaceURI();
+    if (namespace == null || namespace.isEmpty()) {
+      xmlStreamWriter.writeStartElement(localName(element));
+    } else {
+      final String prefix = element.getPrefix();
+      xmlStreamWriter.writeStartElement(
+          prefix != null ? prefix : "", localName(element), namespace);
+    }
+    writeAttributes(element);
+    copyChildren(element);
+    xmlStreamWriter.writeEndElement();
+  }
+
+  private void copyChildren(final Element element) throws XMLStreamException {
+    for (Node n = element.getFirstChild(); n != null; n = n.getNextSibling()) {
+      if (n instanceof Element child) {
+        copy(child);
+      } else if (n.getNodeType() == Node.TEXT_NODE
+          || n.getNodeType() == Node.CDATA_SECTION_NODE) {
+        xmlStreamWriter.writeCharacters(n.getNodeValue());
+      }
+    }
+  }
+
+  private void writeAttributes(final Element element) throws XMLStreamException {
+    final NamedNodeMap attributes = element.getAttributes();
+    for (int i = 0; i < attributes.getLength(); i++) {
+      final Attr attr = (Attr) attributes.item(i);
+      final String namespace = attr.getNamespaceURI();
+      if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(namespace)) {
+        // namespace declarations of the marshalled event
+        if (XMLConstants.XMLNS_ATTRIBUTE.equals(attr.getPrefix())) {
+          xmlStreamWriter.writeNamespace(attr.getLocalName(), attr.getValue());
+        } else {
+          xmlStreamWriter.writeDefaultNamespace(attr.getValue());
+        }
+      } else if (namespace == null || namespace.isEmpty()) {
+        xmlStreamWriter.writeAttribute(localName(attr), attr.getValue());
+      } else {
+        xmlStreamWriter.writeAttribute(
+            attr.getPrefix() != null ? attr.getPrefix() : "",
+            namespace,
+            localName(attr),
+            attr.getValue());
+      }
+    }
+  }
+
+  private static boolean isEpcisElement(final Element element) {
+    final String namespace = element.getNamespaceURI();
+    return namespace == null || namespace.isEmpty();
+  }
+
+  private static String localName(final Node node) {
+    return node.getLocalName() != null ? node.getLocalName() : node.getNodeName();
+  }
+
+  // created on first use, the JSON formats do not need JAXB
+  private static final class JaxbContextHolder {
+    private static final JAXBContext JAXB_CONTEXT = createJaxbContext();
+
+    private static JAXBContext createJaxbContext() {
+      try {
+        return JAXBContext.newInstance(
+            "io.openepcis.model.epcis", Thread.currentThread().getContextClassLoader());
+      } catch (JAXBException e) {
+        throw new TestDataGeneratorException(
+            "Unable to create the JAXB context for EPCIS events: " + e.getMessage(), e);
+      }
+    }
+  }
+}
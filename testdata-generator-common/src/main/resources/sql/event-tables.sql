@@ -0,0 +1,74 @@
+-- Copyright 2022-2024 benelog GmbH & Co. KG
+--
+--     Licensed under the Apache License, Version 2.0 (the "License");
+--     you may not use this file except in compliance with the License.
+--     You may obtain a copy of the License at
+--
+--     http://www.apache.org/licenses/LICENSE-2.0
+--
+--     Unless required by applicable law or agreed to in writing, software
+--     distributed under the License is distributed on an "AS IS" BASIS,
+--     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--     See the License for the specific language governing permissions and
+--     limitations under the License.
+
+-- Tables of the flattened event export (EventTableOutput). JdbcEventOutput creates the same
+-- tables with portable column types (VARCHAR, DOUBLE PRECISION). Child tables reference the
+-- event by its eventID, events generated without eventID carry a generated urn:uuid instead.
+-- Foreign keys are left out so the tables can be loaded in any order and in parallel.
+--
+-- COPY text format:  \copy events FROM 'events.copy'
+-- CSV format:        \copy events FROM 'events.csv' WITH (FORMAT csv, HEADER true)
+
+CREATE TABLE events (
+  event_id               text PRIMARY KEY,
+  event_type             text NOT NULL,
+  event_time             text,
+  event_time_zone_offset text,
+  record_time            text,
+  action                 text,
+  biz_step               text,
+  disposition            text,
+  read_point             text,
+  biz_location           text,
+  parent_id              text,
+  transformation_id      text
+);
+
+-- list_name: epcList, childEPCs, inputEPCList or outputEPCList
+CREATE TABLE event_epcs (
+  event_id  text NOT NULL,
+  list_name text NOT NULL,
+  epc       text NOT NULL
+);
+
+-- list_name: quantityList, childQuantityList, inputQuantityList or outputQuantityList
+CREATE TABLE event_quantities (
+  event_id  text NOT NULL,
+  list_name text NOT NULL,
+  epc_class text,
+  quantity  double precision,
+  uom       text
+);
+
+-- kind: source or destination
+CREATE TABLE event_sources_destinations (
+  event_id   text NOT NULL,
+  kind       text NOT NULL,
+  type       text,
+  identifier text
+);
+
+CREATE TABLE event_biz_transactions (
+  event_id        text NOT NULL,
+  type            text,
+  biz_transaction text
+);
+
+-- remaining fields of the event (ilmd, sensor data, error declaration, persistent disposition,
+-- certification info, user extensions) as JSON
+CREATE TABLE event_extensions (
+  event_id text NOT NULL,
+  name     text NOT NULL,
+  json     jsonb
+);
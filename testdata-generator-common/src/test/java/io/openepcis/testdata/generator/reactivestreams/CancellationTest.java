@@ -0,0 +1,122 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.openepcis.model.epcis.EPCISEvent;
+import io.openepcis.model.epcis.ObjectEvent;
+import io.smallrye.mutiny.Multi;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Cancelling a run releases the writer threads even if the generator is idle. */
+public class CancellationTest {
+
+  private static final int EVENTS = 100;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @TempDir Path directory;
+
+  private final StreamingEPCISDocumentOutput output =
+      StreamingEPCISDocumentOutput.outputStreamBuilder().objectMapper(objectMapper).build();
+
+  private final CountDownLatch emitted = new CountDownLatch(1);
+
+  private final CountDownLatch terminated = new CountDownLatch(1);
+
+  // emits some events and then waits without completing
+  private Multi<EPCISEvent> idleEvents() {
+    return Multi.createFrom()
+        .<EPCISEvent>emitter(
+            emitter -> {
+              emitter.onTermination(terminated::countDown);
+              for (int i = 0; i < EVENTS; i++) {
+                final ObjectEvent event = new ObjectEvent();
+                event.setEventID("urn:uuid:00000000-0000-0000-0000-" + String.format("%012d", i));
+                event.setEpcList(List.of("urn:epc:id:sgtin:234567890.1123." + i));
+                emitter.emit(event);
+              }
+              emitted.countDown();
+            });
+  }
+
+  private static List<Thread> threads(final String prefix) {
+    final List<Thread> threads = new ArrayList<>();
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (thread.getName().startsWith(prefix)) {
+        threads.add(thread);
+      }
+    }
+    return threads;
+  }
+
+  private void cancel(final DocumentSource source, final String threadPrefix) throws Exception {
+    final CompletableFuture<Void> completion =
+        output.writeAsync(idleEvents(), source).toCompletableFuture();
+    assertTrue(emitted.await(10, TimeUnit.SECONDS));
+    final List<Thread> threads = threads(threadPrefix);
+    assertFalse(threads.isEmpty());
+
+    completion.cancel(false);
+    assertTrue(terminated.await(10, TimeUnit.SECONDS));
+    for (Thread thread : threads) {
+      thread.join(TimeUnit.SECONDS.toMillis(10));
+      assertFalse(thread.isAlive(), thread.getName());
+    }
+  }
+
+  /* every sink thread of the tee terminates */
+  @Test
+  public void teeTest() throws Exception {
+    final EventSink sink =
+        new TeeEventSink(
+            List.of(
+                EventSinks.create("file:path=" + directory.resolve("events.jsonld"), output),
+                EventSinks.create(
+                    "file:path=" + directory.resolve("events.ndjson") + ",format=ndjson", output)),
+            1,
+            false);
+    cancel(
+        DocumentSource.single(
+            new SinkDocumentWriter(sink, new StreamingEPCISDocument(), 10),
+            new DocumentBudget(0, 0, null)),
+        "event-sink-");
+  }
+
+  /* the partition threads of parallel JDBC writers terminate */
+  @Test
+  public void jdbcWritersTest() throws Exception {
+    final JdbcDocumentWriter writer =
+        JdbcEventOutput.builder()
+            .output(output)
+            .url("jdbc:h2:mem:cancelled;DB_CLOSE_DELAY=-1", "sa", "")
+            .writers(3)
+            .batchSize(4)
+            .build()
+            .createDocumentWriter();
+    cancel(DocumentSource.single(writer, new DocumentBudget(0, 0, null)), "epcis-jdbc-writer-");
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.openepcis.model.epcis.EPCISEvent;
+import io.openepcis.model.epcis.ObjectEvent;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class HandoffSubscriberTest {
+
+  /* an error escaping the delegate fails the document and stops the generator */
+  @Test
+  public void writerErrorTest() throws Exception {
+    final Error error = new StackOverflowError("writer failed");
+    final CompletableFuture<Throwable> failed = new CompletableFuture<>();
+    final CompletableFuture<Void> cancelled = new CompletableFuture<>();
+    final HandoffSubscriber handoff =
+        new HandoffSubscriber(
+            new Flow.Subscriber<>() {
+              @Override
+              public void onSubscribe(final Flow.Subscription subscription) {}
+
+              @Override
+              public void onNext(final EPCISEvent epcisEvent) {
+                throw error;
+              }
+
+              @Override
+              public void onError(final Throwable throwable) {
+                failed.complete(throwable);
+              }
+
+              @Override
+              public void onComplete() {
+                failed.complete(null);
+              }
+            },
+            8,
+            WaitStrategy.PARK,
+            false);
+    handoff.onSubscribe(
+        new Flow.Subscription() {
+          @Override
+          public void request(final long n) {}
+
+          @Override
+          public void cancel() {
+            cancelled.complete(null);
+          }
+        });
+    handoff.onNext(new ObjectEvent());
+
+    assertEquals(error, failed.get(10, TimeUnit.SECONDS));
+    cancelled.get(10, TimeUnit.SECONDS);
+    assertTrue(cancelled.isDone());
+  }
+}
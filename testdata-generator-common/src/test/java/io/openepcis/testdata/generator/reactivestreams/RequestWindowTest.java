@@ -0,0 +1,98 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class RequestWindowTest {
+
+  private static final long FAST = 0;
+
+  private static final long MEDIUM = TimeUnit.MILLISECONDS.toNanos(5);
+
+  private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+  private long now;
+
+  private RequestWindow window(final int initialSize, final int maxSize) {
+    return new RequestWindow(initialSize, maxSize, () -> now);
+  }
+
+  // events received until the window is replenished and the number of events requested then
+  private long[] drain(final RequestWindow window, final long nanosPerEvent) {
+    long events = 0;
+    long requested;
+    do {
+      now += nanosPerEvent;
+      events++;
+      requested = window.next();
+    } while (requested == 0);
+    return new long[] {events, requested};
+  }
+
+  /* windows drained within 10ms double up to the maximum size */
+  @Test
+  public void growTest() {
+    final RequestWindow window = window(4, 32);
+    assertEquals(4, window.initial());
+    assertArrayEquals(new long[] {3, 7}, drain(window, FAST));
+    assertArrayEquals(new long[] {6, 14}, drain(window, FAST));
+    assertArrayEquals(new long[] {12, 28}, drain(window, FAST));
+    assertArrayEquals(new long[] {24, 24}, drain(window, FAST));
+    assertArrayEquals(new long[] {24, 24}, drain(window, FAST));
+  }
+
+  /* windows taking longer than 100ms halve down to the initial size */
+  @Test
+  public void shrinkTest() {
+    final RequestWindow window = window(4, 32);
+    window.initial();
+    drain(window, FAST);
+    drain(window, FAST);
+    drain(window, FAST);
+    assertArrayEquals(new long[] {24, 8}, drain(window, SLOW));
+    assertArrayEquals(new long[] {12, 4}, drain(window, SLOW));
+    assertArrayEquals(new long[] {6, 2}, drain(window, SLOW));
+    assertArrayEquals(new long[] {3, 3}, drain(window, SLOW));
+    assertArrayEquals(new long[] {3, 3}, drain(window, SLOW));
+  }
+
+  /* windows drained between 10ms and 100ms keep their size */
+  @Test
+  public void steadyTest() {
+    final RequestWindow window = window(8, 64);
+    assertEquals(8, window.initial());
+    assertArrayEquals(new long[] {6, 6}, drain(window, MEDIUM));
+    assertArrayEquals(new long[] {6, 6}, drain(window, MEDIUM));
+  }
+
+  /* without a larger maximum size the window never adapts */
+  @Test
+  public void fixedSizeTest() {
+    final RequestWindow window = window(4, 2);
+    assertEquals(4, window.initial());
+    assertArrayEquals(new long[] {3, 3}, drain(window, FAST));
+    assertArrayEquals(new long[] {3, 3}, drain(window, SLOW));
+
+    final RequestWindow single = window(0, 0);
+    assertEquals(1, single.initial());
+    assertArrayEquals(new long[] {1, 1}, drain(single, FAST));
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.generator.reactivestreams;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/** Virtual threads are used on Java 21 or later, daemon platform threads on Java 17. */
+public class VirtualThreadsTest {
+
+  private static final boolean VIRTUAL = Runtime.version().feature() >= 21;
+
+  @Test
+  public void isAvailableTest() {
+    assertEquals(VIRTUAL, VirtualThreads.isAvailable());
+  }
+
+  @Test
+  public void executorTest() throws Exception {
+    assertSame(VirtualThreads.executor(), VirtualThreads.executor());
+    final Thread thread =
+        CompletableFuture.supplyAsync(Thread::currentThread, VirtualThreads.executor())
+            .get(10, TimeUnit.SECONDS);
+    assertTrue(thread.isDaemon());
+    if (!VIRTUAL) {
+      // cached pool of platform threads
+      assertTrue(thread.getName().startsWith("epcis-document-"), thread.getName());
+    }
+  }
+
+  @Test
+  public void newThreadTest() throws Exception {
+    final CompletableFuture<Thread> ran = new CompletableFuture<>();
+    final Thread thread =
+        VirtualThreads.newThread(
+            () -> ran.complete(Thread.currentThread()), "virtual-threads-test");
+    assertEquals(Thread.State.NEW, thread.getState());
+    assertEquals("virtual-threads-test", thread.getName());
+    assertTrue(thread.isDaemon());
+
+    thread.start();
+    assertSame(thread, ran.get(10, TimeUnit.SECONDS));
+  }
+}
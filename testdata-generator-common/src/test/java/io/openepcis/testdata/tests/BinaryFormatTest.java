@@ -0,0 +1,156 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.tests;
+
+import static io.openepcis.testdata.tests.OutputTestSupport.OBJECT_EVENT_TEMPLATE;
+import static io.openepcis.testdata.tests.OutputTestSupport.eventCount;
+import static io.openepcis.testdata.tests.OutputTestSupport.inputTemplate;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.openepcis.model.epcis.EPCISEvent;
+import io.openepcis.testdata.generator.EPCISEventGenerator;
+import io.openepcis.testdata.generator.reactivestreams.Compression;
+import io.openepcis.testdata.generator.reactivestreams.EPCISDocumentFormat;
+import io.openepcis.testdata.generator.reactivestreams.StreamingEPCISDocument;
+import io.openepcis.testdata.generator.template.InputTemplate;
+import io.openepcis.testdata.proto.EPCISEventMessage;
+import io.openepcis.testdata.proto.ObjectEvent;
+import io.openepcis.testdata.proto.QuantityElement;
+import io.smallrye.mutiny.Multi;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.avro.file.DataFileConstants;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.jupiter.api.Test;
+
+public class BinaryFormatTest {
+
+  private final ObjectMapper objectMapper = OutputTestSupport.objectMapper();
+
+  private byte[] write(final EPCISDocumentFormat format) throws Exception {
+    return write(format, Compression.NONE);
+  }
+
+  private byte[] write(final EPCISDocumentFormat format, final Compression compression)
+      throws Exception {
+    final InputTemplate inputTemplate = inputTemplate(OBJECT_EVENT_TEMPLATE);
+    StreamingEPCISDocument.storeContextInfo(inputTemplate.getEvents());
+    return write(EPCISEventGenerator.generate(inputTemplate), format, compression);
+  }
+
+  private byte[] write(
+      final Multi<EPCISEvent> events,
+      final EPCISDocumentFormat format,
+      final Compression compression)
+      throws Exception {
+    final StreamingEPCISDocument document = new StreamingEPCISDocument();
+    document.setCompression(compression);
+    document.setEpcisEvents(events);
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    document.writeToOutputStream(
+        b ->
+            b.objectMapper(objectMapper)
+                .directJson(true)
+                .format(format)
+                .outputStream(out)
+                .build());
+    return out.toByteArray();
+  }
+
+  @Test
+  public void cborDocumentTest() throws Exception {
+    final JsonNode document =
+        new ObjectMapper(new CBORFactory()).readTree(write(EPCISDocumentFormat.CBOR));
+    assertEquals("EPCISDocument", document.get("type").asText());
+    assertEquals(eventCount(OBJECT_EVENT_TEMPLATE), document.at("/epcisBody/eventList").size());
+    assertEquals("ObjectEvent", document.at("/epcisBody/eventList/0/type").asText());
+  }
+
+  @Test
+  public void smileDocumentTest() throws Exception {
+    final JsonNode document =
+        new ObjectMapper(new SmileFactory()).readTree(write(EPCISDocumentFormat.SMILE));
+    assertEquals("EPCISDocument", document.get("type").asText());
+    assertEquals(eventCount(OBJECT_EVENT_TEMPLATE), document.at("/epcisBody/eventList").size());
+    assertEquals("ObjectEvent", document.at("/epcisBody/eventList/0/type").asText());
+  }
+
+  @Test
+  public void protobufStreamTest() throws Exception {
+    final InputTemplate inputTemplate = inputTemplate(OBJECT_EVENT_TEMPLATE);
+    StreamingEPCISDocument.storeContextInfo(inputTemplate.getEvents());
+    final List<EPCISEvent> events =
+        EPCISEventGenerator.generate(inputTemplate).collect().asList().await().indefinitely();
+    final InputStream in =
+        new ByteArrayInputStream(
+            write(
+                Multi.createFrom().iterable(events),
+                EPCISDocumentFormat.PROTOBUF,
+                Compression.NONE));
+    int quantities = 0;
+    for (EPCISEvent event : events) {
+      final JsonNode expected = objectMapper.valueToTree(event);
+      final EPCISEventMessage message = EPCISEventMessage.parseDelimitedFrom(in);
+      assertEquals(EPCISEventMessage.EventCase.OBJECT_EVENT, message.getEventCase());
+      final ObjectEvent objectEvent = message.getObjectEvent();
+      assertEquals(expected.get("eventID").asText(), objectEvent.getEventId());
+      assertEquals(expected.get("action").asText(), objectEvent.getAction());
+      final List<String> epcs = new ArrayList<>();
+      expected.path("epcList").forEach(epc -> epcs.add(epc.asText()));
+      assertEquals(epcs, objectEvent.getEpcListList());
+      assertEquals(expected.path("quantityList").size(), objectEvent.getQuantityListCount());
+      for (int i = 0; i < objectEvent.getQuantityListCount(); i++) {
+        final JsonNode quantity = expected.path("quantityList").get(i);
+        final QuantityElement element = objectEvent.getQuantityList(i);
+        assertEquals(quantity.get("epcClass").asText(), element.getEpcClass());
+        assertEquals(quantity.path("quantity").asDouble(), element.getQuantity());
+        assertEquals(quantity.path("uom").asText(""), element.getUom());
+        quantities++;
+      }
+    }
+    // nothing follows the last event
+    assertNull(EPCISEventMessage.parseDelimitedFrom(in));
+    assertTrue(quantities > 0);
+  }
+
+  @Test
+  public void avroContainerTest() throws Exception {
+    try (DataFileStream<GenericRecord> records =
+        new DataFileStream<>(
+            new ByteArrayInputStream(write(EPCISDocumentFormat.AVRO, Compression.GZIP)),
+            new GenericDatumReader<>())) {
+      assertEquals(DataFileConstants.DEFLATE_CODEC, records.getMetaString("avro.codec"));
+      int count = 0;
+      for (GenericRecord record : records) {
+        assertEquals("ObjectEvent", record.getSchema().getName());
+        assertTrue(record.get("eventTime") != null);
+        count++;
+      }
+      assertEquals(eventCount(OBJECT_EVENT_TEMPLATE), count);
+    }
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.tests;
+
+import static io.openepcis.testdata.tests.OutputTestSupport.OBJECT_EVENT_TEMPLATE;
+import static io.openepcis.testdata.tests.OutputTestSupport.inputTemplate;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.openepcis.testdata.generator.EPCISEventGenerator;
+import io.openepcis.testdata.generator.reactivestreams.CaptureLoadDriver;
+import io.openepcis.testdata.generator.reactivestreams.LoadReport;
+import io.openepcis.testdata.generator.reactivestreams.StreamingEPCISDocument;
+import io.openepcis.testdata.generator.reactivestreams.StreamingEPCISDocumentOutput;
+import io.openepcis.testdata.generator.template.InputTemplate;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CaptureLoadDriverTest {
+
+  private final ObjectMapper objectMapper = OutputTestSupport.objectMapper();
+
+  // stub capture interface, the request with the slow index takes 300ms
+  private HttpServer server;
+
+  private final AtomicInteger requests = new AtomicInteger();
+
+  private volatile int slow = -1;
+
+  @BeforeEach
+  public void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.createContext(
+        "/capture",
+        exchange -> {
+          exchange.getRequestBody().readAllBytes();
+          try {
+            Thread.sleep(requests.getAndIncrement() == slow ? 300 : 2);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          exchange.sendResponseHeaders(202, -1);
+          exchange.close();
+        });
+    server.start();
+  }
+
+  @AfterEach
+  public void stopServer() {
+    server.stop(0);
+  }
+
+  private CaptureLoadDriver.Builder driver() throws Exception {
+    final InputTemplate inputTemplate = inputTemplate(OBJECT_EVENT_TEMPLATE);
+    StreamingEPCISDocument.storeContextInfo(inputTemplate.getEvents());
+    return CaptureLoadDriver.builder()
+        .output(
+            StreamingEPCISDocumentOutput.outputStreamBuilder().objectMapper(objectMapper).build())
+        .uri(URI.create("http://localhost:" + server.getAddress().getPort() + "/capture"))
+        .events(() -> EPCISEventGenerator.generate(inputTemplate))
+        .batchSize(5)
+        .generators(1, 16)
+        .bucket(Duration.ofMillis(250));
+  }
+
+  private static void assertConsistent(final LoadReport report) {
+    assertEquals(0, report.errors());
+    assertEquals(report.requests() * 5, report.events());
+    assertEquals(
+        report.requests(),
+        report.throughput().stream().mapToLong(LoadReport.Bucket::requests).sum());
+    for (int i = 1; i < report.latency().size(); i++) {
+      assertTrue(report.latency().get(i).millis() >= report.latency().get(i - 1).millis());
+      assertTrue(
+          report.serviceTime().get(i).millis() >= report.serviceTime().get(i - 1).millis());
+    }
+  }
+
+  @Test
+  public void closedLoopTest() throws Exception {
+    final LoadReport report =
+        driver()
+            .closedLoop(2)
+            .warmup(Duration.ofMillis(300))
+            .duration(Duration.ofSeconds(1))
+            .build()
+            .run();
+    assertEquals(LoadReport.Mode.CLOSED_LOOP, report.mode());
+    assertTrue(report.requests() > 0);
+    assertConsistent(report);
+    // without pacing there is nothing to correct
+    assertEquals(report.serviceTime(), report.latency());
+    final JsonNode json = objectMapper.readTree(report.toJson());
+    assertEquals(report.requests(), json.get("requests").asLong());
+    assertEquals(8, json.get("latency").size());
+    assertTrue(report.toText().contains("closed loop, 2 users"));
+  }
+
+  @Test
+  public void pacedClosedLoopTest() throws Exception {
+    slow = 10;
+    final LoadReport report =
+        driver().closedLoop(1, Duration.ofMillis(20)).duration(Duration.ofSeconds(1)).build().run();
+    assertConsistent(report);
+    // the requests missed during the slow response are added to the corrected latency
+    assertTrue(report.latency().get(2).millis() > report.serviceTime().get(2).millis());
+    assertTrue(report.latency().get(7).millis() >= 300);
+  }
+
+  @Test
+  public void openLoopTest() throws Exception {
+    final LoadReport report =
+        driver()
+            .openLoop(40)
+            .warmup(Duration.ofMillis(300))
+            .duration(Duration.ofSeconds(1))
+            .build()
+            .run();
+    assertEquals(LoadReport.Mode.OPEN_LOOP, report.mode());
+    // requests are started at the target rate regardless of the response time
+    assertEquals(40, report.requests());
+    assertConsistent(report);
+    for (int i = 0; i < report.latency().size(); i++) {
+      assertTrue(report.latency().get(i).millis() >= report.serviceTime().get(i).millis());
+    }
+  }
+}
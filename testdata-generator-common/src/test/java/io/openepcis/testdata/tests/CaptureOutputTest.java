@@ -0,0 +1,120 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.tests;
+
+import static io.openepcis.testdata.tests.OutputTestSupport.AGGREGATION_EVENT_TEMPLATE;
+import static io.openepcis.testdata.tests.OutputTestSupport.eventCount;
+import static io.openepcis.testdata.tests.OutputTestSupport.inputTemplate;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.openepcis.testdata.generator.EPCISEventGenerator;
+import io.openepcis.testdata.generator.reactivestreams.CaptureOutput;
+import io.openepcis.testdata.generator.reactivestreams.StreamingEPCISDocument;
+import io.openepcis.testdata.generator.reactivestreams.StreamingEPCISDocumentOutput;
+import io.openepcis.testdata.generator.template.InputTemplate;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CaptureOutputTest {
+
+  private final ObjectMapper objectMapper = OutputTestSupport.objectMapper();
+
+  // stub capture interface answering with the status of the first call, 202 afterwards
+  private HttpServer server;
+
+  private final AtomicInteger requests = new AtomicInteger();
+
+  private final AtomicInteger captured = new AtomicInteger();
+
+  private volatile int firstStatus = 202;
+
+  @BeforeEach
+  public void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext(
+        "/capture",
+        exchange -> {
+          final byte[] body = exchange.getRequestBody().readAllBytes();
+          final int status = requests.getAndIncrement() == 0 ? firstStatus : 202;
+          if (status == 202) {
+            captured.addAndGet(objectMapper.readTree(body).at("/epcisBody/eventList").size());
+          }
+          exchange.sendResponseHeaders(status, -1);
+          exchange.close();
+        });
+    server.start();
+  }
+
+  @AfterEach
+  public void stopServer() {
+    server.stop(0);
+  }
+
+  private CaptureOutput.Result capture(final int batchSize) throws Exception {
+    final InputTemplate inputTemplate = inputTemplate(AGGREGATION_EVENT_TEMPLATE);
+    final StreamingEPCISDocument document = new StreamingEPCISDocument();
+    StreamingEPCISDocument.storeContextInfo(inputTemplate.getEvents());
+    document.setEpcisEvents(EPCISEventGenerator.generate(inputTemplate));
+    return CaptureOutput.builder()
+        .output(
+            StreamingEPCISDocumentOutput.outputStreamBuilder().objectMapper(objectMapper).build())
+        .uri(URI.create("http://localhost:" + server.getAddress().getPort() + "/capture"))
+        .batchSize(batchSize)
+        .concurrency(2)
+        .retryDelay(Duration.ofMillis(10), Duration.ofMillis(50))
+        .requestTimeout(Duration.ofSeconds(10))
+        .build()
+        .write(document);
+  }
+
+  @Test
+  public void batchedCaptureTest() throws Exception {
+    final CaptureOutput.Result result = capture(3);
+    final int expected = eventCount(AGGREGATION_EVENT_TEMPLATE);
+    assertEquals(expected, result.events());
+    assertEquals((expected + 2) / 3, result.batches());
+    assertEquals(expected, captured.get());
+    assertEquals(0, result.retries());
+    assertTrue(result.latencyMax().compareTo(result.latencyP50()) >= 0);
+    assertTrue(result.latencyP50().toNanos() > 0);
+  }
+
+  @Test
+  public void retryTest() throws Exception {
+    firstStatus = 503;
+    final CaptureOutput.Result result = capture(4);
+    final int expected = eventCount(AGGREGATION_EVENT_TEMPLATE);
+    assertEquals(1, result.retries());
+    assertEquals(expected, captured.get());
+    assertEquals(result.batches() + 1, requests.get());
+  }
+
+  @Test
+  public void rejectedCaptureTest() {
+    firstStatus = 400;
+    assertThrows(IOException.class, () -> capture(4));
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.luben.zstd.ZstdInputStream;
+import io.openepcis.testdata.generator.EPCISEventGenerator;
+import io.openepcis.testdata.generator.reactivestreams.Compression;
+import io.openepcis.testdata.generator.reactivestreams.StreamingEPCISDocument;
+import io.openepcis.testdata.generator.template.InputTemplate;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+
+public class CompressionTest {
+
+  private final ObjectMapper objectMapper =
+      new ObjectMapper()
+          .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+          .registerModule(new Jdk8Module())
+          .registerModule(new JavaTimeModule())
+          .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false)
+          .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  // target failing on flush, the compressor still writes its trailer and closes the target
+  private static class FailingFlushOutputStream extends ByteArrayOutputStream {
+    private volatile boolean closed;
+
+    @Override
+    public void flush() throws IOException {
+      throw new IOException("flush failed");
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+
+  private StreamingEPCISDocument document(final Compression compression) throws Exception {
+    final InputTemplate inputTemplate =
+        objectMapper.readValue(
+            getClass().getResourceAsStream("/DesignTestDataEvents1.json"), InputTemplate.class);
+    final StreamingEPCISDocument document = new StreamingEPCISDocument();
+    StreamingEPCISDocument.storeContextInfo(inputTemplate.getEvents());
+    document.setCompression(compression);
+    document.setEpcisEvents(EPCISEventGenerator.generate(inputTemplate));
+    return document;
+  }
+
+  private JsonNode writeAndRead(final Compression compression, final boolean worker)
+      throws Exception {
+    final StreamingEPCISDocument document = document(compression);
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    document.writeToOutputStream(
+        b ->
+            b.objectMapper(objectMapper)
+                .compressionLevel(3)
+                .compressionWorker(worker)
+                .outputStream(out)
+                .build());
+    final InputStream in = new ByteArrayInputStream(out.toByteArray());
+    return objectMapper.readTree(
+        compression == Compression.GZIP ? new GZIPInputStream(in) : new ZstdInputStream(in));
+  }
+
+  @Test
+  public void gzipTest() throws Exception {
+    assertEquals("EPCISDocument", writeAndRead(Compression.GZIP, true).get("type").asText());
+    assertEquals("EPCISDocument", writeAndRead(Compression.GZIP, false).get("type").asText());
+  }
+
+  @Test
+  public void zstdTest() throws Exception {
+    assertEquals("EPCISDocument", writeAndRead(Compression.ZSTD, true).get("type").asText());
+  }
+
+  @Test
+  public void compressorClosedOnFailureTest() throws Exception {
+    for (Compression compression : new Compression[] {Compression.GZIP, Compression.ZSTD}) {
+      final StreamingEPCISDocument document = document(compression);
+      final FailingFlushOutputStream out = new FailingFlushOutputStream();
+      assertThrows(
+          Exception.class,
+          () ->
+              document.writeToOutputStream(
+                  b ->
+                      b.objectMapper(objectMapper)
+                          .compressionWorker(true)
+                          .outputStream(out)
+                          .build()));
+      assertTrue(out.closed, compression + " compressor left the target open");
+    }
+  }
+
+  @Test
+  public void acceptEncodingTest() {
+    assertEquals(Compression.NONE, Compression.forAcceptEncoding(null));
+    assertEquals(Compression.NONE, Compression.forAcceptEncoding("identity, br"));
+    assertEquals(Compression.GZIP, Compression.forAcceptEncoding("gzip, deflate, br"));
+    assertEquals(Compression.ZSTD, Compression.forAcceptEncoding("gzip, zstd"));
+    assertEquals(Compression.GZIP, Compression.forAcceptEncoding("zstd;q=0.5, gzip;q=0.8"));
+    assertEquals(Compression.NONE, Compression.forAcceptEncoding("gzip;q=0"));
+    assertEquals(Compression.GZIP, Compression.forAcceptEncoding("*"));
+    // codings refused with q=0 are not accepted through the wildcard
+    assertEquals(Compression.ZSTD, Compression.forAcceptEncoding("gzip;q=0, *"));
+    assertEquals(Compression.ZSTD, Compression.forAcceptEncoding("*;q=1, gzip;q=0"));
+    assertEquals(Compression.GZIP, Compression.forAcceptEncoding("zstd;q=0, *"));
+    assertEquals(Compression.NONE, Compression.forAcceptEncoding("gzip;q=0, zstd;q=0, *"));
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import io.openepcis.testdata.generator.EPCISEventGenerator;
+import io.openepcis.testdata.generator.template.InputTemplate;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Event nodes are scheduled with an explicit stack, the depth of a template must not be limited by
+ * the stack size of the generating thread.
+ */
+public class DeepTemplateTest {
+
+  private static final int DEPTH = 5_000;
+
+  // recursing once per event node would need a multiple of this for DEPTH nodes
+  private static final long STACK_SIZE = 512 * 1024;
+
+  private static final String EVENT =
+      """
+      {
+        "nodeId": %d,
+        "eventType": "ObjectEvent",
+        "eventCount": 1,
+        "locationPartyIdentifierSyntax": "URN",
+        "ordinaryEvent": true,
+        "action": "OBSERVE",
+        "eventID": false,
+        "eventTime": {
+          "timeZoneOffset": "+02:00",
+          "specificTime": "2023-03-02T18:15:21+02:00"
+        },
+        "referencedIdentifier": [{%s, "epcCount": 1}],
+        "parentReferencedIdentifier": {},
+        "outputReferencedIdentifier": []
+      }""";
+
+  private static final String IDENTIFIER =
+      """
+      {
+        "identifierId": 1,
+        "objectIdentifierSyntax": "URN",
+        "instanceData": {
+          "sgtin": {
+            "identifierType": "sgtin",
+            "gcpLength": 7,
+            "sgtin": "09521987654327",
+            "serialType": "range",
+            "rangeFrom": 1
+          }
+        }
+      }""";
+
+  // every ObjectEvent node inherits the EPC of the ObjectEvent node before it
+  private InputTemplate chainTemplate() throws Exception {
+    final StringJoiner events = new StringJoiner(",", "[", "]");
+    events.add(EVENT.formatted(1, "\"identifierId\": 1"));
+    for (int nodeId = 2; nodeId <= DEPTH; nodeId++) {
+      events.add(EVENT.formatted(nodeId, "\"parentNodeId\": " + (nodeId - 1)));
+    }
+    return OutputTestSupport.objectMapper()
+        .readValue(
+            "{\"events\": " + events + ", \"identifiers\": [" + IDENTIFIER + "]}",
+            InputTemplate.class);
+  }
+
+  @Test
+  public void deepTemplateTest() throws Exception {
+    final InputTemplate inputTemplate = chainTemplate();
+    final AtomicInteger events = new AtomicInteger();
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    final Thread thread =
+        new Thread(
+            null,
+            () -> {
+              try {
+                events.set(
+                    EPCISEventGenerator.generate(inputTemplate)
+                        .collect()
+                        .asList()
+                        .await()
+                        .indefinitely()
+                        .size());
+              } catch (Throwable t) {
+                failure.set(t);
+              }
+            },
+            "deep-template",
+            STACK_SIZE);
+    thread.start();
+    thread.join();
+
+    assertNull(failure.get());
+    assertEquals(DEPTH, events.get());
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.openepcis.model.epcis.EPCISEvent;
+import io.openepcis.testdata.generator.EPCISEventGenerator;
+import io.openepcis.testdata.generator.reactivestreams.EPCISEventPublisher;
+import io.openepcis.testdata.generator.reactivestreams.EPCISEventPublisherOptions;
+import io.openepcis.testdata.generator.template.InputTemplate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import org.junit.jupiter.api.Test;
+
+public class EPCISEventBroadcastTest {
+
+  private static final int EVENT_COUNT = 20;
+
+  private final ObjectMapper objectMapper =
+      new ObjectMapper()
+          .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+          .registerModule(new Jdk8Module())
+          .registerModule(new JavaTimeModule())
+          .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  // collects the events, requests are issued by the test
+  private static class RecordingSubscriber implements Flow.Subscriber<EPCISEvent> {
+    private final List<EPCISEvent> events = new CopyOnWriteArrayList<>();
+    private Flow.Subscription subscription;
+    private volatile boolean completed;
+
+    @Override
+    public void onSubscribe(final Flow.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(final EPCISEvent item) {
+      events.add(item);
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {}
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+
+  private EPCISEventPublisher publisher(final int broadcastSubscribers) throws Exception {
+    final InputTemplate inputTemplate =
+        objectMapper.readValue(
+            getClass().getResourceAsStream("/singleObjectEvent.json"), InputTemplate.class);
+    inputTemplate.getEvents().get(0).setEventCount(EVENT_COUNT);
+    return new EPCISEventPublisher(
+        EPCISEventGenerator.createModels(inputTemplate),
+        EPCISEventPublisherOptions.builder()
+            .broadcastBufferSize(4)
+            .broadcastSubscribers(broadcastSubscribers)
+            .build());
+  }
+
+  @Test
+  public void waitsForExpectedSubscribers() throws Exception {
+    final EPCISEventPublisher publisher = publisher(2);
+    final RecordingSubscriber first = new RecordingSubscriber();
+    publisher.subscribe(first);
+    first.subscription.request(Long.MAX_VALUE);
+    assertTrue(first.events.isEmpty());
+
+    final RecordingSubscriber second = new RecordingSubscriber();
+    publisher.subscribe(second);
+    second.subscription.request(Long.MAX_VALUE);
+
+    assertTrue(first.completed);
+    assertTrue(second.completed);
+    assertEquals(EVENT_COUNT, first.events.size());
+    // both subscribers receive the same event instances in the same order
+    assertEquals(first.events, second.events);
+  }
+
+  @Test
+  public void lateSubscriberMissesPublishedEvents() throws Exception {
+    final EPCISEventPublisher publisher = publisher(1);
+    final RecordingSubscriber first = new RecordingSubscriber();
+    publisher.subscribe(first);
+    first.subscription.request(2);
+    assertEquals(2, first.events.size());
+
+    final RecordingSubscriber late = new RecordingSubscriber();
+    publisher.subscribe(late);
+    late.subscription.request(Long.MAX_VALUE);
+    first.subscription.request(Long.MAX_VALUE);
+
+    assertTrue(first.completed);
+    assertTrue(late.completed);
+    assertEquals(EVENT_COUNT, first.events.size());
+    // the late subscriber starts behind the events published before it subscribed
+    assertTrue(late.events.size() < EVENT_COUNT);
+    assertEquals(first.events.subList(EVENT_COUNT - late.events.size(), EVENT_COUNT), late.events);
+  }
+}
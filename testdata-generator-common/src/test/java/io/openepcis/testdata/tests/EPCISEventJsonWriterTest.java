@@ -0,0 +1,146 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.openepcis.model.epcis.EPCISEvent;
+import io.openepcis.testdata.generator.EPCISEventGenerator;
+import io.openepcis.testdata.generator.reactivestreams.EPCISEventJsonWriter;
+import io.openepcis.testdata.generator.reactivestreams.StreamingEPCISDocument;
+import io.openepcis.testdata.generator.template.InputTemplate;
+import io.smallrye.mutiny.Multi;
+import java.io.StringWriter;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class EPCISEventJsonWriterTest {
+
+  private final ObjectMapper objectMapper =
+      new ObjectMapper()
+          .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+          .registerModule(new Jdk8Module())
+          .registerModule(new JavaTimeModule())
+          .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false)
+          .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  // every supported event must result in the same JSON as the POJO serialization, compared as
+  // strings so that the field order has to match as well
+  private void assertSameJson(final String inputFile) throws Exception {
+    final InputTemplate inputTemplate =
+        objectMapper.readValue(getClass().getResourceAsStream(inputFile), InputTemplate.class);
+    final List<EPCISEvent> events =
+        EPCISEventGenerator.generate(inputTemplate).collect().asList().await().indefinitely();
+
+    int written = 0;
+    for (EPCISEvent event : events) {
+      if (!EPCISEventJsonWriter.supports(event)) {
+        continue;
+      }
+      final StringWriter direct = new StringWriter();
+      try (JsonGenerator gen = objectMapper.getFactory().createGenerator(direct)) {
+        EPCISEventJsonWriter.write(gen, event);
+      }
+      assertEquals(objectMapper.writeValueAsString(event), direct.toString());
+      written++;
+    }
+    assertTrue(written > 0);
+  }
+
+  // document of the events written through databind or directly with the constant fields spliced
+  // in as fragments, without the creation date
+  private String writeDocument(final List<EPCISEvent> events, final boolean directJson)
+      throws Exception {
+    final StreamingEPCISDocument document = new StreamingEPCISDocument();
+    document.setEpcisEvents(Multi.createFrom().iterable(events));
+    final StringWriter writer = new StringWriter();
+    document.writeToWriter(
+        b -> b.objectMapper(objectMapper).directJson(directJson).writer(writer).build());
+    return writer.toString().replaceFirst("\"creationDate\":\"[^\"]*\"", "");
+  }
+
+  @Test
+  public void fragmentsTest() throws Exception {
+    // object events with the where, why and vocabulary fields of the association template
+    final ObjectNode objectTemplate =
+        (ObjectNode)
+            objectMapper.readTree(getClass().getResourceAsStream("/CreateObjectEventInput.json"));
+    final ObjectNode objectEvent = (ObjectNode) objectTemplate.at("/events/0");
+    final ObjectNode associationEvent =
+        (ObjectNode)
+            objectMapper
+                .readTree(getClass().getResourceAsStream("/CreateAssociationEventInput.json"))
+                .at("/events/0");
+    for (String field :
+        List.of(
+            "readPoint",
+            "bizLocation",
+            "businessStep",
+            "disposition",
+            "sources",
+            "destinations",
+            "bizTransactions",
+            "persistentDisposition")) {
+      objectEvent.set(field, associationEvent.get(field));
+    }
+    objectEvent.put("eventCount", 5);
+    final InputTemplate inputTemplate =
+        objectMapper.treeToValue(objectTemplate, InputTemplate.class);
+    StreamingEPCISDocument.storeContextInfo(inputTemplate.getEvents());
+    final List<EPCISEvent> events =
+        EPCISEventGenerator.generate(inputTemplate).collect().asList().await().indefinitely();
+    assertEquals(5, events.size());
+    assertTrue(events.stream().allMatch(EPCISEventJsonWriter::supports));
+    // the events of the node share the constant values, so all but the first event use fragments
+    assertSame(events.get(0).getSourceList(), events.get(1).getSourceList());
+    assertSame(events.get(0).getReadPoint(), events.get(1).getReadPoint());
+
+    final String expected = writeDocument(events, false);
+    assertTrue(expected.contains("\"sourceList\""));
+    assertTrue(expected.contains("\"persistentDisposition\""));
+    assertEquals(expected, writeDocument(events, true));
+  }
+
+  @Test
+  public void objectEventTest() throws Exception {
+    assertSameJson("/CreateObjectEventInput.json");
+  }
+
+  @Test
+  public void aggregationEventTest() throws Exception {
+    assertSameJson("/CreateAggregationEventInput.json");
+  }
+
+  @Test
+  public void transactionEventTest() throws Exception {
+    assertSameJson("/CreateTransactionEventInput.json");
+  }
+
+  @Test
+  public void designTestDataEventsTest() throws Exception {
+    assertSameJson("/DesignTestDataEvents1.json");
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.tests;
+
+import static io.openepcis.testdata.tests.OutputTestSupport.inputTemplate;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.openepcis.model.epcis.EPCISEvent;
+import io.openepcis.testdata.generator.constants.TestDataGeneratorException;
+import io.openepcis.testdata.generator.model.EventCreationModel;
+import io.openepcis.testdata.generator.model.EventGraph;
+import io.openepcis.testdata.generator.template.EPCISEventType;
+import io.openepcis.testdata.generator.template.InputTemplate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class EventGraphTest {
+
+  // ObjectEvent node 2 -> AggregationEvent node 3 -> node 4 -> node 5
+  private static final String CHAIN_TEMPLATE = "/DesignTestDataEvents6.json";
+
+  @Test
+  public void compileTest() throws Exception {
+    final EventGraph eventGraph = EventGraph.compile(inputTemplate(CHAIN_TEMPLATE));
+
+    assertEquals(4, eventGraph.getModels().size());
+    assertEquals(Map.of(2, 0, 3, 1, 4, 2, 5, 3), eventGraph.getNodeIndex());
+    assertArrayEquals(new int[][] {{1}, {2}, {3}, {}}, eventGraph.getDownstream());
+    assertArrayEquals(new int[] {0, 1, 2, 3}, eventGraph.getTopologicalOrder());
+    assertEquals(Map.of(1, 1, 6, 1, 7, 1), eventGraph.getIdentifierReferences());
+    assertFalse(eventGraph.getCompileTime().isNegative());
+  }
+
+  /* child nodes listed before their parents are still ordered after them */
+  @Test
+  public void topologicalOrderTest() throws Exception {
+    final InputTemplate inputTemplate = inputTemplate(CHAIN_TEMPLATE);
+    final List<EPCISEventType> events = new ArrayList<>(inputTemplate.getEvents());
+    Collections.reverse(events);
+    inputTemplate.setEvents(events);
+
+    final EventGraph eventGraph = EventGraph.compile(inputTemplate);
+
+    assertEquals(Map.of(5, 0, 4, 1, 3, 2, 2, 3), eventGraph.getNodeIndex());
+    assertArrayEquals(new int[][] {{}, {0}, {1}, {2}}, eventGraph.getDownstream());
+    assertArrayEquals(new int[] {3, 2, 1, 0}, eventGraph.getTopologicalOrder());
+  }
+
+  @Test
+  public void cycleTest() throws Exception {
+    final List<EventCreationModel<EPCISEventType, EPCISEvent>> models =
+        EventGraph.createModels(inputTemplate(CHAIN_TEMPLATE));
+    // let the root node inherit from the last node of the chain
+    models.get(0).getTypeInfo().getReferencedIdentifier().get(0).setParentNodeId(5);
+
+    assertThrows(TestDataGeneratorException.class, () -> EventGraph.of(models));
+  }
+}
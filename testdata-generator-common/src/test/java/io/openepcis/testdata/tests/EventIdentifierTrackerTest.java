@@ -0,0 +1,112 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.tests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.openepcis.model.epcis.AggregationEvent;
+import io.openepcis.model.epcis.ObjectEvent;
+import io.openepcis.model.epcis.QuantityList;
+import io.openepcis.model.epcis.TransformationEvent;
+import io.openepcis.testdata.generator.model.EventModelUtil;
+import io.openepcis.testdata.generator.reactivestreams.EventIdentifierTracker;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class EventIdentifierTrackerTest {
+
+  private static final String PARENT = "urn:epc:id:sscc:234567890.0000000001";
+
+  private static final List<String> EPCS =
+      List.of(
+          "urn:epc:id:sgtin:234567890.1123.1",
+          "urn:epc:id:sgtin:234567890.1123.2",
+          "urn:epc:id:sgtin:234567890.1123.3");
+
+  private static final List<QuantityList> QUANTITIES =
+      List.of(
+          new QuantityList("urn:epc:class:lgtin:234567890.1123.A", 10f, "KGM"),
+          new QuantityList("urn:epc:class:lgtin:234567890.1123.B", 20f, "KGM"));
+
+  /* child EPCs, quantities and the parentID of an AggregationEvent are inherited */
+  @Test
+  public void aggregationEventTest() {
+    final AggregationEvent event = new AggregationEvent();
+    final OffsetDateTime eventTime = OffsetDateTime.now();
+    event.setEventTime(eventTime);
+    event.setParentID(PARENT);
+    event.setChildEPCs(new ArrayList<>(EPCS));
+    event.setChildQuantityList(new ArrayList<>(QUANTITIES));
+    final EventIdentifierTracker tracker = new EventIdentifierTracker(null, event);
+
+    // the tracker keeps its own copy of the identifiers
+    event.getChildEPCs().clear();
+    event.getChildQuantityList().clear();
+    assertArrayEquals(EPCS.toArray(), tracker.getInstanceIdentifiers());
+    assertArrayEquals(QUANTITIES.toArray(), tracker.getClassIdentifiers());
+    assertTrue(tracker.isParentIdEvent());
+    assertEquals(PARENT, tracker.getParentID());
+    assertEquals(eventTime, tracker.getEventTime());
+
+    // children take the EPCs one after the other and start over once all have been taken
+    assertEquals(EPCS.subList(0, 2), EventModelUtil.instanceIdentifiers(tracker, 2));
+    assertEquals(EPCS.subList(0, 2), EventModelUtil.instanceIdentifiers(tracker, 2));
+    assertEquals(List.of(PARENT), EventModelUtil.parentIdentifiers(tracker, 1));
+    assertEquals(List.of(PARENT), EventModelUtil.segregateParentToEPC(tracker, 1));
+    assertEquals(QUANTITIES.subList(0, 1), EventModelUtil.classIdentifiers(tracker, 1, null));
+    assertEquals(QUANTITIES.subList(1, 2), EventModelUtil.classIdentifiers(tracker, 1, null));
+    // a quantity of the child replaces the inherited one
+    assertEquals(
+        Float.valueOf(5f), EventModelUtil.classIdentifiers(tracker, 1, 5f).get(0).getQuantity());
+  }
+
+  /* the EPCs of an ObjectEvent are the parent identifiers of its children */
+  @Test
+  public void objectEventTest() {
+    final ObjectEvent event = new ObjectEvent();
+    event.setEpcList(EPCS);
+    event.setQuantityList(QUANTITIES);
+    final EventIdentifierTracker tracker = new EventIdentifierTracker(null, event);
+
+    assertFalse(tracker.isParentIdEvent());
+    assertNull(tracker.getParentID());
+    assertArrayEquals(QUANTITIES.toArray(), tracker.getClassIdentifiers());
+    assertEquals(EPCS.subList(0, 1), EventModelUtil.parentIdentifiers(tracker, 1));
+    assertEquals(EPCS.subList(1, 3), EventModelUtil.parentIdentifiers(tracker, 2));
+    assertTrue(EventModelUtil.segregateParentToEPC(tracker, 1).isEmpty());
+  }
+
+  /* a TransformationEvent passes on its outputs */
+  @Test
+  public void transformationEventTest() {
+    final TransformationEvent event = new TransformationEvent();
+    event.setInputEPCList(List.of("urn:epc:id:sgtin:234567890.1123.99"));
+    event.setOutputEPCList(EPCS);
+    event.setOutputQuantityList(QUANTITIES);
+    final EventIdentifierTracker tracker = new EventIdentifierTracker(null, event);
+
+    assertArrayEquals(EPCS.toArray(), tracker.getInstanceIdentifiers());
+    assertArrayEquals(QUANTITIES.toArray(), tracker.getClassIdentifiers());
+    assertFalse(tracker.isParentIdEvent());
+    assertEquals(EPCS, EventModelUtil.instanceIdentifiers(tracker, 3));
+  }
+}
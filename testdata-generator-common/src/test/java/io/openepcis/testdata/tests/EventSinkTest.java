@@ -0,0 +1,168 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.tests;
+
+import static io.openepcis.testdata.tests.OutputTestSupport.AGGREGATION_EVENT_TEMPLATE;
+import static io.openepcis.testdata.tests.OutputTestSupport.eventCount;
+import static io.openepcis.testdata.tests.OutputTestSupport.inputTemplate;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.openepcis.model.epcis.EPCISEvent;
+import io.openepcis.testdata.generator.EPCISEventGenerator;
+import io.openepcis.testdata.generator.reactivestreams.EventSink;
+import io.openepcis.testdata.generator.reactivestreams.EventSinkOutput;
+import io.openepcis.testdata.generator.reactivestreams.EventSinks;
+import io.openepcis.testdata.generator.reactivestreams.StreamingEPCISDocument;
+import io.openepcis.testdata.generator.reactivestreams.StreamingEPCISDocumentOutput;
+import io.openepcis.testdata.generator.reactivestreams.TeeEventSink;
+import io.openepcis.testdata.generator.template.InputTemplate;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class EventSinkTest {
+
+  private final ObjectMapper objectMapper = OutputTestSupport.objectMapper();
+
+  @TempDir Path directory;
+
+  // records the calls, slow enough for the tee to fill its buffer
+  private static class RecordingSink implements EventSink {
+    final List<EPCISEvent> events = new ArrayList<>();
+    int batches;
+    boolean opened;
+    boolean closed;
+    Throwable failed;
+    final int failAt;
+
+    RecordingSink(final int failAt) {
+      this.failAt = failAt;
+    }
+
+    @Override
+    public void open(final StreamingEPCISDocument streamingEPCISDocument) {
+      opened = true;
+    }
+
+    @Override
+    public void accept(final List<EPCISEvent> batch) throws IOException {
+      if (++batches == failAt) {
+        throw new IOException("sink failed");
+      }
+      events.addAll(batch);
+      try {
+        Thread.sleep(1);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+
+    @Override
+    public void fail(final Throwable t) {
+      failed = t;
+    }
+  }
+
+  private StreamingEPCISDocumentOutput output() {
+    return StreamingEPCISDocumentOutput.outputStreamBuilder().objectMapper(objectMapper).build();
+  }
+
+  private void write(final EventSink sink) throws Exception {
+    final InputTemplate inputTemplate = inputTemplate(AGGREGATION_EVENT_TEMPLATE);
+    final StreamingEPCISDocument document = new StreamingEPCISDocument();
+    StreamingEPCISDocument.storeContextInfo(inputTemplate.getEvents());
+    document.setEpcisEvents(EPCISEventGenerator.generate(inputTemplate));
+    EventSinkOutput.builder().output(output()).sink(sink).batchSize(3).build().write(document);
+  }
+
+  @Test
+  public void providersTest() {
+    assertTrue(EventSinks.names().containsAll(Set.of("file", "table", "jdbc", "capture")));
+    assertThrows(IllegalArgumentException.class, () -> EventSinks.create("unknown", output()));
+    assertThrows(IllegalArgumentException.class, () -> EventSinks.create("file", output()));
+  }
+
+  @Test
+  public void teeTest() throws Exception {
+    final Path json = directory.resolve("events.jsonld");
+    final Path ndjson = directory.resolve("events.ndjson");
+    final RecordingSink recording = new RecordingSink(0);
+    // both file sinks share the output, pretty printing one of them must not leak into the other
+    final StreamingEPCISDocumentOutput output = output();
+    write(
+        new TeeEventSink(
+            List.of(
+                EventSinks.create("file:path=" + json + ",pretty=true", output),
+                EventSinks.create("file:path=" + ndjson + ",format=ndjson", output),
+                recording),
+            1,
+            false));
+    final int expected = eventCount(AGGREGATION_EVENT_TEMPLATE);
+    assertEquals(
+        expected, objectMapper.readTree(json.toFile()).at("/epcisBody/eventList").size());
+    assertTrue(Files.readString(json).contains("\n  "));
+    // the first line carries the @context
+    assertEquals(expected + 1, Files.readAllLines(ndjson).size());
+    assertTrue(recording.opened);
+    assertTrue(recording.closed);
+    assertEquals(expected, recording.events.size());
+    assertEquals((expected + 2) / 3, recording.batches);
+  }
+
+  @Test
+  public void failingSinkTest() throws Exception {
+    final RecordingSink recording = new RecordingSink(0);
+    final RecordingSink failing = new RecordingSink(1);
+    assertThrows(
+        Exception.class, () -> write(new TeeEventSink(List.of(recording, failing), 1, false)));
+    assertTrue(recording.opened);
+    assertFalse(recording.closed);
+    assertTrue(recording.failed != null);
+    assertTrue(failing.failed != null);
+  }
+
+  @Test
+  public void errorSinkTest() throws Exception {
+    final RecordingSink recording = new RecordingSink(0);
+    final RecordingSink failing =
+        new RecordingSink(0) {
+          @Override
+          public void accept(final List<EPCISEvent> batch) {
+            throw new AssertionError("sink error");
+          }
+        };
+    // an error in a sink thread fails the run instead of dropping the events of the sink
+    assertThrows(
+        Exception.class, () -> write(new TeeEventSink(List.of(recording, failing), 1, false)));
+    assertFalse(recording.closed);
+    assertTrue(recording.failed != null);
+    assertTrue(failing.failed instanceof AssertionError);
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.tests;
+
+import static io.openepcis.testdata.tests.OutputTestSupport.OBJECT_EVENT_TEMPLATE;
+import static io.openepcis.testdata.tests.OutputTestSupport.eventCount;
+import static io.openepcis.testdata.tests.OutputTestSupport.inputTemplate;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.openepcis.testdata.generator.EPCISEventGenerator;
+import io.openepcis.testdata.generator.reactivestreams.EventTableOutput;
+import io.openepcis.testdata.generator.reactivestreams.StreamingEPCISDocument;
+import io.openepcis.testdata.generator.reactivestreams.StreamingEPCISDocumentOutput;
+import io.openepcis.testdata.generator.reactivestreams.TableFormat;
+import io.openepcis.testdata.generator.template.InputTemplate;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class EventTableOutputTest {
+
+  private final ObjectMapper objectMapper = OutputTestSupport.objectMapper();
+
+  @TempDir Path directory;
+
+  private List<Path> write(final TableFormat format) throws Exception {
+    final InputTemplate inputTemplate = inputTemplate(OBJECT_EVENT_TEMPLATE);
+    final StreamingEPCISDocument document = new StreamingEPCISDocument();
+    StreamingEPCISDocument.storeContextInfo(inputTemplate.getEvents());
+    document.setEpcisEvents(EPCISEventGenerator.generate(inputTemplate));
+    return EventTableOutput.builder()
+        .output(
+            StreamingEPCISDocumentOutput.outputStreamBuilder().objectMapper(objectMapper).build())
+        .directory(directory)
+        .format(format)
+        .build()
+        .write(document);
+  }
+
+  @Test
+  public void csvTablesTest() throws Exception {
+    final List<Path> paths = write(TableFormat.CSV);
+    assertEquals(6, paths.size());
+    assertEquals(directory.resolve("events.csv"), paths.get(0));
+
+    final List<String> events = Files.readAllLines(paths.get(0));
+    assertTrue(events.get(0).startsWith("event_id,event_type,event_time"));
+    assertEquals(eventCount(OBJECT_EVENT_TEMPLATE) + 1, events.size());
+    assertTrue(events.get(1).contains(",ObjectEvent,"));
+
+    // every EPC row references a written event
+    final List<String> epcs = Files.readAllLines(directory.resolve("event_epcs.csv"));
+    assertTrue(epcs.size() > 1);
+    final String eventId = events.get(1).substring(0, events.get(1).indexOf(','));
+    assertTrue(epcs.stream().anyMatch(l -> l.startsWith(eventId + ",")));
+  }
+
+  @Test
+  public void copyTablesTest() throws Exception {
+    final List<Path> paths = write(TableFormat.COPY);
+    final List<String> events = Files.readAllLines(directory.resolve("events.copy"));
+    assertEquals(paths.get(0), directory.resolve("events.copy"));
+    // no header, missing values as \N
+    assertEquals(eventCount(OBJECT_EVENT_TEMPLATE), events.size());
+    assertEquals(12, events.get(0).split("\t", -1).length);
+    assertTrue(events.get(0).contains("\\N"));
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.tests;
+
+import static io.openepcis.testdata.tests.OutputTestSupport.AGGREGATION_EVENT_TEMPLATE;
+import static io.openepcis.testdata.tests.OutputTestSupport.eventCount;
+import static io.openepcis.testdata.tests.OutputTestSupport.inputTemplate;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.openepcis.testdata.generator.EPCISEventGenerator;
+import io.openepcis.testdata.generator.reactivestreams.JdbcEventOutput;
+import io.openepcis.testdata.generator.reactivestreams.StreamingEPCISDocument;
+import io.openepcis.testdata.generator.reactivestreams.StreamingEPCISDocumentOutput;
+import io.openepcis.testdata.generator.template.InputTemplate;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import org.junit.jupiter.api.Test;
+
+public class JdbcEventOutputTest {
+
+  private final ObjectMapper objectMapper = OutputTestSupport.objectMapper();
+
+  private JdbcEventOutput.Result insert(final String url, final int writers) throws Exception {
+    final InputTemplate inputTemplate = inputTemplate(AGGREGATION_EVENT_TEMPLATE);
+    final StreamingEPCISDocument document = new StreamingEPCISDocument();
+    StreamingEPCISDocument.storeContextInfo(inputTemplate.getEvents());
+    document.setEpcisEvents(EPCISEventGenerator.generate(inputTemplate));
+    return JdbcEventOutput.builder()
+        .output(
+            StreamingEPCISDocumentOutput.outputStreamBuilder().objectMapper(objectMapper).build())
+        .url(url, "sa", "")
+        .writers(writers)
+        .batchSize(4)
+        .build()
+        .write(document);
+  }
+
+  private static long count(final String url, final String sql) throws Exception {
+    try (Connection connection = DriverManager.getConnection(url, "sa", "");
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(sql)) {
+      resultSet.next();
+      return resultSet.getLong(1);
+    }
+  }
+
+  private void assertInserted(final String url, final int writers) throws Exception {
+    final JdbcEventOutput.Result result = insert(url, writers);
+    final int expected = eventCount(AGGREGATION_EVENT_TEMPLATE);
+    assertEquals(expected, result.events());
+    assertEquals(expected, count(url, "SELECT COUNT(*) FROM events"));
+    assertTrue(result.rows() > expected);
+    assertTrue(result.rowsPerSecond() > 0);
+    // all child rows reference an inserted event
+    assertEquals(
+        0,
+        count(
+            url,
+            "SELECT COUNT(*) FROM event_epcs c"
+                + " WHERE NOT EXISTS (SELECT 1 FROM events e WHERE e.event_id = c.event_id)"));
+    final long rows =
+        count(url, "SELECT COUNT(*) FROM events")
+            + count(url, "SELECT COUNT(*) FROM event_epcs")
+            + count(url, "SELECT COUNT(*) FROM event_quantities")
+            + count(url, "SELECT COUNT(*) FROM event_sources_destinations")
+            + count(url, "SELECT COUNT(*) FROM event_biz_transactions")
+            + count(url, "SELECT COUNT(*) FROM event_extensions");
+    assertEquals(result.rows(), rows);
+  }
+
+  @Test
+  public void singleWriterTest() throws Exception {
+    assertInserted("jdbc:h2:mem:single;DB_CLOSE_DELAY=-1", 1);
+  }
+
+  @Test
+  public void parallelWritersTest() throws Exception {
+    assertInserted("jdbc:h2:mem:parallel;DB_CLOSE_DELAY=-1", 3);
+  }
+}
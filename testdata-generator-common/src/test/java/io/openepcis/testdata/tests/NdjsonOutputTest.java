@@ -0,0 +1,115 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.tests;
+
+import static io.openepcis.testdata.tests.OutputTestSupport.OBJECT_EVENT_TEMPLATE;
+import static io.openepcis.testdata.tests.OutputTestSupport.inputTemplate;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.openepcis.model.epcis.EPCISEvent;
+import io.openepcis.testdata.generator.EPCISEventGenerator;
+import io.openepcis.testdata.generator.constants.TestDataGeneratorException;
+import io.openepcis.testdata.generator.reactivestreams.EPCISDocumentFormat;
+import io.openepcis.testdata.generator.reactivestreams.StreamingEPCISDocument;
+import io.openepcis.testdata.generator.template.InputTemplate;
+import io.smallrye.mutiny.Multi;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class NdjsonOutputTest {
+
+  private final ObjectMapper objectMapper = OutputTestSupport.objectMapper();
+
+  private List<EPCISEvent> events() throws Exception {
+    final InputTemplate inputTemplate = inputTemplate(OBJECT_EVENT_TEMPLATE);
+    StreamingEPCISDocument.storeContextInfo(inputTemplate.getEvents());
+    return EPCISEventGenerator.generate(inputTemplate).collect().asList().await().indefinitely();
+  }
+
+  // written lines, every line has to end with a line separator
+  private List<JsonNode> write(final Multi<EPCISEvent> events, final boolean header)
+      throws Exception {
+    final StreamingEPCISDocument document = new StreamingEPCISDocument();
+    // lines stay compact even if pretty printing is requested
+    document.setPrettyPrint(true);
+    document.setEpcisEvents(events);
+    final StringWriter writer = new StringWriter();
+    document.writeToWriter(
+        b ->
+            b.objectMapper(objectMapper)
+                .directJson(true)
+                .format(EPCISDocumentFormat.NDJSON)
+                .ndjsonHeader(header)
+                .writer(writer)
+                .build());
+    final String output = writer.toString();
+    assertTrue(output.endsWith("\n"));
+    final List<JsonNode> lines = new ArrayList<>();
+    for (String line : output.split("\n")) {
+      lines.add(objectMapper.readTree(line));
+    }
+    return lines;
+  }
+
+  /* the @context line is followed by one line per event */
+  @Test
+  public void eventLinesTest() throws Exception {
+    final List<EPCISEvent> events = events();
+    final List<JsonNode> lines = write(Multi.createFrom().iterable(events), true);
+
+    assertEquals(events.size() + 1, lines.size());
+    assertTrue(lines.get(0).has("@context"));
+    assertFalse(lines.get(0).has("type"));
+    for (JsonNode line : lines.subList(1, lines.size())) {
+      assertEquals("ObjectEvent", line.get("type").asText());
+    }
+  }
+
+  @Test
+  public void withoutHeaderTest() throws Exception {
+    final List<EPCISEvent> events = events();
+    final List<JsonNode> lines = write(Multi.createFrom().iterable(events), false);
+
+    assertEquals(events.size(), lines.size());
+    assertTrue(lines.stream().allMatch(line -> "ObjectEvent".equals(line.get("type").asText())));
+  }
+
+  /* a failing generation ends with a problemResponse line after the events written so far */
+  @Test
+  public void errorLineTest() throws Exception {
+    final List<EPCISEvent> events = events();
+    final List<JsonNode> lines =
+        write(
+            Multi.createBy()
+                .concatenating()
+                .streams(
+                    Multi.createFrom().iterable(events),
+                    Multi.createFrom()
+                        .<EPCISEvent>failure(new TestDataGeneratorException("generation failed"))),
+            true);
+
+    assertEquals(events.size() + 2, lines.size());
+    final JsonNode last = lines.get(lines.size() - 1);
+    assertTrue(last.has("problemResponse"));
+    assertTrue(last.get("problemResponse").toString().contains("generation failed"));
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.tests;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.openepcis.testdata.generator.EPCISEventGenerator;
+import io.openepcis.testdata.generator.template.InputTemplate;
+import java.io.IOException;
+
+/** Object mapper and templates shared by the tests of the document and event outputs. */
+final class OutputTestSupport {
+
+  static final String OBJECT_EVENT_TEMPLATE = "/CreateObjectEventInput.json";
+
+  static final String AGGREGATION_EVENT_TEMPLATE = "/CreateAggregationEventInput.json";
+
+  private static final ObjectMapper OBJECT_MAPPER =
+      new ObjectMapper()
+          .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+          .registerModule(new Jdk8Module())
+          .registerModule(new JavaTimeModule())
+          .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false)
+          .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  private OutputTestSupport() {}
+
+  static ObjectMapper objectMapper() {
+    return OBJECT_MAPPER;
+  }
+
+  /**
+   * @param resource class path resource of the template
+   * @return template read with the shared object mapper
+   * @throws IOException if the template can not be read
+   */
+  static InputTemplate inputTemplate(final String resource) throws IOException {
+    return OBJECT_MAPPER.readValue(
+        OutputTestSupport.class.getResourceAsStream(resource), InputTemplate.class);
+  }
+
+  /**
+   * @param resource class path resource of the template
+   * @return number of events generated for the template
+   * @throws IOException if the template can not be read
+   */
+  static int eventCount(final String resource) throws IOException {
+    return EPCISEventGenerator.generate(inputTemplate(resource))
+        .collect()
+        .asList()
+        .await()
+        .indefinitely()
+        .size();
+  }
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.openepcis.model.epcis.EPCISEvent;
+import io.openepcis.testdata.generator.EPCISEventGenerator;
+import io.openepcis.testdata.generator.reactivestreams.EPCISEventPublisher;
+import io.openepcis.testdata.generator.reactivestreams.EPCISEventPublisherOptions;
+import io.openepcis.testdata.generator.reactivestreams.EPCISEventPublisherOptions.MergeMode;
+import io.openepcis.testdata.generator.template.InputTemplate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import org.junit.jupiter.api.Test;
+
+public class ParallelGenerationTest {
+
+  // two root ObjectEvent nodes using their own identifiers, i.e. two independent subgraphs
+  private static final String TEMPLATE =
+      """
+      {
+        "events": [{
+          "nodeId": 1,
+          "eventType": "ObjectEvent",
+          "eventCount": %1$d,
+          "seed": 42,
+          "locationPartyIdentifierSyntax": "URN",
+          "ordinaryEvent": true,
+          "action": "ADD",
+          "eventID": false,
+          "eventTime": {
+            "timeZoneOffset": "+02:00",
+            "fromTime": "2023-01-01T12:37:22+01:00",
+            "toTime": "2023-12-20T12:37:22+01:00"
+          },
+          "referencedIdentifier": [{"identifierId": 1, "epcCount": 2}],
+          "parentReferencedIdentifier": {},
+          "outputReferencedIdentifier": []
+        }, {
+          "nodeId": 2,
+          "eventType": "ObjectEvent",
+          "eventCount": %1$d,
+          "seed": 43,
+          "locationPartyIdentifierSyntax": "URN",
+          "ordinaryEvent": true,
+          "action": "OBSERVE",
+          "eventID": false,
+          "eventTime": {
+            "timeZoneOffset": "+02:00",
+            "fromTime": "2023-01-01T12:37:22+01:00",
+            "toTime": "2023-12-20T12:37:22+01:00"
+          },
+          "referencedIdentifier": [{"identifierId": 2, "epcCount": 2}],
+          "parentReferencedIdentifier": {},
+          "outputReferencedIdentifier": []
+        }],
+        "identifiers": [{
+          "identifierId": 1,
+          "objectIdentifierSyntax": "URN",
+          "instanceData": {
+            "sgtin": {
+              "identifierType": "sgtin",
+              "gcpLength": 7,
+              "sgtin": "09521987654327",
+              "serialType": "range",
+              "rangeFrom": 100,
+              "count": 2
+            }
+          }
+        }, {
+          "identifierId": 2,
+          "objectIdentifierSyntax": "URN",
+          "instanceData": {
+            "sgtin": {
+              "identifierType": "sgtin",
+              "gcpLength": 7,
+              "sgtin": "09521987654334",
+              "serialType": "range",
+              "rangeFrom": 100,
+              "count": 2
+            }
+          }
+        }]
+      }
+      """;
+
+  // two ObjectEvent -> AggregationEvent chains with their own identifiers, the AggregationEvents
+  // inherit the EPCs of their parent ObjectEvents as childEPCs
+  private static final String CHAINS_TEMPLATE =
+      """
+      {
+        "events": [%s, %s],
+        "identifiers": [%s, %s, %s, %s]
+      }
+      """
+          .formatted(
+              objectEvent(1, 1),
+              aggregationEvent(2, 1, 2),
+              objectEvent(3, 3),
+              aggregationEvent(4, 3, 4),
+              sgtin(1, "09521987654327", 500),
+              sscc(2, 600),
+              sgtin(3, "09521987654334", 700),
+              sscc(4, 800));
+
+  private final ObjectMapper objectMapper =
+      new ObjectMapper()
+          .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+          .registerModule(new Jdk8Module())
+          .registerModule(new JavaTimeModule())
+          .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false)
+          .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  private InputTemplate inputTemplate(final int eventCount) throws Exception {
+    return objectMapper.readValue(TEMPLATE.formatted(eventCount), InputTemplate.class);
+  }
+
+  /* a batch covering all events of both subgraphs must stop as soon as the subscriber cancels */
+  @Test
+  public void cancelStopsParallelGeneration() throws Exception {
+    final int eventCount = Integer.MAX_VALUE;
+    final EPCISEventPublisher publisher =
+        new EPCISEventPublisher(
+            EPCISEventGenerator.createModels(inputTemplate(eventCount)),
+            EPCISEventPublisherOptions.builder().parallel(true).batchSize(eventCount).build());
+    final CompletableFuture<Flow.Subscription> subscription = new CompletableFuture<>();
+    publisher.subscribe(
+        new Flow.Subscriber<>() {
+          @Override
+          public void onSubscribe(final Flow.Subscription s) {
+            subscription.complete(s);
+          }
+
+          @Override
+          public void onNext(final EPCISEvent item) {}
+
+          @Override
+          public void onError(final Throwable throwable) {}
+
+          @Override
+          public void onComplete() {}
+        });
+
+    // the request generates the whole batch on this thread, cancel it from another thread
+    final CompletableFuture<Void> request =
+        CompletableFuture.runAsync(() -> subscription.join().request(1));
+    Thread.sleep(200);
+    subscription.join().cancel();
+    assertTimeoutPreemptively(Duration.ofSeconds(30), () -> request.join());
+  }
+
+  /* parallel subgraphs create the same events and parent/child links as sequential generation */
+  @Test
+  public void parallelMatchesSequentialGeneration() throws Exception {
+    final List<String> sequential = generate(EPCISEventPublisherOptions.DEFAULT);
+    final Map<String, Set<String>> links = links(sequential);
+    // 2 ObjectEvents and 3 AggregationEvents per ObjectEvent in both chains
+    assertEquals(16, sequential.size());
+    assertFalse(links.isEmpty());
+    final Set<String> epcs = epcs(sequential);
+    links.values().forEach(childEPCs -> assertTrue(epcs.containsAll(childEPCs)));
+
+    for (MergeMode mergeMode : MergeMode.values()) {
+      final List<String> parallel =
+          generate(
+              EPCISEventPublisherOptions.builder().parallel(true).mergeMode(mergeMode).build());
+      assertEquals(sorted(sequential), sorted(parallel), mergeMode.name());
+      assertEquals(links, links(parallel), mergeMode.name());
+    }
+  }
+
+  private List<String> generate(final EPCISEventPublisherOptions options) throws Exception {
+    final List<String> events = new ArrayList<>();
+    for (EPCISEvent event :
+        EPCISEventGenerator.generate(
+                objectMapper.readValue(CHAINS_TEMPLATE, InputTemplate.class), options)
+            .collect()
+            .asList()
+            .await()
+            .indefinitely()) {
+      events.add(objectMapper.writeValueAsString(event));
+    }
+    return events;
+  }
+
+  private static List<String> sorted(final List<String> events) {
+    return events.stream().sorted().toList();
+  }
+
+  // childEPCs by parentID of the AggregationEvents
+  private Map<String, Set<String>> links(final List<String> events) throws Exception {
+    final Map<String, Set<String>> links = new TreeMap<>();
+    for (String event : events) {
+      final JsonNode node = objectMapper.readTree(event);
+      if ("AggregationEvent".equals(node.path("type").asText())) {
+        final Set<String> childEPCs =
+            links.computeIfAbsent(node.path("parentID").asText(), k -> new TreeSet<>());
+        node.path("childEPCs").forEach(epc -> childEPCs.add(epc.asText()));
+      }
+    }
+    return links;
+  }
+
+  // EPCs of the ObjectEvents
+  private Set<String> epcs(final List<String> events) throws Exception {
+    final Set<String> epcs = new TreeSet<>();
+    for (String event : events) {
+      final JsonNode node = objectMapper.readTree(event);
+      if ("ObjectEvent".equals(node.path("type").asText())) {
+        node.path("epcList").forEach(epc -> epcs.add(epc.asText()));
+      }
+    }
+    return epcs;
+  }
+
+  private static String objectEvent(final int nodeId, final int identifierId) {
+    return """
+        {
+          "nodeId": %d,
+          "eventType": "ObjectEvent",
+          "eventCount": 2,
+          "locationPartyIdentifierSyntax": "URN",
+          "ordinaryEvent": true,
+          "action": "ADD",
+          "eventID": false,
+          "eventTime": {
+            "timeZoneOffset": "+02:00",
+            "specificTime": "2023-03-02T18:15:21+02:00"
+          },
+          "businessStep": "COMMISSIONING",
+          "referencedIdentifier": [{"identifierId": %d, "epcCount": 5}],
+          "parentReferencedIdentifier": {},
+          "outputReferencedIdentifier": []
+        }"""
+        .formatted(nodeId, identifierId);
+  }
+
+  private static String aggregationEvent(
+      final int nodeId, final int parentNodeId, final int identifierId) {
+    return """
+        {
+          "nodeId": %d,
+          "eventType": "AggregationEvent",
+          "eventCount": 3,
+          "locationPartyIdentifierSyntax": "URN",
+          "ordinaryEvent": true,
+          "action": "ADD",
+          "eventID": false,
+          "eventTime": {
+            "timeZoneOffset": "+02:00",
+            "specificTime": "2023-03-02T18:15:33+02:00"
+          },
+          "businessStep": "PACKING",
+          "referencedIdentifier": [{"parentNodeId": %d, "epcCount": 3}],
+          "parentReferencedIdentifier": {"identifierId": %d, "parentCount": 3},
+          "outputReferencedIdentifier": []
+        }"""
+        .formatted(nodeId, parentNodeId, identifierId);
+  }
+
+  private static String sgtin(final int identifierId, final String gtin, final int rangeFrom) {
+    return """
+        {
+          "identifierId": %d,
+          "objectIdentifierSyntax": "URN",
+          "instanceData": {
+            "sgtin": {
+              "identifierType": "sgtin",
+              "gcpLength": 7,
+              "sgtin": "%s",
+              "serialType": "range",
+              "rangeFrom": %d
+            }
+          }
+        }"""
+        .formatted(identifierId, gtin, rangeFrom);
+  }
+
+  private static String sscc(final int identifierId, final int rangeFrom) {
+    return """
+        {
+          "identifierId": %d,
+          "objectIdentifierSyntax": "URN",
+          "parentData": {
+            "sscc": {
+              "identifierType": "sscc",
+              "gcpLength": 8,
+              "gcp": "783748374",
+              "serialType": "range",
+              "rangeFrom": %d
+            }
+          }
+        }"""
+        .formatted(identifierId, rangeFrom);
+  }
+}
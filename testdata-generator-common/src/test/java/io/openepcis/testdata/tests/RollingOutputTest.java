@@ -0,0 +1,95 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.tests;
+
+import static io.openepcis.testdata.tests.OutputTestSupport.AGGREGATION_EVENT_TEMPLATE;
+import static io.openepcis.testdata.tests.OutputTestSupport.eventCount;
+import static io.openepcis.testdata.tests.OutputTestSupport.inputTemplate;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.openepcis.testdata.generator.EPCISEventGenerator;
+import io.openepcis.testdata.generator.reactivestreams.RollingEPCISDocumentOutput;
+import io.openepcis.testdata.generator.reactivestreams.StreamingEPCISDocument;
+import io.openepcis.testdata.generator.reactivestreams.StreamingEPCISDocumentOutput;
+import io.openepcis.testdata.generator.template.InputTemplate;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class RollingOutputTest {
+
+  private final ObjectMapper objectMapper = OutputTestSupport.objectMapper();
+
+  @TempDir Path directory;
+
+  private List<Path> write(final long maxEvents, final long maxBytes) throws Exception {
+    final InputTemplate inputTemplate = inputTemplate(AGGREGATION_EVENT_TEMPLATE);
+    final StreamingEPCISDocument document = new StreamingEPCISDocument();
+    StreamingEPCISDocument.storeContextInfo(inputTemplate.getEvents());
+    document.setEpcisEvents(EPCISEventGenerator.generate(inputTemplate));
+    return RollingEPCISDocumentOutput.builder()
+        .output(
+            StreamingEPCISDocumentOutput.outputStreamBuilder()
+                .objectMapper(objectMapper)
+                .directJson(true)
+                .build())
+        .directory(directory)
+        .prefix("rolling")
+        .maxEvents(maxEvents)
+        .maxBytes(maxBytes)
+        .build()
+        .write(document);
+  }
+
+  @Test
+  public void rollByEventCountTest() throws Exception {
+    final int expected = eventCount(AGGREGATION_EVENT_TEMPLATE);
+    final List<Path> paths = write(3, 0);
+    assertEquals((expected + 2) / 3, paths.size());
+    assertEquals(directory.resolve("rolling-00001.jsonld"), paths.get(0));
+    assertEquals(directory.resolve("rolling-00002.jsonld"), paths.get(1));
+
+    int total = 0;
+    for (final Path path : paths) {
+      final JsonNode document = objectMapper.readTree(Files.readAllBytes(path));
+      assertEquals("EPCISDocument", document.get("type").asText());
+      assertTrue(document.get("@context").isArray());
+      final int events = document.get("epcisBody").get("eventList").size();
+      assertTrue(events > 0 && events <= 3);
+      total += events;
+    }
+    assertEquals(expected, total);
+  }
+
+  @Test
+  public void rollByByteSizeTest() throws Exception {
+    final int expected = eventCount(AGGREGATION_EVENT_TEMPLATE);
+    // every event exceeds the limit, so each file holds exactly one event
+    final List<Path> paths = write(0, 1);
+    assertEquals(expected, paths.size());
+
+    int total = 0;
+    for (final Path path : paths) {
+      total += objectMapper.readTree(path.toFile()).get("epcisBody").get("eventList").size();
+    }
+    assertEquals(expected, total);
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.openepcis.model.epcis.ObjectEvent;
+import io.openepcis.testdata.generator.EPCISEventGenerator;
+import io.openepcis.testdata.generator.reactivestreams.EPCISEventPublisherOptions;
+import io.openepcis.testdata.generator.template.InputTemplate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class ShardedGenerationTest {
+
+  private static final int EVENT_COUNT = 95;
+
+  private static final int SHARD_SIZE = 10;
+
+  private static final String TEMPLATE =
+      """
+      {
+        "events": [{
+          "nodeId": 1,
+          "eventType": "ObjectEvent",
+          "eventCount": %d,
+          "seed": 42,
+          "locationPartyIdentifierSyntax": "URN",
+          "ordinaryEvent": true,
+          "action": "ADD",
+          "eventID": false,
+          "eventTime": {
+            "timeZoneOffset": "+02:00",
+            "fromTime": "2023-01-01T12:37:22+01:00",
+            "toTime": "2023-12-20T12:37:22+01:00"
+          },
+          "referencedIdentifier": [
+            {"identifierId": 1, "epcCount": 3},
+            {"identifierId": 2, "epcCount": 2}
+          ],
+          "parentReferencedIdentifier": {},
+          "outputReferencedIdentifier": []
+        }],
+        "identifiers": [{
+          "identifierId": 1,
+          "objectIdentifierSyntax": "URN",
+          "instanceData": {
+            "sgtin": {
+              "identifierType": "sgtin",
+              "gcpLength": 7,
+              "sgtin": "09521987654327",
+              "serialType": "range",
+              "rangeFrom": 100,
+              "count": 3
+            }
+          }
+        }, {
+          "identifierId": 2,
+          "objectIdentifierSyntax": "URN",
+          "instanceData": {
+            "sgtin": {
+              "identifierType": "sgtin",
+              "gcpLength": 7,
+              "sgtin": "09521987654327",
+              "serialType": "random",
+              "randomType": "ALPHA_NUMERIC",
+              "randomMinLength": 8,
+              "randomMaxLength": 12,
+              "randomCount": 2
+            }
+          }
+        }]
+      }
+      """;
+
+  private final ObjectMapper objectMapper =
+      new ObjectMapper()
+          .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+          .registerModule(new Jdk8Module())
+          .registerModule(new JavaTimeModule())
+          .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false)
+          .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  private List<ObjectEvent> generate(final EPCISEventPublisherOptions options) throws Exception {
+    final InputTemplate inputTemplate =
+        objectMapper.readValue(TEMPLATE.formatted(EVENT_COUNT), InputTemplate.class);
+    return EPCISEventGenerator.generate(inputTemplate, options)
+        .map(ObjectEvent.class::cast)
+        .collect()
+        .asList()
+        .await()
+        .indefinitely();
+  }
+
+  private String generateJson(final int workers) throws Exception {
+    return objectMapper.writeValueAsString(
+        generate(
+            EPCISEventPublisherOptions.builder()
+                .shardSize(SHARD_SIZE)
+                .shardWorkers(workers)
+                .build()));
+  }
+
+  @Test
+  public void outputIsIndependentOfWorkerCount() throws Exception {
+    final String expected = generateJson(1);
+    assertEquals(expected, generateJson(2));
+    assertEquals(expected, generateJson(4));
+    assertEquals(expected, generateJson(16));
+  }
+
+  @Test
+  public void rangeSerialsContinueAcrossShards() throws Exception {
+    final List<ObjectEvent> sequential = generate(EPCISEventPublisherOptions.DEFAULT);
+    final List<ObjectEvent> sharded =
+        generate(
+            EPCISEventPublisherOptions.builder().shardSize(SHARD_SIZE).shardWorkers(4).build());
+    assertEquals(EVENT_COUNT, sharded.size());
+    for (int i = 0; i < EVENT_COUNT; i++) {
+      // the first three EPCs use range serials, the remaining ones random serials
+      assertEquals(
+          sequential.get(i).getEpcList().subList(0, 3), sharded.get(i).getEpcList().subList(0, 3));
+    }
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.openepcis.model.epcis.EPCISEvent;
+import io.openepcis.testdata.generator.EPCISEventGenerator;
+import io.openepcis.testdata.generator.reactivestreams.StreamingEPCISDocument;
+import io.openepcis.testdata.generator.reactivestreams.WaitStrategy;
+import io.openepcis.testdata.generator.template.InputTemplate;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public class StreamingEPCISDocumentOutputTest {
+
+  private final ObjectMapper objectMapper =
+      new ObjectMapper()
+          .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+          .registerModule(new Jdk8Module())
+          .registerModule(new JavaTimeModule())
+          .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false)
+          .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  private InputTemplate inputTemplate() throws Exception {
+    return objectMapper.readValue(
+        getClass().getResourceAsStream("/CreateObjectEventInput.json"), InputTemplate.class);
+  }
+
+  /* generation waits for the gate, subscribing must return before it is opened */
+  @Test
+  public void writeAsyncDoesNotBlockSubscriber() throws Exception {
+    final InputTemplate inputTemplate = inputTemplate();
+    final CompletableFuture<Void> gate = new CompletableFuture<>();
+    final StreamingEPCISDocument document = new StreamingEPCISDocument();
+    StreamingEPCISDocument.storeContextInfo(inputTemplate.getEvents());
+    document.setEpcisEvents(
+        Uni.createFrom()
+            .item(gate::join)
+            .onItem()
+            .transformToMulti(v -> EPCISEventGenerator.generate(inputTemplate)));
+    final StringWriter out = new StringWriter();
+
+    final CompletableFuture<Void> written =
+        assertTimeoutPreemptively(
+            Duration.ofSeconds(10),
+            () ->
+                document
+                    .writeToWriterAsync(b -> b.objectMapper(objectMapper).writer(out).build())
+                    .subscribeAsCompletionStage());
+    assertFalse(written.isDone());
+
+    gate.complete(null);
+    written.get(30, TimeUnit.SECONDS);
+    final List<EPCISEvent> events =
+        EPCISEventGenerator.generate(inputTemplate).collect().asList().await().indefinitely();
+    assertEquals(
+        events.size(), objectMapper.readTree(out.toString()).at("/epcisBody/eventList").size());
+  }
+
+  // seeded, so every run generates the same events
+  private InputTemplate seededTemplate() throws Exception {
+    final InputTemplate inputTemplate = inputTemplate();
+    inputTemplate.getEvents().get(0).setEventCount(100);
+    inputTemplate.getEvents().get(0).setSeed(42L);
+    return inputTemplate;
+  }
+
+  private JsonNode writeEventList(
+      final Multi<EPCISEvent> events, final int ringSize, final WaitStrategy waitStrategy)
+      throws Exception {
+    final StreamingEPCISDocument document = new StreamingEPCISDocument();
+    document.setEpcisEvents(events);
+    final StringWriter out = new StringWriter();
+    document.writeToWriter(
+        b ->
+            b.objectMapper(objectMapper)
+                .ringSize(ringSize)
+                .waitStrategy(waitStrategy)
+                .writer(out)
+                .build());
+    return objectMapper.readTree(out.toString()).at("/epcisBody/eventList");
+  }
+
+  /* a tiny ring wraps around many times, the events must arrive complete and in order */
+  @Test
+  public void handoffKeepsEventOrder() throws Exception {
+    final InputTemplate inputTemplate = seededTemplate();
+    StreamingEPCISDocument.storeContextInfo(inputTemplate.getEvents());
+    final JsonNode expected =
+        writeEventList(EPCISEventGenerator.generate(inputTemplate), 0, WaitStrategy.YIELD);
+    assertEquals(100, expected.size());
+    for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+      for (int ringSize : new int[] {1, 2, 64}) {
+        assertEquals(
+            expected,
+            writeEventList(EPCISEventGenerator.generate(inputTemplate), ringSize, waitStrategy),
+            waitStrategy + " with ring size " + ringSize);
+      }
+    }
+  }
+
+  /* more events are only requested once the writer drained them from the ring */
+  @Test
+  public void handoffDemandIsBoundedByRing() throws Exception {
+    final InputTemplate inputTemplate = seededTemplate();
+    StreamingEPCISDocument.storeContextInfo(inputTemplate.getEvents());
+    final AtomicLong requested = new AtomicLong();
+    final AtomicLong emitted = new AtomicLong();
+    final AtomicLong maxOutstanding = new AtomicLong();
+    final Multi<EPCISEvent> events =
+        EPCISEventGenerator.generate(inputTemplate)
+            .onRequest()
+            .invoke(
+                n ->
+                    maxOutstanding.accumulateAndGet(
+                        requested.addAndGet(n) - emitted.get(), Math::max))
+            .onItem()
+            .invoke(emitted::incrementAndGet);
+
+    assertEquals(100, writeEventList(events, 8, WaitStrategy.PARK).size());
+    assertTrue(maxOutstanding.get() <= 8, "outstanding demand " + maxOutstanding.get());
+  }
+}
@@ -0,0 +1,411 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.api.resource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.openepcis.model.rest.ProblemResponseBody;
+import io.openepcis.testdata.generator.EPCISEventGenerator;
+import io.openepcis.testdata.generator.constants.TestDataGeneratorException;
+import io.openepcis.testdata.generator.model.EventGraph;
+import io.openepcis.testdata.generator.reactivestreams.CaptureOutput;
+import io.openepcis.testdata.generator.reactivestreams.EPCISDocumentFormat;
+import io.openepcis.testdata.generator.reactivestreams.EPCISEventPublisherOptions;
+import io.openepcis.testdata.generator.reactivestreams.StreamingEPCISDocument;
+import io.openepcis.testdata.generator.reactivestreams.StreamingEPCISDocumentOutput;
+import io.openepcis.testdata.generator.template.InputTemplate;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import io.smallrye.mutiny.subscription.Cancellable;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.net.URI;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
+import org.eclipse.microprofile.openapi.annotations.media.Content;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+import org.jboss.resteasy.reactive.RestResponse;
+
+@Slf4j
+@Singleton
+@Path("/api/captureJobs")
+@Tag(name = "Test Data Generator")
+@RegisterForReflection
+public class CaptureJobResource {
+
+  @Inject ObjectMapper objectMapper;
+
+  @Inject Validator validator;
+
+  // capture urls jobs may post to, capture jobs are disabled if not configured
+  @ConfigProperty(name = "testdata-generator.capture.allowed-urls")
+  Optional<List<String>> allowedUrls;
+
+  // jobs kept at once, the oldest finished jobs are dropped to make room for new ones
+  @ConfigProperty(name = "testdata-generator.capture.max-jobs", defaultValue = "32")
+  int maxJobs;
+
+  // finished jobs are dropped after this duration
+  @ConfigProperty(name = "testdata-generator.capture.job-retention", defaultValue = "PT1H")
+  Duration jobRetention;
+
+  // root events generated per demand round-trip
+  @ConfigProperty(name = "testdata-generator.generation-batch-size", defaultValue = "256")
+  int generationBatchSize;
+
+  private final Map<String, CaptureJob> jobs = new ConcurrentHashMap<>();
+
+  @Getter
+  @RegisterForReflection
+  public static class CaptureJob {
+    public enum Status {
+      RUNNING,
+      COMPLETED,
+      FAILED,
+      CANCELLED
+    }
+
+    private final String id;
+    private final String captureUrl;
+    private final OffsetDateTime started;
+    private final Duration compileTime;
+    private volatile OffsetDateTime finished;
+    private volatile Status status = Status.RUNNING;
+    private volatile CaptureOutput.Result result;
+    private volatile String error;
+
+    @Getter(AccessLevel.NONE)
+    private volatile Cancellable cancellable;
+
+    CaptureJob(final String id, final String captureUrl, final Duration compileTime) {
+      this.id = id;
+      this.captureUrl = captureUrl;
+      this.started = OffsetDateTime.now();
+      this.compileTime = compileTime;
+    }
+
+    synchronized void complete(final CaptureOutput.Result result) {
+      if (status == Status.RUNNING) {
+        this.result = result;
+        finish(Status.COMPLETED);
+      }
+    }
+
+    synchronized void fail(final String error) {
+      if (status == Status.RUNNING) {
+        this.error = error;
+        finish(Status.FAILED);
+      }
+    }
+
+    // the job may have been cancelled before generation started
+    synchronized void started(final Cancellable cancellable) {
+      if (status == Status.RUNNING) {
+        this.cancellable = cancellable;
+      } else {
+        cancellable.cancel();
+      }
+    }
+
+    synchronized void cancel() {
+      if (status == Status.RUNNING) {
+        if (cancellable != null) {
+          cancellable.cancel();
+        }
+        finish(Status.CANCELLED);
+      }
+    }
+
+    private void finish(final Status status) {
+      this.finished = OffsetDateTime.now();
+      this.status = status;
+    }
+  }
+
+  @Operation(
+      summary =
+          "Generate EPCIS test data events using the InputTemplate and post them in batches to an EPCIS capture interface.")
+  @POST
+  @Consumes(MediaType.APPLICATION_JSON)
+  @Produces(MediaType.APPLICATION_JSON)
+  @APIResponses(
+      value = {
+        @APIResponse(
+            responseCode = "202",
+            description = "Accepted: the capture job has been started.",
+            content = @Content(schema = @Schema(implementation = CaptureJob.class))),
+        @APIResponse(
+            responseCode = "400",
+            description =
+                "Bad Request: invalid InputTemplate or capture url which is not allowed.",
+            content = @Content(schema = @Schema(implementation = ProblemResponseBody.class))),
+        @APIResponse(
+            responseCode = "429",
+            description = "Too Many Requests: the maximum number of capture jobs is running.",
+            content = @Content(schema = @Schema(implementation = ProblemResponseBody.class)))
+      })
+  public RestResponse<CaptureJob> startCaptureJob(
+      final Map<String, Object> input,
+      @Parameter(
+              description = "EPCIS capture interface receiving the events",
+              example = "http://localhost:8080/capture",
+              required = true)
+          @QueryParam("captureUrl")
+          final String captureUrl,
+      @Parameter(
+              description = "Events per posted EPCIS document",
+              schema = @Schema(type = SchemaType.INTEGER, required = false))
+          @QueryParam("batchSize")
+          @DefaultValue("" + CaptureOutput.DEFAULT_BATCH_SIZE)
+          final int batchSize,
+      @Parameter(
+              description = "Capture requests in flight, generation waits once all are in flight",
+              schema = @Schema(type = SchemaType.INTEGER, required = false))
+          @QueryParam("concurrency")
+          @DefaultValue("" + CaptureOutput.DEFAULT_CONCURRENCY)
+          final int concurrency,
+      @Parameter(
+              description = "Stop generating after this many events (0 for no limit)",
+              schema = @Schema(type = SchemaType.INTEGER, required = false))
+          @QueryParam("maxEvents")
+          final long maxEvents,
+      @Parameter(
+              description = "Post XML instead of JSON-LD documents",
+              schema = @Schema(type = SchemaType.BOOLEAN, required = false))
+          @QueryParam("xml")
+          final boolean xml,
+      @Parameter(
+              description = "Authorization header sent with every capture request",
+              schema = @Schema(type = SchemaType.STRING, required = false))
+          @HeaderParam("X-Capture-Authorization")
+          final String captureAuthorization)
+      throws TestDataGeneratorException {
+    final URI uri = captureUri(captureUrl);
+    final InputTemplate inputTemplate = inputTemplate(input);
+    final StreamingEPCISDocument streamingEPCISDocument = new StreamingEPCISDocument();
+    StreamingEPCISDocument.storeContextInfo(inputTemplate.getEvents());
+    StreamingEPCISDocument.storeContextUrls(inputTemplate.getContextUrls());
+    streamingEPCISDocument.setMaxEvents(maxEvents);
+    final EventGraph eventGraph = EPCISEventGenerator.compile(inputTemplate);
+    streamingEPCISDocument.setCompileTime(eventGraph.getCompileTime());
+    streamingEPCISDocument.setEpcisEvents(
+        EPCISEventGenerator.generate(
+            eventGraph,
+            EPCISEventPublisherOptions.builder().batchSize(generationBatchSize).build()));
+    final CaptureOutput.Builder builder =
+        CaptureOutput.builder()
+            .output(
+                StreamingEPCISDocumentOutput.outputStreamBuilder()
+                    .objectMapper(objectMapper)
+                    .virtualThreads(true)
+                    .directJson(true)
+                    .format(xml ? EPCISDocumentFormat.XML : EPCISDocumentFormat.JSON_LD)
+                    .build())
+            .uri(uri)
+            .batchSize(batchSize)
+            .concurrency(concurrency)
+            .requestTimeout(Duration.ofSeconds(30));
+    if (captureAuthorization != null) {
+      builder.header("Authorization", captureAuthorization);
+    }
+    final CaptureJob job =
+        new CaptureJob(
+            UUID.randomUUID().toString(), uri.toString(), eventGraph.getCompileTime());
+    addJob(job);
+    job.started(
+        builder
+            .build()
+            .writeAsync(streamingEPCISDocument)
+            .subscribe()
+            .with(
+                job::complete,
+                failure -> {
+                  log.info("capture job {} failed: {}", job.getId(), failure.getMessage());
+                  job.fail(failure.getMessage());
+                }));
+    return RestResponse.ResponseBuilder.<CaptureJob>accepted()
+        .location(URI.create("api/captureJobs/" + job.getId()))
+        .entity(job)
+        .build();
+  }
+
+  @Operation(summary = "List the capture jobs started since the service is running.")
+  @GET
+  @Produces(MediaType.APPLICATION_JSON)
+  public Collection<CaptureJob> captureJobs() {
+    removeExpiredJobs();
+    return jobs.values();
+  }
+
+  @Operation(summary = "Status and result of a capture job.")
+  @GET
+  @Path("/{id}")
+  @Produces(MediaType.APPLICATION_JSON)
+  public CaptureJob captureJob(@PathParam("id") final String id) {
+    final CaptureJob job = jobs.get(id);
+    if (job == null) {
+      throw new NotFoundException("Capture job " + id + " not found");
+    }
+    return job;
+  }
+
+  @Operation(summary = "Cancel a running capture job and remove it.")
+  @DELETE
+  @Path("/{id}")
+  @Produces(MediaType.APPLICATION_JSON)
+  @APIResponses(
+      value = {
+        @APIResponse(
+            responseCode = "200",
+            description = "OK: the capture job has been cancelled if running and removed.",
+            content = @Content(schema = @Schema(implementation = CaptureJob.class))),
+        @APIResponse(
+            responseCode = "404",
+            description = "Not Found: no capture job with this id.",
+            content = @Content(schema = @Schema(implementation = ProblemResponseBody.class)))
+      })
+  public CaptureJob deleteCaptureJob(@PathParam("id") final String id) {
+    final CaptureJob job = jobs.remove(id);
+    if (job == null) {
+      throw new NotFoundException("Capture job " + id + " not found");
+    }
+    job.cancel();
+    return job;
+  }
+
+  private synchronized void addJob(final CaptureJob job) {
+    removeExpiredJobs();
+    if (jobs.size() >= maxJobs) {
+      jobs.values().stream()
+          .filter(j -> j.getFinished() != null)
+          .sorted(Comparator.comparing(CaptureJob::getFinished))
+          .limit(jobs.size() - maxJobs + 1L)
+          .toList()
+          .forEach(j -> jobs.remove(j.getId()));
+    }
+    if (jobs.size() >= maxJobs) {
+      throw new ClientErrorException(
+          maxJobs + " capture jobs are running, cancel one or retry later",
+          Response.Status.TOO_MANY_REQUESTS);
+    }
+    jobs.put(job.getId(), job);
+  }
+
+  private void removeExpiredJobs() {
+    final OffsetDateTime expired = OffsetDateTime.now().minus(jobRetention);
+    jobs.values().removeIf(j -> j.getFinished() != null && j.getFinished().isBefore(expired));
+  }
+
+  private URI captureUri(final String captureUrl) throws TestDataGeneratorException {
+    if (captureUrl == null || captureUrl.isBlank()) {
+      throw new TestDataGeneratorException("captureUrl is required");
+    }
+    if (allowedUrls.isEmpty() || allowedUrls.get().isEmpty()) {
+      throw new TestDataGeneratorException(
+          "Capture jobs are disabled, configure testdata-generator.capture.allowed-urls to enable them");
+    }
+    final URI uri;
+    try {
+      uri = URI.create(captureUrl.trim()).normalize();
+    } catch (IllegalArgumentException ex) {
+      throw new TestDataGeneratorException("Invalid captureUrl : " + ex.getMessage(), ex);
+    }
+    if (!"http".equalsIgnoreCase(uri.getScheme()) && !"https".equalsIgnoreCase(uri.getScheme())) {
+      throw new TestDataGeneratorException("captureUrl must be a http or https url");
+    }
+    if (uri.getHost() == null || uri.getRawUserInfo() != null) {
+      throw new TestDataGeneratorException("captureUrl must have a host and no user info");
+    }
+    if (allowedUrls.get().stream().noneMatch(allowed -> allows(URI.create(allowed.trim()), uri))) {
+      throw new TestDataGeneratorException("captureUrl " + uri + " is not allowed");
+    }
+    return uri;
+  }
+
+  // scheme, host and port must be equal, the path must start with the allowed path
+  static boolean allows(final URI allowed, final URI uri) {
+    final String allowedPath = Optional.ofNullable(allowed.getRawPath()).orElse("");
+    final String path = Optional.ofNullable(uri.getRawPath()).orElse("");
+    return !hasDotSegment(uri)
+        && uri.getScheme().equalsIgnoreCase(allowed.getScheme())
+        && uri.getHost().equalsIgnoreCase(allowed.getHost())
+        && port(uri) == port(allowed)
+        && (allowedPath.isEmpty()
+            || path.equals(allowedPath)
+            || path.startsWith(allowedPath.endsWith("/") ? allowedPath : allowedPath + "/"));
+  }
+
+  // dot segments left after normalizing were percent-encoded, the capture server may resolve them
+  private static boolean hasDotSegment(final URI uri) {
+    final String path = Optional.ofNullable(uri.getPath()).orElse("");
+    for (String segment : path.split("/")) {
+      if (segment.equals(".") || segment.equals("..")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int port(final URI uri) {
+    if (uri.getPort() != -1) {
+      return uri.getPort();
+    }
+    return "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+  }
+
+  private InputTemplate inputTemplate(final Map<String, Object> input)
+      throws TestDataGeneratorException {
+    final InputTemplate inputTemplate;
+    try {
+      inputTemplate = objectMapper.convertValue(input, InputTemplate.class);
+    } catch (Exception ex) {
+      throw new TestDataGeneratorException(
+          "Error occurred during the deserialization of JSON InputTemplate, Please check the provided InputTemplate : "
+              + ex.getMessage(),
+          ex);
+    }
+    final Set<ConstraintViolation<InputTemplate>> violations = validator.validate(inputTemplate);
+    if (!violations.isEmpty()) {
+      throw new TestDataGeneratorException(
+          violations.stream()
+              .map(ConstraintViolation::getMessage)
+              .collect(Collectors.joining(", ")));
+    }
+    return inputTemplate;
+  }
+}
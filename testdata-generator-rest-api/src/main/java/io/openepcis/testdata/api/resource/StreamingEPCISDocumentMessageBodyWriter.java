@@ -16,9 +16,12 @@
 package io.openepcis.testdata.api.resource;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.openepcis.testdata.generator.reactivestreams.Compression;
+import io.openepcis.testdata.generator.reactivestreams.EPCISDocumentFormat;
 import io.openepcis.testdata.generator.reactivestreams.StreamingEPCISDocument;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.MultivaluedMap;
 import jakarta.ws.rs.ext.MessageBodyWriter;
@@ -27,16 +30,35 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.util.Locale;
 import lombok.RequiredArgsConstructor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 @Provider
 @RequiredArgsConstructor
-@Produces(MediaType.APPLICATION_JSON)
+@Produces({
+  MediaType.APPLICATION_JSON,
+  EPCISDocumentFormat.APPLICATION_NDJSON,
+  MediaType.APPLICATION_XML,
+  EPCISDocumentFormat.APPLICATION_CBOR,
+  EPCISDocumentFormat.APPLICATION_SMILE,
+  EPCISDocumentFormat.APPLICATION_PROTOBUF,
+  EPCISDocumentFormat.APPLICATION_AVRO
+})
 public class StreamingEPCISDocumentMessageBodyWriter
     implements MessageBodyWriter<StreamingEPCISDocument> {
 
+  static final String SERVER_TIMING = "Server-Timing";
+
+  private static final int REQUEST_WINDOW = 256;
+
+  private static final int MAX_REQUEST_WINDOW = 1024;
+
   private final ObjectMapper objectMapper;
 
+  @ConfigProperty(name = "testdata-generator.compression-level", defaultValue = "-1")
+  int compressionLevel;
+
   @Override
   public long getSize(
       StreamingEPCISDocument streamingEPCISDocument,
@@ -63,7 +85,36 @@ public class StreamingEPCISDocumentMessageBodyWriter
       MultivaluedMap<String, Object> httpHeaders,
       OutputStream entityStream)
       throws IOException, WebApplicationException {
+    final EPCISDocumentFormat format =
+        EPCISDocumentFormat.forMediaType(mediaType.getType() + "/" + mediaType.getSubtype());
+    // compression has been negotiated from Accept-Encoding by the resource, Avro compresses its
+    // blocks instead of the response
+    httpHeaders.putSingle(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (streamingEPCISDocument.getCompression() != Compression.NONE
+        && !format.isBlockCompressed()) {
+      httpHeaders.putSingle(
+          HttpHeaders.CONTENT_ENCODING,
+          streamingEPCISDocument.getCompression().getContentEncoding());
+    }
+    if (streamingEPCISDocument.getCompileTime() != null) {
+      // template compile time in milliseconds, generating and writing follow in the body
+      httpHeaders.putSingle(
+          SERVER_TIMING,
+          String.format(
+              Locale.ROOT,
+              "compile;dur=%.3f",
+              streamingEPCISDocument.getCompileTime().toNanos() / 1_000_000d));
+    }
     streamingEPCISDocument.writeToOutputStream(
-        b -> b.objectMapper(objectMapper).outputStream(entityStream).build());
+        b ->
+            b.objectMapper(objectMapper)
+                .requestWindow(REQUEST_WINDOW)
+                .maxRequestWindow(MAX_REQUEST_WINDOW)
+                .virtualThreads(true)
+                .directJson(true)
+                .format(format)
+                .compressionLevel(compressionLevel)
+                .outputStream(entityStream)
+                .build());
   }
 }
@@ -23,21 +23,30 @@ import io.openepcis.model.epcis.EPCISDocument;
 import io.openepcis.model.rest.ProblemResponseBody;
 import io.openepcis.testdata.generator.EPCISEventGenerator;
 import io.openepcis.testdata.generator.constants.TestDataGeneratorException;
+import io.openepcis.testdata.generator.model.EventGraph;
+import io.openepcis.testdata.generator.reactivestreams.Compression;
+import io.openepcis.testdata.generator.reactivestreams.EPCISDocumentFormat;
+import io.openepcis.testdata.generator.reactivestreams.EPCISEventPublisherOptions;
 import io.openepcis.testdata.generator.reactivestreams.StreamingEPCISDocument;
 import io.openepcis.testdata.generator.template.InputTemplate;
 import io.quarkus.runtime.annotations.RegisterForReflection;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import io.smallrye.mutiny.Uni;
 import jakarta.inject.Inject;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import java.io.*;
+import java.time.Duration;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
+import org.eclipse.microprofile.openapi.annotations.headers.Header;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.ExampleObject;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
@@ -58,6 +67,10 @@ public class TestDataGeneratorResource {
 
   @Inject VersionTransformer versionTransformer;
 
+  // root events generated per demand round-trip, the document writer requests in larger windows
+  @ConfigProperty(name = "testdata-generator.generation-batch-size", defaultValue = "256")
+  int generationBatchSize;
+
   // Method to Generator test data based on the provided JSON data template and show the appropriate
   // error messages
   @Operation(
@@ -65,8 +78,18 @@ public class TestDataGeneratorResource {
           "Generate list of EPCIS test data events using the desired supply chain systems InputTemplate.")
   @Path("/generateTestData")
   @POST
+  // Quarkus falls back to its worker pool on Java 17, which has no virtual threads
+  @RunOnVirtualThread
   @Consumes(MediaType.APPLICATION_JSON)
-  @Produces(MediaType.APPLICATION_JSON)
+  @Produces({
+    MediaType.APPLICATION_JSON,
+    EPCISDocumentFormat.APPLICATION_NDJSON,
+    MediaType.APPLICATION_XML,
+    EPCISDocumentFormat.APPLICATION_CBOR,
+    EPCISDocumentFormat.APPLICATION_SMILE,
+    EPCISDocumentFormat.APPLICATION_PROTOBUF,
+    EPCISDocumentFormat.APPLICATION_AVRO
+  })
   @RequestBody(
       description = "TestData Generator InputTemplate",
       content =
@@ -87,10 +110,49 @@ public class TestDataGeneratorResource {
         @APIResponse(
             responseCode = "200",
             description = "OK: EPCIS Test Data events created successfully.",
-            content =
-                @Content(
-                    schema =
-                        @Schema(type = SchemaType.OBJECT, implementation = EPCISDocument.class))),
+            headers =
+                @Header(
+                    name = "Server-Timing",
+                    description = "Time taken to compile the InputTemplate, e.g. compile;dur=1.234",
+                    schema = @Schema(type = SchemaType.STRING)),
+            content = {
+              @Content(
+                  mediaType = MediaType.APPLICATION_JSON,
+                  schema = @Schema(type = SchemaType.OBJECT, implementation = EPCISDocument.class)),
+              @Content(
+                  mediaType = EPCISDocumentFormat.APPLICATION_NDJSON,
+                  schema =
+                      @Schema(
+                          type = SchemaType.STRING,
+                          description =
+                              "One event per line, the first line carries the @context")),
+              @Content(
+                  mediaType = MediaType.APPLICATION_XML,
+                  schema = @Schema(type = SchemaType.OBJECT, implementation = EPCISDocument.class)),
+              @Content(
+                  mediaType = EPCISDocumentFormat.APPLICATION_CBOR,
+                  schema = @Schema(type = SchemaType.STRING, format = "binary")),
+              @Content(
+                  mediaType = EPCISDocumentFormat.APPLICATION_SMILE,
+                  schema = @Schema(type = SchemaType.STRING, format = "binary")),
+              @Content(
+                  mediaType = EPCISDocumentFormat.APPLICATION_PROTOBUF,
+                  schema =
+                      @Schema(
+                          type = SchemaType.STRING,
+                          format = "binary",
+                          description =
+                              "Length-delimited EPCISEventMessage, see proto/epcis-event.proto")),
+              @Content(
+                  mediaType = EPCISDocumentFormat.APPLICATION_AVRO,
+                  schema =
+                      @Schema(
+                          type = SchemaType.STRING,
+                          format = "binary",
+                          description =
+                              "Avro object container file, see avro/epcis-event.avsc. The"
+                                  + " negotiated Accept-Encoding compresses the blocks"))
+            }),
         @APIResponse(
             responseCode = "400",
             description =
@@ -129,7 +191,57 @@ public class TestDataGeneratorResource {
                       description = "empty defaults to true",
                       enumeration = {"true", "false", ""}))
           @QueryParam("pretty")
-          final boolean pretty)
+          final boolean pretty,
+      @Parameter(
+              description =
+                  "Generate independent root event nodes (no shared parent nodes or identifiers) in parallel",
+              schema = @Schema(type = SchemaType.BOOLEAN, required = false))
+          @QueryParam("parallel")
+          final boolean parallel,
+      @Parameter(
+              description =
+                  "Order of events generated in parallel: INTERLEAVED (one event per root node after the other) or GROUPED (events of one root node in blocks)",
+              schema =
+                  @Schema(
+                      type = SchemaType.STRING,
+                      required = false,
+                      enumeration = {"INTERLEAVED", "GROUPED"}))
+          @QueryParam("merge")
+          @DefaultValue("INTERLEAVED")
+          final EPCISEventPublisherOptions.MergeMode mergeMode,
+      @Parameter(
+              description =
+                  "Stop generating after this many events, the document is closed as if complete (0 for no limit)",
+              schema = @Schema(type = SchemaType.INTEGER, required = false))
+          @QueryParam("maxEvents")
+          final long maxEvents,
+      @Parameter(
+              description =
+                  "Stop generating once the document reached this size in bytes, the document is closed as if complete (0 for no limit)",
+              schema = @Schema(type = SchemaType.INTEGER, required = false))
+          @QueryParam("maxBytes")
+          final long maxBytes,
+      @Parameter(
+              description =
+                  "Stop generating after this many seconds, the document is closed as if complete (0 for no limit)",
+              schema = @Schema(type = SchemaType.INTEGER, required = false))
+          @QueryParam("timeout")
+          final long timeout,
+      @Parameter(
+              description =
+                  "EPCIS version of XML output, 2.0 unless 1.2 is requested (JSON output is always 2.0)",
+              schema =
+                  @Schema(
+                      type = SchemaType.STRING,
+                      required = false,
+                      enumeration = {"2.0", "1.2"}))
+          @HeaderParam("GS1-EPCIS-Version")
+          final String epcisVersion,
+      @Parameter(
+              description = "Compress the response with zstd or gzip",
+              schema = @Schema(type = SchemaType.STRING, required = false))
+          @HeaderParam(HttpHeaders.ACCEPT_ENCODING)
+          final String acceptEncoding)
       throws TestDataGeneratorException {
     final InputTemplate inputTemplate;
 
@@ -159,7 +271,24 @@ public class TestDataGeneratorResource {
         StreamingEPCISDocument.storeContextInfo(inputTemplate.getEvents());
         StreamingEPCISDocument.storeContextUrls(inputTemplate.getContextUrls());
         streamingEPCISDocument.setPrettyPrint(pretty);
-        streamingEPCISDocument.setEpcisEvents(EPCISEventGenerator.generate(inputTemplate));
+        streamingEPCISDocument.setMaxEvents(maxEvents);
+        streamingEPCISDocument.setMaxBytes(maxBytes);
+        streamingEPCISDocument.setTimeout(timeout > 0 ? Duration.ofSeconds(timeout) : null);
+        streamingEPCISDocument.setEpcisVersion(
+            epcisVersion != null && epcisVersion.trim().startsWith("1.2")
+                ? EPCISVersion.VERSION_1_2_0
+                : EPCISVersion.VERSION_2_0_0);
+        streamingEPCISDocument.setCompression(Compression.forAcceptEncoding(acceptEncoding));
+        final EventGraph eventGraph = EPCISEventGenerator.compile(inputTemplate);
+        streamingEPCISDocument.setCompileTime(eventGraph.getCompileTime());
+        streamingEPCISDocument.setEpcisEvents(
+            EPCISEventGenerator.generate(
+                eventGraph,
+                EPCISEventPublisherOptions.builder()
+                    .batchSize(generationBatchSize)
+                    .parallel(parallel)
+                    .mergeMode(mergeMode)
+                    .build()));
         return streamingEPCISDocument;
       } else {
         // If there are any validation error then append all messages using , operator
@@ -173,6 +302,8 @@ public class TestDataGeneratorResource {
     }
   }
 
+  // kept for clients posting previously generated JSON, /generateTestData writes XML directly
+  // with Accept: application/xml
   @Operation(summary = "Convert the generated JSON events to XML format.", hidden = true)
   @Path("/generateTestDataXML")
   @POST
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.api.resource.test;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.openepcis.resources.util.Commons;
+import io.openepcis.testdata.api.resource.CaptureJobResource;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.common.http.TestHTTPEndpoint;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.path.json.JsonPath;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import java.net.URL;
+import java.util.List;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+@QuarkusTestResource(value = CaptureStubResource.class, restrictToAnnotatedClass = true)
+public class CaptureJobResourceTest {
+
+  @TestHTTPEndpoint(CaptureJobResource.class)
+  @TestHTTPResource
+  URL url;
+
+  @ConfigProperty(name = "testdata-generator.capture.allowed-urls")
+  List<String> allowedUrls;
+
+  private JsonPath startJob(final String captureUrl, final int status) {
+    return given()
+        .body(Commons.getInputStream("CreateObjectEventInput.json"))
+        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON)
+        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON)
+        .queryParam("captureUrl", captureUrl)
+        .when()
+        .post(url.toString())
+        .then()
+        .statusCode(status)
+        .extract()
+        .jsonPath();
+  }
+
+  private JsonPath job(final String id) {
+    return given()
+        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON)
+        .when()
+        .get(url + "/" + id)
+        .then()
+        .statusCode(200)
+        .extract()
+        .jsonPath();
+  }
+
+  /* CreateObjectEventInput creates 2 ObjectEvents, both are posted to the stub capture interface */
+  @Test
+  void captureJobTest() throws Exception {
+    final String id = startJob(allowedUrls.get(0), 202).getString("id");
+
+    JsonPath job = job(id);
+    for (int i = 0; i < 100 && "RUNNING".equals(job.getString("status")); i++) {
+      Thread.sleep(100);
+      job = job(id);
+    }
+    assertEquals("COMPLETED", job.getString("status"));
+    assertEquals(2, job.getLong("result.events"));
+    assertNotNull(job.get("compileTime"));
+
+    final List<String> ids =
+        given()
+            .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON)
+            .when()
+            .get(url.toString())
+            .then()
+            .statusCode(200)
+            .extract()
+            .jsonPath()
+            .getList("id");
+    assertTrue(ids.contains(id));
+  }
+
+  @Test
+  void disallowedCaptureUrlTest() {
+    final String allowed = allowedUrls.get(0);
+    startJob("http://example.com/capture", 400);
+    // user info must not sneak another host behind an allowed prefix
+    startJob(allowed.replace("/capture", "@example.com/capture"), 400);
+    startJob(allowed + "/../admin", 400);
+    // encoded dot segments are not removed by normalizing
+    startJob(allowed + "/%2e%2e/admin", 400);
+    startJob(allowed + "/%2E%2E%2Fadmin", 400);
+    startJob(allowed + "s", 400);
+  }
+
+  @Test
+  void deleteCaptureJobTest() {
+    final String id = startJob(allowedUrls.get(0), 202).getString("id");
+
+    final String status =
+        given()
+            .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON)
+            .when()
+            .delete(url + "/" + id)
+            .then()
+            .statusCode(200)
+            .extract()
+            .jsonPath()
+            .getString("status");
+    assertTrue(status.equals("CANCELLED") || status.equals("COMPLETED"));
+
+    given().when().get(url + "/" + id).then().statusCode(404);
+    given().when().delete(url + "/" + id).then().statusCode(404);
+  }
+}
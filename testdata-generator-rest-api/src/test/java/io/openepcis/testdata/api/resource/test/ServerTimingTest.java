@@ -0,0 +1,61 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.api.resource.test;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.openepcis.resources.util.Commons;
+import io.openepcis.testdata.api.resource.TestDataGeneratorResource;
+import io.quarkus.test.common.http.TestHTTPEndpoint;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import java.net.URL;
+import org.junit.jupiter.api.Test;
+
+/** The compile time of the template is reported before the events are written. */
+@QuarkusTest
+public class ServerTimingTest {
+
+  @TestHTTPEndpoint(TestDataGeneratorResource.class)
+  @TestHTTPResource
+  URL url;
+
+  private String serverTiming(final String accept) {
+    return given()
+        .body(Commons.getInputStream("CreateObjectEventInput.json"))
+        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON)
+        .header(HttpHeaders.ACCEPT, accept)
+        .when()
+        .post(url + "/generateTestData")
+        .then()
+        .statusCode(200)
+        .extract()
+        .header("Server-Timing");
+  }
+
+  @Test
+  void compileTimeTest() {
+    for (String accept : new String[] {MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML}) {
+      final String serverTiming = serverTiming(accept);
+      assertTrue(
+          serverTiming != null && serverTiming.matches("compile;dur=\\d+\\.\\d{3}"),
+          accept + ": " + serverTiming);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2022-2024 benelog GmbH & Co. KG
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package io.openepcis.testdata.api.resource.test;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.openepcis.constants.EPCISFormat;
+import io.openepcis.constants.EPCISVersion;
+import io.openepcis.converter.VersionTransformer;
+import io.openepcis.resources.util.Commons;
+import io.openepcis.testdata.api.resource.TestDataGeneratorResource;
+import io.quarkus.test.common.http.TestHTTPEndpoint;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URL;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * XML documents are written directly in EPCIS 2.0 or 1.2, both have to be readable by the
+ * document converter. EPCIS 1.2 documents pass the 1.2 to 2.0 transformation of the converter
+ * first, so misplaced extension elements lose their events or fields.
+ */
+@QuarkusTest
+public class XmlDocumentTest {
+
+  @TestHTTPEndpoint(TestDataGeneratorResource.class)
+  @TestHTTPResource
+  URL url;
+
+  @Inject ObjectMapper objectMapper;
+
+  @Inject VersionTransformer versionTransformer;
+
+  private byte[] generateXml(final String input, final String epcisVersion) {
+    return given()
+        .body(Commons.getInputStream(input))
+        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON)
+        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_XML)
+        .header("GS1-EPCIS-Version", epcisVersion)
+        .when()
+        .post(url + "/generateTestData")
+        .then()
+        .statusCode(200)
+        .extract()
+        .asByteArray();
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "CreateObjectEventInput.json, 2.0",
+    "CreateObjectEventInput.json, 1.2",
+    "CreateAggregationEventInput.json, 2.0",
+    "CreateAggregationEventInput.json, 1.2",
+    "CreateTransactionEventInput.json, 2.0",
+    "CreateTransactionEventInput.json, 1.2",
+    "CreateTransformationEventInput.json, 2.0",
+    "CreateTransformationEventInput.json, 1.2",
+    "CreateAssociationEventInput.json, 2.0",
+    "CreateAssociationEventInput.json, 1.2"
+  })
+  void xmlDocumentTest(final String input, final String epcisVersion) throws Exception {
+    final byte[] xml = generateXml(input, epcisVersion);
+    assertTrue(
+        new String(xml).contains("schemaVersion=\"" + epcisVersion + "\""),
+        "document is not written in EPCIS " + epcisVersion);
+
+    final JsonNode template = objectMapper.readTree(Commons.getInputStream(input));
+    final JsonNode event = template.at("/events/0");
+    final JsonNode document;
+    try (InputStream json =
+        versionTransformer.convert(
+            new ByteArrayInputStream(xml),
+            b ->
+                b.fromMediaType(EPCISFormat.XML)
+                    .toMediaType(EPCISFormat.JSON_LD)
+                    .toVersion(EPCISVersion.VERSION_2_0_0))) {
+      document = objectMapper.readTree(json);
+    }
+
+    final JsonNode eventList = document.at("/epcisBody/eventList");
+    assertEquals(event.get("eventCount").asInt(), eventList.size());
+    for (JsonNode converted : eventList) {
+      assertEquals(event.get("eventType").asText(), converted.get("type").asText());
+      // eventID is written into the baseExtension of EPCIS 1.2 events
+      assertEquals(event.get("eventID").asBoolean(), converted.has("eventID"));
+    }
+  }
+}